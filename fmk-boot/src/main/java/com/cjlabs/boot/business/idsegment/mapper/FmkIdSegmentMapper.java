@@ -0,0 +1,14 @@
+package com.cjlabs.boot.business.idsegment.mapper;
+
+import com.cjlabs.boot.business.idsegment.mysql.FmkIdSegment;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * fmk_id_segment 号段ID分配表
+ */
+@Mapper
+public interface FmkIdSegmentMapper extends BaseMapper<FmkIdSegment> {
+
+}
@@ -0,0 +1,51 @@
+package com.cjlabs.boot.business.idsegment.mapper;
+
+import com.cjlabs.boot.business.idsegment.mysql.FmkIdSegment;
+import com.cjlabs.db.mp.FmkService;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * fmk_id_segment 号段ID分配表
+ * <p>
+ * max_id 只通过 UPDATE max_id = max_id + step 推进，依靠数据库行锁保证号段不重叠
+ */
+@Slf4j
+@Service
+public class FmkIdSegmentWrapMapper extends FmkService<FmkIdSegmentMapper, FmkIdSegment> {
+
+    protected FmkIdSegmentWrapMapper(FmkIdSegmentMapper mapper) {
+        super(mapper);
+    }
+
+    @Override
+    protected Class<FmkIdSegment> getEntityClass() {
+        return FmkIdSegment.class;
+    }
+
+    /**
+     * 根据业务标识查询
+     */
+    public Optional<FmkIdSegment> getByBizTag(String bizTag) {
+        return Optional.ofNullable(getByCondition(buildLambdaQuery().eq(FmkIdSegment::getBizTag, bizTag)));
+    }
+
+    /**
+     * 推进最大ID
+     *
+     * @param bizTag 业务标识
+     * @param step   步长
+     * @return 业务标识是否存在
+     */
+    public boolean incrementMaxId(String bizTag, int step) {
+        LambdaUpdateWrapper<FmkIdSegment> wrapper = buildLambdaUpdate();
+        wrapper.setSql("max_id = max_id + " + step)
+                .eq(FmkIdSegment::getBizTag, bizTag);
+        return updateByCondition(new FmkIdSegment(), wrapper) == 1;
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.cjlabs.boot.business.idsegment.mysql;
+
+import com.cjlabs.db.domain.FmkBaseEntity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * fmk_id_segment 号段ID分配表
+ * <p>
+ * CREATE TABLE fmk_id_segment (
+ * id BIGINT PRIMARY KEY AUTO_INCREMENT,
+ * biz_tag VARCHAR(128) NOT NULL,
+ * max_id BIGINT NOT NULL DEFAULT 1,
+ * del_flag VARCHAR(16), create_user VARCHAR(64), create_date BIGINT,
+ * update_user VARCHAR(64), update_date BIGINT, trace_id VARCHAR(64),
+ * UNIQUE KEY uk_biz_tag (biz_tag)
+ * );
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class FmkIdSegment extends FmkBaseEntity {
+
+    /**
+     * 业务标识，通常为表名
+     */
+    private String bizTag;
+
+    /**
+     * 已分配出去的最大ID（不包含）
+     */
+    private Long maxId;
+
+}
@@ -0,0 +1,103 @@
+package com.cjlabs.boot.business.idsegment.service;
+
+import com.cjlabs.boot.business.idsegment.mapper.FmkIdSegmentWrapMapper;
+import com.cjlabs.boot.business.idsegment.mysql.FmkIdSegment;
+import com.cjlabs.core.id.SegmentIdAllocator;
+import com.cjlabs.core.id.SegmentStore;
+import com.cjlabs.db.datasource.FmkTransactionTemplateUtil;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于数据库表 fmk_id_segment 的号段ID服务
+ * <p>
+ * 每个业务标识一个 {@link SegmentIdAllocator}，号段内发号不访问数据库，
+ * 下一个号段在 fmkThreadPoolTaskExecutor 上异步预取；一次数据库写入可以发出数千个ID。
+ * <p>
+ * 使用示例：long id = fmkIdSegmentService.nextId("order");
+ */
+@Slf4j
+@Service
+public class FmkIdSegmentService implements SegmentStore {
+
+    /**
+     * 最小步长（初始步长）
+     */
+    private static final int MIN_STEP = 1000;
+
+    /**
+     * 最大步长
+     */
+    private static final int MAX_STEP = 100_000;
+
+    @Autowired
+    private FmkIdSegmentWrapMapper fmkIdSegmentWrapMapper;
+
+    @Autowired
+    private FmkTransactionTemplateUtil fmkTransactionTemplateUtil;
+
+    @Autowired
+    @Qualifier("fmkThreadPoolTaskExecutor")
+    private ThreadPoolTaskExecutor fmkThreadPoolTaskExecutor;
+
+    private final Map<String, SegmentIdAllocator> allocatorMap = new ConcurrentHashMap<>();
+
+    /**
+     * 生成下一个ID
+     *
+     * @param bizTag 业务标识
+     * @return 唯一ID
+     */
+    public long nextId(String bizTag) {
+        return allocatorMap.computeIfAbsent(bizTag,
+                tag -> new SegmentIdAllocator(tag, this, fmkThreadPoolTaskExecutor, MIN_STEP, MAX_STEP)).nextId();
+    }
+
+    @Override
+    public long allocate(String bizTag, int step) {
+        Long maxId = incrementAndGet(bizTag, step);
+        if (maxId == null) {
+            initBizTag(bizTag);
+            maxId = incrementAndGet(bizTag, step);
+        }
+        if (maxId == null) {
+            throw new RuntimeException("号段分配失败: bizTag=" + bizTag);
+        }
+        log.info("FmkIdSegmentService|allocate|bizTag={}|step={}|maxId={}", bizTag, step, maxId);
+        return maxId;
+    }
+
+    /**
+     * 同一事务内推进并读取最大ID，业务标识不存在时返回 null
+     */
+    private Long incrementAndGet(String bizTag, int step) {
+        return fmkTransactionTemplateUtil.executeTx(() -> {
+            if (!fmkIdSegmentWrapMapper.incrementMaxId(bizTag, step)) {
+                return null;
+            }
+            return fmkIdSegmentWrapMapper.getByBizTag(bizTag)
+                    .map(FmkIdSegment::getMaxId)
+                    .orElse(null);
+        });
+    }
+
+    /**
+     * 初始化业务标识，并发初始化时依靠 uk_biz_tag 唯一索引保证只插入一行
+     */
+    private void initBizTag(String bizTag) {
+        try {
+            fmkIdSegmentWrapMapper.save(new FmkIdSegment(bizTag, 1L));
+            log.info("FmkIdSegmentService|initBizTag|bizTag={}", bizTag);
+        } catch (DuplicateKeyException e) {
+            log.info("FmkIdSegmentService|initBizTag|业务标识已被其他实例初始化|bizTag={}", bizTag);
+        }
+    }
+}
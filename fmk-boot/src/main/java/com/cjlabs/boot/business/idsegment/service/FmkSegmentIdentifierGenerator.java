@@ -0,0 +1,36 @@
+package com.cjlabs.boot.business.idsegment.service;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * 号段ID生成器，替换 MyBatis-Plus 默认的 IdentifierGenerator
+ * <p>
+ * 实体主键使用 IdType.ASSIGN_ID 时按表名取号段ID，每张表一个业务标识。
+ * 开启方式：fmk.id.segment.enabled=true
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "fmk.id.segment.enabled", havingValue = "true")
+public class FmkSegmentIdentifierGenerator implements IdentifierGenerator {
+
+    /**
+     * 延迟注入：SqlSessionFactory 创建时就需要 IdentifierGenerator，而号段服务又依赖 Mapper
+     */
+    @Lazy
+    @Autowired
+    private FmkIdSegmentService fmkIdSegmentService;
+
+    @Override
+    public Number nextId(Object entity) {
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(entity.getClass());
+        String bizTag = tableInfo == null ? entity.getClass().getSimpleName() : tableInfo.getTableName();
+        return fmkIdSegmentService.nextId(bizTag);
+    }
+}
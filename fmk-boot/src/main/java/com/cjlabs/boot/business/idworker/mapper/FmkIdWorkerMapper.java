@@ -0,0 +1,14 @@
+package com.cjlabs.boot.business.idworker.mapper;
+
+import com.cjlabs.boot.business.idworker.mysql.FmkIdWorker;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * fmk_id_worker 雪花算法机器ID租约表
+ */
+@Mapper
+public interface FmkIdWorkerMapper extends BaseMapper<FmkIdWorker> {
+
+}
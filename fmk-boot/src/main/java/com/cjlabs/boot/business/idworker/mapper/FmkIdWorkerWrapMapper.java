@@ -0,0 +1,79 @@
+package com.cjlabs.boot.business.idworker.mapper;
+
+import com.cjlabs.boot.business.idworker.mysql.FmkIdWorker;
+import com.cjlabs.db.mp.FmkService;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * fmk_id_worker 雪花算法机器ID租约表
+ * <p>
+ * 所有抢占/续约都是带持有者条件的单条 UPDATE，依靠数据库行锁保证同一机器ID只有一个持有者
+ */
+@Slf4j
+@Service
+public class FmkIdWorkerWrapMapper extends FmkService<FmkIdWorkerMapper, FmkIdWorker> {
+
+    protected FmkIdWorkerWrapMapper(FmkIdWorkerMapper mapper) {
+        super(mapper);
+    }
+
+    @Override
+    protected Class<FmkIdWorker> getEntityClass() {
+        return FmkIdWorker.class;
+    }
+
+    /**
+     * 查询所有机器ID记录
+     */
+    public List<FmkIdWorker> listAllWorker() {
+        return listByCondition(buildLambdaQuery().orderByAsc(FmkIdWorker::getWorkerId));
+    }
+
+    /**
+     * 抢占已过期的机器ID
+     *
+     * @param current       当前记录（用于校验持有者未变化）
+     * @param instanceId    新持有者
+     * @param leaseExpireAt 新租约到期时间
+     * @param now           当前时间
+     * @return 是否抢占成功
+     */
+    public boolean claimExpired(FmkIdWorker current, String instanceId, Instant leaseExpireAt, Instant now) {
+        FmkIdWorker update = new FmkIdWorker();
+        update.setInstanceId(instanceId);
+        update.setLeaseExpireAt(leaseExpireAt);
+
+        LambdaUpdateWrapper<FmkIdWorker> wrapper = buildLambdaUpdate();
+        wrapper.eq(FmkIdWorker::getWorkerId, current.getWorkerId())
+                .eq(FmkIdWorker::getInstanceId, current.getInstanceId())
+                .lt(FmkIdWorker::getLeaseExpireAt, now);
+        return updateByCondition(update, wrapper) == 1;
+    }
+
+    /**
+     * 续约
+     *
+     * @param workerId      机器ID
+     * @param instanceId    持有者
+     * @param leaseExpireAt 新租约到期时间
+     * @param lastTimestamp 最后使用的时间戳
+     * @return 是否仍然持有
+     */
+    public boolean renew(long workerId, String instanceId, Instant leaseExpireAt, long lastTimestamp) {
+        FmkIdWorker update = new FmkIdWorker();
+        update.setLeaseExpireAt(leaseExpireAt);
+        update.setLastTimestamp(lastTimestamp);
+
+        LambdaUpdateWrapper<FmkIdWorker> wrapper = buildLambdaUpdate();
+        wrapper.eq(FmkIdWorker::getWorkerId, workerId)
+                .eq(FmkIdWorker::getInstanceId, instanceId);
+        return updateByCondition(update, wrapper) == 1;
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.cjlabs.boot.business.idworker.mysql;
+
+import com.cjlabs.db.domain.FmkBaseEntity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * fmk_id_worker 雪花算法机器ID租约表
+ * <p>
+ * CREATE TABLE fmk_id_worker (
+ * id BIGINT PRIMARY KEY AUTO_INCREMENT,
+ * worker_id BIGINT NOT NULL,
+ * instance_id VARCHAR(128) NOT NULL,
+ * lease_expire_at BIGINT NOT NULL,
+ * last_timestamp BIGINT NOT NULL DEFAULT -1,
+ * del_flag VARCHAR(16), create_user VARCHAR(64), create_date BIGINT,
+ * update_user VARCHAR(64), update_date BIGINT, trace_id VARCHAR(64),
+ * UNIQUE KEY uk_worker_id (worker_id)
+ * );
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class FmkIdWorker extends FmkBaseEntity {
+
+    /**
+     * 机器ID
+     */
+    private Long workerId;
+
+    /**
+     * 当前持有者实例标识
+     */
+    private String instanceId;
+
+    /**
+     * 租约到期时间
+     */
+    private Instant leaseExpireAt;
+
+    /**
+     * 该机器ID最后使用的时间戳（毫秒）
+     */
+    private Long lastTimestamp;
+
+}
@@ -0,0 +1,117 @@
+package com.cjlabs.boot.business.idworker.service;
+
+import com.cjlabs.boot.business.idworker.mapper.FmkIdWorkerWrapMapper;
+import com.cjlabs.boot.business.idworker.mysql.FmkIdWorker;
+import com.cjlabs.core.id.WorkerIdAssigner;
+import com.cjlabs.core.id.WorkerIdLease;
+import com.cjlabs.core.time.FmkInstantUtil;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于数据库表 fmk_id_worker 的雪花算法机器ID分配器
+ * <p>
+ * 1. 优先抢占租约已过期的机器ID（沿用其 last_timestamp 做时钟回拨保护）
+ * 2. 没有过期的机器ID时插入新行，依靠 uk_worker_id 唯一索引防止并发插入冲突
+ * 3. 心跳续约时刷新租约并写回最后使用的时间戳
+ * <p>
+ * 使用示例：FmkSnowflakeIdGenerator.init(SnowflakeLayout.CLUSTER, fmkIdWorkerAssigner);
+ */
+@Slf4j
+@Service
+public class FmkIdWorkerAssigner implements WorkerIdAssigner {
+
+    /**
+     * 租约有效期（毫秒）
+     */
+    private static final long LEASE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(60);
+
+    /**
+     * 心跳续约间隔（毫秒）
+     */
+    private static final long HEARTBEAT_INTERVAL_MS = TimeUnit.SECONDS.toMillis(20);
+
+    @Autowired
+    private FmkIdWorkerWrapMapper fmkIdWorkerWrapMapper;
+
+    /**
+     * 实例标识：主机名 + 进程ID + 随机串，重启后不同
+     */
+    private final String instanceId = buildInstanceId();
+
+    @Override
+    public WorkerIdLease assign(long maxWorkerId) {
+        Instant now = FmkInstantUtil.now();
+        Instant leaseExpireAt = now.plusMillis(LEASE_TIMEOUT_MS);
+        List<FmkIdWorker> workerList = fmkIdWorkerWrapMapper.listAllWorker();
+
+        // 1. 抢占已过期的机器ID
+        Set<Long> usedWorkerIds = new HashSet<>();
+        for (FmkIdWorker worker : workerList) {
+            usedWorkerIds.add(worker.getWorkerId());
+            if (worker.getWorkerId() > maxWorkerId || worker.getLeaseExpireAt().isAfter(now)) {
+                continue;
+            }
+            if (fmkIdWorkerWrapMapper.claimExpired(worker, instanceId, leaseExpireAt, now)) {
+                return toLease(worker.getWorkerId(), worker.getLastTimestamp());
+            }
+        }
+
+        // 2. 插入新的机器ID
+        for (long workerId = 0; workerId <= maxWorkerId; workerId++) {
+            if (usedWorkerIds.contains(workerId)) {
+                continue;
+            }
+            FmkIdWorker worker = new FmkIdWorker(workerId, instanceId, leaseExpireAt, -1L);
+            try {
+                fmkIdWorkerWrapMapper.save(worker);
+                return toLease(workerId, -1L);
+            } catch (DuplicateKeyException e) {
+                log.info("FmkIdWorkerAssigner|assign|机器ID已被其他实例占用|workerId={}", workerId);
+            }
+        }
+        throw new RuntimeException("没有可用的雪花算法机器ID: maxWorkerId=" + maxWorkerId);
+    }
+
+    @Override
+    public boolean renew(WorkerIdLease lease, long lastTimestamp) {
+        Instant leaseExpireAt = FmkInstantUtil.now().plusMillis(LEASE_TIMEOUT_MS);
+        return fmkIdWorkerWrapMapper.renew(lease.getWorkerId(), instanceId, leaseExpireAt, lastTimestamp);
+    }
+
+    @Override
+    public void release(WorkerIdLease lease, long lastTimestamp) {
+        // 租约到期时间置为 0，其他实例可立即接管
+        fmkIdWorkerWrapMapper.renew(lease.getWorkerId(), instanceId, Instant.EPOCH, lastTimestamp);
+        log.info("FmkIdWorkerAssigner|release|workerId={}|lastTimestamp={}", lease.getWorkerId(), lastTimestamp);
+    }
+
+    private WorkerIdLease toLease(long workerId, Long lastTimestamp) {
+        long last = lastTimestamp == null ? -1L : lastTimestamp;
+        log.info("FmkIdWorkerAssigner|assign|workerId={}|lastTimestamp={}|instanceId={}", workerId, last, instanceId);
+        return new WorkerIdLease(workerId, last, LEASE_TIMEOUT_MS, HEARTBEAT_INTERVAL_MS);
+    }
+
+    private static String buildInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + ManagementFactory.getRuntimeMXBean().getPid() + ":"
+                + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
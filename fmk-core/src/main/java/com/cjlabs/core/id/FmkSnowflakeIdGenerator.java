@@ -5,21 +5,25 @@ import lombok.extern.slf4j.Slf4j;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 完善的雪花算法ID生成器，解决时钟回拨等各种问题
  * <p>
  * ID结构（64位）：
- * 1位符号位（固定为0） + 41位时间戳 + 22位序列号
+ * 1位符号位（固定为0） + 41位时间戳 + 22位序列号（默认布局）
+ * <p>
+ * 多实例部署时通过 {@link #init(SnowflakeLayout, WorkerIdAssigner)} 切换为带机器ID的布局，
+ * 机器ID由 {@link WorkerIdAssigner} 分配并按心跳续约。
  * <p>
  * 特性：
  * 1. 解决时钟回拨问题
- * 2. 线程安全
+ * 2. 线程安全（无锁，CAS 推进状态，见 {@link SnowflakeEngine}）
  * 3. 高性能（每毫秒可生成4194304个ID，约420万个）
- * 4. 去掉机器ID，适用于单机环境
+ * 4. 默认去掉机器ID，适用于单机环境；可配置机器ID位支持水平扩容
  * 5. 支持自定义配置
  * 6. 提供详细的监控信息
  * 7. 使用UTC+0时区，确保全球一致性
@@ -33,32 +37,12 @@ public class FmkSnowflakeIdGenerator {
     /**
      * 起始时间戳（2025-07-20 00:00:00 UTC+0）
      */
-    private static final long START_TIMESTAMP = 1721433600000L; // UTC+0时间
-
-    /**
-     * 序列号位数（22位，原来的12位序列号 + 10位机器ID）
-     */
-    private static final long SEQUENCE_BITS = 22L;
-
-    /**
-     * 时间戳位数
-     */
-    private static final long TIMESTAMP_BITS = 41L;
-
-    /**
-     * 序列号最大值（2^22 - 1 = 4194303）
-     */
-    private static final long MAX_SEQUENCE = ~(-1L << SEQUENCE_BITS);
-
-    /**
-     * 时间戳左移位数
-     */
-    private static final long TIMESTAMP_SHIFT = SEQUENCE_BITS;
+    static final long START_TIMESTAMP = 1721433600000L; // UTC+0时间
 
     /**
-     * 最大时间戳（可使用到2094年）
+     * 启动时等待时钟追上机器ID上一个持有者最后时间戳的最长时间（毫秒）
      */
-    private static final long MAX_TIMESTAMP = ~(-1L << TIMESTAMP_BITS);
+    private static final long MAX_STARTUP_CLOCK_WAIT_MS = 5000L;
 
     /**
      * 日期格式化器 - UTC - 使用不可变的DateTimeFormatter
@@ -69,31 +53,22 @@ public class FmkSnowflakeIdGenerator {
     // ======================== 实例变量 ========================
 
     /**
-     * 当前序列号
+     * 无锁生成引擎（CAS 推进状态，替代原先的全局 ReentrantLock）
      */
-    private static long sequence = 0L;
+    private static volatile SnowflakeEngine engine = new SnowflakeEngine(5L);
 
     /**
-     * 上次生成ID的时间戳
+     * 机器ID分配器及当前租约，未调用 init 时为空
      */
-    private static long lastTimestamp = -1L;
+    private static WorkerIdAssigner workerIdAssigner;
+    private static WorkerIdLease workerIdLease;
 
     /**
-     * 时钟回拨容忍时间（毫秒）
+     * 心跳续约线程
      */
-    private static long clockBackwardToleranceMs;
-
-    /**
-     * 同步锁
-     */
-    private static final Lock lock = new ReentrantLock();
-
-    /**
-     * 性能统计 - 使用原子变量确保线程安全
-     */
-    private static final AtomicLong totalGenerated = new AtomicLong(0);
-    private static final AtomicLong clockBackwardCount = new AtomicLong(0);
-    private static final AtomicLong waitCount = new AtomicLong(0);
+    private static ScheduledExecutorService heartbeatExecutor;
+    private static ScheduledFuture<?> heartbeatFuture;
+    private static boolean shutdownHookRegistered = false;
 
     // ======================== 构造函数 ========================
 
@@ -110,60 +85,167 @@ public class FmkSnowflakeIdGenerator {
      * @param clockBackwardToleranceMs 时钟回拨容忍时间（毫秒）
      */
     public FmkSnowflakeIdGenerator(long clockBackwardToleranceMs) {
-        FmkSnowflakeIdGenerator.clockBackwardToleranceMs = Math.max(0, clockBackwardToleranceMs);
+        engine.setClockBackwardToleranceMs(clockBackwardToleranceMs);
 
         String startTimeFormatted = formatTimestamp(START_TIMESTAMP);
         log.info("雪花算法ID生成器初始化完成 - 时钟回拨容忍时间: {}ms, 起始时间: {} (UTC+0), 序列号位数: {}位",
-                clockBackwardToleranceMs, startTimeFormatted, SEQUENCE_BITS);
+                engine.getClockBackwardToleranceMs(), startTimeFormatted, engine.getLayout().getSequenceBits());
     }
 
-    // ======================== 核心方法 ========================
+    // ======================== 机器ID ========================
 
     /**
-     * 生成下一个ID
+     * 使用带机器ID的位布局初始化生成器
+     * <p>
+     * 1. 通过分配器获取机器ID租约
+     * 2. 若该机器ID上一个持有者的最后时间戳晚于当前时间（时钟回拨），等待时钟追上，超过5秒则启动失败
+     * 3. 按租约的心跳间隔续约；续约失败或租约过期后拒绝生成ID
+     * 4. JVM 退出时释放机器ID
      *
-     * @return 唯一ID
-     * @throws RuntimeException 当时钟回拨超过容忍时间时抛出异常
+     * @param layout   位布局
+     * @param assigner 机器ID分配器
      */
-    public static long nextId() {
-        lock.lock();
-        try {
-            long currentTimestamp = getCurrentTimestamp();
+    public static void init(SnowflakeLayout layout, WorkerIdAssigner assigner) {
+        init(layout, assigner, engine.getClockBackwardToleranceMs());
+    }
 
-            // 处理时钟回拨
-            if (currentTimestamp < lastTimestamp) {
-                handleClockBackward(currentTimestamp);
-                currentTimestamp = getCurrentTimestamp();
+    /**
+     * 使用带机器ID的位布局初始化生成器
+     *
+     * @param layout                   位布局
+     * @param assigner                 机器ID分配器
+     * @param clockBackwardToleranceMs 时钟回拨容忍时间（毫秒）
+     */
+    public static synchronized void init(SnowflakeLayout layout, WorkerIdAssigner assigner, long clockBackwardToleranceMs) {
+        shutdown();
+
+        // 租约从请求分配之前开始计时，本地到期时间不会晚于分配器中的到期时间（与心跳续约相同）
+        long assignedAt = System.currentTimeMillis();
+        WorkerIdLease lease = assigner.assign(layout.getMaxWorkerId());
+        waitForClock(lease.getLastTimestamp());
+
+        SnowflakeEngine newEngine = new SnowflakeEngine(layout, lease.getWorkerId(), clockBackwardToleranceMs);
+        // 两种布局的时间戳都从第22位开始，机器ID为0时与切换前同一毫秒生成的ID会重复，因此新ID必须晚于切换前的最后时间戳
+        newEngine.seedLastTimestamp(Math.max(engine.getLastTimestamp(), lease.getLastTimestamp()));
+        if (lease.getLeaseTimeoutMs() > 0) {
+            newEngine.renewLease(assignedAt + lease.getLeaseTimeoutMs());
+        }
+
+        engine = newEngine;
+        workerIdAssigner = assigner;
+        workerIdLease = lease;
+        startHeartbeat(newEngine, assigner, lease);
+        registerShutdownHook();
+
+        log.info("FmkSnowflakeIdGenerator|init|layout={}|lease={}", layout, lease);
+    }
+
+    /**
+     * 停止心跳并释放机器ID，之后恢复为默认布局
+     */
+    public static synchronized void shutdown() {
+        if (heartbeatFuture != null) {
+            heartbeatFuture.cancel(false);
+            heartbeatFuture = null;
+        }
+        if (workerIdAssigner != null && workerIdLease != null) {
+            try {
+                workerIdAssigner.release(workerIdLease, engine.getLastTimestamp());
+                log.info("FmkSnowflakeIdGenerator|shutdown|释放机器ID|workerId={}", workerIdLease.getWorkerId());
+            } catch (Exception e) {
+                log.warn("FmkSnowflakeIdGenerator|shutdown|释放机器ID失败|workerId={}", workerIdLease.getWorkerId(), e);
             }
+            long lastTimestamp = engine.getLastTimestamp();
+            SnowflakeEngine defaultEngine = new SnowflakeEngine(engine.getClockBackwardToleranceMs());
+            defaultEngine.seedLastTimestamp(lastTimestamp);
+            engine = defaultEngine;
+        }
+        workerIdAssigner = null;
+        workerIdLease = null;
+    }
 
-            // 同一毫秒内生成
-            if (currentTimestamp == lastTimestamp) {
-                sequence = (sequence + 1) & MAX_SEQUENCE;
+    /**
+     * 等待当前时间超过机器ID上一个持有者的最后时间戳
+     */
+    private static void waitForClock(long lastTimestamp) {
+        long backwardMs = lastTimestamp - System.currentTimeMillis();
+        if (backwardMs < 0) {
+            return;
+        }
+        if (backwardMs > MAX_STARTUP_CLOCK_WAIT_MS) {
+            throw new RuntimeException(String.format(
+                    "机器ID上次使用时间晚于当前时间 %dms，超过最长等待时间 %dms，拒绝启动",
+                    backwardMs, MAX_STARTUP_CLOCK_WAIT_MS));
+        }
+        log.warn("FmkSnowflakeIdGenerator|waitForClock|检测到时钟回拨，等待 {}ms", backwardMs + 1);
+        try {
+            Thread.sleep(backwardMs + 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待时钟追上时被中断", e);
+        }
+    }
+
+    private static void startHeartbeat(SnowflakeEngine target, WorkerIdAssigner assigner, WorkerIdLease lease) {
+        if (lease.getHeartbeatIntervalMs() <= 0) {
+            return;
+        }
+        if (heartbeatExecutor == null) {
+            heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "fmk-snowflake-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        long interval = lease.getHeartbeatIntervalMs();
+        heartbeatFuture = heartbeatExecutor.scheduleWithFixedDelay(
+                () -> heartbeat(target, assigner, lease), interval, interval, TimeUnit.MILLISECONDS);
+    }
 
-                // 序列号溢出，等待下一毫秒
-                if (sequence == 0) {
-                    currentTimestamp = waitForNextMillis(lastTimestamp);
-                    waitCount.incrementAndGet();
+    private static void heartbeat(SnowflakeEngine target, WorkerIdAssigner assigner, WorkerIdLease lease) {
+        try {
+            long now = System.currentTimeMillis();
+            if (assigner.renew(lease, Math.max(now, target.getLastTimestamp()))) {
+                if (lease.getLeaseTimeoutMs() > 0) {
+                    target.renewLease(now + lease.getLeaseTimeoutMs());
                 }
             } else {
-                // 新的毫秒，重置序列号
-                sequence = 0L;
+                // 机器ID已被其他实例接管，立即停止生成，并停止后续心跳
+                target.renewLease(now);
+                log.error("FmkSnowflakeIdGenerator|heartbeat|机器ID租约已丢失|workerId={}", lease.getWorkerId());
+                cancelHeartbeat(target);
             }
+        } catch (Exception e) {
+            // 续约异常不立即停止，租约自然过期后再拒绝生成
+            log.warn("FmkSnowflakeIdGenerator|heartbeat|续约失败|workerId={}", lease.getWorkerId(), e);
+        }
+    }
 
-            lastTimestamp = currentTimestamp;
-            totalGenerated.incrementAndGet();
+    private static synchronized void cancelHeartbeat(SnowflakeEngine target) {
+        if (engine == target && heartbeatFuture != null) {
+            heartbeatFuture.cancel(false);
+            heartbeatFuture = null;
+        }
+    }
 
-            // 验证时间戳不超过最大值
-            long timestampDelta = currentTimestamp - START_TIMESTAMP;
-            if (timestampDelta > MAX_TIMESTAMP) {
-                throw new RuntimeException("时间戳超过最大值，雪花算法已达到使用期限");
-            }
+    private static void registerShutdownHook() {
+        if (shutdownHookRegistered) {
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(FmkSnowflakeIdGenerator::shutdown, "fmk-snowflake-shutdown"));
+        shutdownHookRegistered = true;
+    }
 
-            return ((timestampDelta) << TIMESTAMP_SHIFT) | sequence;
+    // ======================== 核心方法 ========================
 
-        } finally {
-            lock.unlock();
-        }
+    /**
+     * 生成下一个ID
+     *
+     * @return 唯一ID
+     * @throws RuntimeException 当时钟回拨超过容忍时间时抛出异常
+     */
+    public static long nextId() {
+        return engine.nextId();
     }
 
     /**
@@ -188,77 +270,14 @@ public class FmkSnowflakeIdGenerator {
 
     /**
      * 批量生成ID
+     * <p>
+     * 一次 CAS 占用一整段序列号，只有当前毫秒用完时才跨到下一毫秒，返回的ID严格递增
      *
      * @param count 生成数量
      * @return ID数组
      */
     public long[] nextIds(int count) {
-        if (count <= 0) {
-            throw new IllegalArgumentException("生成数量必须大于0");
-        }
-
-        long[] ids = new long[count];
-        for (int i = 0; i < count; i++) {
-            ids[i] = nextId();
-        }
-        return ids;
-    }
-
-    // ======================== 时钟回拨处理 ========================
-
-    /**
-     * 处理时钟回拨
-     *
-     * @param currentTimestamp 当前时间戳
-     */
-    private static void handleClockBackward(long currentTimestamp) {
-        long backwardMs = lastTimestamp - currentTimestamp;
-        clockBackwardCount.incrementAndGet();
-
-        log.warn("检测到时钟回拨 {}ms，上次时间戳: {} ({}), 当前时间戳: {} ({})",
-                backwardMs,
-                lastTimestamp, formatTimestamp(lastTimestamp),
-                currentTimestamp, formatTimestamp(currentTimestamp));
-
-        if (backwardMs <= clockBackwardToleranceMs) {
-            // 在容忍范围内，等待时钟追上
-            try {
-                Thread.sleep(backwardMs + 1);
-                log.info("时钟回拨处理完成，等待了 {}ms", backwardMs + 1);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("等待时钟追上时被中断", e);
-            }
-        } else {
-            // 超过容忍范围，抛出异常
-            throw new RuntimeException(
-                    String.format("时钟回拨超过容忍时间，回拨时间: %dms, 容忍时间: %dms",
-                            backwardMs, clockBackwardToleranceMs));
-        }
-    }
-
-    /**
-     * 等待下一毫秒
-     *
-     * @param lastTimestamp 上次时间戳
-     * @return 下一毫秒的时间戳
-     */
-    private static long waitForNextMillis(long lastTimestamp) {
-        long currentTimestamp = getCurrentTimestamp();
-        while (currentTimestamp <= lastTimestamp) {
-            currentTimestamp = getCurrentTimestamp();
-        }
-        return currentTimestamp;
-    }
-
-    /**
-     * 获取当前时间戳 (UTC+0)
-     * JDK 21中System.currentTimeMillis()已经是UTC时间戳
-     *
-     * @return 当前时间戳（毫秒）
-     */
-    private static long getCurrentTimestamp() {
-        return System.currentTimeMillis();
+        return engine.nextIds(count);
     }
 
     /**
@@ -275,16 +294,30 @@ public class FmkSnowflakeIdGenerator {
     // ======================== ID解析 ========================
 
     /**
-     * 解析ID信息
+     * 按当前位布局解析ID信息
+     * <p>
+     * ID本身不携带位布局，init 之前（默认布局）生成的ID需要用 {@link #parseId(long, SnowflakeLayout)}
+     * 指定 {@link SnowflakeLayout#DEFAULT} 解析，否则机器ID和序列号会解析错误（时间戳不受影响）
      *
      * @param id 要解析的ID
      * @return ID信息
      */
     public SnowflakeIdInfo parseId(long id) {
-        long timestamp = ((id >> TIMESTAMP_SHIFT) & MAX_TIMESTAMP) + START_TIMESTAMP;
-        long sequence = id & MAX_SEQUENCE;
+        return parseId(id, engine.getLayout());
+    }
+
+    /**
+     * 按指定位布局解析ID信息
+     *
+     * @param id     要解析的ID
+     * @param layout 生成该ID时使用的位布局
+     * @return ID信息
+     */
+    public SnowflakeIdInfo parseId(long id, SnowflakeLayout layout) {
+        long timestamp = layout.timestampDeltaOf(id) + START_TIMESTAMP;
+        long sequence = layout.sequenceOf(id);
 
-        return new SnowflakeIdInfo(id, timestamp, sequence, formatTimestamp(timestamp));
+        return new SnowflakeIdInfo(id, timestamp, sequence, formatTimestamp(timestamp), layout.workerIdOf(id));
     }
 
     // ======================== 状态监控 ========================
@@ -295,14 +328,13 @@ public class FmkSnowflakeIdGenerator {
      * @return 生成器状态信息
      */
     public SnowflakeStatus getStatus() {
-        long currentTimestamp = getCurrentTimestamp();
         return new SnowflakeStatus(
-                totalGenerated.get(),
-                clockBackwardCount.get(),
-                waitCount.get(),
-                lastTimestamp,
-                currentTimestamp,
-                clockBackwardToleranceMs
+                engine.getTotalGenerated(),
+                engine.getClockBackwardCount(),
+                engine.getWaitCount(),
+                engine.getLastTimestamp(),
+                System.currentTimeMillis(),
+                engine.getClockBackwardToleranceMs()
         );
     }
 
@@ -310,21 +342,16 @@ public class FmkSnowflakeIdGenerator {
      * 重置统计信息
      */
     public void resetStatistics() {
-        lock.lock();
-        try {
-            totalGenerated.set(0);
-            clockBackwardCount.set(0);
-            waitCount.set(0);
-            log.info("雪花算法统计信息已重置");
-        } finally {
-            lock.unlock();
-        }
+        engine.resetStatistics();
+        log.info("雪花算法统计信息已重置");
     }
 
     // ======================== 工具方法 ========================
 
     /**
      * 验证ID是否由此生成器生成
+     * <p>
+     * 只校验时间戳范围；DEFAULT 和 CLUSTER 的时间戳位置相同，init 前后生成的ID都可以校验
      *
      * @param id 要验证的ID
      * @return 是否由此生成器生成
@@ -345,11 +372,13 @@ public class FmkSnowflakeIdGenerator {
      * @return 配置信息字符串
      */
     public String getConfigInfo() {
+        SnowflakeLayout layout = engine.getLayout();
         return String.format(
                 "雪花算法配置: 起始时间=%s, 时钟回拨容忍=%dms, " +
-                        "时间戳位数=%d, 序列号位数=%d, 最大序列号=%d",
-                formatTimestamp(START_TIMESTAMP), clockBackwardToleranceMs,
-                TIMESTAMP_BITS, SEQUENCE_BITS, MAX_SEQUENCE
+                        "时间戳位数=%d, 序列号位数=%d, 最大序列号=%d, 机器ID位数=%d, 机器ID=%d",
+                formatTimestamp(START_TIMESTAMP), engine.getClockBackwardToleranceMs(),
+                layout.getTimestampBits(), layout.getSequenceBits(), layout.getMaxSequence(),
+                layout.getWorkerBits(), engine.getWorkerId()
         );
     }
 
@@ -359,10 +388,11 @@ public class FmkSnowflakeIdGenerator {
      * @return 性能信息字符串
      */
     public String getPerformanceInfo() {
-        long maxIdsPerSecond = (MAX_SEQUENCE + 1) * 1000;
+        long maxSequence = engine.getLayout().getMaxSequence();
+        long maxIdsPerSecond = (maxSequence + 1) * 1000;
         return String.format(
                 "理论性能: 每毫秒最多%d个ID, 每秒最多%d个ID (约%.1f万个/秒)",
-                MAX_SEQUENCE + 1, maxIdsPerSecond, maxIdsPerSecond / 10000.0
+                maxSequence + 1, maxIdsPerSecond, maxIdsPerSecond / 10000.0
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.cjlabs.core.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * 本地文件机器ID分配器
+ * <p>
+ * 文件内容（Properties 格式）：
+ * <pre>
+ * workerId=3
+ * lastTimestamp=1760000000000
+ * </pre>
+ * 1. 文件中已有 workerId 时优先使用，否则使用构造参数并写回文件
+ * 2. 心跳时把最后使用的时间戳写回文件，重启后从该时间戳之后继续生成，防止停机期间的时钟回拨
+ * 3. 写文件先写临时文件再原子替换，避免进程崩溃导致文件损坏
+ */
+@Slf4j
+public class LocalFileWorkerIdAssigner implements WorkerIdAssigner {
+
+    private static final String KEY_WORKER_ID = "workerId";
+    private static final String KEY_LAST_TIMESTAMP = "lastTimestamp";
+
+    /**
+     * 默认心跳间隔（毫秒）
+     */
+    private static final long DEFAULT_HEARTBEAT_INTERVAL_MS = 3000L;
+
+    private final Path file;
+
+    private final long defaultWorkerId;
+
+    public LocalFileWorkerIdAssigner(Path file, long defaultWorkerId) {
+        if (defaultWorkerId < 0) {
+            throw new IllegalArgumentException("机器ID不能为负数: " + defaultWorkerId);
+        }
+        this.file = file;
+        this.defaultWorkerId = defaultWorkerId;
+    }
+
+    @Override
+    public WorkerIdLease assign(long maxWorkerId) {
+        Properties properties = load();
+        long workerId = Long.parseLong(properties.getProperty(KEY_WORKER_ID, String.valueOf(defaultWorkerId)));
+        long lastTimestamp = Long.parseLong(properties.getProperty(KEY_LAST_TIMESTAMP, "-1"));
+
+        if (workerId > maxWorkerId) {
+            throw new IllegalArgumentException(
+                    String.format("机器ID超出位布局范围: workerId=%d, maxWorkerId=%d, file=%s", workerId, maxWorkerId, file));
+        }
+
+        store(workerId, Math.max(lastTimestamp, System.currentTimeMillis()));
+        log.info("LocalFileWorkerIdAssigner|assign|workerId={}|lastTimestamp={}|file={}", workerId, lastTimestamp, file);
+        return new WorkerIdLease(workerId, lastTimestamp, 0L, DEFAULT_HEARTBEAT_INTERVAL_MS);
+    }
+
+    @Override
+    public boolean renew(WorkerIdLease lease, long lastTimestamp) {
+        store(lease.getWorkerId(), lastTimestamp);
+        return true;
+    }
+
+    @Override
+    public void release(WorkerIdLease lease, long lastTimestamp) {
+        store(lease.getWorkerId(), lastTimestamp);
+    }
+
+    private Properties load() {
+        Properties properties = new Properties();
+        if (!Files.exists(file)) {
+            return properties;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            return properties;
+        } catch (IOException e) {
+            throw new RuntimeException("读取机器ID文件失败: " + file, e);
+        }
+    }
+
+    private void store(long workerId, long lastTimestamp) {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_WORKER_ID, String.valueOf(workerId));
+        properties.setProperty(KEY_LAST_TIMESTAMP, String.valueOf(lastTimestamp));
+
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "fmk snowflake worker");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("写入机器ID文件失败: " + file, e);
+        }
+    }
+}
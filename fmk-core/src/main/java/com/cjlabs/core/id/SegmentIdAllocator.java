@@ -0,0 +1,323 @@
+package com.cjlabs.core.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 号段ID分配器（Leaf-segment 模式）
+ * <p>
+ * 不依赖时钟，生成稠密、递增的ID：
+ * 1. 每次从 {@link SegmentStore} 取一段 [max - step, max)，号段内通过 AtomicLong 自增发号，不访问存储
+ * 2. 双缓冲：当前号段消耗 10% 后异步预取下一个号段，当前号段用完时直接切换
+ * 3. 自适应步长：号段消耗时间小于目标时长时步长翻倍，超过两倍目标时长时步长减半
+ * 4. 预取未完成或失败时，切换线程短暂等待后同步加载，保证可用
+ * 5. 预取结果在切换锁内安装，只有 next 仍为空且号段起点不小于当前号段上限时才安装；
+ * 同步加载之后才完成的预取号段直接丢弃（浪费一段ID），保证ID单调递增且不会重复发放
+ */
+@Slf4j
+public class SegmentIdAllocator {
+
+    /**
+     * 默认号段目标消耗时长（毫秒）
+     */
+    public static final long DEFAULT_SEGMENT_DURATION_MS = TimeUnit.MINUTES.toMillis(15);
+
+    /**
+     * 等待异步预取完成的最长时间（毫秒）
+     */
+    private static final long PRELOAD_WAIT_MS = 100L;
+
+    private final String bizTag;
+
+    private final SegmentStore store;
+
+    private final Executor executor;
+
+    private final int minStep;
+
+    private final int maxStep;
+
+    private final long segmentDurationMs;
+
+    /**
+     * 当前号段，首次发号前为 null
+     */
+    private volatile Segment current;
+
+    /**
+     * 预取好的下一个号段
+     */
+    private volatile Segment next;
+
+    /**
+     * 是否有预取任务在执行
+     */
+    private final AtomicBoolean loading = new AtomicBoolean(false);
+
+    /**
+     * 切换号段的锁，只有号段用完时才会进入
+     */
+    private final ReentrantLock switchLock = new ReentrantLock();
+
+    /**
+     * 预取任务结束（成功或失败）时通知等待切换的线程
+     */
+    private final Condition preloadDone = switchLock.newCondition();
+
+    /**
+     * 当前步长
+     */
+    private int step;
+
+    /**
+     * 上次加载号段的时间（毫秒）
+     */
+    private long lastLoadTime;
+
+    /**
+     * 统计信息
+     */
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder syncLoadCount = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param bizTag   业务标识
+     * @param store    号段存储
+     * @param executor 异步预取使用的线程池
+     * @param minStep  最小步长（初始步长）
+     * @param maxStep  最大步长
+     */
+    public SegmentIdAllocator(String bizTag, SegmentStore store, Executor executor, int minStep, int maxStep) {
+        this(bizTag, store, executor, minStep, maxStep, DEFAULT_SEGMENT_DURATION_MS);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param bizTag            业务标识
+     * @param store             号段存储
+     * @param executor          异步预取使用的线程池
+     * @param minStep           最小步长（初始步长）
+     * @param maxStep           最大步长
+     * @param segmentDurationMs 号段目标消耗时长（毫秒）
+     */
+    public SegmentIdAllocator(String bizTag, SegmentStore store, Executor executor,
+                              int minStep, int maxStep, long segmentDurationMs) {
+        if (minStep <= 0 || maxStep < minStep) {
+            throw new IllegalArgumentException(
+                    String.format("号段步长配置错误: minStep=%d, maxStep=%d", minStep, maxStep));
+        }
+        this.bizTag = bizTag;
+        this.store = store;
+        this.executor = executor;
+        this.minStep = minStep;
+        this.maxStep = maxStep;
+        this.segmentDurationMs = segmentDurationMs;
+        this.step = minStep;
+    }
+
+    // ======================== 核心方法 ========================
+
+    /**
+     * 生成下一个ID
+     *
+     * @return 唯一ID
+     */
+    public long nextId() {
+        while (true) {
+            Segment segment = current;
+            if (segment != null) {
+                long id = segment.value.getAndIncrement();
+                if (id < segment.max) {
+                    if (id >= segment.preloadAt && next == null && !loading.get()) {
+                        preload();
+                    }
+                    return id;
+                }
+            }
+            switchSegment(segment);
+        }
+    }
+
+    /**
+     * 当前号段用完，切换到下一个号段
+     *
+     * @param exhausted 已用完的号段
+     */
+    private void switchSegment(Segment exhausted) {
+        switchLock.lock();
+        try {
+            if (current != exhausted) {
+                // 其他线程已经完成切换
+                return;
+            }
+
+            long nanos = TimeUnit.MILLISECONDS.toNanos(PRELOAD_WAIT_MS);
+            try {
+                while (next == null && loading.get() && nanos > 0) {
+                    nanos = preloadDone.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                // 不再等待预取，保留中断标记后同步加载
+                Thread.currentThread().interrupt();
+            }
+
+            Segment ready = next;
+            if (ready != null) {
+                next = null;
+                current = ready;
+                return;
+            }
+
+            syncLoadCount.increment();
+            log.info("SegmentIdAllocator|switchSegment|预取号段未就绪，同步加载|bizTag={}", bizTag);
+            current = load();
+        } finally {
+            switchLock.unlock();
+        }
+    }
+
+    /**
+     * 异步预取下一个号段
+     */
+    private void preload() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                Segment loaded = null;
+                try {
+                    loaded = load();
+                } catch (Exception e) {
+                    log.error("SegmentIdAllocator|preload|预取号段失败|bizTag={}", bizTag, e);
+                }
+                switchLock.lock();
+                try {
+                    if (loaded != null) {
+                        install(loaded);
+                    }
+                    loading.set(false);
+                    preloadDone.signalAll();
+                } finally {
+                    switchLock.unlock();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.set(false);
+            log.warn("SegmentIdAllocator|preload|线程池拒绝预取任务，号段用完时同步加载|bizTag={}", bizTag);
+        }
+    }
+
+    /**
+     * 安装预取的号段，调用前持有切换锁
+     * <p>
+     * 预取太慢时切换线程已经同步加载了更靠后的号段，这时预取的号段起点小于当前号段上限，安装会导致ID回退
+     */
+    private void install(Segment loaded) {
+        Segment segment = current;
+        if (next == null && (segment == null || loaded.start >= segment.max)) {
+            next = loaded;
+            return;
+        }
+        log.warn("SegmentIdAllocator|preload|预取号段晚于同步加载，丢弃|bizTag={}|start={}|max={}|currentMax={}",
+                bizTag, loaded.start, loaded.max, segment != null ? segment.max : null);
+    }
+
+    /**
+     * 从存储加载一个号段
+     */
+    private Segment load() {
+        int nextStep = adjustStep();
+        long maxId = store.allocate(bizTag, nextStep);
+        loadCount.increment();
+        log.debug("SegmentIdAllocator|load|bizTag={}|step={}|maxId={}", bizTag, nextStep, maxId);
+        return new Segment(maxId - nextStep, maxId, nextStep);
+    }
+
+    /**
+     * 根据上一个号段的消耗时长调整步长
+     *
+     * @return 本次加载使用的步长
+     */
+    private synchronized int adjustStep() {
+        long now = System.currentTimeMillis();
+        if (lastLoadTime > 0) {
+            long duration = now - lastLoadTime;
+            if (duration < segmentDurationMs) {
+                step = (int) Math.min((long) step * 2, maxStep);
+            } else if (duration >= segmentDurationMs * 2) {
+                step = Math.max(step / 2, minStep);
+            }
+        }
+        lastLoadTime = now;
+        return step;
+    }
+
+    // ======================== 状态监控 ========================
+
+    public String getBizTag() {
+        return bizTag;
+    }
+
+    public synchronized int getStep() {
+        return step;
+    }
+
+    /**
+     * 从存储加载号段的总次数
+     */
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    /**
+     * 预取未就绪导致同步加载的次数
+     */
+    public long getSyncLoadCount() {
+        return syncLoadCount.sum();
+    }
+
+    /**
+     * 号段
+     */
+    private static final class Segment {
+
+        /**
+         * 号段起点（包含）
+         */
+        private final long start;
+
+        /**
+         * 下一个待发的ID
+         */
+        private final AtomicLong value;
+
+        /**
+         * 号段上限（不包含）
+         */
+        private final long max;
+
+        /**
+         * 发到该ID时触发预取（消耗 10%）
+         */
+        private final long preloadAt;
+
+        private Segment(long start, long max, int step) {
+            this.start = start;
+            this.value = new AtomicLong(start);
+            this.max = max;
+            this.preloadAt = start + step / 10;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.cjlabs.core.id;
+
+/**
+ * 号段存储
+ * <p>
+ * 实现方需要保证 allocate 是原子的（如数据库 UPDATE max_id = max_id + step），
+ * 同一业务标识的多次调用返回的号段互不重叠。
+ */
+@FunctionalInterface
+public interface SegmentStore {
+
+    /**
+     * 把业务标识的最大ID增加 step，返回增加后的最大ID
+     * <p>
+     * 本次获得的号段为 [返回值 - step, 返回值)
+     *
+     * @param bizTag 业务标识
+     * @param step   号段长度
+     * @return 增加后的最大ID
+     */
+    long allocate(String bizTag, int step);
+}
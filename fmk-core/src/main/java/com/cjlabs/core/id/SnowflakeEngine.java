@@ -0,0 +1,327 @@
+package com.cjlabs.core.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁雪花算法引擎
+ * <p>
+ * 把"上次时间戳 + 序列号"压缩进一个 {@link AtomicLong}，所有线程通过 CAS 推进状态，不再持有全局锁：
+ * 1. 新的毫秒：直接 CAS 到 (当前时间戳 << 序列号位数) | 0
+ * 2. 同一毫秒：CAS 到 上一个状态 + 1
+ * 3. 序列号耗尽：自旋（{@link Thread#onSpinWait()}）等待下一毫秒后重试
+ * 4. 时钟回拨且在容忍范围内：继续沿用上次时间戳分配序列号，不再 sleep；超出容忍范围抛出异常
+ * <p>
+ * 最终ID = 状态中的时间戳、机器ID、序列号按 {@link SnowflakeLayout} 组装；
+ * 默认布局没有机器ID位，ID 与状态值完全相同。
+ * <p>
+ * 机器ID来自租约时，租约到期（心跳续约失败）后拒绝生成ID，防止机器ID被其他实例接管后产生重复。
+ */
+@Slf4j
+public class SnowflakeEngine {
+
+    /**
+     * 位布局
+     */
+    private final SnowflakeLayout layout;
+
+    /**
+     * 机器ID
+     */
+    private final long workerId;
+
+    /**
+     * 上一个状态（时间戳差值 << 序列号位数 | 序列号），-1 表示尚未生成过ID
+     */
+    private final AtomicLong state = new AtomicLong(-1L);
+
+    /**
+     * 机器ID租约到期时间（毫秒），超过后拒绝生成ID
+     */
+    private volatile long leaseExpireAt = Long.MAX_VALUE;
+
+    /**
+     * 时钟回拨容忍时间（毫秒）
+     */
+    private volatile long clockBackwardToleranceMs;
+
+    /**
+     * 性能统计 - 使用 LongAdder 避免统计本身成为新的竞争点
+     */
+    private final LongAdder totalGenerated = new LongAdder();
+    private final LongAdder clockBackwardCount = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param clockBackwardToleranceMs 时钟回拨容忍时间（毫秒）
+     */
+    public SnowflakeEngine(long clockBackwardToleranceMs) {
+        this(SnowflakeLayout.DEFAULT, 0L, clockBackwardToleranceMs);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param layout                   位布局
+     * @param workerId                 机器ID
+     * @param clockBackwardToleranceMs 时钟回拨容忍时间（毫秒）
+     */
+    public SnowflakeEngine(SnowflakeLayout layout, long workerId, long clockBackwardToleranceMs) {
+        if (workerId < 0 || workerId > layout.getMaxWorkerId()) {
+            throw new IllegalArgumentException(
+                    String.format("机器ID超出位布局范围: workerId=%d, maxWorkerId=%d", workerId, layout.getMaxWorkerId()));
+        }
+        this.layout = layout;
+        this.workerId = workerId;
+        this.clockBackwardToleranceMs = Math.max(0, clockBackwardToleranceMs);
+    }
+
+    // ======================== 核心方法 ========================
+
+    /**
+     * 生成下一个ID
+     *
+     * @return 唯一ID
+     * @throws RuntimeException 当时钟回拨超过容忍时间或时间戳超过最大值时抛出异常
+     */
+    public long nextId() {
+        return toId(claim(1));
+    }
+
+    /**
+     * 批量生成ID
+     * <p>
+     * 每次 CAS 直接占用当前毫秒剩余的序列号区间（最多 count 个），
+     * 只有当前毫秒的序列号用完时才进入下一毫秒继续占用，而不是逐个 CAS。
+     * 返回的ID严格递增。
+     *
+     * @param count 生成数量
+     * @return ID数组
+     */
+    public long[] nextIds(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("生成数量必须大于0");
+        }
+
+        long[] ids = new long[count];
+        long maxSequence = layout.getMaxSequence();
+        int filled = 0;
+        while (filled < count) {
+            int want = count - filled;
+            long start = claim(want);
+            int claimed = claimedCount(start, want, maxSequence);
+            long id = toId(start);
+            for (int i = 0; i < claimed; i++) {
+                // 同一毫秒内序列号在最低位，连续递增即可
+                ids[filled++] = id + i;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * CAS 占用一段连续序列号
+     * <p>
+     * 占用数量 = min(want, 当前毫秒剩余序列号数)，可由返回值通过 {@link #claimedCount} 推导
+     *
+     * @param want 期望占用的数量
+     * @return 占用区间的起始状态（时间戳差值 << 序列号位数 | 起始序列号）
+     */
+    private long claim(int want) {
+        int sequenceBits = layout.getSequenceBits();
+        long maxSequence = layout.getMaxSequence();
+        boolean clockBackward = false;
+        boolean waited = false;
+
+        while (true) {
+            long last = state.get();
+            // 算术右移：初始值 -1 得到的上次时间戳差值同样为 -1
+            long lastDelta = last >> sequenceBits;
+            long currentTimestamp = currentTimeMillis();
+            long currentDelta = currentTimestamp - FmkSnowflakeIdGenerator.START_TIMESTAMP;
+
+            long start;
+            if (currentDelta > lastDelta) {
+                // 新的毫秒，序列号从0开始
+                checkLease(currentTimestamp);
+                checkTimestamp(currentDelta);
+                start = currentDelta << sequenceBits;
+            } else {
+                if (currentDelta < lastDelta) {
+                    checkClockBackward(lastDelta, currentDelta);
+                    clockBackward = true;
+                }
+
+                // 序列号溢出，等待下一毫秒
+                if ((last & maxSequence) == maxSequence) {
+                    waited = true;
+                    Thread.onSpinWait();
+                    continue;
+                }
+                checkLease(currentTimestamp);
+                start = last + 1;
+            }
+
+            int claimed = claimedCount(start, want, maxSequence);
+            if (state.compareAndSet(last, start + claimed - 1)) {
+                totalGenerated.add(claimed);
+                if (clockBackward) {
+                    clockBackwardCount.increment();
+                }
+                if (waited) {
+                    waitCount.increment();
+                }
+                return start;
+            }
+        }
+    }
+
+    /**
+     * 从起始状态推导实际占用数量
+     */
+    private static int claimedCount(long start, int want, long maxSequence) {
+        return (int) Math.min(want, maxSequence - (start & maxSequence) + 1);
+    }
+
+    /**
+     * 状态转换为ID
+     */
+    private long toId(long state) {
+        int sequenceBits = layout.getSequenceBits();
+        long maxSequence = layout.getMaxSequence();
+        return layout.compose(state >> sequenceBits, workerId, state & maxSequence);
+    }
+
+    /**
+     * 以指定时间戳作为"上次时间戳"，之后生成的ID时间戳都大于它
+     * <p>
+     * 用于接管机器ID时，避免与上一个持有者（可能时钟更快）生成的ID重复
+     *
+     * @param lastTimestamp 上一个持有者最后使用的时间戳（毫秒）
+     */
+    public void seedLastTimestamp(long lastTimestamp) {
+        if (lastTimestamp < FmkSnowflakeIdGenerator.START_TIMESTAMP) {
+            return;
+        }
+        long seeded = ((lastTimestamp - FmkSnowflakeIdGenerator.START_TIMESTAMP) << layout.getSequenceBits())
+                | layout.getMaxSequence();
+        state.accumulateAndGet(seeded, Math::max);
+    }
+
+    /**
+     * 更新机器ID租约到期时间
+     *
+     * @param leaseExpireAt 到期时间（毫秒），{@link Long#MAX_VALUE} 表示永不过期
+     */
+    public void renewLease(long leaseExpireAt) {
+        this.leaseExpireAt = leaseExpireAt;
+    }
+
+    // ======================== 时钟处理 ========================
+
+    /**
+     * 检查时钟回拨是否在容忍范围内
+     * <p>
+     * 在容忍范围内时继续使用上次时间戳，序列号单调递增，保证唯一性
+     *
+     * @param lastDelta    上次时间戳差值
+     * @param currentDelta 当前时间戳差值
+     */
+    private void checkClockBackward(long lastDelta, long currentDelta) {
+        long backwardMs = lastDelta - currentDelta;
+        if (backwardMs > clockBackwardToleranceMs) {
+            clockBackwardCount.increment();
+            log.warn("SnowflakeEngine|checkClockBackward|时钟回拨超过容忍时间|backwardMs={}|toleranceMs={}",
+                    backwardMs, clockBackwardToleranceMs);
+            throw new RuntimeException(
+                    String.format("时钟回拨超过容忍时间，回拨时间: %dms, 容忍时间: %dms",
+                            backwardMs, clockBackwardToleranceMs));
+        }
+    }
+
+    /**
+     * 检查机器ID租约是否有效
+     *
+     * @param currentTimestamp 当前时间戳
+     */
+    private void checkLease(long currentTimestamp) {
+        if (currentTimestamp >= leaseExpireAt) {
+            throw new RuntimeException(
+                    String.format("机器ID租约已过期，拒绝生成ID: workerId=%d, leaseExpireAt=%d", workerId, leaseExpireAt));
+        }
+    }
+
+    /**
+     * 验证时间戳不超过最大值
+     *
+     * @param timestampDelta 时间戳差值
+     */
+    private void checkTimestamp(long timestampDelta) {
+        if (timestampDelta > layout.getMaxTimestamp()) {
+            throw new RuntimeException("时间戳超过最大值，雪花算法已达到使用期限");
+        }
+    }
+
+    /**
+     * 获取当前时间戳 (UTC+0)
+     *
+     * @return 当前时间戳（毫秒）
+     */
+    private static long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    // ======================== 状态监控 ========================
+
+    /**
+     * 上次生成ID的时间戳，尚未生成过ID时返回 -1
+     */
+    public long getLastTimestamp() {
+        long last = state.get();
+        if (last < 0) {
+            return -1L;
+        }
+        return (last >> layout.getSequenceBits()) + FmkSnowflakeIdGenerator.START_TIMESTAMP;
+    }
+
+    public SnowflakeLayout getLayout() {
+        return layout;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public long getClockBackwardToleranceMs() {
+        return clockBackwardToleranceMs;
+    }
+
+    public void setClockBackwardToleranceMs(long clockBackwardToleranceMs) {
+        this.clockBackwardToleranceMs = Math.max(0, clockBackwardToleranceMs);
+    }
+
+    public long getTotalGenerated() {
+        return totalGenerated.sum();
+    }
+
+    public long getClockBackwardCount() {
+        return clockBackwardCount.sum();
+    }
+
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
+
+    /**
+     * 重置统计信息
+     */
+    public void resetStatistics() {
+        totalGenerated.reset();
+        clockBackwardCount.reset();
+        waitCount.reset();
+    }
+}
@@ -10,7 +10,7 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 
 /**
- * 雪花算法ID信息（无机器ID版本）
+ * 雪花算法ID信息（默认布局下机器ID恒为0）
  */
 @Getter
 @Setter
@@ -38,6 +38,11 @@ public class SnowflakeIdInfo {
      */
     private String formattedTime;
 
+    /**
+     * 机器ID（默认布局下为0）
+     */
+    private long workerId;
+
     /**
      * 日期格式化器 - UTC
      */
@@ -55,6 +60,13 @@ public class SnowflakeIdInfo {
         this.formattedTime = getFormattedTime();
     }
 
+    /**
+     * 四参数构造函数 (向后兼容)
+     */
+    public SnowflakeIdInfo(long id, long timestamp, long sequence, String formattedTime) {
+        this(id, timestamp, sequence, formattedTime, 0L);
+    }
+
     /**
      * 获取格式化的时间字符串 (UTC+0)
      *
@@ -76,7 +88,7 @@ public class SnowflakeIdInfo {
      */
     @Override
     public String toString() {
-        return String.format("ID: %d, 生成时间: %s, 序列号: %d",
-                id, getFormattedTime(), sequence);
+        return String.format("ID: %d, 生成时间: %s, 机器ID: %d, 序列号: %d",
+                id, getFormattedTime(), workerId, sequence);
     }
 }
\ No newline at end of file
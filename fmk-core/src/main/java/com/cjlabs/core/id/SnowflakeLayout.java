@@ -0,0 +1,140 @@
+package com.cjlabs.core.id;
+
+import lombok.Getter;
+
+/**
+ * 雪花算法ID位布局
+ * <p>
+ * ID结构（64位）：1位符号位（固定为0） + 时间戳位 + 机器ID位 + 序列号位，三段之和必须为63。
+ * <p>
+ * 常用布局：
+ * 1. {@link #DEFAULT}：41位时间戳 + 0位机器ID + 22位序列号（单机，与历史ID完全兼容）
+ * 2. {@link #CLUSTER}：41位时间戳 + 10位机器ID + 12位序列号（最多1024个实例，每毫秒4096个ID）
+ * <p>
+ * 需要区分数据中心时，可把 (数据中心ID << n) | 实例ID 作为机器ID，机器ID位数取两者之和。
+ */
+@Getter
+public final class SnowflakeLayout {
+
+    /**
+     * 默认布局：单机，无机器ID
+     */
+    public static final SnowflakeLayout DEFAULT = new SnowflakeLayout(41, 0, 22);
+
+    /**
+     * 集群布局：10位机器ID
+     */
+    public static final SnowflakeLayout CLUSTER = new SnowflakeLayout(41, 10, 12);
+
+    /**
+     * 时间戳位数
+     */
+    private final int timestampBits;
+
+    /**
+     * 机器ID位数
+     */
+    private final int workerBits;
+
+    /**
+     * 序列号位数
+     */
+    private final int sequenceBits;
+
+    /**
+     * 序列号最大值
+     */
+    private final long maxSequence;
+
+    /**
+     * 机器ID最大值
+     */
+    private final long maxWorkerId;
+
+    /**
+     * 时间戳差值最大值
+     */
+    private final long maxTimestamp;
+
+    /**
+     * 机器ID左移位数
+     */
+    private final int workerShift;
+
+    /**
+     * 时间戳左移位数
+     */
+    private final int timestampShift;
+
+    private SnowflakeLayout(int timestampBits, int workerBits, int sequenceBits) {
+        if (timestampBits < 1 || workerBits < 0 || sequenceBits < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "雪花算法位布局非法: timestampBits=%d, workerBits=%d, sequenceBits=%d",
+                    timestampBits, workerBits, sequenceBits));
+        }
+        if (timestampBits + workerBits + sequenceBits != 63) {
+            throw new IllegalArgumentException(String.format(
+                    "雪花算法位布局之和必须为63: timestampBits=%d, workerBits=%d, sequenceBits=%d",
+                    timestampBits, workerBits, sequenceBits));
+        }
+        this.timestampBits = timestampBits;
+        this.workerBits = workerBits;
+        this.sequenceBits = sequenceBits;
+        this.maxSequence = ~(-1L << sequenceBits);
+        this.maxWorkerId = ~(-1L << workerBits);
+        this.maxTimestamp = ~(-1L << timestampBits);
+        this.workerShift = sequenceBits;
+        this.timestampShift = sequenceBits + workerBits;
+    }
+
+    /**
+     * 创建位布局
+     *
+     * @param timestampBits 时间戳位数
+     * @param workerBits    机器ID位数
+     * @param sequenceBits  序列号位数
+     * @return 位布局
+     */
+    public static SnowflakeLayout of(int timestampBits, int workerBits, int sequenceBits) {
+        return new SnowflakeLayout(timestampBits, workerBits, sequenceBits);
+    }
+
+    /**
+     * 组装ID
+     *
+     * @param timestampDelta 时间戳差值（相对起始时间）
+     * @param workerId       机器ID
+     * @param sequence       序列号
+     * @return ID
+     */
+    public long compose(long timestampDelta, long workerId, long sequence) {
+        return (timestampDelta << timestampShift) | (workerId << workerShift) | sequence;
+    }
+
+    /**
+     * 从ID中提取时间戳差值
+     */
+    public long timestampDeltaOf(long id) {
+        return (id >> timestampShift) & maxTimestamp;
+    }
+
+    /**
+     * 从ID中提取机器ID
+     */
+    public long workerIdOf(long id) {
+        return (id >> workerShift) & maxWorkerId;
+    }
+
+    /**
+     * 从ID中提取序列号
+     */
+    public long sequenceOf(long id) {
+        return id & maxSequence;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SnowflakeLayout(timestampBits=%d, workerBits=%d, sequenceBits=%d)",
+                timestampBits, workerBits, sequenceBits);
+    }
+}
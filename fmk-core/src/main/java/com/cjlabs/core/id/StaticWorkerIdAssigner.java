@@ -0,0 +1,27 @@
+package com.cjlabs.core.id;
+
+/**
+ * 固定机器ID分配器
+ * <p>
+ * 机器ID由部署方保证唯一（如 StatefulSet 序号、配置中心下发），不做任何协调。
+ */
+public class StaticWorkerIdAssigner implements WorkerIdAssigner {
+
+    private final long workerId;
+
+    public StaticWorkerIdAssigner(long workerId) {
+        if (workerId < 0) {
+            throw new IllegalArgumentException("机器ID不能为负数: " + workerId);
+        }
+        this.workerId = workerId;
+    }
+
+    @Override
+    public WorkerIdLease assign(long maxWorkerId) {
+        if (workerId > maxWorkerId) {
+            throw new IllegalArgumentException(
+                    String.format("机器ID超出位布局范围: workerId=%d, maxWorkerId=%d", workerId, maxWorkerId));
+        }
+        return WorkerIdLease.permanent(workerId, -1L);
+    }
+}
@@ -0,0 +1,44 @@
+package com.cjlabs.core.id;
+
+/**
+ * 雪花算法机器ID分配器
+ * <p>
+ * 实现：
+ * 1. {@link StaticWorkerIdAssigner}：固定机器ID（配置文件/环境变量）
+ * 2. {@link LocalFileWorkerIdAssigner}：本地文件持久化机器ID和最后时间戳
+ * 3. Redis 租约（fmk-memory）、数据库表租约（fmk-boot）
+ * <p>
+ * 生命周期由 {@link FmkSnowflakeIdGenerator#init(SnowflakeLayout, WorkerIdAssigner)} 管理：
+ * 启动时调用一次 assign，之后按租约的心跳间隔调用 renew，停机时调用 release。
+ */
+public interface WorkerIdAssigner {
+
+    /**
+     * 分配机器ID
+     *
+     * @param maxWorkerId 机器ID最大值（由位布局决定）
+     * @return 机器ID租约
+     * @throws RuntimeException 没有可用的机器ID时抛出
+     */
+    WorkerIdLease assign(long maxWorkerId);
+
+    /**
+     * 续约，同时持久化最后使用的时间戳
+     *
+     * @param lease         当前租约
+     * @param lastTimestamp 本实例最后使用的时间戳
+     * @return 是否仍然持有该机器ID
+     */
+    default boolean renew(WorkerIdLease lease, long lastTimestamp) {
+        return true;
+    }
+
+    /**
+     * 释放机器ID
+     *
+     * @param lease         当前租约
+     * @param lastTimestamp 本实例最后使用的时间戳
+     */
+    default void release(WorkerIdLease lease, long lastTimestamp) {
+    }
+}
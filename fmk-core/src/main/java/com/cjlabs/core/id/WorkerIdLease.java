@@ -0,0 +1,52 @@
+package com.cjlabs.core.id;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 机器ID租约
+ * <p>
+ * 由 {@link WorkerIdAssigner#assign(long)} 返回，记录本实例拿到的机器ID，
+ * 以及该机器ID上一个持有者最后使用的时间戳（用于防止跨实例的时钟回拨导致ID重复）。
+ */
+@Getter
+@AllArgsConstructor
+public class WorkerIdLease {
+
+    /**
+     * 机器ID
+     */
+    private final long workerId;
+
+    /**
+     * 该机器ID历史上最后使用的时间戳（毫秒），没有记录时为 -1
+     */
+    private final long lastTimestamp;
+
+    /**
+     * 租约有效期（毫秒），0 表示永不过期
+     */
+    private final long leaseTimeoutMs;
+
+    /**
+     * 心跳续约间隔（毫秒），0 表示不需要续约
+     */
+    private final long heartbeatIntervalMs;
+
+    /**
+     * 创建永不过期、不需要续约的租约
+     *
+     * @param workerId      机器ID
+     * @param lastTimestamp 最后使用的时间戳
+     * @return 租约
+     */
+    public static WorkerIdLease permanent(long workerId, long lastTimestamp) {
+        return new WorkerIdLease(workerId, lastTimestamp, 0L, 0L);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WorkerIdLease(workerId=%d, lastTimestamp=%d, leaseTimeoutMs=%d, heartbeatIntervalMs=%d)",
+                workerId, lastTimestamp, leaseTimeoutMs, heartbeatIntervalMs);
+    }
+}
@@ -10,7 +10,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -21,10 +20,9 @@ public class FmkToken extends BaseStringType<FmkToken> {
 
     private static final String TOKEN_PREFIX = "TOKEN_";
 
-    // Token 格式正则表达式
-    private static final Pattern TOKEN_PATTERN = Pattern.compile(
-            "^TOKEN_[a-zA-Z0-9\\-_]{16,64}$"
-    );
+    // Token 格式：TOKEN_ 前缀 + 16~64 位 [a-zA-Z0-9-_]
+    private static final int TOKEN_MIN_BODY_LENGTH = 16;
+    private static final int TOKEN_MAX_BODY_LENGTH = 64;
 
     private static final DateTimeFormatter TIMESTAMP_FORMATTER =
             DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
@@ -129,9 +127,27 @@ public class FmkToken extends BaseStringType<FmkToken> {
 
     /**
      * 检查Token格式是否有效
+     * <p>
+     * 每个请求都会构造 Token，逐字符校验，不走正则
      */
     private static boolean isValidFormat(String value) {
-        return TOKEN_PATTERN.matcher(value).matches();
+        int length = value.length();
+        int bodyLength = length - TOKEN_PREFIX.length();
+        if (bodyLength < TOKEN_MIN_BODY_LENGTH || bodyLength > TOKEN_MAX_BODY_LENGTH || !value.startsWith(TOKEN_PREFIX)) {
+            return false;
+        }
+        for (int i = TOKEN_PREFIX.length(); i < length; i++) {
+            char c = value.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z')
+                    || (c >= 'A' && c <= 'Z')
+                    || (c >= '0' && c <= '9')
+                    || c == '-'
+                    || c == '_';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -0,0 +1,230 @@
+package com.cjlabs.core.id;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SegmentIdAllocator 测试类
+ * 使用内存号段存储模拟 fmk_id_segment 表的 UPDATE max_id = max_id + step
+ */
+@DisplayName("SegmentIdAllocator 号段ID分配器测试")
+class SegmentIdAllocatorTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("测试单线程发号 - 从1开始稠密递增")
+    void testNextId_DenseAndMonotonic() {
+        MemorySegmentStore store = new MemorySegmentStore();
+        SegmentIdAllocator allocator = new SegmentIdAllocator("order", store, Runnable::run, 100, 100);
+
+        for (long expected = 1; expected <= 10_000; expected++) {
+            assertEquals(expected, allocator.nextId(), "号段ID应该稠密递增");
+        }
+
+        // 100 个号段 + 最后一个号段消耗 10% 时预取的下一个号段
+        assertEquals(101, store.writeCount.get());
+        System.out.println("✅ 单线程 10000 个ID稠密递增，存储写入 " + store.writeCount.get() + " 次");
+    }
+
+    @Test
+    @DisplayName("测试多线程发号 - ID全局唯一")
+    void testNextId_ConcurrentUnique() throws InterruptedException {
+        MemorySegmentStore store = new MemorySegmentStore();
+        SegmentIdAllocator allocator = new SegmentIdAllocator("order", store, executor, 500, 5000);
+        int threadCount = 16;
+        int idsPerThread = 20_000;
+        long[][] results = new long[threadCount][idsPerThread];
+
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(threadCount);
+        ExecutorService workers = Executors.newFixedThreadPool(threadCount);
+
+        for (int t = 0; t < threadCount; t++) {
+            long[] ids = results[t];
+            workers.submit(() -> {
+                try {
+                    startLatch.await();
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids[i] = allocator.nextId();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        startLatch.countDown();
+        assertTrue(doneLatch.await(30, TimeUnit.SECONDS), "所有线程应该在超时前完成");
+        workers.shutdown();
+
+        long[] all = Arrays.stream(results).flatMapToLong(Arrays::stream).sorted().toArray();
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "不应该生成重复的ID");
+        }
+        System.out.println("✅ " + threadCount + " 个线程共生成 " + all.length + " 个唯一ID，存储写入 "
+                + store.writeCount.get() + " 次，同步加载 " + allocator.getSyncLoadCount() + " 次");
+    }
+
+    @Test
+    @DisplayName("测试双缓冲 - 号段用完前已异步预取")
+    void testPreload() throws InterruptedException {
+        MemorySegmentStore store = new MemorySegmentStore();
+        SegmentIdAllocator allocator = new SegmentIdAllocator("order", store, executor, 1000, 1000);
+
+        // 首个号段同步加载，消耗 10% 后触发预取
+        for (int i = 0; i < 200; i++) {
+            allocator.nextId();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, store.writeCount.get(), "应该已经预取了下一个号段");
+
+        for (int i = 200; i < 1000; i++) {
+            allocator.nextId();
+        }
+        assertEquals(1001, allocator.nextId(), "切换到预取号段后继续递增");
+        assertEquals(1, allocator.getSyncLoadCount(), "只有首个号段是同步加载的");
+        System.out.println("✅ 双缓冲预取生效");
+    }
+
+    @Test
+    @DisplayName("测试慢预取 - 同步加载之后才完成的预取号段被丢弃，ID不回退")
+    void testSlowPreloadAfterSyncLoad() throws Exception {
+        CountDownLatch allocated = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MemorySegmentStore store = new MemorySegmentStore();
+        // 第一次预取已经从存储拿到 [101, 201)，但返回前卡住，超过切换线程的等待时间
+        SegmentStore slowStore = (bizTag, step) -> {
+            long maxId = store.allocate(bizTag, step);
+            if (Thread.currentThread().getName().startsWith("pool") && allocated.getCount() > 0) {
+                allocated.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return maxId;
+        };
+        SegmentIdAllocator allocator = new SegmentIdAllocator("order", slowStore, executor, 100, 100);
+
+        long last = 0;
+        for (int i = 0; i < 100; i++) {
+            last = allocator.nextId();
+        }
+        assertTrue(allocated.await(5, TimeUnit.SECONDS), "预取已经分配号段");
+        long afterSync = allocator.nextId();
+        assertEquals(201, afterSync, "预取未就绪，同步加载了 [201, 301)");
+        assertEquals(2, allocator.getSyncLoadCount());
+
+        release.countDown();
+        executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+
+        last = afterSync;
+        for (int i = 0; i < 300; i++) {
+            long id = allocator.nextId();
+            assertTrue(id > last, "ID必须单调递增: last=" + last + ", id=" + id);
+            last = id;
+        }
+        System.out.println("✅ 慢预取的号段被丢弃，ID保持递增: last=" + last);
+    }
+
+    @Test
+    @DisplayName("测试线程池拒绝 - 降级为同步加载")
+    void testPreloadRejected() {
+        MemorySegmentStore store = new MemorySegmentStore();
+        SegmentIdAllocator allocator = new SegmentIdAllocator("order", store, task -> {
+            throw new RejectedExecutionException("rejected");
+        }, 100, 100);
+
+        for (long expected = 1; expected <= 1000; expected++) {
+            assertEquals(expected, allocator.nextId());
+        }
+        assertEquals(10, allocator.getSyncLoadCount());
+        System.out.println("✅ 线程池拒绝时同步加载，发号不中断");
+    }
+
+    @Test
+    @DisplayName("测试自适应步长 - 消耗快时翻倍，不超过最大步长")
+    void testAdaptiveStep() {
+        MemorySegmentStore store = new MemorySegmentStore();
+        SegmentIdAllocator allocator = new SegmentIdAllocator("order", store, Runnable::run, 100, 800);
+
+        for (int i = 0; i < 10_000; i++) {
+            allocator.nextId();
+        }
+        assertEquals(800, allocator.getStep(), "号段很快消耗完，步长应该增长到最大值");
+        assertTrue(store.writeCount.get() < 100, "步长增长后存储写入次数应该减少");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new SegmentIdAllocator("order", store, Runnable::run, 100, 10));
+        System.out.println("✅ 自适应步长: step=" + allocator.getStep() + ", 存储写入 " + store.writeCount.get() + " 次");
+    }
+
+    @Test
+    @DisplayName("测试多个业务标识 - 号段互不影响")
+    void testMultipleBizTag() {
+        MemorySegmentStore store = new MemorySegmentStore();
+        SegmentIdAllocator order = new SegmentIdAllocator("order", store, Runnable::run, 100, 100);
+        SegmentIdAllocator user = new SegmentIdAllocator("user", store, Runnable::run, 100, 100);
+
+        assertEquals(1, order.nextId());
+        assertEquals(1, user.nextId());
+        assertEquals(2, order.nextId());
+        System.out.println("✅ 多个业务标识独立发号");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 号段发号耗时")
+    void testPerformance() {
+        MemorySegmentStore store = new MemorySegmentStore();
+        SegmentIdAllocator allocator = new SegmentIdAllocator("order", store, executor, 1000, 100_000);
+        int count = 5_000_000;
+
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < count; i++) {
+            sink ^= allocator.nextId();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertNotEquals(Long.MIN_VALUE, sink);
+        System.out.printf("生成 %d 个ID耗时 %dms，平均 %.1fns/个，存储写入 %d 次%n",
+                count, TimeUnit.NANOSECONDS.toMillis(elapsed), (double) elapsed / count, store.writeCount.get());
+        System.out.println("✅ 号段发号性能测试完成");
+    }
+
+    /**
+     * 内存号段存储，等价于 UPDATE fmk_id_segment SET max_id = max_id + step
+     */
+    private static final class MemorySegmentStore implements SegmentStore {
+        private final ConcurrentHashMap<String, AtomicLong> maxIdMap = new ConcurrentHashMap<>();
+        private final AtomicLong writeCount = new AtomicLong();
+
+        @Override
+        public long allocate(String bizTag, int step) {
+            writeCount.incrementAndGet();
+            return maxIdMap.computeIfAbsent(bizTag, tag -> new AtomicLong(1)).addAndGet(step);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.cjlabs.core.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SnowflakeEngine 测试类
+ * 验证无锁引擎的唯一性、单调性、ID结构兼容性，并输出与全局锁实现的竞争吞吐对比
+ */
+@DisplayName("SnowflakeEngine 无锁雪花引擎测试")
+class SnowflakeEngineTest {
+
+    @Test
+    @DisplayName("测试单线程生成 - ID 严格递增")
+    void testNextId_Monotonic() {
+        SnowflakeEngine engine = new SnowflakeEngine(5L);
+
+        long previous = -1L;
+        for (int i = 0; i < 100_000; i++) {
+            long id = engine.nextId();
+            assertTrue(id > previous, "ID 应该严格递增");
+            previous = id;
+        }
+
+        assertEquals(100_000, engine.getTotalGenerated());
+        System.out.println("✅ 单线程 100000 个 ID 严格递增");
+    }
+
+    @Test
+    @DisplayName("测试多线程生成 - ID 全局唯一")
+    void testNextId_ConcurrentUnique() throws InterruptedException {
+        SnowflakeEngine engine = new SnowflakeEngine(5L);
+        int threadCount = 16;
+        int idsPerThread = 20_000;
+        long[][] results = new long[threadCount][idsPerThread];
+
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        for (int t = 0; t < threadCount; t++) {
+            long[] ids = results[t];
+            executor.submit(() -> {
+                try {
+                    startLatch.await();
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids[i] = engine.nextId();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        startLatch.countDown();
+        assertTrue(doneLatch.await(30, TimeUnit.SECONDS), "所有线程应该在超时前完成");
+        executor.shutdown();
+
+        long[] all = Arrays.stream(results).flatMapToLong(Arrays::stream).sorted().toArray();
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "不应该生成重复的ID");
+        }
+        assertEquals((long) threadCount * idsPerThread, engine.getTotalGenerated());
+        System.out.println("✅ " + threadCount + " 个线程共生成 " + all.length + " 个唯一ID");
+    }
+
+    @Test
+    @DisplayName("测试批量生成 - 跨毫秒区间严格递增")
+    void testNextIds_SpillAcrossMillis() {
+        // 序列号 10 位，每毫秒最多 1024 个，5000 个必然跨越多个毫秒
+        SnowflakeLayout layout = SnowflakeLayout.of(41, 12, 10);
+        SnowflakeEngine engine = new SnowflakeEngine(layout, 3L, 5L);
+
+        long[] ids = engine.nextIds(5000);
+        assertEquals(5000, ids.length);
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1], "批量ID应该严格递增");
+            assertEquals(3L, layout.workerIdOf(ids[i]));
+        }
+        assertTrue(layout.timestampDeltaOf(ids[ids.length - 1]) - layout.timestampDeltaOf(ids[0]) >= 4,
+                "5000 个ID至少跨越 5 个毫秒");
+        assertTrue(engine.nextId() > ids[ids.length - 1], "批量之后的单个ID应该更大");
+        assertEquals(5001, engine.getTotalGenerated());
+
+        assertThrows(IllegalArgumentException.class, () -> engine.nextIds(0));
+        System.out.println("✅ 批量生成 5000 个ID跨毫秒严格递增");
+    }
+
+    @Test
+    @DisplayName("测试批量与单个混合并发 - ID 全局唯一")
+    void testNextIds_ConcurrentUnique() throws InterruptedException {
+        SnowflakeLayout layout = SnowflakeLayout.of(41, 12, 10);
+        SnowflakeEngine engine = new SnowflakeEngine(layout, 1L, 5L);
+        int threadCount = 16;
+        int rounds = 200;
+        int batchSize = 257;
+        long[][] results = new long[threadCount][];
+
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        for (int t = 0; t < threadCount; t++) {
+            int index = t;
+            executor.submit(() -> {
+                try {
+                    startLatch.await();
+                    long[] ids = new long[rounds * (batchSize + 1)];
+                    int pos = 0;
+                    for (int r = 0; r < rounds; r++) {
+                        long[] batch = engine.nextIds(batchSize);
+                        System.arraycopy(batch, 0, ids, pos, batchSize);
+                        pos += batchSize;
+                        ids[pos++] = engine.nextId();
+                    }
+                    results[index] = ids;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        startLatch.countDown();
+        assertTrue(doneLatch.await(60, TimeUnit.SECONDS), "所有线程应该在超时前完成");
+        executor.shutdown();
+
+        long[] all = Arrays.stream(results).flatMapToLong(Arrays::stream).sorted().toArray();
+        assertEquals((long) threadCount * rounds * (batchSize + 1), all.length);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "不应该生成重复的ID");
+        }
+        assertEquals(all.length, engine.getTotalGenerated());
+        System.out.println("✅ " + threadCount + " 个线程批量+单个混合生成 " + all.length + " 个唯一ID");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 批量生成 vs 逐个生成")
+    void testNextIds_Performance() {
+        int count = 1_000_000;
+        SnowflakeEngine single = new SnowflakeEngine(5L);
+        SnowflakeEngine batch = new SnowflakeEngine(5L);
+
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < count; i++) {
+            sink ^= single.nextId();
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < count / 1000; i++) {
+            sink ^= batch.nextIds(1000)[999];
+        }
+        long batchNanos = System.nanoTime() - start;
+
+        assertNotEquals(Long.MIN_VALUE, sink);
+        System.out.printf("逐个生成: %dms, 批量生成(1000/批): %dms%n",
+                TimeUnit.NANOSECONDS.toMillis(singleNanos), TimeUnit.NANOSECONDS.toMillis(batchNanos));
+        System.out.println("✅ 批量生成性能对比完成");
+    }
+
+    @Test
+    @DisplayName("测试 ID 结构 - parseId / isValidId 兼容")
+    void testIdLayoutCompatible() {
+        FmkSnowflakeIdGenerator generator = new FmkSnowflakeIdGenerator();
+        long before = System.currentTimeMillis();
+        long id = FmkSnowflakeIdGenerator.nextId();
+        long after = System.currentTimeMillis();
+
+        SnowflakeIdInfo info = generator.parseId(id);
+        assertTrue(info.getTimestamp() >= before && info.getTimestamp() <= after, "时间戳应该落在生成区间内");
+        assertTrue(info.getSequence() >= 0 && info.getSequence() <= 4194303L);
+        assertTrue(generator.isValidId(id), "生成的ID应该是有效的");
+        assertEquals(info.getTimestamp(), generator.getStatus().getLastTimestamp());
+        System.out.println("✅ ID 结构兼容: " + info);
+    }
+
+    @Test
+    @DisplayName("测试时钟回拨容忍时间 - 负数转换为0")
+    void testClockBackwardTolerance() {
+        SnowflakeEngine engine = new SnowflakeEngine(-5L);
+        assertEquals(0, engine.getClockBackwardToleranceMs(), "负数应该被转换为0");
+
+        engine.setClockBackwardToleranceMs(10L);
+        assertEquals(10, engine.getClockBackwardToleranceMs());
+        System.out.println("✅ 时钟回拨容忍时间配置正确");
+    }
+
+    @Test
+    @DisplayName("综合测试 - 竞争吞吐对比（全局锁 vs CAS）")
+    void testContentionBenchmark() throws InterruptedException {
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        int idsPerThread = 200_000;
+
+        System.out.println("线程数\t全局锁(万/秒)\tCAS(万/秒)");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            LockedBaseline baseline = new LockedBaseline();
+            SnowflakeEngine engine = new SnowflakeEngine(5L);
+
+            double lockedRate = measure(threads, idsPerThread, baseline::nextId);
+            double casRate = measure(threads, idsPerThread, engine::nextId);
+
+            assertEquals((long) threads * idsPerThread, engine.getTotalGenerated());
+            System.out.printf("%d\t%.1f\t%.1f%n", threads, lockedRate / 10000.0, casRate / 10000.0);
+        }
+        System.out.println("✅ 竞争吞吐对比完成（CPU 核数: " + Runtime.getRuntime().availableProcessors() + "）");
+    }
+
+    /**
+     * 多线程压测，返回每秒生成ID数
+     */
+    private static double measure(int threads, int idsPerThread, LongSupplier supplier) throws InterruptedException {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(threads);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                try {
+                    startLatch.await();
+                    long sink = 0;
+                    for (int i = 0; i < idsPerThread; i++) {
+                        sink ^= supplier.getAsLong();
+                    }
+                    if (sink == Long.MIN_VALUE) {
+                        failed.set(true);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.set(true);
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        assertTrue(doneLatch.await(60, TimeUnit.SECONDS), "压测应该在超时前完成");
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        assertFalse(failed.get());
+        return (double) threads * idsPerThread * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * 原全局锁实现的等价基线，仅用于吞吐对比
+     */
+    private static final class LockedBaseline {
+        private final Lock lock = new ReentrantLock();
+        private long sequence = 0L;
+        private long lastTimestamp = -1L;
+
+        long nextId() {
+            lock.lock();
+            try {
+                long currentTimestamp = System.currentTimeMillis();
+                if (currentTimestamp == lastTimestamp) {
+                    sequence = (sequence + 1) & SnowflakeLayout.DEFAULT.getMaxSequence();
+                    if (sequence == 0) {
+                        while (currentTimestamp <= lastTimestamp) {
+                            currentTimestamp = System.currentTimeMillis();
+                        }
+                    }
+                } else {
+                    sequence = 0L;
+                }
+                lastTimestamp = currentTimestamp;
+                return SnowflakeLayout.DEFAULT.compose(
+                        currentTimestamp - FmkSnowflakeIdGenerator.START_TIMESTAMP, 0L, sequence);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.cjlabs.core.id;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 机器ID分配与位布局测试
+ */
+@DisplayName("雪花算法机器ID测试")
+class WorkerIdAssignerTest {
+
+    @AfterEach
+    void tearDown() {
+        FmkSnowflakeIdGenerator.shutdown();
+    }
+
+    @Test
+    @DisplayName("测试位布局 - 组装与解析互逆")
+    void testLayoutComposeAndParse() {
+        SnowflakeLayout layout = SnowflakeLayout.CLUSTER;
+        long id = layout.compose(123456789L, 1023L, 4095L);
+
+        assertEquals(123456789L, layout.timestampDeltaOf(id));
+        assertEquals(1023L, layout.workerIdOf(id));
+        assertEquals(4095L, layout.sequenceOf(id));
+        assertTrue(id > 0, "ID应该是正数");
+
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeLayout.of(41, 10, 13), "位数之和必须为63");
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeLayout.of(41, -1, 23));
+        System.out.println("✅ 位布局组装与解析正确: " + layout);
+    }
+
+    @Test
+    @DisplayName("测试默认布局 - 与历史ID结构一致")
+    void testDefaultLayoutCompatible() {
+        SnowflakeLayout layout = SnowflakeLayout.DEFAULT;
+        assertEquals(0, layout.getMaxWorkerId());
+        assertEquals(4194303L, layout.getMaxSequence());
+        assertEquals((5L << 22) | 7L, layout.compose(5L, 0L, 7L));
+        System.out.println("✅ 默认布局与历史ID结构一致");
+    }
+
+    @Test
+    @DisplayName("测试不同机器ID - 同一毫秒也不会冲突")
+    void testDifferentWorkersNeverCollide() {
+        SnowflakeEngine worker1 = new SnowflakeEngine(SnowflakeLayout.CLUSTER, 1L, 5L);
+        SnowflakeEngine worker2 = new SnowflakeEngine(SnowflakeLayout.CLUSTER, 2L, 5L);
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(ids.add(worker1.nextId()));
+            assertTrue(ids.add(worker2.nextId()));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeEngine(SnowflakeLayout.CLUSTER, 1024L, 5L));
+        System.out.println("✅ 两个机器ID共生成 " + ids.size() + " 个唯一ID");
+    }
+
+    @Test
+    @DisplayName("测试 init - 固定机器ID，parseId 返回机器ID")
+    void testInitWithStaticAssigner() {
+        FmkSnowflakeIdGenerator.init(SnowflakeLayout.CLUSTER, new StaticWorkerIdAssigner(7L));
+        FmkSnowflakeIdGenerator generator = new FmkSnowflakeIdGenerator();
+
+        long id = FmkSnowflakeIdGenerator.nextId();
+        SnowflakeIdInfo info = generator.parseId(id);
+
+        assertEquals(7L, info.getWorkerId());
+        assertTrue(generator.isValidId(id));
+        assertTrue(generator.getConfigInfo().contains("机器ID=7"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> FmkSnowflakeIdGenerator.init(SnowflakeLayout.CLUSTER, new StaticWorkerIdAssigner(5000L)));
+        System.out.println("✅ init 固定机器ID: " + info);
+    }
+
+    @Test
+    @DisplayName("测试时钟回拨保护 - 新ID时间戳晚于上一个持有者")
+    void testSeedLastTimestamp() {
+        long future = System.currentTimeMillis() + 50;
+        FmkSnowflakeIdGenerator.init(SnowflakeLayout.CLUSTER, maxWorkerId -> WorkerIdLease.permanent(3L, future));
+
+        long id = FmkSnowflakeIdGenerator.nextId();
+        SnowflakeIdInfo info = new FmkSnowflakeIdGenerator().parseId(id);
+
+        assertTrue(info.getTimestamp() > future, "ID 时间戳应该晚于上一个持有者的最后时间戳");
+        System.out.println("✅ 时钟回拨保护生效: " + info);
+    }
+
+    @Test
+    @DisplayName("测试切换布局 - 机器ID为0时 init 前后同一毫秒的ID不重复且递增")
+    void testInitContinuesAfterDefaultEngine() {
+        long[] before = new long[1000];
+        for (int i = 0; i < before.length; i++) {
+            before[i] = FmkSnowflakeIdGenerator.nextId();
+        }
+        FmkSnowflakeIdGenerator.init(SnowflakeLayout.CLUSTER, new StaticWorkerIdAssigner(0L));
+        long first = FmkSnowflakeIdGenerator.nextId();
+
+        Set<Long> ids = new HashSet<>();
+        for (long id : before) {
+            ids.add(id);
+        }
+        assertTrue(ids.add(first), "init 后的ID不能与默认布局生成的ID重复");
+        assertTrue(first > before[before.length - 1], "init 后的ID应该大于默认布局生成的最后一个ID");
+
+        FmkSnowflakeIdGenerator generator = new FmkSnowflakeIdGenerator();
+        SnowflakeIdInfo legacy = generator.parseId(before[0], SnowflakeLayout.DEFAULT);
+        assertEquals(0L, legacy.getWorkerId());
+        assertEquals(legacy.getTimestamp(), generator.parseId(before[0]).getTimestamp(), "时间戳位置相同");
+        assertTrue(generator.isValidId(before[0]));
+        System.out.println("✅ 切换布局后ID继续递增: last=" + before[before.length - 1] + ", first=" + first);
+    }
+
+    @Test
+    @DisplayName("测试租约过期 - 拒绝生成ID")
+    void testLeaseExpired() {
+        SnowflakeEngine engine = new SnowflakeEngine(SnowflakeLayout.CLUSTER, 1L, 5L);
+        engine.nextId();
+
+        engine.renewLease(System.currentTimeMillis() - 1);
+        RuntimeException exception = assertThrows(RuntimeException.class, engine::nextId);
+        assertTrue(exception.getMessage().contains("租约已过期"));
+
+        engine.renewLease(Long.MAX_VALUE);
+        assertDoesNotThrow(engine::nextId);
+        System.out.println("✅ 租约过期后拒绝生成ID");
+    }
+
+    @Test
+    @DisplayName("测试租约起点 - 分配和等待时钟的耗时计入租约，本地到期时间不晚于分配器")
+    void testLeaseStartsBeforeAssign() {
+        WorkerIdAssigner assigner = maxWorkerId -> {
+            // 上一个持有者的最后时间戳晚于当前时间，init 需要等待约 300ms，超过 200ms 的租约
+            return new WorkerIdLease(3L, System.currentTimeMillis() + 300, 200L, 0L);
+        };
+        FmkSnowflakeIdGenerator.init(SnowflakeLayout.CLUSTER, assigner);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, FmkSnowflakeIdGenerator::nextId);
+        assertTrue(exception.getMessage().contains("租约已过期"), exception.getMessage());
+        System.out.println("✅ 租约从分配前开始计时");
+    }
+
+    @Test
+    @DisplayName("测试续约失败 - 心跳发现租约丢失后停止生成")
+    void testHeartbeatLostLease() throws InterruptedException {
+        WorkerIdAssigner assigner = new WorkerIdAssigner() {
+            @Override
+            public WorkerIdLease assign(long maxWorkerId) {
+                return new WorkerIdLease(9L, -1L, 60_000L, 20L);
+            }
+
+            @Override
+            public boolean renew(WorkerIdLease lease, long lastTimestamp) {
+                return false;
+            }
+        };
+        FmkSnowflakeIdGenerator.init(SnowflakeLayout.CLUSTER, assigner);
+        assertDoesNotThrow(FmkSnowflakeIdGenerator::nextId);
+
+        Thread.sleep(200);
+        assertThrows(RuntimeException.class, FmkSnowflakeIdGenerator::nextId);
+        System.out.println("✅ 续约失败后停止生成ID");
+    }
+
+    @Test
+    @DisplayName("测试本地文件分配器 - 重启后沿用机器ID和最后时间戳")
+    void testLocalFileAssigner(@TempDir Path dir) {
+        Path file = dir.resolve("snowflake-worker.properties");
+
+        LocalFileWorkerIdAssigner first = new LocalFileWorkerIdAssigner(file, 5L);
+        WorkerIdLease lease = first.assign(SnowflakeLayout.CLUSTER.getMaxWorkerId());
+        assertEquals(5L, lease.getWorkerId());
+
+        long lastTimestamp = System.currentTimeMillis() + 1000;
+        first.release(lease, lastTimestamp);
+
+        // 模拟重启：构造参数不同，但文件中的机器ID优先
+        LocalFileWorkerIdAssigner second = new LocalFileWorkerIdAssigner(file, 8L);
+        WorkerIdLease restarted = second.assign(SnowflakeLayout.CLUSTER.getMaxWorkerId());
+        assertEquals(5L, restarted.getWorkerId());
+        assertEquals(lastTimestamp, restarted.getLastTimestamp());
+        System.out.println("✅ 本地文件分配器: " + restarted);
+    }
+}
@@ -0,0 +1,60 @@
+package com.cjlabs.db.mybatis.type;
+
+import com.cjlabs.domain.enums.FmkEnumRegistry;
+import com.cjlabs.domain.enums.IEnumInt;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * IEnumInt 枚举类型处理器，数据库存 code
+ * <p>
+ * 不全局注册，在字段上按需指定：{@code @TableField(typeHandler = FmkEnumIntTypeHandler.class)}
+ */
+public class FmkEnumIntTypeHandler<E extends Enum<E> & IEnumInt> extends BaseTypeHandler<E> {
+
+    private final Class<E> type;
+
+    public FmkEnumIntTypeHandler(Class<E> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type argument cannot be null");
+        }
+        this.type = type;
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, E parameter, JdbcType jdbcType) throws SQLException {
+        ps.setInt(i, parameter.getCode());
+    }
+
+    @Override
+    public E getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        int code = rs.getInt(columnName);
+        return rs.wasNull() ? null : toEnum(code);
+    }
+
+    @Override
+    public E getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        int code = rs.getInt(columnIndex);
+        return rs.wasNull() ? null : toEnum(code);
+    }
+
+    @Override
+    public E getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        int code = cs.getInt(columnIndex);
+        return cs.wasNull() ? null : toEnum(code);
+    }
+
+    private E toEnum(int code) {
+        E result = FmkEnumRegistry.findByCode(code, type);
+        if (result == null) {
+            throw new IllegalArgumentException("Cannot convert " + code + " to " + type.getSimpleName() + " by code value.");
+        }
+        return result;
+    }
+}
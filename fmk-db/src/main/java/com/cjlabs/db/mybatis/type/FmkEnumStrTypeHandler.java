@@ -0,0 +1,66 @@
+package com.cjlabs.db.mybatis.type;
+
+import com.cjlabs.domain.enums.FmkEnumRegistry;
+import com.cjlabs.domain.enums.IEnumStr;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * IEnumStr 枚举类型处理器，数据库存 code
+ * <p>
+ * 不全局注册（MyBatis 默认的枚举处理器存 name()，全局替换会改变已有数据的读写），在字段上按需指定：
+ * {@code @TableField(typeHandler = FmkEnumStrTypeHandler.class)}
+ * <p>
+ * 读取时按 code（不区分大小写）查找，找不到再按 name() 查找，兼容切换前存的 name()
+ */
+public class FmkEnumStrTypeHandler<E extends Enum<E> & IEnumStr> extends BaseTypeHandler<E> {
+
+    private final Class<E> type;
+
+    public FmkEnumStrTypeHandler(Class<E> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type argument cannot be null");
+        }
+        this.type = type;
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, E parameter, JdbcType jdbcType) throws SQLException {
+        ps.setString(i, parameter.getCode());
+    }
+
+    @Override
+    public E getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return toEnum(rs.getString(columnName));
+    }
+
+    @Override
+    public E getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return toEnum(rs.getString(columnIndex));
+    }
+
+    @Override
+    public E getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return toEnum(cs.getString(columnIndex));
+    }
+
+    private E toEnum(String value) {
+        if (value == null) {
+            return null;
+        }
+        E result = FmkEnumRegistry.findByCode(value, type);
+        if (result == null) {
+            result = FmkEnumRegistry.findByName(value, type);
+        }
+        if (result == null) {
+            throw new IllegalArgumentException("Cannot convert " + value + " to " + type.getSimpleName() + " by code value.");
+        }
+        return result;
+    }
+}
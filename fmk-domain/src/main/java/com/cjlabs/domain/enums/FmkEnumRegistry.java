@@ -0,0 +1,242 @@
+package com.cjlabs.domain.enums;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 枚举 code 查找表
+ * <p>
+ * 每个枚举类在第一次查找时建立一次索引（按 {@link ClassValue} 缓存，随枚举类一起卸载），之后按 code 查找是一次哈希查找，
+ * 不再调用 getEnumConstants()（每次都会复制数组）也不再逐个 equalsIgnoreCase。
+ * <p>
+ * 与原来的逐个比较结果一致：
+ * 1. IEnumStr 的 code 不区分大小写（与 String.equalsIgnoreCase 相同的规则），多个枚举的 code 相同时返回先声明的
+ * 2. IEnumInt 的 code 精确匹配，code 集中时用数组，分散时用哈希表
+ */
+public final class FmkEnumRegistry {
+
+    private FmkEnumRegistry() {
+    }
+
+    private static final ClassValue<EnumIndex> INDEX = new ClassValue<>() {
+        @Override
+        protected EnumIndex computeValue(Class<?> type) {
+            return new EnumIndex(type);
+        }
+    };
+
+    /**
+     * 根据 code 获取枚举对象（不区分大小写）
+     *
+     * @return 对应的枚举对象，若不存在返回 Optional.empty()
+     */
+    public static <T extends Enum<T> & IEnumStr> Optional<T> getByCode(String code, Class<T> enumClass) {
+        return Optional.ofNullable(findByCode(code, enumClass));
+    }
+
+    /**
+     * 根据 code 获取枚举对象
+     *
+     * @return 对应的枚举对象，若不存在返回 Optional.empty()
+     */
+    public static <T extends Enum<T> & IEnumInt> Optional<T> getByCode(int code, Class<T> enumClass) {
+        return Optional.ofNullable(findByCode(code, enumClass));
+    }
+
+    /**
+     * 根据 code 获取枚举对象（不区分大小写），不存在时返回 null
+     * <p>
+     * 用于只知道是枚举类、编译期拿不到具体类型的地方（如 JSON 反序列化、数据库类型处理器）
+     *
+     * @param enumClass 实现了 IEnumStr 的枚举类
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Enum<T>> T findByCode(String code, Class<T> enumClass) {
+        if (code == null) {
+            return null;
+        }
+        EnumIndex index = INDEX.get(enumClass);
+        if (index.strExact == null) {
+            throw new RuntimeException("枚举没有实现 IEnumStr: " + enumClass.getName());
+        }
+        Object value = index.strExact.get(code);
+        if (value == null) {
+            value = index.strFolded.get(fold(code));
+        }
+        return (T) value;
+    }
+
+    /**
+     * 根据 code 获取枚举对象，不存在时返回 null
+     *
+     * @param enumClass 实现了 IEnumInt 的枚举类
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Enum<T>> T findByCode(int code, Class<T> enumClass) {
+        EnumIndex index = INDEX.get(enumClass);
+        if (index.intDense != null) {
+            long slot = (long) code - index.intMin;
+            return slot >= 0 && slot < index.intDense.length ? (T) index.intDense[(int) slot] : null;
+        }
+        if (index.intSparse == null) {
+            throw new RuntimeException("枚举没有实现 IEnumInt: " + enumClass.getName());
+        }
+        return (T) index.intSparse.get(code);
+    }
+
+    /**
+     * 根据 name() 获取枚举对象（区分大小写），不存在时返回 null，不抛异常
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Enum<T>> T findByName(String name, Class<T> enumClass) {
+        if (name == null) {
+            return null;
+        }
+        return (T) INDEX.get(enumClass).names.get(name);
+    }
+
+    /**
+     * 枚举的全部常量（只读，不复制数组）
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Enum<T>> List<T> values(Class<T> enumClass) {
+        return (List<T>) (List<?>) INDEX.get(enumClass).constants;
+    }
+
+    /**
+     * 不区分大小写的比较键：每个字符先转大写再转小写，与 String.equalsIgnoreCase 的比较规则相同
+     */
+    static String fold(String text) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int cp = text.codePointAt(i);
+            if (foldCodePoint(cp) != cp) {
+                break;
+            }
+            i += Character.charCount(cp);
+        }
+        if (i == length) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(length);
+        sb.append(text, 0, i);
+        while (i < length) {
+            int cp = text.codePointAt(i);
+            sb.appendCodePoint(foldCodePoint(cp));
+            i += Character.charCount(cp);
+        }
+        return sb.toString();
+    }
+
+    private static int foldCodePoint(int cp) {
+        return Character.toLowerCase(Character.toUpperCase(cp));
+    }
+
+    /**
+     * 单个枚举类的索引，建立后只读
+     */
+    private static final class EnumIndex {
+
+        private final List<Object> constants;
+
+        private final Map<String, Object> names;
+
+        /**
+         * IEnumStr：原样的 code -> 枚举，命中时不需要转换大小写
+         */
+        private final Map<String, Object> strExact;
+
+        /**
+         * IEnumStr：转换大小写后的 code -> 枚举
+         */
+        private final Map<String, Object> strFolded;
+
+        /**
+         * IEnumInt：code 集中时按 code - intMin 下标查找
+         */
+        private final Object[] intDense;
+
+        private final int intMin;
+
+        /**
+         * IEnumInt：code 分散时按哈希表查找
+         */
+        private final Map<Integer, Object> intSparse;
+
+        private EnumIndex(Class<?> type) {
+            Object[] values = type.getEnumConstants();
+            if (values == null) {
+                throw new RuntimeException("不是枚举类: " + type.getName());
+            }
+            this.constants = Collections.unmodifiableList(Arrays.asList(values));
+
+            Map<String, Object> nameMap = new HashMap<>();
+            for (Object value : values) {
+                nameMap.put(((Enum<?>) value).name(), value);
+            }
+            this.names = Map.copyOf(nameMap);
+
+            if (IEnumStr.class.isAssignableFrom(type)) {
+                Map<String, Object> folded = new HashMap<>();
+                for (Object value : values) {
+                    String code = ((IEnumStr) value).getCode();
+                    if (code != null) {
+                        folded.putIfAbsent(fold(code), value);
+                    }
+                }
+                Map<String, Object> exact = new HashMap<>();
+                for (Object value : values) {
+                    String code = ((IEnumStr) value).getCode();
+                    if (code != null) {
+                        // 大小写不同的重复 code 也返回先声明的
+                        exact.putIfAbsent(code, folded.get(fold(code)));
+                    }
+                }
+                this.strExact = Map.copyOf(exact);
+                this.strFolded = Map.copyOf(folded);
+            } else {
+                this.strExact = null;
+                this.strFolded = null;
+            }
+
+            if (IEnumInt.class.isAssignableFrom(type) && values.length > 0) {
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (Object value : values) {
+                    int code = ((IEnumInt) value).getCode();
+                    min = Math.min(min, code);
+                    max = Math.max(max, code);
+                }
+                if (max - min < 4L * values.length + 64) {
+                    Object[] dense = new Object[(int) (max - min + 1)];
+                    for (Object value : values) {
+                        int slot = (int) (((IEnumInt) value).getCode() - min);
+                        if (dense[slot] == null) {
+                            dense[slot] = value;
+                        }
+                    }
+                    this.intDense = dense;
+                    this.intMin = (int) min;
+                    this.intSparse = null;
+                } else {
+                    Map<Integer, Object> sparse = new HashMap<>();
+                    for (Object value : values) {
+                        sparse.putIfAbsent(((IEnumInt) value).getCode(), value);
+                    }
+                    this.intDense = null;
+                    this.intMin = 0;
+                    this.intSparse = Map.copyOf(sparse);
+                }
+            } else {
+                this.intDense = null;
+                this.intMin = 0;
+                this.intSparse = IEnumInt.class.isAssignableFrom(type) ? Map.of() : null;
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.cjlabs.domain.enums;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.util.Optional;
+
 /**
  * 常用语言枚举，与数据库 language_code 保持一致（下划线格式，如 zh_CN）
  * 前端 Accept-Language 统一使用该格式
@@ -63,4 +65,11 @@ public enum FmkLanguageEnum implements IEnumStr {
 
     /** 中文描述 */
     private final String msg;
+
+    /**
+     * 根据语言编码获取（不区分大小写）
+     */
+    public static Optional<FmkLanguageEnum> getByCode(String code) {
+        return FmkEnumRegistry.getByCode(code, FmkLanguageEnum.class);
+    }
 }
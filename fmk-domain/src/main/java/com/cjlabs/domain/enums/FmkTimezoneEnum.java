@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 import java.time.ZoneId;
+import java.util.Optional;
 
 /**
  * 常用时区枚举，与语言枚举对应
@@ -64,6 +65,13 @@ public enum FmkTimezoneEnum implements IEnumStr {
      */
     private final String msg;
 
+    /**
+     * 根据时区标识符获取（不区分大小写）
+     */
+    public static Optional<FmkTimezoneEnum> getByCode(String code) {
+        return FmkEnumRegistry.getByCode(code, FmkTimezoneEnum.class);
+    }
+
     public ZoneId toZoneId() {
         return ZoneId.of(code);
     }
@@ -19,7 +19,7 @@ public interface IEnumInt {
     String getMsg();
 
     /**
-     * 根据 code 获取枚举对象
+     * 根据 code 获取枚举对象，按 {@link FmkEnumRegistry} 的索引查找
      *
      * @param code      枚举值
      * @param enumClass 枚举类
@@ -27,11 +27,6 @@ public interface IEnumInt {
      * @return 对应的枚举对象，若不存在返回 Optional.empty()
      */
     static <T extends Enum<T> & IEnumInt> Optional<T> getEnumByCode(int code, Class<T> enumClass) {
-        for (T flag : enumClass.getEnumConstants()) {
-            if (flag.getCode() == code) {
-                return Optional.of(flag);
-            }
-        }
-        return Optional.empty();
+        return FmkEnumRegistry.getByCode(code, enumClass);
     }
 }
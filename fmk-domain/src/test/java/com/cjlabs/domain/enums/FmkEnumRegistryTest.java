@@ -0,0 +1,205 @@
+package com.cjlabs.domain.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkEnumRegistry 测试类
+ */
+@DisplayName("FmkEnumRegistry 枚举 code 查找测试")
+class FmkEnumRegistryTest {
+
+    @Getter
+    @AllArgsConstructor
+    enum DuplicateStrEnum implements IEnumStr {
+        FIRST("abc", "第一个"),
+        SECOND("ABC", "大小写不同的重复 code"),
+        THIRD("Straße", "非 ASCII"),
+        FOURTH("ǅ", "标题大小写字母"),
+        FIFTH("𐐀x", "增补字符"),
+        ;
+
+        private final String code;
+        private final String msg;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    enum DenseIntEnum implements IEnumInt {
+        NEGATIVE(-2, "负数"),
+        ZERO(0, "零"),
+        TEN(10, "十"),
+        TEN_AGAIN(10, "重复 code"),
+        ;
+
+        private final int code;
+        private final String msg;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    enum SparseIntEnum implements IEnumInt {
+        MIN(Integer.MIN_VALUE, "最小"),
+        MILLION(1_000_000, "一百万"),
+        MAX(Integer.MAX_VALUE, "最大"),
+        ;
+
+        private final int code;
+        private final String msg;
+    }
+
+    @Test
+    @DisplayName("测试字符串 code - 与逐个 equalsIgnoreCase 的结果一致")
+    void testStrCodeParity() {
+        Random random = new Random(42);
+        int compared = 0;
+        compared += checkParity(FmkLanguageEnum.class, random);
+        compared += checkParity(FmkTimezoneEnum.class, random);
+        compared += checkParity(NormalEnum.class, random);
+        compared += checkParity(DuplicateStrEnum.class, random);
+
+        assertEquals(DuplicateStrEnum.FIRST, IEnumStr.getEnumByCode("ABC", DuplicateStrEnum.class).orElseThrow(),
+                "重复 code 返回先声明的");
+        assertEquals(FmkLanguageEnum.ZH_CN, FmkLanguageEnum.getByCode("zh_cn").orElseThrow());
+        assertEquals(FmkTimezoneEnum.ASIA_SHANGHAI, FmkTimezoneEnum.getByCode("asia/shanghai").orElseThrow());
+        assertTrue(IEnumStr.getEnumByCode(null, FmkLanguageEnum.class).isEmpty());
+        assertTrue(IEnumStr.getEnumByCode("", FmkLanguageEnum.class).isEmpty());
+        System.out.println("✅ 字符串 code 查找一致，比较 " + compared + " 次");
+    }
+
+    @Test
+    @DisplayName("测试大小写折叠 - 随机字符串与 equalsIgnoreCase 一致")
+    void testFoldMatchesEqualsIgnoreCase() {
+        Random random = new Random(7);
+        String alphabet = "aAbBzZ_/0iIıİßẞǅǄǆσΣςkKK𐐀𐐨";
+        int[] codePoints = alphabet.codePoints().toArray();
+        for (int n = 0; n < 200_000; n++) {
+            String a = randomString(random, codePoints);
+            String b = random.nextBoolean() ? randomString(random, codePoints) : mutateCase(random, a);
+            assertEquals(a.equalsIgnoreCase(b), FmkEnumRegistry.fold(a).equals(FmkEnumRegistry.fold(b)),
+                    () -> "a=" + a + ", b=" + b);
+        }
+        System.out.println("✅ 大小写折叠与 equalsIgnoreCase 一致");
+    }
+
+    @Test
+    @DisplayName("测试数字 code - 集中和分散的 code")
+    void testIntCode() {
+        for (int code = -10; code <= 20; code++) {
+            assertEquals(legacyIntLookup(code, DenseIntEnum.class), IEnumInt.getEnumByCode(code, DenseIntEnum.class));
+        }
+        assertEquals(DenseIntEnum.TEN, IEnumInt.getEnumByCode(10, DenseIntEnum.class).orElseThrow());
+        for (int code : new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, 1_000_000, 0, -1, 999_999}) {
+            assertEquals(legacyIntLookup(code, SparseIntEnum.class), IEnumInt.getEnumByCode(code, SparseIntEnum.class));
+            assertEquals(legacyIntLookup(code, DenseIntEnum.class), IEnumInt.getEnumByCode(code, DenseIntEnum.class));
+        }
+        assertThrows(RuntimeException.class, () -> FmkEnumRegistry.findByCode(1, NormalEnum.class));
+        assertThrows(RuntimeException.class, () -> FmkEnumRegistry.findByCode("1", DenseIntEnum.class));
+        System.out.println("✅ 数字 code 查找正确");
+    }
+
+    @Test
+    @DisplayName("测试 name 和常量列表")
+    void testNameAndValues() {
+        assertEquals(FmkTimezoneEnum.UTC, FmkEnumRegistry.findByName("UTC", FmkTimezoneEnum.class));
+        assertNull(FmkEnumRegistry.findByName("utc", FmkTimezoneEnum.class), "name 区分大小写");
+        assertEquals(FmkLanguageEnum.values().length, FmkEnumRegistry.values(FmkLanguageEnum.class).size());
+        assertThrows(UnsupportedOperationException.class,
+                () -> FmkEnumRegistry.values(FmkLanguageEnum.class).set(0, FmkLanguageEnum.EN_US));
+        System.out.println("✅ name 查找和常量列表正确");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 每次查找的耗时（逐个比较 vs 索引）")
+    void testPerformance() {
+        String[] inputs = {"ZH_CN", "en_us", "RU_RU", "ta_lk", "unknown", "Asia/Shanghai"};
+        int iterations = 2_000_000;
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += legacyStrLookup(inputs[i % inputs.length], FmkLanguageEnum.class).isPresent() ? 1 : 0;
+            sink += IEnumStr.getEnumByCode(inputs[i % inputs.length], FmkLanguageEnum.class).isPresent() ? 1 : 0;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += legacyStrLookup(inputs[i % inputs.length], FmkLanguageEnum.class).isPresent() ? 1 : 0;
+        }
+        double legacyNanos = (System.nanoTime() - start) / (double) iterations;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += IEnumStr.getEnumByCode(inputs[i % inputs.length], FmkLanguageEnum.class).isPresent() ? 1 : 0;
+        }
+        double indexNanos = (System.nanoTime() - start) / (double) iterations;
+
+        assertTrue(sink > 0);
+        assertTrue(indexNanos < legacyNanos, "索引查找更快");
+        System.out.printf("FmkLanguageEnum（%d 个常量）每次查找：逐个比较 %.1f ns，索引 %.1f ns%n",
+                FmkLanguageEnum.values().length, legacyNanos, indexNanos);
+        System.out.println("✅ 枚举查找性能对比完成");
+    }
+
+    private static <T extends Enum<T> & IEnumStr> int checkParity(Class<T> enumClass, Random random) {
+        int compared = 0;
+        for (T constant : enumClass.getEnumConstants()) {
+            for (int n = 0; n < 50; n++) {
+                String input = mutateCase(random, constant.getCode());
+                if (n % 10 == 9) {
+                    input = input + "x";
+                }
+                assertEquals(legacyStrLookup(input, enumClass), IEnumStr.getEnumByCode(input, enumClass), input);
+                compared++;
+            }
+        }
+        return compared;
+    }
+
+    /**
+     * 原来的实现
+     */
+    private static <T extends Enum<T> & IEnumStr> Optional<T> legacyStrLookup(String code, Class<T> enumClass) {
+        for (T flag : enumClass.getEnumConstants()) {
+            if (flag.getCode().equalsIgnoreCase(code)) {
+                return Optional.of(flag);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 原来的实现
+     */
+    private static <T extends Enum<T> & IEnumInt> Optional<T> legacyIntLookup(int code, Class<T> enumClass) {
+        for (T flag : enumClass.getEnumConstants()) {
+            if (flag.getCode() == code) {
+                return Optional.of(flag);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String mutateCase(Random random, String text) {
+        StringBuilder sb = new StringBuilder();
+        text.codePoints().forEach(cp -> {
+            int r = random.nextInt(3);
+            sb.appendCodePoint(r == 0 ? Character.toUpperCase(cp) : r == 1 ? Character.toLowerCase(cp) : cp);
+        });
+        return sb.toString();
+    }
+
+    private static String randomString(Random random, int[] codePoints) {
+        int length = random.nextInt(4);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -1,6 +1,8 @@
 package com.cjlabs.memory;
 
 import com.cjlabs.memory.redis.FmkRedisProperties;
+import com.cjlabs.memory.tiered.RedisTieredCacheStore;
+import com.cjlabs.memory.tiered.TieredCacheManager;
 import com.cjlabs.memory.token.FmkTokenServiceRedisImpl;
 import com.cjlabs.web.json.FmkJacksonUtil;
 import com.cjlabs.web.token.FmkTokenProperties;
@@ -39,10 +41,12 @@ public class FmkMemoryAutoConfig {
      */
     @Bean
     @ConditionalOnProperty(name = "fmk.token.type", havingValue = "redis")
-    public IFmkTokenService fmkTokenServiceRedis(FmkTokenProperties tokenProperties) {
+    public IFmkTokenService fmkTokenServiceRedis(FmkTokenProperties tokenProperties,
+                                                 StringRedisTemplate stringRedisTemplate) {
         log.info("FmkMemoryAutoConfig|注册Redis Token服务");
         FmkTokenServiceRedisImpl service = new FmkTokenServiceRedisImpl();
         service.setTokenProperties(tokenProperties);
+        service.setStringRedisTemplate(stringRedisTemplate);
         return service;
     }
 
@@ -95,4 +99,32 @@ public class FmkMemoryAutoConfig {
         return template;
     }
 
+    /**
+     * 二级缓存存储（Redis String + pub/sub）
+     * 只在 fmk.redis.tiered.enabled=true 时创建，避免未使用二级缓存的应用也订阅 pub/sub 频道
+     */
+    @Bean
+    @ConditionalOnBean(RedisConnectionFactory.class)
+    @ConditionalOnProperty(prefix = "fmk.redis.tiered", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean(RedisTieredCacheStore.class)
+    public RedisTieredCacheStore redisTieredCacheStore(StringRedisTemplate stringRedisTemplate,
+                                                       RedisConnectionFactory connectionFactory,
+                                                       FmkRedisProperties redisProperties) {
+        log.info("FmkMemoryAutoConfig|注册二级缓存存储|keyPrefix={}", redisProperties.getKeyPrefix());
+        return new RedisTieredCacheStore(stringRedisTemplate, connectionFactory, redisProperties.getKeyPrefix());
+    }
+
+    /**
+     * 二级缓存管理器（Caffeine L1 + Redis L2）
+     * 只在 fmk.redis.tiered.enabled=true 时创建
+     */
+    @Bean
+    @ConditionalOnBean(RedisConnectionFactory.class)
+    @ConditionalOnProperty(prefix = "fmk.redis.tiered", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean(TieredCacheManager.class)
+    public TieredCacheManager tieredCacheManager(RedisTieredCacheStore redisTieredCacheStore) {
+        log.info("FmkMemoryAutoConfig|注册二级缓存管理器");
+        return new TieredCacheManager(redisTieredCacheStore);
+    }
+
 }
@@ -1,29 +1,42 @@
 package com.cjlabs.memory.local;
 
-import com.cjlabs.memory.lock.FmkLockUtil;
-import com.github.benmanes.caffeine.cache.Cache;
+import com.cjlabs.domain.exception.Error200Exception;
+import com.cjlabs.domain.exception.Error200ExceptionEnum;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 
 /**
  * Caffeine 缓存封装组件（防缓存击穿版本）
- * 结合 FmkLockUtil 防止缓存击穿
+ * 基于 Caffeine AsyncCache 的单飞（single-flight）加载防止缓存击穿
  * <p>
  * 工作原理：
- * 1. 先查缓存，有则直接返回
- * 2. 缓存未命中时，使用 FmkLockUtil 获取互斥锁（3s 超时）
- * 3. 只有一个线程可以进入加载数据，其他线程等待
- * 4. 加载完成后，所有等待的线程都能从缓存获取数据
+ * 1. 缓存中保存的是 CompletableFuture，命中（包括正在加载中）直接返回
+ * 2. 未命中时由 Caffeine 原子地放入一个未完成的 future，只有放入成功的线程在当前线程执行 loader
+ * 3. 其他线程等待同一个 future，超过加载超时时间抛出异常，不会再各自查库
+ * 4. loader 返回 null 或抛出异常时，Caffeine 自动移除该 future，下次重新加载
+ * <p>
+ * 需要 refreshAfterWrite、批量加载时使用 {@link LocalLoadingCache}
  */
 @Slf4j
 public class LocalCache<K, V> {
 
-    private final Cache<K, V> cache;
+    /**
+     * 默认加载超时时间（毫秒）
+     */
+    public static final long DEFAULT_LOAD_TIMEOUT_MS = 3000L;
+
+    private final AsyncCache<K, V> cache;
     private final String cacheName;
+    private final long loadTimeoutMs;
 
     /**
      * 构造函数
@@ -33,80 +46,84 @@ public class LocalCache<K, V> {
      * @param expireSeconds 过期时间（秒）
      */
     public LocalCache(String cacheName, long maxSize, long expireSeconds) {
+        this(cacheName, maxSize, expireSeconds, DEFAULT_LOAD_TIMEOUT_MS);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param cacheName     缓存名称（用于日志）
+     * @param maxSize       最大缓存数量
+     * @param expireSeconds 过期时间（秒）
+     * @param loadTimeoutMs 等待其他线程加载的超时时间（毫秒）
+     */
+    public LocalCache(String cacheName, long maxSize, long expireSeconds, long loadTimeoutMs) {
         this.cacheName = cacheName;
+        this.loadTimeoutMs = loadTimeoutMs;
         this.cache = Caffeine.newBuilder()
                 .maximumSize(maxSize)
                 .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
                 .recordStats()
-                .build();
-        log.info("初始化缓存: {}, 最大容量: {}, 过期时间: {}秒", cacheName, maxSize, expireSeconds);
+                .buildAsync();
+        log.info("初始化缓存: {}, 最大容量: {}, 过期时间: {}秒, 加载超时: {}ms", cacheName, maxSize, expireSeconds, loadTimeoutMs);
     }
 
     /**
      * 获取缓存数据（防缓存击穿版本）
      * <p>
      * 流程：
-     * 1. 尝试从缓存获取数据
-     * 2. 如果命中，直接返回
-     * 3. 如果未命中，使用互斥锁保证只有一个线程加载
-     * 4. 其他线程超时后降级处理
+     * 1. 尝试从缓存获取 future，命中直接返回结果
+     * 2. 未命中时当前线程放入新的 future 并执行 loader（上下文、数据源等 ThreadLocal 保持不变）
+     * 3. 同一 key 的其他线程等待该 future，超时抛出异常
      *
      * @param key    缓存 key
      * @param loader 数据加载器（缓存未命中时调用，通常是数据库查询）
      * @return 缓存的值
      */
+    @SuppressWarnings("unchecked")
     public V get(K key, Function<K, V> loader) {
-        // 第一步：尝试从缓存获取
-        V value = cache.getIfPresent(key);
-        if (value != null) {
-            log.debug("缓存命中: {} - key: {}", cacheName, key);
-            return value;
-        }
+        CompletableFuture<V>[] created = new CompletableFuture[1];
+        CompletableFuture<V> future = cache.get(key, (k, executor) -> created[0] = new CompletableFuture<>());
 
-        log.debug("缓存未命中，尝试使用互斥锁获取: {} - key: {}", cacheName, key);
+        if (future != created[0]) {
+            return await(key, future);
+        }
 
+        // 当前线程负责加载
+        long startTime = System.nanoTime();
         try {
-            // 第二步：使用互斥锁，防止缓存击穿
-            // 只有一个线程能进去加载，其他线程等待 500ms 后直接加载
-            return FmkLockUtil.executeTryLock(
-                    generateLockKey(key),
-                    3,
-                    TimeUnit.SECONDS,
-                    () -> {
-                        // 双重检查：可能其他线程已经加载了
-                        V cachedValue = cache.getIfPresent(key);
-                        if (cachedValue != null) {
-                            log.debug("其他线程已加载缓存: {} - key: {}", cacheName, key);
-                            return cachedValue;
-                        }
-
-                        // 真正的加载
-                        log.info("加载数据到缓存: {} - key: {}", cacheName, key);
-                        long startTime = System.currentTimeMillis();
-
-                        V loadedValue = loader.apply(key);
-
-                        long costTime = System.currentTimeMillis() - startTime;
-                        log.info("数据加载完成: {} - key: {}, 耗时: {}ms", cacheName, key, costTime);
-
-                        // 放入缓存
-                        if (loadedValue != null) {
-                            cache.put(key, loadedValue);
-                        }
-
-                        return loadedValue;
-                    }
-            );
-
-        } catch (com.cjlabs.domain.exception.Error200Exception e) {
-            // 获取锁超时（500ms）降级处理：直接查询数据库
-            log.warn("获取锁超时（500ms），降级直接查询: {} - key: {}", cacheName, key);
-
             V loadedValue = loader.apply(key);
-            if (loadedValue != null) {
-                cache.put(key, loadedValue);
-            }
+            future.complete(loadedValue);
+            log.debug("数据加载完成: {} - key: {}, 耗时: {}ms",
+                    cacheName, key, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
             return loadedValue;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 等待其他线程的加载结果
+     */
+    private V await(K key, CompletableFuture<V> future) {
+        try {
+            return future.get(loadTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("等待缓存加载超时: {} - key: {}, 超时: {}ms", cacheName, key, loadTimeoutMs);
+            throw new Error200Exception(Error200ExceptionEnum.RATE_LIMIT_EXCEEDED, "缓存加载超时: " + cacheName);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Error200Exception(Error200ExceptionEnum.RATE_LIMIT_EXCEEDED, "等待缓存加载被中断: " + cacheName);
         }
     }
 
@@ -117,7 +134,11 @@ public class LocalCache<K, V> {
      * @return 缓存的值，不存在返回 null
      */
     public V getIfPresent(K key) {
-        return cache.getIfPresent(key);
+        CompletableFuture<V> future = cache.getIfPresent(key);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join();
     }
 
     /**
@@ -127,7 +148,7 @@ public class LocalCache<K, V> {
      * @param value 缓存值
      */
     public void put(K key, V value) {
-        cache.put(key, value);
+        cache.put(key, CompletableFuture.completedFuture(value));
         log.debug("手动放入缓存: {} - key: {}", cacheName, key);
     }
 
@@ -137,7 +158,7 @@ public class LocalCache<K, V> {
      * @param key 缓存 key
      */
     public void deleteByKey(K key) {
-        cache.invalidate(key);
+        cache.synchronous().invalidate(key);
         log.info("删除缓存: {} - key: {}", cacheName, key);
     }
 
@@ -145,7 +166,7 @@ public class LocalCache<K, V> {
      * 清空所有缓存
      */
     public void deleteAll() {
-        cache.invalidateAll();
+        cache.synchronous().invalidateAll();
         log.info("清空所有缓存: {}", cacheName);
     }
 
@@ -155,14 +176,14 @@ public class LocalCache<K, V> {
      * @return 缓存统计
      */
     public CacheStats stats() {
-        return cache.stats();
+        return cache.synchronous().stats();
     }
 
     /**
      * 打印缓存统计信息
      */
     public void logStats() {
-        CacheStats stats = cache.stats();
+        CacheStats stats = cache.synchronous().stats();
         double hitRate = stats.hitRate() * 100;
         log.info("缓存统计 [{}] - 命中率: {}%, 命中: {}, 未命中: {}, 加载: {}, 驱逐: {}",
                 cacheName,
@@ -179,14 +200,6 @@ public class LocalCache<K, V> {
      * @return 当前缓存条目数
      */
     public long size() {
-        return cache.estimatedSize();
-    }
-
-    /**
-     * 生成锁的 key（缓存名 + 数据 key）
-     * 确保不同的缓存数据使用不同的锁
-     */
-    private String generateLockKey(K key) {
-        return cacheName + ":" + key;
+        return cache.synchronous().estimatedSize();
     }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.cjlabs.memory.local;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Caffeine 缓存工厂
@@ -11,6 +13,8 @@ public class LocalCacheFactory {
 
     private final Map<String, LocalCache<?, ?>> cacheMap = new ConcurrentHashMap<>();
 
+    private final Map<String, LocalLoadingCache<?, ?>> loadingCacheMap = new ConcurrentHashMap<>();
+
     /**
      * 创建或获取缓存实例
      *
@@ -36,11 +40,30 @@ public class LocalCacheFactory {
         return getCache(cacheName, 10000, 300); // 300 秒 = 5 分钟
     }
 
+    /**
+     * 创建或获取加载缓存实例
+     * 同名缓存只创建一次，之后传入的配置和加载器会被忽略
+     *
+     * @param cacheName   缓存名称
+     * @param spec        缓存配置
+     * @param loader      单个 key 的加载器
+     * @param batchLoader 批量加载器，可以为空
+     * @return 加载缓存实例
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> LocalLoadingCache<K, V> getLoadingCache(String cacheName, LocalCacheSpec spec,
+                                                        Function<K, V> loader,
+                                                        Function<Set<K>, Map<K, V>> batchLoader) {
+        return (LocalLoadingCache<K, V>) loadingCacheMap.computeIfAbsent(cacheName,
+                name -> new LocalLoadingCache<>(name, spec, loader, batchLoader));
+    }
+
     /**
      * 清空所有缓存
      */
     public void clearAll() {
         cacheMap.values().forEach(LocalCache::deleteAll);
+        loadingCacheMap.values().forEach(LocalLoadingCache::deleteAll);
     }
 
     /**
@@ -48,5 +71,6 @@ public class LocalCacheFactory {
      */
     public void logAllStats() {
         cacheMap.values().forEach(LocalCache::logStats);
+        loadingCacheMap.values().forEach(LocalLoadingCache::logStats);
     }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.cjlabs.memory.local;
+
+import lombok.Data;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 本地加载缓存配置
+ */
+@Data
+public class LocalCacheSpec {
+
+    /**
+     * 最大缓存数量
+     */
+    private long maxSize = 10000;
+
+    /**
+     * 写入后过期时间（秒）
+     */
+    private long expireSeconds = 300;
+
+    /**
+     * 写入后多久触发异步刷新（秒），0 表示不刷新
+     * <p>
+     * 刷新期间继续返回旧值，应小于 expireSeconds
+     */
+    private long refreshSeconds = 0;
+
+    /**
+     * 加载超时时间（毫秒）
+     */
+    private long loadTimeoutMs = LocalCache.DEFAULT_LOAD_TIMEOUT_MS;
+
+    /**
+     * 异步加载/刷新使用的线程池，为空时使用 ForkJoinPool.commonPool()
+     * <p>
+     * loader 依赖 TTL 上下文时传入 fmkThreadPoolTaskExecutor
+     */
+    private Executor executor;
+}
@@ -0,0 +1,219 @@
+package com.cjlabs.memory.local;
+
+import com.cjlabs.domain.exception.Error200Exception;
+import com.cjlabs.domain.exception.Error200ExceptionEnum;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Caffeine 加载缓存封装组件
+ * 基于 AsyncLoadingCache，loader 在创建时固定
+ * <p>
+ * 1. 单飞加载：同一 key 并发未命中时只加载一次，其他线程等待同一个 future
+ * 2. refreshAfterWrite：写入超过 refreshSeconds 后的首次访问触发异步刷新，刷新期间返回旧值
+ * 3. 批量加载：getAll 只对未命中的 key 调用一次 batchLoader；未提供 batchLoader 时逐个加载
+ * 4. 加载超时：等待超过 loadTimeoutMs 抛出异常
+ * <p>
+ * 使用示例：
+ * LocalLoadingCache&lt;Long, User&gt; cache = new LocalLoadingCache&lt;&gt;("userCache", spec, userMapper::selectById, this::listUserMap);
+ */
+@Slf4j
+public class LocalLoadingCache<K, V> {
+
+    private final AsyncLoadingCache<K, V> cache;
+    private final String cacheName;
+    private final long loadTimeoutMs;
+
+    /**
+     * 构造函数（逐个加载）
+     *
+     * @param cacheName 缓存名称（用于日志）
+     * @param spec      缓存配置
+     * @param loader    单个 key 的加载器
+     */
+    public LocalLoadingCache(String cacheName, LocalCacheSpec spec, Function<K, V> loader) {
+        this(cacheName, spec, loader, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param cacheName   缓存名称（用于日志）
+     * @param spec        缓存配置
+     * @param loader      单个 key 的加载器
+     * @param batchLoader 批量加载器，返回的 Map 中缺失的 key 视为不存在
+     */
+    public LocalLoadingCache(String cacheName, LocalCacheSpec spec,
+                             Function<K, V> loader, Function<Set<K>, Map<K, V>> batchLoader) {
+        Objects.requireNonNull(loader, "loader不能为空");
+        this.cacheName = cacheName;
+        this.loadTimeoutMs = spec.getLoadTimeoutMs();
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(spec.getMaxSize())
+                .expireAfterWrite(spec.getExpireSeconds(), TimeUnit.SECONDS)
+                .recordStats();
+        if (spec.getRefreshSeconds() > 0) {
+            builder.refreshAfterWrite(spec.getRefreshSeconds(), TimeUnit.SECONDS);
+        }
+        if (spec.getExecutor() != null) {
+            builder.executor(spec.getExecutor());
+        }
+        this.cache = builder.buildAsync(toCacheLoader(loader, batchLoader));
+        log.info("初始化加载缓存: {}, 最大容量: {}, 过期时间: {}秒, 刷新时间: {}秒, 加载超时: {}ms, 批量加载: {}",
+                cacheName, spec.getMaxSize(), spec.getExpireSeconds(), spec.getRefreshSeconds(),
+                loadTimeoutMs, batchLoader != null);
+    }
+
+    /**
+     * 只有提供了 batchLoader 才覆盖 loadAll，否则 Caffeine 会逐个调用 load
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> CacheLoader<K, V> toCacheLoader(Function<K, V> loader,
+                                                         Function<Set<K>, Map<K, V>> batchLoader) {
+        if (batchLoader == null) {
+            return loader::apply;
+        }
+        return new CacheLoader<>() {
+            @Override
+            public V load(K key) {
+                return loader.apply(key);
+            }
+
+            @Override
+            public Map<? extends K, ? extends V> loadAll(Set<? extends K> keys) {
+                return batchLoader.apply((Set<K>) keys);
+            }
+        };
+    }
+
+    /**
+     * 获取缓存数据，未命中时加载
+     *
+     * @param key 缓存 key
+     * @return 缓存的值，不存在返回 null
+     */
+    public V get(K key) {
+        return await(cache.get(key), key);
+    }
+
+    /**
+     * 批量获取缓存数据，未命中的 key 一次批量加载
+     *
+     * @param keys 缓存 key 集合
+     * @return key 到值的映射，不存在的 key 不包含在结果中
+     */
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        return await(cache.getAll(keys), keys);
+    }
+
+    /**
+     * 直接获取缓存（不加载、不等待）
+     *
+     * @param key 缓存 key
+     * @return 缓存的值，不存在或正在加载返回 null
+     */
+    public V getIfPresent(K key) {
+        CompletableFuture<V> future = cache.getIfPresent(key);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join();
+    }
+
+    /**
+     * 手动放入缓存
+     */
+    public void put(K key, V value) {
+        cache.put(key, CompletableFuture.completedFuture(value));
+    }
+
+    /**
+     * 异步刷新指定 key，刷新完成前继续返回旧值
+     */
+    public void refresh(K key) {
+        cache.synchronous().refresh(key);
+    }
+
+    /**
+     * 删除指定缓存
+     */
+    public void deleteByKey(K key) {
+        cache.synchronous().invalidate(key);
+        log.info("删除缓存: {} - key: {}", cacheName, key);
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public void deleteAll() {
+        cache.synchronous().invalidateAll();
+        log.info("清空所有缓存: {}", cacheName);
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * 打印缓存统计信息
+     */
+    public void logStats() {
+        CacheStats stats = stats();
+        log.info("缓存统计 [{}] - 命中率: {}%, 命中: {}, 未命中: {}, 加载: {}, 加载失败: {}, 驱逐: {}",
+                cacheName,
+                String.format("%.2f", stats.hitRate() * 100),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.loadCount(),
+                stats.loadFailureCount(),
+                stats.evictionCount());
+    }
+
+    /**
+     * 获取缓存大小
+     */
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    /**
+     * 等待加载结果
+     */
+    private <T> T await(CompletableFuture<T> future, Object key) {
+        try {
+            return future.get(loadTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("等待缓存加载超时: {} - key: {}, 超时: {}ms", cacheName, key, loadTimeoutMs);
+            throw new Error200Exception(Error200ExceptionEnum.RATE_LIMIT_EXCEEDED, "缓存加载超时: " + cacheName);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Error200Exception(Error200ExceptionEnum.RATE_LIMIT_EXCEEDED, "等待缓存加载被中断: " + cacheName);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.cjlabs.memory.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单机锁注册表
+ * <p>
+ * 负责 key 到锁的映射，保证锁的数量有上限：
+ * 1. {@link RefCountedLockRegistry}（默认）：每个 key 一把锁，最后一个使用者释放后移除，内存与并发持有数成正比
+ * 2. {@link StripedLockRegistry}：固定数量的分段锁，key 哈希到其中一个，内存恒定；
+ * 不同 key 可能共享同一把锁，嵌套加锁时可能死锁，需要显式选择
+ * <p>
+ * 同时统计加锁次数、竞争次数、等待时间和超时次数
+ */
+public abstract class FmkLockRegistry {
+
+    /**
+     * 是否公平锁
+     */
+    protected final boolean fair;
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder contendedCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+
+    protected FmkLockRegistry(boolean fair) {
+        this.fair = fair;
+    }
+
+    /**
+     * 分段锁注册表
+     * <p>
+     * 只适合不嵌套加锁的场景：线程A先锁 a 再锁 b、线程B先锁 c 再锁 d，a 与 d、b 与 c 落在同一分段时两个线程会互相等待
+     *
+     * @param stripes 分段数量，向上取整为 2 的幂
+     * @param fair    是否公平锁
+     */
+    public static FmkLockRegistry striped(int stripes, boolean fair) {
+        return new StripedLockRegistry(stripes, fair);
+    }
+
+    /**
+     * 引用计数锁注册表
+     *
+     * @param fair 是否公平锁
+     */
+    public static FmkLockRegistry refCounted(boolean fair) {
+        return new RefCountedLockRegistry(fair);
+    }
+
+    /**
+     * 获取 key 对应的锁并登记使用，必须与 {@link #release} 成对调用
+     *
+     * @param key 锁的key
+     * @return 锁
+     */
+    public abstract ReentrantLock obtain(String key);
+
+    /**
+     * 登记使用结束
+     *
+     * @param key  锁的key
+     * @param lock {@link #obtain} 返回的锁
+     */
+    public abstract void release(String key, ReentrantLock lock);
+
+    /**
+     * 获取 key 对应的锁并固定，锁对象在注册表中常驻，调用方可以直接持有
+     *
+     * @param key 锁的key
+     * @return 锁
+     */
+    public abstract ReentrantLock pin(String key);
+
+    /**
+     * 当前锁对象数量
+     */
+    public abstract int size();
+
+    /**
+     * 模式名称
+     */
+    public abstract String getMode();
+
+    /**
+     * 加锁并记录统计
+     *
+     * @param lock    锁
+     * @param timeout 超时时间，小于 0 表示一直等待
+     * @param unit    时间单位
+     * @return 是否获取到锁
+     */
+    boolean acquire(ReentrantLock lock, long timeout, TimeUnit unit) throws InterruptedException {
+        // tryLock(0) 遵守公平性，无竞争时不计入等待
+        if (lock.tryLock(0, TimeUnit.NANOSECONDS)) {
+            acquireCount.increment();
+            return true;
+        }
+
+        contendedCount.increment();
+        long start = System.nanoTime();
+        boolean acquired;
+        if (timeout < 0) {
+            lock.lock();
+            acquired = true;
+        } else {
+            acquired = lock.tryLock(timeout, unit);
+        }
+        long waitNanos = System.nanoTime() - start;
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulate(waitNanos);
+
+        if (acquired) {
+            acquireCount.increment();
+        } else {
+            timeoutCount.increment();
+        }
+        return acquired;
+    }
+
+    /**
+     * 获取统计快照
+     */
+    public FmkLockStats getStats() {
+        FmkLockStats stats = new FmkLockStats();
+        stats.setMode(getMode());
+        stats.setFair(fair);
+        stats.setLockCount(size());
+        stats.setAcquireCount(acquireCount.sum());
+        stats.setContendedCount(contendedCount.sum());
+        stats.setTimeoutCount(timeoutCount.sum());
+        stats.setTotalWaitNanos(totalWaitNanos.sum());
+        stats.setMaxWaitNanos(maxWaitNanos.get());
+        return stats;
+    }
+
+    /**
+     * 重置统计信息
+     */
+    public void resetStats() {
+        acquireCount.reset();
+        contendedCount.reset();
+        timeoutCount.reset();
+        totalWaitNanos.reset();
+        maxWaitNanos.reset();
+    }
+
+    public boolean isFair() {
+        return fair;
+    }
+}
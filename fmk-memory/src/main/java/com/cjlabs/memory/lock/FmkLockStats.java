@@ -0,0 +1,67 @@
+package com.cjlabs.memory.lock;
+
+import lombok.Data;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单机锁统计快照
+ */
+@Data
+public class FmkLockStats {
+
+    /**
+     * 注册表模式
+     */
+    private String mode;
+
+    /**
+     * 是否公平锁
+     */
+    private boolean fair;
+
+    /**
+     * 当前锁对象数量
+     */
+    private int lockCount;
+
+    /**
+     * 加锁成功次数
+     */
+    private long acquireCount;
+
+    /**
+     * 需要等待的加锁次数
+     */
+    private long contendedCount;
+
+    /**
+     * 等待超时次数
+     */
+    private long timeoutCount;
+
+    /**
+     * 总等待时间（纳秒）
+     */
+    private long totalWaitNanos;
+
+    /**
+     * 最大等待时间（纳秒）
+     */
+    private long maxWaitNanos;
+
+    /**
+     * 竞争率
+     */
+    public double getContentionRate() {
+        long total = acquireCount + timeoutCount;
+        return total == 0 ? 0.0 : (double) contendedCount / total;
+    }
+
+    /**
+     * 发生竞争时的平均等待时间（微秒）
+     */
+    public long getAvgWaitMicros() {
+        return contendedCount == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos / contendedCount);
+    }
+}
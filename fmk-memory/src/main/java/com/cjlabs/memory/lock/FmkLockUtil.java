@@ -5,7 +5,6 @@ import com.cjlabs.domain.exception.Error200ExceptionEnum;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
@@ -14,38 +13,86 @@ import java.util.function.Supplier;
  * 单机锁工具类
  * 提供基于key的细粒度锁机制，支持读写锁、重入锁等
  * 适用于JDK21 + Spring Boot 3环境
+ * <p>
+ * key 到锁的映射由 {@link FmkLockRegistry} 管理，锁数量有上限：
+ * 1. 默认引用计数模式：每个 key 一把公平锁，用完即移除，不同 key 之间互不影响
+ * 2. 分段模式（需显式开启）：通过 configure(FmkLockRegistry.striped(stripes, fair)) 切换，内存恒定，
+ * 但不同 key 可能共享同一把锁，嵌套锁定多个 key 时即使各线程的 key 互不相同也可能死锁，只适合不嵌套加锁的场景
+ * <p>
+ * 注册表只能在启动时、第一次加锁之前配置
  */
 @Slf4j
 public class FmkLockUtil {
 
-    // 存储重入锁的映射
-    private static final ConcurrentHashMap<String, ReentrantLock> REENTRANT_LOCK_MAP = new ConcurrentHashMap<>();
+    /**
+     * 当前锁注册表
+     */
+    private static volatile FmkLockRegistry registry = defaultRegistry();
+
+    /**
+     * 是否已经有线程通过注册表加锁，之后不允许再切换注册表
+     */
+    private static volatile boolean used;
+
+    // ==================== 注册表配置 ====================
+
+    /**
+     * 切换锁注册表
+     * <p>
+     * 只能在应用启动时、第一次加锁之前调用：切换后新旧注册表对同一个 key 返回不同的锁，
+     * 正在持有旧锁的线程与使用新锁的线程不再互斥
+     *
+     * @param lockRegistry 新的锁注册表
+     * @throws IllegalStateException 已经加过锁时抛出
+     */
+    public static synchronized void configure(FmkLockRegistry lockRegistry) {
+        if (lockRegistry == null) {
+            throw new IllegalArgumentException("锁注册表不能为空");
+        }
+        if (used) {
+            throw new IllegalStateException("FmkLockUtil 已经开始使用，锁注册表只能在第一次加锁之前配置: current="
+                    + registry.getMode() + ", new=" + lockRegistry.getMode());
+        }
+        registry = lockRegistry;
+        log.info("FmkLockUtil|configure|mode={}|fair={}", lockRegistry.getMode(), lockRegistry.isFair());
+    }
+
+    /**
+     * 恢复默认注册表并允许重新配置，仅供测试使用
+     */
+    static synchronized void reset() {
+        registry = defaultRegistry();
+        used = false;
+    }
+
+    /**
+     * 获取当前锁注册表
+     */
+    public static FmkLockRegistry getRegistry() {
+        return registry;
+    }
 
-    // 锁的最大数量，防止内存泄漏
-    private static final int MAX_LOCK_SIZE = 10000;
+    /**
+     * 获取锁统计快照（锁数量、竞争次数、等待时间、超时次数）
+     */
+    public static FmkLockStats getStats() {
+        return registry.getStats();
+    }
 
     // ==================== 重入锁相关方法 ====================
 
     /**
      * 获取指定key的重入锁
+     * <p>
+     * 引用计数模式下该 key 的锁会被固定，不再随使用结束移除，保证直接持有锁对象与 executeLock 互斥；
+     * 高基数 key（用户ID、订单ID）请使用 executeLock / executeTryLock，避免锁数量无限增长
      *
      * @param key 锁的key
      * @return ReentrantLock实例
      */
     public static ReentrantLock getReentrantLock(String key) {
-        if (key == null || key.trim().isEmpty()) {
-            throw new IllegalArgumentException("锁的key不能为空");
-        }
-
-        // 检查锁数量限制
-        if (REENTRANT_LOCK_MAP.size() >= MAX_LOCK_SIZE) {
-            log.warn("重入锁数量已达到上限: {}, 请检查是否存在内存泄漏", MAX_LOCK_SIZE);
-        }
-
-        return REENTRANT_LOCK_MAP.computeIfAbsent(key, k -> {
-            log.debug("创建新的重入锁: {}", k);
-            return new ReentrantLock(true); // 公平锁
-        });
+        checkKey(key);
+        return registry().pin(key);
     }
 
     /**
@@ -57,17 +104,23 @@ public class FmkLockUtil {
      * @return 操作结果
      */
     public static <T> T executeLock(String key, Supplier<T> supplier) {
-        ReentrantLock lock = getReentrantLock(key);
-        lock.lock();
+        checkKey(key);
+        FmkLockRegistry current = registry();
+        ReentrantLock lock = current.obtain(key);
         try {
-            log.debug("FmkLockUtil|executeWithLock|getLock={}", key);
-            return supplier.get();
-        } catch (Exception e) {
-            log.error("FmkLockUtil|executeWithLock|执行操作失败|key={}|error={}", key, e.getMessage(), e);
-            throw new Error200Exception(Error200ExceptionEnum.RATE_LIMIT_EXCEEDED);
+            acquireUninterruptibly(current, lock);
+            try {
+                log.debug("FmkLockUtil|executeWithLock|getLock={}", key);
+                return supplier.get();
+            } catch (Exception e) {
+                log.error("FmkLockUtil|executeWithLock|执行操作失败|key={}|error={}", key, e.getMessage(), e);
+                throw new Error200Exception(Error200ExceptionEnum.RATE_LIMIT_EXCEEDED);
+            } finally {
+                lock.unlock();
+                log.debug("FmkLockUtil|executeWithLock|unlock key={}", key);
+            }
         } finally {
-            lock.unlock();
-            log.debug("FmkLockUtil|executeWithLock|unlock key={}", key);
+            current.release(key, lock);
         }
     }
 
@@ -94,9 +147,11 @@ public class FmkLockUtil {
      * @throws Error200Exception 获取锁超时时抛出
      */
     public static <T> T executeTryLock(String key, long timeout, TimeUnit unit, Supplier<T> supplier) {
-        ReentrantLock lock = getReentrantLock(key);
+        checkKey(key);
+        FmkLockRegistry current = registry();
+        ReentrantLock lock = current.obtain(key);
         try {
-            if (lock.tryLock(timeout, unit)) {
+            if (current.acquire(lock, timeout, unit)) {
                 try {
                     log.debug("FmkLockUtil|executeWithTryLockOrThrow|getLock={}", key);
                     return supplier.get();
@@ -115,6 +170,8 @@ public class FmkLockUtil {
             Thread.currentThread().interrupt();
             log.warn("FmkLockUtil|executeWithTryLockOrThrow|线程被中断|key={}", key);
             throw new Error200Exception(Error200ExceptionEnum.RATE_LIMIT_EXCEEDED);
+        } finally {
+            current.release(key, lock);
         }
     }
 
@@ -139,7 +196,48 @@ public class FmkLockUtil {
      * @return 当前锁的数量
      */
     public static int getLockCount() {
-        return REENTRANT_LOCK_MAP.size();
+        return registry.size();
+    }
+
+    private static FmkLockRegistry defaultRegistry() {
+        return FmkLockRegistry.refCounted(true);
+    }
+
+    /**
+     * 获取加锁使用的注册表，并标记为已使用
+     */
+    private static FmkLockRegistry registry() {
+        if (!used) {
+            synchronized (FmkLockUtil.class) {
+                used = true;
+                return registry;
+            }
+        }
+        return registry;
+    }
+
+    private static void checkKey(String key) {
+        if (key == null || key.trim().isEmpty()) {
+            throw new IllegalArgumentException("锁的key不能为空");
+        }
+    }
+
+    /**
+     * 阻塞加锁（不响应中断，与 ReentrantLock.lock 一致）
+     */
+    private static void acquireUninterruptibly(FmkLockRegistry current, ReentrantLock lock) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                current.acquire(lock, -1, TimeUnit.NANOSECONDS);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.cjlabs.memory.lock;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 引用计数锁注册表
+ * <p>
+ * 每个 key 一把独立的锁，obtain 时引用计数 +1，release 时 -1，
+ * 计数归零（没有线程持有或等待）时从注册表移除。
+ * 锁数量等于当前正在使用的 key 数量，高基数 key（用户ID、订单ID）不会无限增长。
+ * 通过 {@link #pin} 固定的 key 额外持有一个引用，不会被移除。
+ */
+public class RefCountedLockRegistry extends FmkLockRegistry {
+
+    private final ConcurrentHashMap<String, RefCountedLock> lockMap = new ConcurrentHashMap<>();
+
+    public RefCountedLockRegistry(boolean fair) {
+        super(fair);
+    }
+
+    @Override
+    public ReentrantLock obtain(String key) {
+        return lockMap.compute(key, (k, lock) -> {
+            if (lock == null) {
+                lock = new RefCountedLock(fair);
+            }
+            lock.refCount++;
+            return lock;
+        });
+    }
+
+    @Override
+    public ReentrantLock pin(String key) {
+        return lockMap.compute(key, (k, lock) -> {
+            if (lock == null) {
+                lock = new RefCountedLock(fair);
+            }
+            if (!lock.pinned) {
+                lock.pinned = true;
+                lock.refCount++;
+            }
+            return lock;
+        });
+    }
+
+    @Override
+    public void release(String key, ReentrantLock lock) {
+        lockMap.computeIfPresent(key, (k, current) -> {
+            if (current != lock) {
+                return current;
+            }
+            return --current.refCount == 0 ? null : current;
+        });
+    }
+
+    @Override
+    public int size() {
+        return lockMap.size();
+    }
+
+    @Override
+    public String getMode() {
+        return "REF_COUNTED";
+    }
+
+    /**
+     * 带引用计数的锁，refCount 和 pinned 只在 ConcurrentHashMap.compute 内读写
+     */
+    private static final class RefCountedLock extends ReentrantLock {
+        private int refCount;
+
+        private boolean pinned;
+
+        private RefCountedLock(boolean fair) {
+            super(fair);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.cjlabs.memory.lock;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分段锁注册表
+ * <p>
+ * key 哈希到固定数量的分段，每个分段首次使用时才创建锁，锁数量不超过分段数。
+ * 不同 key 可能共享同一把锁（不会破坏互斥，但会多等待）；
+ * 嵌套锁定多个 key 时，即使各线程的 key 互不相同、各自顺序固定，也可能因为分段冲突形成死锁，
+ * 因此不是 {@link FmkLockUtil} 的默认模式，只在确认不嵌套加锁时开启。
+ */
+public class StripedLockRegistry extends FmkLockRegistry {
+
+    /**
+     * 默认分段数量
+     */
+    public static final int DEFAULT_STRIPES = 4096;
+
+    private final AtomicReferenceArray<ReentrantLock> stripes;
+
+    private final int mask;
+
+    public StripedLockRegistry(int stripes, boolean fair) {
+        super(fair);
+        if (stripes <= 0 || stripes > (1 << 30)) {
+            throw new IllegalArgumentException("分段数量必须在 1 到 2^30 之间: " + stripes);
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    @Override
+    public ReentrantLock obtain(String key) {
+        int index = indexOf(key);
+        ReentrantLock lock = stripes.get(index);
+        if (lock != null) {
+            return lock;
+        }
+        ReentrantLock created = new ReentrantLock(fair);
+        if (stripes.compareAndSet(index, null, created)) {
+            return created;
+        }
+        return stripes.get(index);
+    }
+
+    @Override
+    public ReentrantLock pin(String key) {
+        // 分段锁本身常驻
+        return obtain(key);
+    }
+
+    @Override
+    public void release(String key, ReentrantLock lock) {
+        // 分段锁常驻，无需登记
+    }
+
+    @Override
+    public int size() {
+        int count = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            if (stripes.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String getMode() {
+        return "STRIPED(" + stripes.length() + ")";
+    }
+
+    /**
+     * 分段数量
+     */
+    public int getStripeCount() {
+        return stripes.length();
+    }
+
+    private int indexOf(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -9,13 +9,23 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * 基于 ZSet 的多版本数据库缓存工具类
@@ -24,8 +34,10 @@ import java.util.stream.Collectors;
  * 1. 自动按时间排序
  * 2. 自动清理旧版本
  * 3. 支持时间范围查询
- * 4. 使用简单，性能高效
- * 5. 直接存储数据，无需包装类
+ * 4. 写入、裁剪、过期在一个 Lua 脚本中完成，一次往返且并发安全
+ * 5. 直接存储 JSON 原文，无需包装类
+ * 6. 支持多个实体的批量写入和批量读取最新版本
+ * 7. 每条命令、每个脚本只访问一个 key，批量操作通过管道发送，支持 Redis Cluster（不会出现 CROSSSLOT）
  * <p>
  * 使用场景：
  * - 数据库数据的多版本缓存
@@ -46,6 +58,21 @@ public class FmkDbCacheUtil {
 
     private static final String KEY_PREFIX = "db:versioned:";
 
+    /**
+     * 写入版本脚本：ZADD、按排名裁剪到最新 N 个、可选设置过期时间，一次往返且原子
+     * KEYS[1]=版本key, ARGV[1]=保留版本数, ARGV[2]=过期秒数（0=不过期）, ARGV[3]=版本分数, ARGV[4]=数据
+     */
+    static final RedisScript<Long> ADD_VERSION_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('zadd', KEYS[1], ARGV[3], ARGV[4]) " +
+                    "redis.call('zremrangebyrank', KEYS[1], 0, -tonumber(ARGV[1]) - 1) " +
+                    "local ttl = tonumber(ARGV[2]) " +
+                    "if ttl > 0 then redis.call('expire', KEYS[1], ttl) end " +
+                    "return 1",
+            Long.class);
+
+    private static final byte[] ADD_VERSION_SCRIPT_BYTES =
+            ADD_VERSION_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+
     private final ObjectMapper objectMapper = FmkJacksonUtil.getMapper();
 
     /**
@@ -70,28 +97,79 @@ public class FmkDbCacheUtil {
      * @return 版本时间戳
      */
     public <T> Instant addVersion(String entityType, String entityId, T data, int maxVersions) {
-        String key = buildKey(entityType, entityId);
+        return addVersion(entityType, entityId, data, maxVersions, 0);
+    }
 
-        Instant now = FmkInstantUtil.now();
-        long currentFullNanos = FmkInstantUtil.toFullNanos(now);
+    /**
+     * 添加新版本（指定保留版本数和过期时间）
+     * <p>
+     * 写入、裁剪、设置过期时间在一个 Lua 脚本（EVALSHA）中完成，并发写入时保留数量依然准确
+     *
+     * @param entityType    实体类型
+     * @param entityId      实体ID
+     * @param data          数据对象
+     * @param maxVersions   最大保留版本数
+     * @param expireSeconds 过期时间（秒），小于等于 0 表示不过期
+     * @return 版本时间戳
+     */
+    public <T> Instant addVersion(String entityType, String entityId, T data, int maxVersions, long expireSeconds) {
+        return addVersions(entityType, Collections.singletonMap(entityId, data), maxVersions, expireSeconds);
+    }
 
-        // 使用 FmkJacksonUtil 序列化数据
-        String jsonData = FmkJacksonUtil.toJson(data);
-        if (jsonData == null) {
-            log.error("序列化数据失败: key={}", key);
-            throw new RuntimeException("添加版本缓存失败：数据序列化失败");
+    /**
+     * 批量添加多个实体的新版本，所有实体使用同一个版本时间戳，一次往返
+     * <p>
+     * 每个实体单独执行一次写入脚本（只访问自己的 key），多个实体通过管道发送：
+     * 单个实体的写入、裁剪、过期是原子的，多个实体之间不是原子的；集群模式下各实体的 key 可以在不同 slot
+     *
+     * @param entityType    实体类型
+     * @param dataMap       实体ID → 数据对象
+     * @param maxVersions   最大保留版本数
+     * @param expireSeconds 过期时间（秒），小于等于 0 表示不过期
+     * @return 版本时间戳
+     */
+    public <T> Instant addVersions(String entityType, Map<String, T> dataMap, int maxVersions, long expireSeconds) {
+        if (maxVersions <= 0) {
+            throw new IllegalArgumentException("最大保留版本数必须大于0: " + maxVersions);
         }
-
-        // 使用 RedisUtil 添加到 ZSet（时间戳作为分数）
-        boolean success = redisUtil.zAdd(key, jsonData, currentFullNanos);
-        if (!success) {
-            log.warn("添加版本可能失败（数据已存在）: key={}, timestamp={}", key, currentFullNanos);
+        Instant now = FmkInstantUtil.now();
+        if (dataMap == null || dataMap.isEmpty()) {
+            return now;
         }
+        long currentFullNanos = FmkInstantUtil.toFullNanos(now);
 
-        // 自动清理旧版本
-        autoCleanOldVersions(key, maxVersions);
+        String keep = String.valueOf(maxVersions);
+        String ttl = String.valueOf(Math.max(expireSeconds, 0));
+        String score = String.valueOf(currentFullNanos);
+
+        List<String> keys = new ArrayList<>(dataMap.size());
+        List<String> jsonList = new ArrayList<>(dataMap.size());
+        dataMap.forEach((entityId, data) -> {
+            // 使用 FmkJacksonUtil 序列化数据，以 JSON 原文作为 ZSet 成员
+            String jsonData = FmkJacksonUtil.toJson(data);
+            if (jsonData == null) {
+                log.error("序列化数据失败: entityType={}, entityId={}", entityType, entityId);
+                throw new RuntimeException("添加版本缓存失败：数据序列化失败");
+            }
+            keys.add(buildFullKey(buildKey(entityType, entityId)));
+            jsonList.add(jsonData);
+        });
+
+        if (keys.size() == 1) {
+            // 单个实体走 EVALSHA
+            redisUtil.getStringRedisTemplate().execute(ADD_VERSION_SCRIPT, keys, keep, ttl, score, jsonList.get(0));
+        } else {
+            // 管道中无法在 NOSCRIPT 时回退，直接使用 EVAL
+            redisUtil.getStringRedisTemplate().executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < keys.size(); i++) {
+                    connection.scriptingCommands().eval(ADD_VERSION_SCRIPT_BYTES, ReturnType.INTEGER, 1,
+                            bytes(keys.get(i)), bytes(keep), bytes(ttl), bytes(score), bytes(jsonList.get(i)));
+                }
+                return null;
+            });
+        }
 
-        log.debug("添加版本缓存: key={}, timestamp={}", key, currentFullNanos);
+        log.debug("添加版本缓存: entityType={}, count={}, timestamp={}", entityType, keys.size(), currentFullNanos);
 
         return now;
     }
@@ -107,8 +185,8 @@ public class FmkDbCacheUtil {
     public <T> T getLatest(String entityType, String entityId, Class<T> clazz) {
         String key = buildKey(entityType, entityId);
 
-        // 使用 RedisUtil 获取分数最高的一个（最新的）
-        Set<Object> result = redisUtil.getRedisTemplate()
+        // 获取分数最高的一个（最新的）
+        Set<String> result = redisUtil.getStringRedisTemplate()
                 .opsForZSet()
                 .reverseRange(buildFullKey(key), 0, 0);
 
@@ -120,6 +198,46 @@ public class FmkDbCacheUtil {
         return parseData(result.iterator().next(), clazz);
     }
 
+    /**
+     * 批量获取多个实体的最新版本（管道，一次往返，每条命令只访问一个 key）
+     *
+     * @param entityType 实体类型
+     * @param entityIds  实体ID集合
+     * @param clazz      数据类型
+     * @return 实体ID → 最新版本的数据，按 entityIds 的顺序，未命中的实体不包含在结果中
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getLatestMany(String entityType, Collection<String> entityIds, Class<T> clazz) {
+        if (entityIds == null || entityIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> idList = new ArrayList<>(entityIds);
+        List<Object> results = redisUtil.getStringRedisTemplate().executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                for (String entityId : idList) {
+                    stringOperations.opsForZSet().reverseRange(buildFullKey(buildKey(entityType, entityId)), 0, 0);
+                }
+                return null;
+            }
+        });
+
+        Map<String, T> latestMap = new LinkedHashMap<>();
+        for (int i = 0; i < idList.size(); i++) {
+            Collection<Object> members = (Collection<Object>) results.get(i);
+            if (members == null || members.isEmpty()) {
+                continue;
+            }
+            T data = parseData(members.iterator().next(), clazz);
+            if (data != null) {
+                latestMap.put(idList.get(i), data);
+            }
+        }
+        log.debug("批量获取最新版本: entityType={}, count={}, found={}", entityType, idList.size(), latestMap.size());
+        return latestMap;
+    }
+
     /**
      * 获取版本数量
      *
@@ -129,7 +247,7 @@ public class FmkDbCacheUtil {
      */
     public long getVersionCount(String entityType, String entityId) {
         String key = buildKey(entityType, entityId);
-        Long count = redisUtil.getRedisTemplate()
+        Long count = redisUtil.getStringRedisTemplate()
                 .opsForZSet()
                 .zCard(buildFullKey(key));
         return count != null ? count : 0L;
@@ -145,16 +263,11 @@ public class FmkDbCacheUtil {
      */
     public long cleanOldVersions(String entityType, String entityId, int keepCount) {
         String key = buildKey(entityType, entityId);
-        long count = getVersionCount(entityType, entityId);
 
-        if (count <= keepCount) {
-            return 0L;
-        }
-
-        // 删除最旧的版本
-        Long removed = redisUtil.getRedisTemplate()
+        // 按倒数排名删除，不需要先查询数量
+        Long removed = redisUtil.getStringRedisTemplate()
                 .opsForZSet()
-                .removeRange(buildFullKey(key), 0, count - keepCount - 1);
+                .removeRange(buildFullKey(key), 0, -keepCount - 1L);
 
         log.info("清理旧版本: key={}, removed={}", key, removed);
         return removed != null ? removed : 0L;
@@ -162,49 +275,6 @@ public class FmkDbCacheUtil {
 
     // ==================== 私有辅助方法 ====================
 
-    /**
-     * 自动清理旧版本
-     */
-    private void autoCleanOldVersions(String key, int maxVersions) {
-        Long count = redisUtil.getRedisTemplate()
-                .opsForZSet()
-                .zCard(buildFullKey(key));
-
-        if (count != null && count > maxVersions) {
-            // 删除最旧的版本（保留最新的 maxVersions 个）
-            Long removed = redisUtil.getRedisTemplate()
-                    .opsForZSet()
-                    .removeRange(buildFullKey(key), 0, count - maxVersions - 1);
-
-            log.debug("自动清理旧版本: key={}, removed={}", key, removed);
-        }
-    }
-
-    /**
-     * 转换为版本数据列表
-     */
-    private <T> List<VersionedData<T>> convertToVersionedDataList(Set<ZSetOperations.TypedTuple<Object>> result,
-                                                                  Class<T> clazz) {
-        return result.stream()
-                .map(tuple -> {
-                    T data = parseData(tuple.getValue(), clazz);
-
-                    // 获取 score（完整纳秒时间戳）
-                    Double score = tuple.getScore();
-
-                    // 将 Double score 转为 long（完整纳秒），然后转为 Instant
-                    Instant timestamp = null;
-                    if (score != null) {
-                        long fullNanos = score.longValue();
-                        timestamp = FmkInstantUtil.fromFullNanos(fullNanos);
-                    }
-
-                    return new VersionedData<>(timestamp, data);
-                })
-                .filter(vd -> vd.getData() != null) // 过滤解析失败的数据
-                .collect(Collectors.toList());
-    }
-
     /**
      * 解析数据（使用 FmkJacksonUtil）
      */
@@ -214,6 +284,13 @@ public class FmkDbCacheUtil {
         }
 
         String json = jsonData.toString();
+        if (clazz != String.class && json.startsWith("\"")) {
+            // 兼容旧版本经 RedisTemplate JSON 序列化器二次编码的数据，旧数据在过期或被裁剪前仍然可读
+            json = FmkJacksonUtil.parseObj(json, String.class);
+            if (json == null) {
+                return null;
+            }
+        }
 
         // 使用 FmkJacksonUtil 反序列化
         T result = FmkJacksonUtil.parseObj(json, clazz);
@@ -224,6 +301,10 @@ public class FmkDbCacheUtil {
         return result;
     }
 
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * 构建 Redis Key（不带前缀）
      */
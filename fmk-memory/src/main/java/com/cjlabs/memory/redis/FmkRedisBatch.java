@@ -0,0 +1,146 @@
+package com.cjlabs.memory.redis;
+
+import org.springframework.data.redis.core.RedisOperations;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Redis 管道批量操作
+ * <p>
+ * 只在 {@link FmkRedisUtil#pipeline} 的回调中使用：所有命令先缓存在客户端，
+ * 回调结束后一次性发送，只消耗一次网络往返。key 的前缀规则与 {@link FmkRedisUtil} 一致。
+ * <p>
+ * 管道中的命令不会立即返回结果，结果按添加顺序出现在 {@link FmkRedisUtil#pipeline} 的返回值中
+ */
+public class FmkRedisBatch {
+
+    private final RedisOperations<String, Object> operations;
+
+    private final UnaryOperator<String> keyBuilder;
+
+    private int size;
+
+    FmkRedisBatch(RedisOperations<String, Object> operations, UnaryOperator<String> keyBuilder) {
+        this.operations = operations;
+        this.keyBuilder = keyBuilder;
+    }
+
+    // =============================String 操作=============================
+
+    /**
+     * 设置缓存（不过期）
+     */
+    public void set(String key, Object value) {
+        operations.opsForValue().set(keyBuilder.apply(key), value);
+        size++;
+    }
+
+    /**
+     * 设置缓存并指定过期时间
+     *
+     * @param seconds 过期时间（秒），小于等于 0 表示不过期
+     */
+    public void set(String key, Object value, long seconds) {
+        if (seconds > 0) {
+            operations.opsForValue().set(keyBuilder.apply(key), value, seconds, TimeUnit.SECONDS);
+        } else {
+            operations.opsForValue().set(keyBuilder.apply(key), value);
+        }
+        size++;
+    }
+
+    /**
+     * 获取缓存，结果为值或 null
+     */
+    public void get(String key) {
+        operations.opsForValue().get(keyBuilder.apply(key));
+        size++;
+    }
+
+    /**
+     * 递增，结果为递增后的值（Long）
+     */
+    public void increment(String key, long delta) {
+        operations.opsForValue().increment(keyBuilder.apply(key), delta);
+        size++;
+    }
+
+    // =============================Key 操作=============================
+
+    /**
+     * 删除缓存，结果为删除的数量（Long）
+     */
+    public void delete(String key) {
+        operations.delete(keyBuilder.apply(key));
+        size++;
+    }
+
+    /**
+     * 设置过期时间，结果为是否设置成功（Boolean）
+     */
+    public void expire(String key, long seconds) {
+        operations.expire(keyBuilder.apply(key), seconds, TimeUnit.SECONDS);
+        size++;
+    }
+
+    // =============================Hash 操作=============================
+
+    /**
+     * Hash 设置
+     */
+    public void hSet(String key, String field, Object value) {
+        operations.opsForHash().put(keyBuilder.apply(key), field, value);
+        size++;
+    }
+
+    /**
+     * Hash 批量设置
+     */
+    public void hSetAll(String key, Map<String, Object> map) {
+        operations.opsForHash().putAll(keyBuilder.apply(key), map);
+        size++;
+    }
+
+    /**
+     * Hash 获取字段，结果为值或 null
+     */
+    public void hGet(String key, String field) {
+        operations.opsForHash().get(keyBuilder.apply(key), field);
+        size++;
+    }
+
+    /**
+     * Hash 获取所有键值对，结果为 Map（key 不存在时为空 Map）
+     */
+    public void hGetAll(String key) {
+        operations.opsForHash().entries(keyBuilder.apply(key));
+        size++;
+    }
+
+    // =============================Set 操作=============================
+
+    /**
+     * Set 添加元素，结果为添加的数量（Long）
+     */
+    public void sAdd(String key, Object... values) {
+        operations.opsForSet().add(keyBuilder.apply(key), values);
+        size++;
+    }
+
+    /**
+     * Set 移除元素，结果为移除的数量（Long）
+     */
+    public void sRemove(String key, Object... values) {
+        operations.opsForSet().remove(keyBuilder.apply(key), values);
+        size++;
+    }
+
+    /**
+     * 已添加的命令数量
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -34,4 +34,21 @@ public class FmkRedisProperties {
      * Key 前缀
      */
     private String keyPrefix = "fmk:";
+
+    /**
+     * 二级缓存配置
+     */
+    private Tiered tiered = new Tiered();
+
+    /**
+     * 二级缓存（Caffeine L1 + Redis L2）配置
+     */
+    @Data
+    public static class Tiered {
+
+        /**
+         * 是否启用二级缓存，启用后每个实例订阅一个 Redis pub/sub 频道接收失效广播，默认关闭
+         */
+        private boolean enabled = false;
+    }
 }
\ No newline at end of file
@@ -1,23 +1,30 @@
 package com.cjlabs.memory.redis;
 
+import com.cjlabs.web.json.FmkJacksonUtil;
+
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Redis 工具类
- * 提供常用的 Redis 操作方法
+ * 提供常用的 Redis 操作方法；批量读写使用 MGET 或管道，多个 key 只消耗一次网络往返
  */
 @Slf4j
 @Component
@@ -580,15 +587,166 @@ public class FmkRedisUtil {
         }
     }
 
+    // =============================批量操作=============================
+
+    /**
+     * 批量获取缓存（MGET，一次网络往返）
+     *
+     * @param keys  键集合
+     * @param clazz 值类型，与实际类型不一致时按 JSON 转换
+     * @return 键 → 值，按 keys 的顺序，不存在的 key 不包含在结果中
+     */
+    public <T> Map<String, T> multiGet(Collection<String> keys, Class<T> clazz) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            List<String> keyList = new ArrayList<>(keys);
+            List<String> fullKeys = new ArrayList<>(keyList.size());
+            keyList.forEach(key -> fullKeys.add(buildKey(key)));
+            List<Object> values = redisTemplate.opsForValue().multiGet(fullKeys);
+            Map<String, T> result = new LinkedHashMap<>();
+            if (values == null) {
+                return result;
+            }
+            for (int i = 0; i < keyList.size(); i++) {
+                T value = convert(values.get(i), clazz);
+                if (value != null) {
+                    result.put(keyList.get(i), value);
+                }
+            }
+            log.debug("Redis MGET: count={}, found={}", keyList.size(), result.size());
+            return result;
+        } catch (Exception e) {
+            log.error("Redis MGET 失败: count={}", keys.size(), e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * 批量设置缓存并指定过期时间
+     * <p>
+     * MSET 不支持过期时间，有过期时间时通过管道发送多条 SET EX，同样只有一次网络往返
+     *
+     * @param map     键值对
+     * @param seconds 过期时间（秒），小于等于 0 表示不过期
+     */
+    public void multiSet(Map<String, ?> map, long seconds) {
+        if (map == null || map.isEmpty()) {
+            return;
+        }
+        try {
+            if (seconds > 0) {
+                pipeline(batch -> map.forEach((key, value) -> batch.set(key, value, seconds)));
+            } else {
+                Map<String, Object> fullKeyMap = new LinkedHashMap<>();
+                map.forEach((key, value) -> fullKeyMap.put(buildKey(key), value));
+                redisTemplate.opsForValue().multiSet(fullKeyMap);
+            }
+            log.debug("Redis MSET: count={}, expire={}s", map.size(), seconds);
+        } catch (Exception e) {
+            log.error("Redis MSET 失败: count={}", map.size(), e);
+            throw new RuntimeException("Redis MSET 操作失败", e);
+        }
+    }
+
+    /**
+     * 管道批量执行，回调中添加的所有命令一次性发送
+     *
+     * @param consumer 添加命令的回调
+     * @return 每条命令的结果，按添加顺序
+     */
+    public List<Object> pipeline(Consumer<FmkRedisBatch> consumer) {
+        try {
+            int[] size = new int[1];
+            List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    FmkRedisBatch batch = new FmkRedisBatch((RedisOperations<String, Object>) operations,
+                            FmkRedisUtil.this::buildKey);
+                    consumer.accept(batch);
+                    size[0] = batch.size();
+                    return null;
+                }
+            });
+            log.debug("Redis PIPELINE: count={}", size[0]);
+            return results;
+        } catch (Exception e) {
+            log.error("Redis PIPELINE 失败", e);
+            throw new RuntimeException("Redis PIPELINE 操作失败", e);
+        }
+    }
+
+    /**
+     * 批量获取多个 Hash 的所有键值对（管道，一次网络往返）
+     *
+     * @param keys 键集合
+     * @return 键 → 键值对 Map，按 keys 的顺序，不存在的 key 不包含在结果中
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<Object, Object>> hGetAll(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            List<String> keyList = new ArrayList<>(keys);
+            List<Object> values = pipeline(batch -> keyList.forEach(batch::hGetAll));
+            Map<String, Map<Object, Object>> result = new LinkedHashMap<>();
+            for (int i = 0; i < keyList.size(); i++) {
+                Map<Object, Object> entries = (Map<Object, Object>) values.get(i);
+                if (entries != null && !entries.isEmpty()) {
+                    result.put(keyList.get(i), entries);
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("Redis BATCH HGETALL 失败: count={}", keys.size(), e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * 批量设置过期时间（管道，一次网络往返）
+     *
+     * @param keys    键集合
+     * @param seconds 过期时间（秒）
+     * @return 设置成功的数量
+     */
+    public long expire(Collection<String> keys, long seconds) {
+        if (keys == null || keys.isEmpty()) {
+            return 0;
+        }
+        try {
+            List<Object> results = pipeline(batch -> keys.forEach(key -> batch.expire(key, seconds)));
+            long count = results.stream().filter(Boolean.TRUE::equals).count();
+            log.debug("Redis BATCH EXPIRE: count={}, seconds={}, result={}", keys.size(), seconds, count);
+            return count;
+        } catch (Exception e) {
+            log.error("Redis BATCH EXPIRE 失败: count={}", keys.size(), e);
+            return 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T convert(Object value, Class<T> clazz) {
+        if (value == null || clazz.isInstance(value)) {
+            return (T) value;
+        }
+        return FmkJacksonUtil.convertValue(value, clazz);
+    }
+
     // =============================工具方法=============================
 
     /**
      * 构建完整的 key（添加前缀）
+     * <p>
+     * 直接使用 RedisTemplate 执行脚本等操作时，用于保持与本工具类一致的前缀规则
      *
      * @param key 原始 key
      * @return 完整 key
      */
-    private String buildKey(String key) {
+    public String buildKey(String key) {
         String prefix = redisProperties.getKeyPrefix();
         if (prefix == null || prefix.isEmpty()) {
             return key;
@@ -0,0 +1,138 @@
+package com.cjlabs.memory.redis;
+
+import com.cjlabs.core.id.WorkerIdAssigner;
+import com.cjlabs.core.id.WorkerIdLease;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Redis 租约的雪花算法机器ID分配器
+ * <p>
+ * Key 设计（均带 fmk.redis.key-prefix 前缀）：
+ * 1. snowflake:worker:{workerId}       值为实例标识，带过期时间（租约）
+ * 2. snowflake:worker:{workerId}:last  该机器ID最后使用的时间戳，永不过期
+ * <p>
+ * 分配：从随机位置开始依次 SET NX EX 抢占，抢到后读取最后时间戳交给生成器做时钟回拨保护；
+ * 续约/释放：Lua 脚本校验持有者后原子地续期/删除，并单调更新最后时间戳。
+ * <p>
+ * 使用示例：FmkSnowflakeIdGenerator.init(SnowflakeLayout.CLUSTER, fmkRedisWorkerIdAssigner);
+ */
+@Slf4j
+@Component
+public class FmkRedisWorkerIdAssigner implements WorkerIdAssigner {
+
+    private static final String KEY_PREFIX = "snowflake:worker:";
+
+    /**
+     * 租约有效期（秒）
+     */
+    private static final long LEASE_SECONDS = 30L;
+
+    /**
+     * 心跳续约间隔（毫秒），租约有效期的三分之一
+     */
+    private static final long HEARTBEAT_INTERVAL_MS = TimeUnit.SECONDS.toMillis(LEASE_SECONDS) / 3;
+
+    /**
+     * 续约脚本：持有者一致时续期并单调更新最后时间戳
+     * KEYS[1]=租约key, KEYS[2]=最后时间戳key, ARGV[1]=实例标识, ARGV[2]=租约毫秒, ARGV[3]=最后时间戳
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end " +
+                    "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+                    "local last = tonumber(redis.call('get', KEYS[2]) or '-1') " +
+                    "if tonumber(ARGV[3]) > last then redis.call('set', KEYS[2], ARGV[3]) end " +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 释放脚本：持有者一致时删除租约并单调更新最后时间戳
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end " +
+                    "redis.call('del', KEYS[1]) " +
+                    "local last = tonumber(redis.call('get', KEYS[2]) or '-1') " +
+                    "if tonumber(ARGV[2]) > last then redis.call('set', KEYS[2], ARGV[2]) end " +
+                    "return 1",
+            Long.class);
+
+    @Autowired
+    private FmkRedisUtil redisUtil;
+
+    /**
+     * 实例标识：主机名 + 进程ID + 随机串，重启后不同
+     */
+    private final String instanceId = buildInstanceId();
+
+    @Override
+    public WorkerIdLease assign(long maxWorkerId) {
+        StringRedisTemplate template = redisUtil.getStringRedisTemplate();
+        long total = maxWorkerId + 1;
+        long offset = ThreadLocalRandom.current().nextLong(total);
+
+        for (long i = 0; i < total; i++) {
+            long workerId = (offset + i) % total;
+            Boolean acquired = template.opsForValue()
+                    .setIfAbsent(leaseKey(workerId), instanceId, LEASE_SECONDS, TimeUnit.SECONDS);
+            if (Boolean.TRUE.equals(acquired)) {
+                String last = template.opsForValue().get(lastTimestampKey(workerId));
+                long lastTimestamp = StringUtils.isBlank(last) ? -1L : Long.parseLong(last);
+                log.info("FmkRedisWorkerIdAssigner|assign|workerId={}|lastTimestamp={}|instanceId={}",
+                        workerId, lastTimestamp, instanceId);
+                return new WorkerIdLease(workerId, lastTimestamp,
+                        TimeUnit.SECONDS.toMillis(LEASE_SECONDS), HEARTBEAT_INTERVAL_MS);
+            }
+        }
+        throw new RuntimeException("没有可用的雪花算法机器ID: maxWorkerId=" + maxWorkerId);
+    }
+
+    @Override
+    public boolean renew(WorkerIdLease lease, long lastTimestamp) {
+        Long result = redisUtil.getStringRedisTemplate().execute(RENEW_SCRIPT,
+                List.of(leaseKey(lease.getWorkerId()), lastTimestampKey(lease.getWorkerId())),
+                instanceId, String.valueOf(TimeUnit.SECONDS.toMillis(LEASE_SECONDS)), String.valueOf(lastTimestamp));
+        boolean renewed = Long.valueOf(1L).equals(result);
+        log.debug("FmkRedisWorkerIdAssigner|renew|workerId={}|renewed={}", lease.getWorkerId(), renewed);
+        return renewed;
+    }
+
+    @Override
+    public void release(WorkerIdLease lease, long lastTimestamp) {
+        redisUtil.getStringRedisTemplate().execute(RELEASE_SCRIPT,
+                List.of(leaseKey(lease.getWorkerId()), lastTimestampKey(lease.getWorkerId())),
+                instanceId, String.valueOf(lastTimestamp));
+        log.info("FmkRedisWorkerIdAssigner|release|workerId={}|lastTimestamp={}", lease.getWorkerId(), lastTimestamp);
+    }
+
+    private String leaseKey(long workerId) {
+        return redisUtil.buildKey(KEY_PREFIX + workerId);
+    }
+
+    private String lastTimestampKey(long workerId) {
+        return redisUtil.buildKey(KEY_PREFIX + workerId + ":last");
+    }
+
+    private static String buildInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + ManagementFactory.getRuntimeMXBean().getPid() + ":"
+                + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
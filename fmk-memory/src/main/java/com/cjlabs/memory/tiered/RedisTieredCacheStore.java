@@ -0,0 +1,89 @@
+package com.cjlabs.memory.tiered;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis 的二级缓存存储
+ * <p>
+ * L2 使用 String 命令，失效广播使用 pub/sub 频道 {keyPrefix}tiered:invalidate
+ */
+@Slf4j
+public class RedisTieredCacheStore implements TieredCacheStore, DisposableBean {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final String keyPrefix;
+    private final String channel;
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    public RedisTieredCacheStore(StringRedisTemplate stringRedisTemplate, RedisConnectionFactory connectionFactory,
+                                 String keyPrefix) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.keyPrefix = keyPrefix;
+        this.channel = keyPrefix + "tiered:invalidate";
+    }
+
+    @Override
+    public String get(String key) {
+        return stringRedisTemplate.opsForValue().get(keyPrefix + key);
+    }
+
+    @Override
+    public void set(String key, String value, long expireSeconds) {
+        stringRedisTemplate.opsForValue().set(keyPrefix + key, value, expireSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void setIfAbsent(String key, String value, long expireSeconds) {
+        stringRedisTemplate.opsForValue().setIfAbsent(keyPrefix + key, value, expireSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void delete(String key) {
+        stringRedisTemplate.delete(keyPrefix + key);
+    }
+
+    @Override
+    public long increment(String key) {
+        Long value = stringRedisTemplate.opsForValue().increment(keyPrefix + key);
+        return value == null ? 0L : value;
+    }
+
+    @Override
+    public void publish(String message) {
+        stringRedisTemplate.convertAndSend(channel, message);
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<String> listener) {
+        if (listenerContainer == null) {
+            listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(connectionFactory);
+            listenerContainer.afterPropertiesSet();
+            listenerContainer.start();
+        }
+        listenerContainer.addMessageListener(
+                (message, pattern) -> listener.accept(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel));
+        log.info("RedisTieredCacheStore|subscribe|channel={}", channel);
+    }
+
+    @Override
+    public synchronized void destroy() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+            listenerContainer = null;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.cjlabs.memory.tiered;
+
+import com.cjlabs.memory.local.LocalCacheSpec;
+import com.cjlabs.web.json.FmkJacksonUtil;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 二级缓存（Caffeine L1 + Redis L2）
+ * <p>
+ * 读：L1 → L2 → loader，逐级回填（L2 回填使用 SET NX）；同一 key 的并发未命中由 Caffeine 单飞加载
+ * 写：先写/删 L2，再更新本地 L1，最后广播失效消息，其他实例收到后只淘汰 L1
+ * <p>
+ * 版本控制：
+ * 1. 失效代数：每次本地写入或收到失效消息时 +1；加载期间代数变化说明有并发写入，加载结果不留在 L1，防止旧值覆盖
+ * 2. 命名空间版本：L2 key 中带版本号，invalidateAll 只需递增版本，旧 key 由 TTL 自然过期，无需 SCAN
+ * <p>
+ * pub/sub 消息可能丢失，L1 过期时间决定了丢消息时的最大脏读时长；命名空间版本定期从 L2 重新读取
+ */
+@Slf4j
+public class TieredCache<V> {
+
+    /**
+     * 命名空间版本从 L2 重新读取的间隔（毫秒）
+     */
+    private static final long NAMESPACE_VERSION_REFRESH_MS = 5000L;
+
+    private final String cacheName;
+    private final Class<V> valueType;
+    private final Cache<String, V> l1;
+    private final long l2ExpireSeconds;
+    private final TieredCacheStore store;
+    private final String instanceId;
+
+    /**
+     * 失效代数
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 命名空间版本
+     */
+    private volatile long namespaceVersion;
+    private volatile long namespaceVersionLoadTime;
+
+    /**
+     * 统计信息
+     */
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder l1HitCount = new LongAdder();
+    private final LongAdder l2HitCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+
+    /**
+     * 构造函数，一般通过 {@link TieredCacheManager#getCache} 创建
+     *
+     * @param cacheName       缓存名称（命名空间）
+     * @param valueType       值类型，L2 使用 JSON 序列化
+     * @param l1Spec          L1 配置（maxSize、expireSeconds）
+     * @param l2ExpireSeconds L2 过期时间（秒）
+     * @param store           L2 存储与广播
+     * @param instanceId      当前实例标识
+     */
+    TieredCache(String cacheName, Class<V> valueType, LocalCacheSpec l1Spec, long l2ExpireSeconds,
+                TieredCacheStore store, String instanceId) {
+        this.cacheName = cacheName;
+        this.valueType = valueType;
+        this.l2ExpireSeconds = l2ExpireSeconds;
+        this.store = store;
+        this.instanceId = instanceId;
+        this.l1 = Caffeine.newBuilder()
+                .maximumSize(l1Spec.getMaxSize())
+                .expireAfterWrite(l1Spec.getExpireSeconds(), TimeUnit.SECONDS)
+                .build();
+        refreshNamespaceVersion();
+        log.info("初始化二级缓存: {}, L1 容量: {}, L1 过期: {}秒, L2 过期: {}秒, 命名空间版本: {}",
+                cacheName, l1Spec.getMaxSize(), l1Spec.getExpireSeconds(), l2ExpireSeconds, namespaceVersion);
+    }
+
+    // ======================== 读 ========================
+
+    /**
+     * 获取缓存数据，L1 → L2 → loader
+     *
+     * @param key    缓存 key
+     * @param loader 数据加载器，返回 null 时不缓存
+     * @return 缓存的值
+     */
+    public V get(String key, Function<String, V> loader) {
+        requestCount.increment();
+        V value = l1.getIfPresent(key);
+        if (value != null) {
+            l1HitCount.increment();
+            return value;
+        }
+
+        long currentGeneration = generation.get();
+        value = l1.get(key, k -> loadFromL2OrLoader(k, loader));
+        if (generation.get() != currentGeneration) {
+            // 加载期间有写入或失效，本次结果可能是旧值，不留在 L1
+            l1.invalidate(key);
+        }
+        return value;
+    }
+
+    /**
+     * 只查 L1 和 L2，不调用 loader，也不回填 L1
+     *
+     * @param key 缓存 key
+     * @return 缓存的值，不存在返回 null
+     */
+    public V getIfPresent(String key) {
+        V value = l1.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        String json = store.get(l2Key(key));
+        return json == null ? null : FmkJacksonUtil.parseObj(json, valueType);
+    }
+
+    private V loadFromL2OrLoader(String key, Function<String, V> loader) {
+        String l2Key = l2Key(key);
+        String json = store.get(l2Key);
+        if (json != null) {
+            l2HitCount.increment();
+            return FmkJacksonUtil.parseObj(json, valueType);
+        }
+
+        V loaded = loader.apply(key);
+        loadCount.increment();
+        if (loaded != null) {
+            // 加载期间其他实例可能已经写入新值，回填不能覆盖
+            store.setIfAbsent(l2Key, FmkJacksonUtil.toJson(loaded), l2ExpireSeconds);
+        }
+        return loaded;
+    }
+
+    // ======================== 写 ========================
+
+    /**
+     * 写入缓存（写穿 L2 + L1），并通知其他实例淘汰 L1
+     *
+     * @param key   缓存 key
+     * @param value 缓存值
+     */
+    public void put(String key, V value) {
+        store.set(l2Key(key), FmkJacksonUtil.toJson(value), l2ExpireSeconds);
+        generation.incrementAndGet();
+        l1.put(key, value);
+        publish(key, namespaceVersion);
+    }
+
+    /**
+     * 删除缓存，并通知其他实例淘汰 L1
+     *
+     * @param key 缓存 key
+     */
+    public void invalidate(String key) {
+        store.delete(l2Key(key));
+        generation.incrementAndGet();
+        l1.invalidate(key);
+        publish(key, namespaceVersion);
+    }
+
+    /**
+     * 整个命名空间失效：递增 L2 命名空间版本，并通知其他实例清空 L1
+     */
+    public void invalidateAll() {
+        long newVersion = store.increment(namespaceVersionKey());
+        namespaceVersion = newVersion;
+        namespaceVersionLoadTime = System.currentTimeMillis();
+        generation.incrementAndGet();
+        l1.invalidateAll();
+        publish(null, newVersion);
+        log.info("二级缓存命名空间失效: {}, 新版本: {}", cacheName, newVersion);
+    }
+
+    /**
+     * 处理其他实例的失效消息
+     */
+    void onInvalidation(TieredCacheMessage message) {
+        if (instanceId.equals(message.getOrigin())) {
+            return;
+        }
+        invalidationCount.increment();
+        generation.incrementAndGet();
+        if (StringUtils.isEmpty(message.getKey())) {
+            if (message.getNamespaceVersion() > namespaceVersion) {
+                namespaceVersion = message.getNamespaceVersion();
+            }
+            l1.invalidateAll();
+        } else {
+            l1.invalidate(message.getKey());
+        }
+    }
+
+    private void publish(String key, long version) {
+        try {
+            store.publish(FmkJacksonUtil.toJson(new TieredCacheMessage(instanceId, cacheName, key, version)));
+        } catch (Exception e) {
+            // 广播失败只影响其他实例的 L1，由 L1 过期时间兜底
+            log.error("TieredCache|publish|广播失效消息失败|cacheName={}|key={}", cacheName, key, e);
+        }
+    }
+
+    // ======================== key ========================
+
+    private String l2Key(String key) {
+        if (System.currentTimeMillis() - namespaceVersionLoadTime > NAMESPACE_VERSION_REFRESH_MS) {
+            refreshNamespaceVersion();
+        }
+        return "tiered:" + cacheName + ":" + namespaceVersion + ":" + key;
+    }
+
+    private String namespaceVersionKey() {
+        return "tiered:" + cacheName + ":version";
+    }
+
+    private void refreshNamespaceVersion() {
+        String version = store.get(namespaceVersionKey());
+        long loaded = StringUtils.isBlank(version) ? 0L : Long.parseLong(version);
+        if (loaded != namespaceVersion) {
+            generation.incrementAndGet();
+            if (loaded > namespaceVersion && namespaceVersionLoadTime > 0) {
+                // 错过了失效消息，L1 中可能是旧命名空间的数据
+                l1.invalidateAll();
+            }
+            namespaceVersion = Math.max(loaded, namespaceVersion);
+        }
+        namespaceVersionLoadTime = System.currentTimeMillis();
+    }
+
+    // ======================== 状态监控 ========================
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    /**
+     * L1 当前条目数
+     */
+    public long l1Size() {
+        return l1.estimatedSize();
+    }
+
+    /**
+     * 获取统计快照
+     */
+    public TieredCacheStats stats() {
+        TieredCacheStats stats = new TieredCacheStats();
+        stats.setCacheName(cacheName);
+        stats.setRequestCount(requestCount.sum());
+        stats.setL1HitCount(l1HitCount.sum());
+        stats.setL2HitCount(l2HitCount.sum());
+        stats.setLoadCount(loadCount.sum());
+        stats.setInvalidationCount(invalidationCount.sum());
+        return stats;
+    }
+
+    /**
+     * 打印统计信息
+     */
+    public void logStats() {
+        TieredCacheStats stats = stats();
+        log.info("二级缓存统计 [{}] - 请求: {}, L1 命中率: {}%, L2 命中率: {}%, 加载: {}, 收到失效: {}",
+                cacheName,
+                stats.getRequestCount(),
+                String.format("%.2f", stats.getL1HitRatio() * 100),
+                String.format("%.2f", stats.getL2HitRatio() * 100),
+                stats.getLoadCount(),
+                stats.getInvalidationCount());
+    }
+}
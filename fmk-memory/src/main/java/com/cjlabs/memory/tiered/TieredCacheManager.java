@@ -0,0 +1,98 @@
+package com.cjlabs.memory.tiered;
+
+import com.cjlabs.memory.local.LocalCacheSpec;
+import com.cjlabs.web.json.FmkJacksonUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 二级缓存管理器
+ * <p>
+ * 统一创建 {@link TieredCache}，订阅一个失效频道并按缓存名称分发消息
+ * <p>
+ * 使用示例：
+ * TieredCache&lt;UserResp&gt; userCache = tieredCacheManager.getCache("user", UserResp.class);
+ * UserResp user = userCache.get(String.valueOf(userId), key -&gt; loadUser(userId));
+ */
+@Slf4j
+public class TieredCacheManager {
+
+    /**
+     * 默认 L2 过期时间（秒）
+     */
+    public static final long DEFAULT_L2_EXPIRE_SECONDS = 3600L;
+
+    /**
+     * 默认 L1 过期时间（秒），也是丢失失效消息时的最大脏读时长
+     */
+    public static final long DEFAULT_L1_EXPIRE_SECONDS = 60L;
+
+    private final TieredCacheStore store;
+
+    /**
+     * 实例标识，用于忽略自己发出的失效消息
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<String, TieredCache<?>> cacheMap = new ConcurrentHashMap<>();
+
+    public TieredCacheManager(TieredCacheStore store) {
+        this.store = store;
+        store.subscribe(this::onMessage);
+    }
+
+    /**
+     * 创建或获取二级缓存（默认配置：L1 10000 条 60 秒，L2 3600 秒）
+     *
+     * @param cacheName 缓存名称
+     * @param valueType 值类型
+     * @return 二级缓存
+     */
+    public <V> TieredCache<V> getCache(String cacheName, Class<V> valueType) {
+        LocalCacheSpec l1Spec = new LocalCacheSpec();
+        l1Spec.setExpireSeconds(DEFAULT_L1_EXPIRE_SECONDS);
+        return getCache(cacheName, valueType, l1Spec, DEFAULT_L2_EXPIRE_SECONDS);
+    }
+
+    /**
+     * 创建或获取二级缓存
+     * 同名缓存只创建一次，之后传入的配置会被忽略
+     *
+     * @param cacheName       缓存名称
+     * @param valueType       值类型
+     * @param l1Spec          L1 配置
+     * @param l2ExpireSeconds L2 过期时间（秒）
+     * @return 二级缓存
+     */
+    @SuppressWarnings("unchecked")
+    public <V> TieredCache<V> getCache(String cacheName, Class<V> valueType, LocalCacheSpec l1Spec, long l2ExpireSeconds) {
+        return (TieredCache<V>) cacheMap.computeIfAbsent(cacheName,
+                name -> new TieredCache<>(name, valueType, l1Spec, l2ExpireSeconds, store, instanceId));
+    }
+
+    /**
+     * 打印所有缓存统计
+     */
+    public void logAllStats() {
+        cacheMap.values().forEach(TieredCache::logStats);
+    }
+
+    private void onMessage(String body) {
+        try {
+            TieredCacheMessage message = FmkJacksonUtil.parseObj(body, TieredCacheMessage.class);
+            if (message == null) {
+                return;
+            }
+            TieredCache<?> cache = cacheMap.get(message.getCacheName());
+            if (cache != null) {
+                cache.onInvalidation(message);
+            }
+        } catch (Exception e) {
+            log.error("TieredCacheManager|onMessage|处理失效消息失败|body={}", body, e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.cjlabs.memory.tiered;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 二级缓存失效消息
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TieredCacheMessage {
+
+    /**
+     * 发送方实例标识，收到自己发出的消息时忽略
+     */
+    private String origin;
+
+    /**
+     * 缓存名称（命名空间）
+     */
+    private String cacheName;
+
+    /**
+     * 失效的 key，为空表示整个命名空间失效
+     */
+    private String key;
+
+    /**
+     * 命名空间版本号，整个命名空间失效时携带新版本
+     */
+    private long namespaceVersion;
+}
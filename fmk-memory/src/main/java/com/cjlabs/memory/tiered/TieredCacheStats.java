@@ -0,0 +1,55 @@
+package com.cjlabs.memory.tiered;
+
+import lombok.Data;
+
+/**
+ * 二级缓存统计快照
+ */
+@Data
+public class TieredCacheStats {
+
+    /**
+     * 缓存名称
+     */
+    private String cacheName;
+
+    /**
+     * 请求总数
+     */
+    private long requestCount;
+
+    /**
+     * L1 命中数
+     */
+    private long l1HitCount;
+
+    /**
+     * L2 命中数
+     */
+    private long l2HitCount;
+
+    /**
+     * 调用 loader 次数
+     */
+    private long loadCount;
+
+    /**
+     * 收到的失效消息数
+     */
+    private long invalidationCount;
+
+    /**
+     * L1 命中率 = L1 命中 / 请求总数
+     */
+    public double getL1HitRatio() {
+        return requestCount == 0 ? 0.0 : (double) l1HitCount / requestCount;
+    }
+
+    /**
+     * L2 命中率 = L2 命中 / L1 未命中数
+     */
+    public double getL2HitRatio() {
+        long l1Miss = requestCount - l1HitCount;
+        return l1Miss == 0 ? 0.0 : (double) l2HitCount / l1Miss;
+    }
+}
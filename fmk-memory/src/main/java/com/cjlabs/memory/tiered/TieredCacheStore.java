@@ -0,0 +1,67 @@
+package com.cjlabs.memory.tiered;
+
+import java.util.function.Consumer;
+
+/**
+ * 二级缓存的远程存储与失效广播
+ * <p>
+ * 生产环境由 {@link RedisTieredCacheStore} 实现（String 命令 + pub/sub），
+ * 测试时可以用进程内实现替代
+ */
+public interface TieredCacheStore {
+
+    /**
+     * 读取 L2 值
+     *
+     * @param key 完整 key
+     * @return 序列化后的值，不存在返回 null
+     */
+    String get(String key);
+
+    /**
+     * 写入 L2 值
+     *
+     * @param key           完整 key
+     * @param value         序列化后的值
+     * @param expireSeconds 过期时间（秒）
+     */
+    void set(String key, String value, long expireSeconds);
+
+    /**
+     * key 不存在时才写入（SET NX），用于加载回填，避免覆盖并发写入的新值
+     *
+     * @param key           完整 key
+     * @param value         序列化后的值
+     * @param expireSeconds 过期时间（秒）
+     */
+    void setIfAbsent(String key, String value, long expireSeconds);
+
+    /**
+     * 删除 L2 值
+     *
+     * @param key 完整 key
+     */
+    void delete(String key);
+
+    /**
+     * 原子递增，用于命名空间版本号
+     *
+     * @param key 完整 key
+     * @return 递增后的值
+     */
+    long increment(String key);
+
+    /**
+     * 广播失效消息
+     *
+     * @param message 消息内容
+     */
+    void publish(String message);
+
+    /**
+     * 订阅失效消息
+     *
+     * @param listener 消息处理器
+     */
+    void subscribe(Consumer<String> listener);
+}
@@ -1,30 +1,106 @@
 package com.cjlabs.memory.token;
 
+import com.cjlabs.core.time.FmkInstantUtil;
 import com.cjlabs.core.types.longs.FmkUserId;
 import com.cjlabs.core.types.strings.FmkToken;
+import com.cjlabs.web.json.FmkJacksonUtil;
 import com.cjlabs.web.threadlocal.FmkClientInfo;
 import com.cjlabs.web.threadlocal.FmkUserInfo;
+import com.cjlabs.web.token.FmkLastActiveCoalescer;
 import com.cjlabs.web.token.FmkTokenProperties;
 import com.cjlabs.web.token.IFmkTokenService;
 import com.cjlabs.web.token.bo.FmkTokenInfo;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Token 服务 Redis 实现
- * 使用 Redis 存储 Token，性能最优，推荐生产环境使用
+ * 使用 Redis 存储 Token，多实例共享会话，推荐生产环境使用
  * 当 fmk.token.type=redis 时启用
+ * <p>
+ * Key 设计（前缀为 fmk.token.redis.key-prefix）：
+ * 1. {prefix}{token}         Hash：userId、userName、clientInfo（JSON）、lastActiveTime，Redis 原生过期
+ * 2. {prefix}user:{userId}   Set：该用户的所有 token，按用户查询和踢下线不需要扫描
+ * <p>
+ * 最后活跃时间先记录在本地，由 {@link FmkLastActiveCoalescer} 定时批量写入 Redis，避免每个请求都写一次；
+ * 开启 fmk.token.redis.sliding-expire 时写入活跃时间的同时续期（滑动过期）
+ * <p>
+ * token 和用户索引可能落在 Redis Cluster 的不同 slot，每条命令、每个脚本只访问一个 key，
+ * 涉及多个 key 的操作通过管道发送，不会出现 CROSSSLOT
  */
 @Slf4j
 // @Service("FmkTokenServiceRedisImpl")
 // @ConditionalOnProperty(name = "fmk.token.type", havingValue = "redis")
-public class FmkTokenServiceRedisImpl implements IFmkTokenService {
+public class FmkTokenServiceRedisImpl implements IFmkTokenService, InitializingBean, DisposableBean {
+
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_USER_NAME = "userName";
+    private static final String FIELD_CLIENT_INFO = "clientInfo";
+    private static final String FIELD_LAST_ACTIVE_TIME = "lastActiveTime";
+
+    private static final String USER_KEY_SEGMENT = "user:";
+
+    /**
+     * 刷新脚本：token 存在且属于该用户时续期 token，用户索引在同一个管道中单独续期
+     * KEYS[1]=token key, ARGV[1]=过期秒数, ARGV[2]=用户ID
+     */
+    static final RedisScript<Long> REFRESH_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hget', KEYS[1], 'userId') ~= ARGV[2] then return 0 end " +
+                    "redis.call('expire', KEYS[1], ARGV[1]) " +
+                    "return 1",
+            Long.class);
+
+    /**
+     * 活跃时间写入脚本：只更新仍然存在的 token，避免过期后 HSET 生成没有过期时间的 key；
+     * 过期秒数大于 0 时同时续期 token，用户索引在同一个管道中单独续期
+     * KEYS[1]=token key, ARGV[1]=过期秒数（0 表示不续期）, ARGV[2]=活跃时间（毫秒）
+     */
+    static final RedisScript<Long> TOUCH_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end " +
+                    "redis.call('hset', KEYS[1], 'lastActiveTime', ARGV[2]) " +
+                    "local seconds = tonumber(ARGV[1]) " +
+                    "if seconds > 0 then redis.call('expire', KEYS[1], seconds) end " +
+                    "return 1",
+            Long.class);
+
+    private static final byte[] REFRESH_SCRIPT_BYTES =
+            REFRESH_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] TOUCH_SCRIPT_BYTES =
+            TOUCH_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
 
     // @Autowired
     private FmkTokenProperties tokenProperties;
 
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 最后活跃时间合并写入
+     */
+    private FmkLastActiveCoalescer lastActiveCoalescer;
+
     public FmkTokenServiceRedisImpl() {
         log.info("==> Token服务初始化：Redis存储模式");
     }
@@ -32,65 +108,490 @@ public class FmkTokenServiceRedisImpl implements IFmkTokenService {
     // 添加 setter 方法
     public void setTokenProperties(FmkTokenProperties tokenProperties) {
         this.tokenProperties = tokenProperties;
+
+        FmkTokenProperties.LastActiveConfig lastActive = tokenProperties.getLastActive();
+        this.lastActiveCoalescer = new FmkLastActiveCoalescer("fmk-token-last-active",
+                TimeUnit.SECONDS.toMillis(lastActive.getGranularitySeconds()),
+                lastActive.getBatchSize(),
+                lastActive.getMaxTracked(),
+                this::touch);
+    }
+
+    public void setStringRedisTemplate(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        lastActiveCoalescer.start(TimeUnit.SECONDS.toMillis(tokenProperties.getLastActive().getFlushSeconds()));
+    }
+
+    @Override
+    public void destroy() {
+        lastActiveCoalescer.stop();
     }
 
     @Override
     public FmkToken createAndSaveToken(FmkUserInfo userInfo, FmkClientInfo clientInfo) {
-        return null;
+        if (userInfo == null || userInfo.getUserId() == null) {
+            log.warn("FmkTokenServiceRedisImpl|createAndSaveToken|userInfo为空");
+            return null;
+        }
+
+        try {
+            FmkToken token = FmkToken.generate();
+            String tokenKey = tokenKey(token.getValue());
+            String userKey = userKey(userInfo.getUserId());
+            long expireSeconds = expireSeconds();
+
+            Map<String, String> fields = new HashMap<>();
+            fields.put(FIELD_USER_ID, String.valueOf(userInfo.getUserId().getValue()));
+            if (userInfo.getUserName() != null) {
+                fields.put(FIELD_USER_NAME, userInfo.getUserName());
+            }
+            if (clientInfo != null) {
+                clientInfo.updateLastActiveTime();
+                fields.put(FIELD_CLIENT_INFO, FmkJacksonUtil.toJson(clientInfo));
+                fields.put(FIELD_LAST_ACTIVE_TIME, String.valueOf(clientInfo.getLastActiveTime().toEpochMilli()));
+            }
+
+            // 写 token、设置过期、加入用户索引，一次往返
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    ops.opsForHash().putAll(tokenKey, fields);
+                    ops.expire(tokenKey, expireSeconds, TimeUnit.SECONDS);
+                    ops.opsForSet().add(userKey, token.getValue());
+                    ops.expire(userKey, expireSeconds, TimeUnit.SECONDS);
+                    return null;
+                }
+            });
+
+            log.info("FmkTokenServiceRedisImpl|createAndSaveToken|创建成功|userId={}|token={}|expireSeconds={}",
+                    userInfo.getUserId().getValue(), maskToken(token.getValue()), expireSeconds);
+
+            return token;
+        } catch (Exception e) {
+            log.error("FmkTokenServiceRedisImpl|createAndSaveToken|创建失败", e);
+            return null;
+        }
     }
 
     @Override
     public boolean validateToken(FmkToken token) {
-        return false;
+        if (isBlank(token)) {
+            return false;
+        }
+
+        Boolean exists = stringRedisTemplate.hasKey(tokenKey(token.getValue()));
+        if (!Boolean.TRUE.equals(exists)) {
+            return false;
+        }
+
+        markActive(token);
+        return true;
     }
 
     @Override
     public Optional<FmkToken> getTokenByUserId(FmkUserId userId) {
-        return Optional.empty();
+        if (userId == null) {
+            return Optional.empty();
+        }
+
+        String userKey = userKey(userId);
+        Set<String> members = stringRedisTemplate.opsForSet().members(userKey);
+        if (members == null || members.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<String> tokens = new ArrayList<>(members);
+        List<Object> existsList = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                tokens.forEach(token -> ops.hasKey(tokenKey(token)));
+                return null;
+            }
+        });
+
+        String alive = null;
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (isTrue(existsList.get(i))) {
+                if (alive == null) {
+                    alive = tokens.get(i);
+                }
+            } else {
+                expired.add(tokens.get(i));
+            }
+        }
+
+        // 惰性清理索引中已过期的 token
+        if (!expired.isEmpty()) {
+            stringRedisTemplate.opsForSet().remove(userKey, expired.toArray());
+        }
+
+        return Optional.ofNullable(alive).map(FmkToken::ofNullable);
     }
 
     @Override
     public Optional<FmkUserId> getUserIdByToken(FmkToken token) {
-        return Optional.empty();
+        if (isBlank(token)) {
+            return Optional.empty();
+        }
+
+        Object userId = stringRedisTemplate.opsForHash().get(tokenKey(token.getValue()), FIELD_USER_ID);
+        return Optional.ofNullable(userId).map(value -> FmkUserId.fromString(value.toString()));
     }
 
     @Override
     public Optional<FmkUserInfo> getUserInfoByToken(FmkToken token) {
-        return Optional.empty();
+        if (isBlank(token)) {
+            return Optional.empty();
+        }
+
+        Optional<FmkUserInfo> userInfo = readUserInfo(token.getValue());
+        userInfo.ifPresent(info -> markActive(token));
+        return userInfo;
+    }
+
+    /**
+     * 不查 Redis，Token 未校验：本地记录数有上限（fmk.token.last-active.max-tracked），
+     * 不存在的 Token 在写入时由脚本跳过
+     */
+    @Override
+    public void touchToken(FmkToken token) {
+        if (isBlank(token)) {
+            return;
+        }
+        markActive(token);
     }
 
     @Override
     public Optional<FmkClientInfo> getClientInfoByToken(FmkToken token) {
-        return Optional.empty();
+        if (isBlank(token)) {
+            return Optional.empty();
+        }
+
+        List<Object> values = stringRedisTemplate.opsForHash()
+                .multiGet(tokenKey(token.getValue()), Arrays.asList(FIELD_CLIENT_INFO, FIELD_LAST_ACTIVE_TIME));
+        if (values == null || values.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(parseClientInfo(token.getValue(), values.get(0), values.get(1)));
     }
 
     @Override
     public Optional<FmkUserInfo> getUserInfoByUserId(FmkUserId userId) {
-        return Optional.empty();
+        return getTokenByUserId(userId).flatMap(token -> readUserInfo(token.getValue()));
     }
 
     @Override
     public Optional<FmkTokenInfo> getTokenInfoByToken(FmkToken token) {
-        return Optional.empty();
+        if (isBlank(token)) {
+            return Optional.empty();
+        }
+
+        String tokenKey = tokenKey(token.getValue());
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForHash().entries(tokenKey);
+                ops.getExpire(tokenKey, TimeUnit.MILLISECONDS);
+                return null;
+            }
+        });
+
+        Map<?, ?> entries = (Map<?, ?>) results.get(0);
+        if (entries == null || entries.get(FIELD_USER_ID) == null) {
+            return Optional.empty();
+        }
+
+        FmkTokenInfo tokenInfo = new FmkTokenInfo();
+        tokenInfo.setToken(token);
+        tokenInfo.setUserId(FmkUserId.fromString(entries.get(FIELD_USER_ID).toString()));
+        Object ttlMillis = results.get(1);
+        if (ttlMillis instanceof Number number && number.longValue() > 0) {
+            tokenInfo.setExpireTime(FmkInstantUtil.now().plusMillis(number.longValue()));
+        }
+        tokenInfo.setClientInfo(parseClientInfo(token.getValue(),
+                entries.get(FIELD_CLIENT_INFO), entries.get(FIELD_LAST_ACTIVE_TIME)));
+        return Optional.of(tokenInfo);
     }
 
     @Override
     public boolean refreshToken(FmkToken token) {
-        return false;
+        if (isBlank(token)) {
+            return false;
+        }
+
+        // 先读取 userId 得到用户索引 key，再通过管道续期 token（脚本）和用户索引，两个 key 各自一条命令
+        String tokenKey = tokenKey(token.getValue());
+        Object userId = stringRedisTemplate.opsForHash().get(tokenKey, FIELD_USER_ID);
+        if (userId == null) {
+            return false;
+        }
+        String userKey = userKey(userId.toString());
+        long expireSeconds = expireSeconds();
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.scriptingCommands().eval(REFRESH_SCRIPT_BYTES, ReturnType.INTEGER, 1,
+                    bytes(tokenKey), bytes(expireSeconds), bytes(userId.toString()));
+            connection.keyCommands().expire(bytes(userKey), expireSeconds);
+            return null;
+        });
+        if (!(results.get(0) instanceof Number result) || result.longValue() != 1L) {
+            return false;
+        }
+
+        markActive(token);
+        return true;
     }
 
     @Override
     public boolean revokeToken(FmkToken token) {
-        return false;
+        if (isBlank(token)) {
+            return false;
+        }
+
+        String tokenKey = tokenKey(token.getValue());
+        lastActiveCoalescer.remove(token.getValue());
+        Object userId = stringRedisTemplate.opsForHash().get(tokenKey, FIELD_USER_ID);
+        if (userId == null) {
+            return false;
+        }
+
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.delete(tokenKey);
+                ops.opsForSet().remove(userKey(userId.toString()), token.getValue());
+                return null;
+            }
+        });
+
+        log.info("FmkTokenServiceRedisImpl|revokeToken|移除Token|token={}|userId={}",
+                maskToken(token.getValue()), userId);
+        return true;
     }
 
     @Override
     public void revokeAllUserTokens(FmkUserId userId) {
+        if (userId == null) {
+            return;
+        }
 
+        String userKey = userKey(userId);
+        Set<String> tokens = stringRedisTemplate.opsForSet().members(userKey);
+        List<String> keys = new ArrayList<>();
+        if (tokens != null) {
+            for (String token : tokens) {
+                lastActiveCoalescer.remove(token);
+                keys.add(tokenKey(token));
+            }
+        }
+        keys.add(userKey);
+        // 每个 key 一条 DEL，通过管道一次往返
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                keys.forEach(ops::delete);
+                return null;
+            }
+        });
+
+        log.info("FmkTokenServiceRedisImpl|revokeAllUserTokens|移除用户所有Token|userId={}|count={}",
+                userId.getValue(), keys.size() - 1);
     }
 
     @Override
     public void cleanExpiredTokens() {
+        // Token 由 Redis 过期自动删除，用户索引中的失效 token 在 getTokenByUserId 时惰性清理
+        log.debug("FmkTokenServiceRedisImpl|cleanExpiredTokens|Redis自动过期，无需清理");
+    }
+
+    /**
+     * 把本地记录的最后活跃时间批量写入 Redis
+     *
+     * @return 写入的 token 数量
+     */
+    public int flushLastActive() {
+        return lastActiveCoalescer.flush();
+    }
+
+    /**
+     * 待写入活跃时间的 token 数量
+     */
+    public int getPendingLastActiveCount() {
+        return lastActiveCoalescer.getQueueDepth();
+    }
+
+    /**
+     * 最后活跃时间合并写入，用于查看队列深度和写入耗时
+     */
+    public FmkLastActiveCoalescer getLastActiveCoalescer() {
+        return lastActiveCoalescer;
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 一批 token 的活跃时间通过管道写入，每个 token 一个脚本，一次往返；
+     * 滑动过期时还要续期用户索引，先通过管道读取这批 token 的 userId（多一次往返），
+     * 再在写入的管道中对每个用户索引单独 EXPIRE
+     */
+    private int touch(Map<String, Long> batch) {
+        boolean sliding = tokenProperties.getRedis().isSlidingExpire();
+        List<String> tokenKeys = new ArrayList<>(batch.size());
+        List<String> activeTimes = new ArrayList<>(batch.size());
+        for (Map.Entry<String, Long> entry : batch.entrySet()) {
+            tokenKeys.add(tokenKey(entry.getKey()));
+            activeTimes.add(String.valueOf(entry.getValue()));
+        }
+
+        long expireSeconds = sliding ? expireSeconds() : 0L;
+        Set<String> userKeys = new LinkedHashSet<>();
+        if (sliding) {
+            List<Object> userIds = readUserIds(tokenKeys);
+            List<String> aliveKeys = new ArrayList<>(tokenKeys.size());
+            List<String> aliveTimes = new ArrayList<>(tokenKeys.size());
+            for (int i = 0; i < tokenKeys.size(); i++) {
+                // 已经过期的 token 不需要写入
+                if (userIds.get(i) != null) {
+                    aliveKeys.add(tokenKeys.get(i));
+                    aliveTimes.add(activeTimes.get(i));
+                    userKeys.add(userKey(userIds.get(i).toString()));
+                }
+            }
+            if (aliveKeys.isEmpty()) {
+                return 0;
+            }
+            tokenKeys = aliveKeys;
+            activeTimes = aliveTimes;
+        }
+
+        List<String> keys = tokenKeys;
+        List<String> times = activeTimes;
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < keys.size(); i++) {
+                connection.scriptingCommands().eval(TOUCH_SCRIPT_BYTES, ReturnType.INTEGER, 1,
+                        bytes(keys.get(i)), bytes(expireSeconds), bytes(times.get(i)));
+            }
+            for (String userKey : userKeys) {
+                connection.keyCommands().expire(bytes(userKey), expireSeconds);
+            }
+            return null;
+        });
+
+        int count = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            if (results.get(i) instanceof Number number) {
+                count += number.intValue();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 通过管道读取一批 token 的 userId，不存在的 token 对应 null
+     */
+    private List<Object> readUserIds(List<String> tokenKeys) {
+        return stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (String tokenKey : tokenKeys) {
+                    ops.opsForHash().get(tokenKey, FIELD_USER_ID);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 记录最后活跃时间，只写本地，由定时任务批量写入 Redis
+     */
+    private void markActive(FmkToken token) {
+        lastActiveCoalescer.touch(token.getValue(), System.currentTimeMillis());
+    }
+
+    private Optional<FmkUserInfo> readUserInfo(String token) {
+        List<Object> values = stringRedisTemplate.opsForHash()
+                .multiGet(tokenKey(token), Arrays.asList(FIELD_USER_ID, FIELD_USER_NAME));
+        if (values == null || values.isEmpty() || values.get(0) == null) {
+            return Optional.empty();
+        }
+        FmkUserId userId = FmkUserId.fromString(values.get(0).toString());
+        String userName = values.get(1) == null ? null : values.get(1).toString();
+        return Optional.of(new FmkUserInfo(userId, userName));
+    }
+
+    /**
+     * 解析设备信息，最后活跃时间取 Redis 和本地待写入的较大值
+     */
+    private FmkClientInfo parseClientInfo(String token, Object clientInfoJson, Object lastActiveTime) {
+        if (clientInfoJson == null) {
+            return null;
+        }
+        FmkClientInfo clientInfo = FmkJacksonUtil.parseObj(clientInfoJson.toString(), FmkClientInfo.class);
+        if (clientInfo == null) {
+            return null;
+        }
+        long lastActive = lastActiveTime == null ? 0L : Long.parseLong(lastActiveTime.toString());
+        Long pending = lastActiveCoalescer.getLatest(token);
+        if (pending != null && pending > lastActive) {
+            lastActive = pending;
+        }
+        if (lastActive > 0) {
+            clientInfo.setLastActiveTime(Instant.ofEpochMilli(lastActive));
+        }
+        return clientInfo;
+    }
+
+    private long expireSeconds() {
+        return TimeUnit.HOURS.toSeconds(tokenProperties.getRedis().getExpireHours());
+    }
+
+    private String tokenKey(String token) {
+        return tokenProperties.getRedis().getKeyPrefix() + token;
+    }
+
+    private String userKey(FmkUserId userId) {
+        return userKey(String.valueOf(userId.getValue()));
+    }
+
+    private String userKey(String userId) {
+        return tokenProperties.getRedis().getKeyPrefix() + USER_KEY_SEGMENT + userId;
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean isBlank(FmkToken token) {
+        return token == null || StringUtils.isBlank(token.getValue());
+    }
+
+    private static boolean isTrue(Object value) {
+        return Boolean.TRUE.equals(value) || (value instanceof Number number && number.longValue() > 0);
+    }
 
+    /**
+     * Token 掩码处理
+     */
+    private String maskToken(String token) {
+        if (token == null || token.length() <= 10) {
+            return "***";
+        }
+        return token.substring(0, 10) + "...";
     }
-}
\ No newline at end of file
+}
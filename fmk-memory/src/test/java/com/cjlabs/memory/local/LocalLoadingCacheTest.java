@@ -0,0 +1,250 @@
+package com.cjlabs.memory.local;
+
+import com.cjlabs.domain.exception.Error200Exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocalCache 单飞加载与 LocalLoadingCache 测试
+ */
+@DisplayName("本地缓存单飞加载测试")
+class LocalLoadingCacheTest {
+
+    @Test
+    @DisplayName("测试 LocalCache.get - 并发未命中只加载一次")
+    void testLocalCacheSingleFlight() throws InterruptedException {
+        LocalCache<String, String> cache = new LocalCache<>("singleFlight", 100, 60);
+        AtomicInteger loadCount = new AtomicInteger();
+        int threadCount = 20;
+
+        String[] results = runConcurrently(threadCount, () -> cache.get("user:1", key -> {
+            loadCount.incrementAndGet();
+            sleep(200);
+            return "张三";
+        }));
+
+        assertEquals(1, loadCount.get(), "并发未命中应该只加载一次");
+        for (String result : results) {
+            assertEquals("张三", result);
+        }
+        assertEquals("张三", cache.getIfPresent("user:1"));
+        System.out.println("✅ " + threadCount + " 个线程并发未命中，只加载 " + loadCount.get() + " 次");
+    }
+
+    @Test
+    @DisplayName("测试 LocalCache.get - null 和异常不缓存")
+    void testLocalCacheNullAndException() {
+        LocalCache<String, String> cache = new LocalCache<>("nullCache", 100, 60);
+        AtomicInteger loadCount = new AtomicInteger();
+
+        assertNull(cache.get("missing", key -> {
+            loadCount.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get("missing", key -> {
+            loadCount.incrementAndGet();
+            return null;
+        }));
+        assertEquals(2, loadCount.get(), "null 不应该被缓存");
+
+        assertThrows(IllegalStateException.class, () -> cache.get("error", key -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("ok", cache.get("error", key -> "ok"), "加载失败后应该可以重新加载");
+        System.out.println("✅ null 和异常不缓存");
+    }
+
+    @Test
+    @DisplayName("测试 LocalCache.get - 等待加载超时抛出异常，不再各自查库")
+    void testLocalCacheLoadTimeout() throws InterruptedException {
+        LocalCache<String, String> cache = new LocalCache<>("timeoutCache", 100, 60, 50);
+        CountDownLatch loading = new CountDownLatch(1);
+        AtomicInteger loadCount = new AtomicInteger();
+
+        Thread loader = new Thread(() -> cache.get("slow", key -> {
+            loadCount.incrementAndGet();
+            loading.countDown();
+            sleep(500);
+            return "value";
+        }));
+        loader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        assertThrows(Error200Exception.class, () -> cache.get("slow", key -> {
+            loadCount.incrementAndGet();
+            return "other";
+        }));
+        loader.join();
+
+        assertEquals(1, loadCount.get(), "超时的线程不应该自己加载");
+        assertEquals("value", cache.getIfPresent("slow"));
+        System.out.println("✅ 等待加载超时抛出异常");
+    }
+
+    @Test
+    @DisplayName("测试 LocalLoadingCache.getAll - 未命中的 key 一次批量加载")
+    void testGetAllBatchLoad() {
+        AtomicInteger singleLoadCount = new AtomicInteger();
+        AtomicInteger batchLoadCount = new AtomicInteger();
+        LocalLoadingCache<Long, String> cache = new LocalLoadingCache<>("batchCache", new LocalCacheSpec(),
+                id -> {
+                    singleLoadCount.incrementAndGet();
+                    return "user" + id;
+                },
+                ids -> {
+                    batchLoadCount.incrementAndGet();
+                    Map<Long, String> map = new HashMap<>();
+                    for (Long id : ids) {
+                        if (id != 404L) {
+                            map.put(id, "user" + id);
+                        }
+                    }
+                    return map;
+                });
+
+        assertEquals("user1", cache.get(1L));
+        Map<Long, String> result = cache.getAll(List.of(1L, 2L, 3L, 404L));
+
+        assertEquals(Map.of(1L, "user1", 2L, "user2", 3L, "user3"), result);
+        assertEquals(1, singleLoadCount.get());
+        assertEquals(1, batchLoadCount.get(), "未命中的 2、3、404 应该一次批量加载");
+        System.out.println("✅ getAll 批量加载: " + result);
+    }
+
+    @Test
+    @DisplayName("测试 LocalLoadingCache 刷新 - 刷新期间返回旧值")
+    void testRefreshServesStale() throws InterruptedException {
+        AtomicInteger version = new AtomicInteger();
+        CountDownLatch refreshed = new CountDownLatch(2);
+        LocalCacheSpec spec = new LocalCacheSpec();
+        spec.setRefreshSeconds(1);
+        LocalLoadingCache<String, String> cache = new LocalLoadingCache<>("refreshCache", spec, key -> {
+            int current = version.incrementAndGet();
+            if (current > 1) {
+                sleep(200);
+            }
+            refreshed.countDown();
+            return "v" + current;
+        });
+
+        assertEquals("v1", cache.get("config"));
+        Thread.sleep(1100);
+
+        long start = System.nanoTime();
+        assertEquals("v1", cache.get("config"), "触发刷新的访问应该立即返回旧值");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 150, "刷新不应该阻塞调用方");
+
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals("v2", cache.get("config"));
+        System.out.println("✅ refreshAfterWrite 刷新期间返回旧值");
+    }
+
+    @Test
+    @DisplayName("测试 LocalLoadingCache 并发 - 单飞加载")
+    void testLoadingCacheSingleFlight() throws InterruptedException {
+        AtomicInteger loadCount = new AtomicInteger();
+        LocalLoadingCache<String, String> cache = new LocalLoadingCache<>("loadingSingleFlight", new LocalCacheSpec(), key -> {
+            loadCount.incrementAndGet();
+            sleep(200);
+            return key.toUpperCase();
+        });
+
+        String[] results = runConcurrently(20, () -> cache.get("abc"));
+
+        assertEquals(1, loadCount.get());
+        for (String result : results) {
+            assertEquals("ABC", result);
+        }
+        assertEquals(1, cache.stats().loadCount());
+        System.out.println("✅ LocalLoadingCache 并发只加载一次");
+    }
+
+    @Test
+    @DisplayName("测试 LocalCacheFactory - 同名加载缓存只创建一次")
+    void testFactoryLoadingCache() {
+        LocalCacheFactory factory = new LocalCacheFactory();
+        LocalLoadingCache<String, Integer> first = factory.getLoadingCache("lengthCache", new LocalCacheSpec(), String::length, null);
+        LocalLoadingCache<String, Integer> second = factory.getLoadingCache("lengthCache", new LocalCacheSpec(), key -> -1, null);
+
+        assertSame(first, second);
+        assertEquals(5, second.get("hello"));
+        factory.clearAll();
+        assertEquals(0, first.size());
+        System.out.println("✅ 工厂按名称复用加载缓存");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 命中路径耗时")
+    void testHitPerformance() {
+        LocalCache<Integer, Integer> cache = new LocalCache<>("perfCache", 10_000, 60);
+        for (int i = 0; i < 1000; i++) {
+            int value = i;
+            cache.get(i, key -> value);
+        }
+
+        int count = 2_000_000;
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < count; i++) {
+            sink += cache.get(i % 1000, key -> 0);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(sink > 0);
+        System.out.printf("命中 %d 次耗时 %dms，平均 %.1fns/次%n",
+                count, TimeUnit.NANOSECONDS.toMillis(elapsed), (double) elapsed / count);
+        System.out.println("✅ 命中路径性能测试完成");
+    }
+
+    /**
+     * 并发执行同一个任务，返回每个线程的结果
+     */
+    private static String[] runConcurrently(int threadCount, Supplier<String> task)
+            throws InterruptedException {
+        String[] results = new String[threadCount];
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        for (int t = 0; t < threadCount; t++) {
+            int index = t;
+            executor.submit(() -> {
+                try {
+                    startLatch.await();
+                    results[index] = task.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        startLatch.countDown();
+        assertTrue(doneLatch.await(10, TimeUnit.SECONDS), "所有线程应该在超时前完成");
+        executor.shutdown();
+        return results;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
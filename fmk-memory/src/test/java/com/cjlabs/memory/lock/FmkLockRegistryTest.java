@@ -0,0 +1,227 @@
+package com.cjlabs.memory.lock;
+
+import com.cjlabs.domain.exception.Error200Exception;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkLockRegistry 测试类
+ * 验证分段/引用计数两种模式的互斥性、锁数量上限和统计信息
+ */
+@DisplayName("FmkLockRegistry 锁注册表测试")
+class FmkLockRegistryTest {
+
+    @BeforeEach
+    void setUp() {
+        FmkLockUtil.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        FmkLockUtil.reset();
+    }
+
+    @Test
+    @DisplayName("测试默认模式 - 引用计数，分段冲突的 key 也使用不同的锁")
+    void testDefaultRefCounted() {
+        assertEquals("REF_COUNTED", FmkLockUtil.getRegistry().getMode());
+        assertTrue(FmkLockUtil.getRegistry().isFair());
+
+        // 找到两个在 4096 分段下冲突的 key：分段模式下嵌套锁定它们等于同一把锁
+        StripedLockRegistry striped = new StripedLockRegistry(StripedLockRegistry.DEFAULT_STRIPES, true);
+        String first = "order:0";
+        String second = null;
+        for (int i = 1; second == null; i++) {
+            if (striped.obtain("order:" + i) == striped.obtain(first)) {
+                second = "order:" + i;
+            }
+        }
+
+        assertNotSame(FmkLockUtil.getReentrantLock(first), FmkLockUtil.getReentrantLock(second));
+        System.out.println("✅ 默认引用计数模式，" + first + " 与 " + second + " 互不影响");
+    }
+
+    @Test
+    @DisplayName("测试配置时机 - 第一次加锁后拒绝切换注册表")
+    void testConfigureAfterUse() {
+        FmkLockUtil.configure(FmkLockRegistry.striped(16, true));
+        FmkLockUtil.configure(FmkLockRegistry.refCounted(false));
+        assertEquals(0, FmkLockUtil.getLockCount(), "查询锁数量不算使用");
+
+        FmkLockUtil.executeLock("config", () -> null);
+        FmkLockRegistry current = FmkLockUtil.getRegistry();
+        assertThrows(IllegalStateException.class,
+                () -> FmkLockUtil.configure(FmkLockRegistry.striped(16, true)));
+        assertSame(current, FmkLockUtil.getRegistry(), "拒绝后仍使用原来的注册表");
+        System.out.println("✅ 加锁后拒绝切换注册表");
+    }
+
+    @Test
+    @DisplayName("测试分段模式 - 锁数量不超过分段数")
+    void testStripedBounded() {
+        FmkLockUtil.configure(FmkLockRegistry.striped(100, false));
+        StripedLockRegistry registry = (StripedLockRegistry) FmkLockUtil.getRegistry();
+        assertEquals(128, registry.getStripeCount(), "分段数应该向上取整为 2 的幂");
+
+        for (int i = 0; i < 10_000; i++) {
+            FmkLockUtil.executeLock("user:" + i, () -> null);
+        }
+
+        assertTrue(FmkLockUtil.getLockCount() <= 128);
+        assertSame(FmkLockUtil.getReentrantLock("user:1"), FmkLockUtil.getReentrantLock("user:1"));
+        assertFalse(FmkLockUtil.getReentrantLock("user:1").isFair());
+        System.out.println("✅ 分段模式 10000 个 key 只使用 " + FmkLockUtil.getLockCount() + " 把锁");
+    }
+
+    @Test
+    @DisplayName("测试引用计数模式 - 释放后移除锁")
+    void testRefCountedRemovesIdleLock() {
+        FmkLockUtil.configure(FmkLockRegistry.refCounted(true));
+
+        String result = FmkLockUtil.executeLock("order:1", () -> {
+            assertEquals(1, FmkLockUtil.getLockCount(), "执行期间锁应该存在");
+            // 重入
+            return FmkLockUtil.executeTryLock("order:1", () -> "重入成功");
+        });
+
+        assertEquals("重入成功", result);
+        assertEquals(0, FmkLockUtil.getLockCount(), "最后一个使用者释放后锁应该被移除");
+
+        // 直接获取的锁被固定，使用结束后不会移除，与 executeLock 拿到同一把锁
+        ReentrantLock pinned = FmkLockUtil.getReentrantLock("order:1");
+        FmkLockUtil.executeLock("order:1", () -> {
+            assertTrue(pinned.isHeldByCurrentThread());
+            return null;
+        });
+        assertEquals(1, FmkLockUtil.getLockCount());
+        assertSame(pinned, FmkLockUtil.getReentrantLock("order:1"));
+        System.out.println("✅ 引用计数模式释放后移除锁，固定的锁常驻");
+    }
+
+    @Test
+    @DisplayName("测试引用计数模式 - 等待者持有引用，互斥不被破坏")
+    void testRefCountedMutualExclusion() throws InterruptedException {
+        FmkLockUtil.configure(FmkLockRegistry.refCounted(false));
+        int threadCount = 16;
+        int rounds = 500;
+        int[] counter = new int[1];
+
+        CountDownLatch doneLatch = new CountDownLatch(threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < rounds; i++) {
+                        FmkLockUtil.executeLock("shared", () -> {
+                            counter[0]++;
+                            return null;
+                        });
+                    }
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        assertTrue(doneLatch.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(threadCount * rounds, counter[0], "锁被移除重建时不应该破坏互斥");
+        assertEquals(0, FmkLockUtil.getLockCount());
+        System.out.println("✅ 引用计数模式并发互斥，计数器: " + counter[0]);
+    }
+
+    @Test
+    @DisplayName("测试统计信息 - 竞争、等待时间、超时")
+    void testStats() throws InterruptedException {
+        FmkLockUtil.configure(FmkLockRegistry.refCounted(true));
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> FmkLockUtil.executeLock("stats", () -> {
+            held.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holder.start();
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        assertThrows(Error200Exception.class,
+                () -> FmkLockUtil.executeTryLock("stats", 50, TimeUnit.MILLISECONDS, () -> "不应该执行"));
+        finish.countDown();
+        holder.join();
+
+        FmkLockStats stats = FmkLockUtil.getStats();
+        assertEquals("REF_COUNTED", stats.getMode());
+        assertEquals(1, stats.getAcquireCount());
+        assertEquals(1, stats.getContendedCount());
+        assertEquals(1, stats.getTimeoutCount());
+        assertTrue(stats.getMaxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(0, stats.getLockCount());
+        System.out.println("✅ 锁统计: " + stats);
+    }
+
+    @Test
+    @DisplayName("浸泡测试 - 高基数 key 下锁数量和堆内存保持平稳")
+    void testSoakMemoryFlat() throws InterruptedException {
+        FmkLockUtil.configure(FmkLockRegistry.refCounted(true));
+        int threadCount = 8;
+        int keysPerThread = 250_000;
+        AtomicInteger maxLockCount = new AtomicInteger();
+        AtomicLong executed = new AtomicLong();
+
+        long heapBefore = usedHeap();
+        CountDownLatch doneLatch = new CountDownLatch(threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            int threadIndex = t;
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < keysPerThread; i++) {
+                        FmkLockUtil.executeLock("user:" + threadIndex + ":" + i, () -> executed.incrementAndGet());
+                        if ((i & 1023) == 0) {
+                            maxLockCount.accumulateAndGet(FmkLockUtil.getLockCount(), Math::max);
+                        }
+                    }
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        assertTrue(doneLatch.await(120, TimeUnit.SECONDS));
+        executor.shutdown();
+        long heapAfter = usedHeap();
+
+        assertEquals((long) threadCount * keysPerThread, executed.get());
+        assertEquals(0, FmkLockUtil.getLockCount(), "所有 key 用完后不应该残留锁");
+        assertTrue(maxLockCount.get() <= threadCount, "同时存在的锁不应该超过并发线程数");
+        System.out.printf("%d 个不同 key，峰值锁数量 %d，堆内存 %dKB -> %dKB%n",
+                executed.get(), maxLockCount.get(), heapBefore / 1024, heapAfter / 1024);
+        System.out.println("✅ 浸泡测试完成，锁数量保持平稳");
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        Thread.sleep(100);
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
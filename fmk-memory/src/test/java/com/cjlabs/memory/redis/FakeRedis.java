@@ -0,0 +1,486 @@
+package com.cjlabs.memory.redis;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.script.DigestUtils;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * 进程内 Redis 替身，只实现测试用到的命令
+ * <p>
+ * 1. 非管道模式下每条命令算一次往返；管道模式下命令只入队，closePipeline 时算一次往返，可设置模拟往返延迟
+ * 2. 支持过期时间，可通过 {@link #advanceTime} 拨快时钟
+ * 3. Lua 脚本无法在进程内执行，需要通过 {@link #registerScript} 注册等价的 Java 实现
+ */
+public class FakeRedis implements InvocationHandler {
+
+    private final Map<String, Object> data = new ConcurrentHashMap<>();
+    private final Map<String, Long> expireAt = new ConcurrentHashMap<>();
+    private final Map<String, BiFunction<List<String>, List<String>, Object>> scripts = new ConcurrentHashMap<>();
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private final RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(
+            RedisConnection.class.getClassLoader(), new Class<?>[]{RedisConnection.class}, this);
+    private volatile long rttMillis;
+    private volatile long timeOffsetMillis;
+    private boolean pipelined;
+    private List<Object> queued = new ArrayList<>();
+
+    public RedisConnectionFactory connectionFactory() {
+        return new RedisConnectionFactory() {
+            @Override
+            public RedisConnection getConnection() {
+                return connection;
+            }
+
+            @Override
+            public RedisClusterConnection getClusterConnection() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean getConvertPipelineAndTxResults() {
+                return true;
+            }
+
+            @Override
+            public RedisSentinelConnection getSentinelConnection() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * 注册脚本的 Java 实现，参数为 (KEYS, ARGV)
+     */
+    public void registerScript(RedisScript<?> script, BiFunction<List<String>, List<String>, Object> implementation) {
+        scripts.put(script.getSha1(), implementation);
+    }
+
+    public int getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    public void resetRoundTrips() {
+        roundTrips.set(0);
+    }
+
+    public void setRttMillis(long rttMillis) {
+        this.rttMillis = rttMillis;
+    }
+
+    public long getRttMillis() {
+        return rttMillis;
+    }
+
+    /**
+     * 拨快时钟，用于验证过期
+     */
+    public void advanceTime(long millis) {
+        timeOffsetMillis += millis;
+    }
+
+    public synchronized boolean containsKey(String key) {
+        return live(key) != null;
+    }
+
+    /**
+     * 剩余过期时间（秒），-1=永久有效，-2=不存在
+     */
+    public synchronized long ttlSeconds(String key) {
+        return ttl(key, TimeUnit.SECONDS);
+    }
+
+    public synchronized int expiringKeyCount() {
+        expireAt.keySet().removeIf(key -> live(key) == null);
+        return expireAt.size();
+    }
+
+    public synchronized Set<String> keys() {
+        data.keySet().removeIf(key -> live(key) == null);
+        return new LinkedHashSet<>(data.keySet());
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized Map<String, String> hash(String key) {
+        Map<String, String> result = new LinkedHashMap<>();
+        Object value = live(key);
+        if (value instanceof Map) {
+            ((Map<String, byte[]>) value).forEach((field, raw) -> result.put(field, str(raw)));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        switch (name) {
+            case "isPipelined":
+                return pipelined;
+            case "openPipeline":
+                pipelined = true;
+                queued = new ArrayList<>();
+                return null;
+            case "closePipeline":
+                pipelined = false;
+                roundTrip();
+                return queued;
+            case "isClosed":
+            case "isQueueing":
+                return false;
+            case "close":
+                return null;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "FakeRedisConnection";
+            default:
+                break;
+        }
+        if (name.endsWith("Commands")) {
+            return proxy;
+        }
+
+        Object result = execute(name, args);
+        if (pipelined) {
+            queued.add(result);
+            return null;
+        }
+        roundTrip();
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object execute(String name, Object[] args) {
+        switch (name) {
+            case "get":
+                return live(key(args[0]));
+            case "set": {
+                String key = key(args[0]);
+                if (args.length > 3 && args[3] == RedisStringCommands.SetOption.SET_IF_ABSENT && live(key) != null) {
+                    return false;
+                }
+                put(key, args[1]);
+                if (args.length > 2 && args[2] instanceof Expiration expiration && !expiration.isPersistent()) {
+                    expireAt.put(key, now() + expiration.getExpirationTimeInMilliseconds());
+                }
+                return true;
+            }
+            case "setEx":
+                put(key(args[0]), args[2]);
+                expireAt.put(key(args[0]), now() + TimeUnit.SECONDS.toMillis((Long) args[1]));
+                return true;
+            case "mGet": {
+                List<Object> values = new ArrayList<>();
+                for (byte[] rawKey : (byte[][]) args[0]) {
+                    Object value = live(key(rawKey));
+                    values.add(value instanceof byte[] ? value : null);
+                }
+                return values;
+            }
+            case "mSet":
+                ((Map<?, ?>) args[0]).forEach((rawKey, value) -> put(key(rawKey), value));
+                return true;
+            case "incrBy": {
+                String key = key(args[0]);
+                Object old = live(key);
+                long value = (old == null ? 0 : Long.parseLong(str(old))) + (Long) args[1];
+                data.put(key, bytes(String.valueOf(value)));
+                return value;
+            }
+            case "del": {
+                long count = 0;
+                for (byte[] rawKey : (byte[][]) args[0]) {
+                    String key = key(rawKey);
+                    if (live(key) != null) {
+                        count++;
+                    }
+                    data.remove(key);
+                    expireAt.remove(key);
+                }
+                return count;
+            }
+            case "exists": {
+                if (args[0] instanceof byte[][] rawKeys) {
+                    return Arrays.stream(rawKeys).filter(rawKey -> live(key(rawKey)) != null).count();
+                }
+                return live(key(args[0])) != null;
+            }
+            case "expire":
+            case "pExpire": {
+                String key = key(args[0]);
+                if (live(key) == null) {
+                    return false;
+                }
+                long timeout = (Long) args[1];
+                expireAt.put(key, now() + ("expire".equals(name) ? TimeUnit.SECONDS.toMillis(timeout) : timeout));
+                return true;
+            }
+            case "ttl":
+                return ttl(key(args[0]), args.length > 1 ? (TimeUnit) args[1] : TimeUnit.SECONDS);
+            case "pTtl":
+                return ttl(key(args[0]), TimeUnit.MILLISECONDS);
+            case "hSet":
+                hashOf(key(args[0])).put(key(args[1]), (byte[]) args[2]);
+                return true;
+            case "hMSet":
+                ((Map<?, ?>) args[1]).forEach((field, value) -> hashOf(key(args[0])).put(key(field), (byte[]) value));
+                return null;
+            case "hGet": {
+                Object hash = live(key(args[0]));
+                return hash instanceof Map ? ((Map<String, byte[]>) hash).get(key(args[1])) : null;
+            }
+            case "hMGet": {
+                Object hash = live(key(args[0]));
+                List<byte[]> values = new ArrayList<>();
+                for (byte[] field : (byte[][]) args[1]) {
+                    values.add(hash instanceof Map ? ((Map<String, byte[]>) hash).get(key(field)) : null);
+                }
+                return values;
+            }
+            case "hGetAll": {
+                Map<byte[], byte[]> entries = new LinkedHashMap<>();
+                Object hash = live(key(args[0]));
+                if (hash instanceof Map) {
+                    ((Map<String, byte[]>) hash).forEach((field, value) -> entries.put(bytes(field), value));
+                }
+                return entries;
+            }
+            case "sAdd": {
+                Set<String> set = setOf(key(args[0]));
+                return Arrays.stream((byte[][]) args[1]).filter(member -> set.add(key(member))).count();
+            }
+            case "sRem": {
+                Object value = live(key(args[0]));
+                if (!(value instanceof Set)) {
+                    return 0L;
+                }
+                Set<String> set = (Set<String>) value;
+                long count = Arrays.stream((byte[][]) args[1]).filter(member -> set.remove(key(member))).count();
+                if (set.isEmpty()) {
+                    data.remove(key(args[0]));
+                    expireAt.remove(key(args[0]));
+                }
+                return count;
+            }
+            case "sMembers": {
+                Object value = live(key(args[0]));
+                Set<byte[]> members = new LinkedHashSet<>();
+                if (value instanceof Set) {
+                    ((Set<String>) value).forEach(member -> members.add(bytes(member)));
+                }
+                return members;
+            }
+            case "sCard": {
+                Object value = live(key(args[0]));
+                return value instanceof Set ? (long) ((Set<String>) value).size() : 0L;
+            }
+            case "zAdd": {
+                if (!(args[1] instanceof Double score)) {
+                    throw new UnsupportedOperationException("FakeRedis 只支持单个成员的 zAdd");
+                }
+                return zsetOf(key(args[0])).put(key(args[2]), score) == null;
+            }
+            case "zCard": {
+                Object value = live(key(args[0]));
+                return value instanceof ZSet zset ? (long) zset.size() : 0L;
+            }
+            case "zRevRange": {
+                Object value = live(key(args[0]));
+                List<String> members = value instanceof ZSet zset ? zset.ranked() : List.of();
+                Set<byte[]> result = new LinkedHashSet<>();
+                List<String> reversed = new ArrayList<>(members);
+                Collections.reverse(reversed);
+                int[] range = range(reversed.size(), (Long) args[1], (Long) args[2]);
+                for (int i = range[0]; i <= range[1]; i++) {
+                    result.add(bytes(reversed.get(i)));
+                }
+                return result;
+            }
+            case "zRemRange": {
+                Object value = live(key(args[0]));
+                if (!(value instanceof ZSet zset)) {
+                    return 0L;
+                }
+                List<String> members = zset.ranked();
+                int[] range = range(members.size(), (Long) args[1], (Long) args[2]);
+                for (int i = range[0]; i <= range[1]; i++) {
+                    zset.remove(members.get(i));
+                }
+                if (zset.isEmpty()) {
+                    data.remove(key(args[0]));
+                    expireAt.remove(key(args[0]));
+                }
+                return (long) Math.max(0, range[1] - range[0] + 1);
+            }
+            case "evalSha":
+                return evalScript((String) args[0], (Integer) args[2], (byte[][]) args[3]);
+            case "eval":
+                return evalScript(DigestUtils.sha1DigestAsHex(str(args[0])), (Integer) args[2], (byte[][]) args[3]);
+            default:
+                throw new UnsupportedOperationException("FakeRedis 不支持的命令: " + name);
+        }
+    }
+
+    private Object evalScript(String sha, int numKeys, byte[][] keysAndArgs) {
+        BiFunction<List<String>, List<String>, Object> implementation = scripts.get(sha);
+        if (implementation == null) {
+            throw new UnsupportedOperationException("FakeRedis 未注册的脚本: " + sha);
+        }
+        List<String> keys = new ArrayList<>();
+        List<String> argv = new ArrayList<>();
+        for (int i = 0; i < keysAndArgs.length; i++) {
+            (i < numKeys ? keys : argv).add(str(keysAndArgs[i]));
+        }
+        // 脚本内部直接操作数据，不计入往返
+        boolean wasPipelined = pipelined;
+        pipelined = false;
+        int before = roundTrips.get();
+        long rtt = rttMillis;
+        rttMillis = 0;
+        try {
+            return implementation.apply(keys, argv);
+        } finally {
+            roundTrips.set(before);
+            rttMillis = rtt;
+            pipelined = wasPipelined;
+        }
+    }
+
+    private long ttl(String key, TimeUnit unit) {
+        if (live(key) == null) {
+            return -2;
+        }
+        Long deadline = expireAt.get(key);
+        if (deadline == null) {
+            return -1;
+        }
+        return unit.convert(deadline - now(), TimeUnit.MILLISECONDS);
+    }
+
+    private Object live(String key) {
+        Long deadline = expireAt.get(key);
+        if (deadline != null && deadline <= now()) {
+            data.remove(key);
+            expireAt.remove(key);
+            return null;
+        }
+        return data.get(key);
+    }
+
+    private void put(String key, Object value) {
+        data.put(key, value);
+        expireAt.remove(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> hashOf(String key) {
+        Object value = live(key);
+        if (value instanceof Map) {
+            return (Map<String, byte[]>) value;
+        }
+        Map<String, byte[]> hash = new LinkedHashMap<>();
+        data.put(key, hash);
+        return hash;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> setOf(String key) {
+        Object value = live(key);
+        if (value instanceof Set) {
+            return (Set<String>) value;
+        }
+        Set<String> set = new LinkedHashSet<>();
+        data.put(key, set);
+        return set;
+    }
+
+    private ZSet zsetOf(String key) {
+        Object value = live(key);
+        if (value instanceof ZSet zset) {
+            return zset;
+        }
+        ZSet zset = new ZSet();
+        data.put(key, zset);
+        return zset;
+    }
+
+    /**
+     * 按 Redis 规则把排名区间（支持负数）转换为 [start, end]，区间为空时 start > end
+     */
+    private static int[] range(int size, long start, long end) {
+        long from = start < 0 ? Math.max(0, size + start) : start;
+        long to = end < 0 ? size + end : Math.min(end, size - 1L);
+        return new int[]{(int) from, (int) to};
+    }
+
+    private long now() {
+        return System.currentTimeMillis() + timeOffsetMillis;
+    }
+
+    private void roundTrip() {
+        roundTrips.incrementAndGet();
+        if (rttMillis > 0) {
+            try {
+                Thread.sleep(rttMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static String key(Object raw) {
+        return str(raw);
+    }
+
+    private static String str(Object raw) {
+        return raw instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(raw);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 有序集合：成员 -> 分数，按分数升序、分数相同时按成员排序
+     */
+    private static final class ZSet extends LinkedHashMap<String, Double> {
+
+        private List<String> ranked() {
+            List<String> members = new ArrayList<>(keySet());
+            members.sort((a, b) -> {
+                int compare = Double.compare(get(a), get(b));
+                return compare != 0 ? compare : a.compareTo(b);
+            });
+            return members;
+        }
+    }
+}
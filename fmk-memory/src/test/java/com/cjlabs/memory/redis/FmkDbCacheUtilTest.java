@@ -0,0 +1,139 @@
+package com.cjlabs.memory.redis;
+
+import com.cjlabs.web.json.FmkJacksonUtil;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkDbCacheUtil 测试类
+ * 使用进程内 Redis 替身，写入版本脚本注册为等价的 Java 实现
+ */
+@DisplayName("FmkDbCacheUtil 多版本缓存测试")
+class FmkDbCacheUtilTest {
+
+    private FakeRedis redis;
+    private StringRedisTemplate template;
+    private FmkDbCacheUtil dbCacheUtil;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakeRedis();
+        template = new StringRedisTemplate(redis.connectionFactory());
+        redis.registerScript(FmkDbCacheUtil.ADD_VERSION_SCRIPT, (keys, argv) -> {
+            assertEquals(1, keys.size(), "脚本只能访问一个 key，集群模式下不会 CROSSSLOT");
+            String key = keys.get(0);
+            template.opsForZSet().add(key, argv.get(3), Double.parseDouble(argv.get(2)));
+            template.opsForZSet().removeRange(key, 0, -Long.parseLong(argv.get(0)) - 1);
+            long ttl = Long.parseLong(argv.get(1));
+            if (ttl > 0) {
+                template.expire(key, ttl, TimeUnit.SECONDS);
+            }
+            return 1L;
+        });
+
+        FmkRedisUtil redisUtil = new FmkRedisUtil();
+        ReflectionTestUtils.setField(redisUtil, "stringRedisTemplate", template);
+        dbCacheUtil = new FmkDbCacheUtil();
+        ReflectionTestUtils.setField(dbCacheUtil, "redisUtil", redisUtil);
+        ReflectionTestUtils.setField(dbCacheUtil, "redisProperties", new FmkRedisProperties());
+    }
+
+    @Test
+    @DisplayName("测试写入版本 - 一次往返，保留最新 N 个版本并设置过期时间")
+    void testAddVersion() {
+        for (int i = 1; i <= 5; i++) {
+            dbCacheUtil.addVersion("user", "1", new UserRecord("张三", i), 3, 60);
+        }
+
+        assertEquals(5, redis.getRoundTrips(), "每次写入只有一次往返");
+        assertEquals(3, dbCacheUtil.getVersionCount("user", "1"), "只保留最新 3 个版本");
+        assertEquals(new UserRecord("张三", 5), dbCacheUtil.getLatest("user", "1", UserRecord.class));
+        assertEquals(60, redis.ttlSeconds("fmk:db:versioned:user:1"), 1);
+
+        assertEquals(2, dbCacheUtil.cleanOldVersions("user", "1", 1));
+        assertEquals(1, dbCacheUtil.getVersionCount("user", "1"));
+        assertThrows(IllegalArgumentException.class, () -> dbCacheUtil.addVersion("user", "1", "x", 0));
+        System.out.println("✅ 写入版本并裁剪: " + redis.keys());
+    }
+
+    @Test
+    @DisplayName("测试批量写入 - 每个实体单独执行脚本，管道一次往返，不过期")
+    void testAddVersions() {
+        Map<String, UserRecord> dataMap = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            dataMap.put(String.valueOf(i), new UserRecord("用户" + i, i));
+        }
+
+        dbCacheUtil.addVersions("user", dataMap, 2, 0);
+        dbCacheUtil.addVersions("user", Map.of("0", new UserRecord("用户0", 100)), 2, 0);
+
+        assertEquals(2, redis.getRoundTrips(), "20 个实体通过管道只有一次往返");
+        assertEquals(20, redis.keys().size());
+        assertEquals(-1, redis.ttlSeconds("fmk:db:versioned:user:19"), "不设置过期时间");
+        assertEquals(2, dbCacheUtil.getVersionCount("user", "0"));
+        assertEquals(1, dbCacheUtil.getVersionCount("user", "19"));
+        assertEquals(new UserRecord("用户0", 100), dbCacheUtil.getLatest("user", "0", UserRecord.class));
+        assertEquals(new UserRecord("用户19", 19), dbCacheUtil.getLatest("user", "19", UserRecord.class));
+        System.out.println("✅ 批量写入 20 个实体只消耗 1 次往返");
+    }
+
+    @Test
+    @DisplayName("测试批量读取 - 管道一次往返，按入参顺序返回，未命中的不返回")
+    void testGetLatestMany() {
+        dbCacheUtil.addVersion("order", "a", new UserRecord("A", 1));
+        dbCacheUtil.addVersion("order", "a", new UserRecord("A", 2));
+        dbCacheUtil.addVersion("order", "c", new UserRecord("C", 3));
+        redis.resetRoundTrips();
+
+        Map<String, UserRecord> result = dbCacheUtil.getLatestMany("order", List.of("c", "b", "a"), UserRecord.class);
+
+        assertEquals(1, redis.getRoundTrips());
+        assertEquals(List.of("c", "a"), new ArrayList<>(result.keySet()));
+        assertEquals(new UserRecord("A", 2), result.get("a"), "返回最新版本");
+        assertEquals(new UserRecord("C", 3), result.get("c"));
+        assertTrue(dbCacheUtil.getLatestMany("order", List.of(), UserRecord.class).isEmpty());
+        System.out.println("✅ 批量读取最新版本: " + result);
+    }
+
+    @Test
+    @DisplayName("测试兼容旧数据 - RedisTemplate JSON 序列化器二次编码的成员仍然可读")
+    void testLegacyEncodedData() {
+        // 旧版本通过 RedisTemplate<String, Object> 写入，JSON 原文被再次编码为 JSON 字符串
+        String json = FmkJacksonUtil.toJson(new UserRecord("旧数据", 1));
+        String legacyMember = FmkJacksonUtil.toJson(json);
+        assertTrue(legacyMember.startsWith("\""));
+        template.opsForZSet().add("fmk:db:versioned:user:9", legacyMember, 1);
+        template.opsForZSet().add("fmk:db:versioned:user:8", legacyMember, 1);
+
+        assertEquals(new UserRecord("旧数据", 1), dbCacheUtil.getLatest("user", "9", UserRecord.class));
+        assertEquals(new UserRecord("旧数据", 1),
+                dbCacheUtil.getLatestMany("user", List.of("8"), UserRecord.class).get("8"));
+
+        dbCacheUtil.addVersion("user", "9", new UserRecord("新数据", 2));
+        assertEquals(new UserRecord("新数据", 2), dbCacheUtil.getLatest("user", "9", UserRecord.class));
+        System.out.println("✅ 旧格式数据仍然可读");
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class UserRecord {
+        private String name;
+        private int version;
+    }
+}
@@ -0,0 +1,179 @@
+package com.cjlabs.memory.redis;
+
+import com.cjlabs.memory.FmkMemoryAutoConfig;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkRedisUtil 批量操作测试
+ * 使用模拟网络往返延迟的进程内 Redis（{@link FakeRedis}），统计每种调用方式的往返次数
+ */
+@DisplayName("FmkRedisUtil 批量操作测试")
+class FmkRedisUtilBatchTest {
+
+    private FakeRedis redis;
+    private FmkRedisUtil redisUtil;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakeRedis();
+        RedisTemplate<String, Object> template = new FmkMemoryAutoConfig().redisTemplate(redis.connectionFactory());
+
+        redisUtil = new FmkRedisUtil();
+        ReflectionTestUtils.setField(redisUtil, "redisTemplate", template);
+        ReflectionTestUtils.setField(redisUtil, "redisProperties", new FmkRedisProperties());
+    }
+
+    @Test
+    @DisplayName("测试 multiGet - 一次往返，保持前缀和顺序，按类型转换")
+    void testMultiGet() {
+        redisUtil.set("user:1", new UserProfile("张三", 18));
+        redisUtil.set("user:3", new UserProfile("王五", 30));
+        redis.resetRoundTrips();
+
+        Map<String, UserProfile> result = redisUtil.multiGet(List.of("user:3", "user:2", "user:1"), UserProfile.class);
+
+        assertEquals(1, redis.getRoundTrips());
+        assertEquals(List.of("user:3", "user:1"), new ArrayList<>(result.keySet()), "不存在的 key 不返回，顺序与入参一致");
+        assertEquals(new UserProfile("张三", 18), result.get("user:1"));
+        assertTrue(redis.containsKey("fmk:user:1"), "应该使用 fmk: 前缀");
+        System.out.println("✅ multiGet: " + result);
+    }
+
+    @Test
+    @DisplayName("测试 multiSet - 带过期时间走管道，不带过期时间走 MSET")
+    void testMultiSet() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put("k" + i, "v" + i);
+        }
+
+        redisUtil.multiSet(map, 60);
+        assertEquals(1, redis.getRoundTrips());
+        assertEquals(100, redis.expiringKeyCount());
+
+        redisUtil.multiSet(Map.of("forever", "v"), 0);
+        assertEquals(2, redis.getRoundTrips());
+        assertEquals("v", redisUtil.get("forever"));
+        assertEquals(100, redis.expiringKeyCount(), "MSET 不设置过期时间");
+        System.out.println("✅ multiSet 100 个 key 只消耗 1 次往返");
+    }
+
+    @Test
+    @DisplayName("测试 pipeline - 结果按顺序返回并反序列化")
+    void testPipeline() {
+        List<Object> results = redisUtil.pipeline(batch -> {
+            batch.set("counter:name", "访问量", 60);
+            batch.increment("counter:value", 5);
+            batch.get("counter:name");
+            batch.hSetAll("profile:1", Map.of("name", "张三"));
+            batch.hGet("profile:1", "name");
+            batch.delete("counter:name");
+            batch.get("counter:name");
+        });
+
+        assertEquals(1, redis.getRoundTrips());
+        assertEquals(7, results.size());
+        assertEquals(5L, results.get(1));
+        assertEquals("访问量", results.get(2));
+        assertEquals("张三", results.get(4));
+        assertEquals(1L, results.get(5));
+        assertNull(results.get(6));
+        System.out.println("✅ pipeline 结果: " + results);
+    }
+
+    @Test
+    @DisplayName("测试批量 hGetAll / expire / delete")
+    void testBulkHashAndKeyOperations() {
+        redisUtil.pipeline(batch -> {
+            for (int i = 0; i < 10; i++) {
+                batch.hSetAll("session:" + i, Map.of("userId", i, "device", "ios"));
+            }
+        });
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            keys.add("session:" + i);
+        }
+        redis.resetRoundTrips();
+
+        Map<String, Map<Object, Object>> sessions = redisUtil.hGetAll(keys);
+        assertEquals(10, sessions.size(), "不存在的 hash 不返回");
+        assertEquals(3, sessions.get("session:3").get("userId"));
+        assertEquals("ios", sessions.get("session:3").get("device"));
+
+        assertEquals(10, redisUtil.expire(keys, 120));
+        assertEquals(10, redisUtil.delete(keys));
+        assertEquals(3, redis.getRoundTrips(), "三个批量操作各一次往返");
+        assertFalse(redis.containsKey("fmk:session:0"));
+        System.out.println("✅ 批量 hGetAll/expire/delete 各一次往返");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 逐个读取与批量读取的往返次数和耗时")
+    void testRoundTripReduction() {
+        int count = 200;
+        Map<String, Object> map = new LinkedHashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            map.put("profile:" + i, new UserProfile("user" + i, i));
+            keys.add("profile:" + i);
+        }
+        redisUtil.multiSet(map, 600);
+        redis.setRttMillis(1);
+
+        redis.resetRoundTrips();
+        long start = System.nanoTime();
+        for (String key : keys) {
+            assertNotNull(redisUtil.get(key));
+        }
+        long singleElapsed = System.nanoTime() - start;
+        int singleRoundTrips = redis.getRoundTrips();
+
+        redis.resetRoundTrips();
+        start = System.nanoTime();
+        assertEquals(count, redisUtil.multiGet(keys, UserProfile.class).size());
+        long multiGetElapsed = System.nanoTime() - start;
+        int multiGetRoundTrips = redis.getRoundTrips();
+
+        redis.resetRoundTrips();
+        start = System.nanoTime();
+        List<Object> results = redisUtil.pipeline(batch -> keys.forEach(batch::get));
+        long pipelineElapsed = System.nanoTime() - start;
+        int pipelineRoundTrips = redis.getRoundTrips();
+
+        assertEquals(count, results.size());
+        assertEquals(count, singleRoundTrips);
+        assertEquals(1, multiGetRoundTrips);
+        assertEquals(1, pipelineRoundTrips);
+        assertTrue(multiGetElapsed < singleElapsed);
+        System.out.printf("读取 %d 个 key（RTT=%dms）: 逐个 %d 次往返 %dms，MGET %d 次往返 %dms，管道 %d 次往返 %dms%n",
+                count, redis.getRttMillis(),
+                singleRoundTrips, TimeUnit.NANOSECONDS.toMillis(singleElapsed),
+                multiGetRoundTrips, TimeUnit.NANOSECONDS.toMillis(multiGetElapsed),
+                pipelineRoundTrips, TimeUnit.NANOSECONDS.toMillis(pipelineElapsed));
+        System.out.println("✅ 批量读取往返次数测试完成");
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserProfile {
+        private String name;
+        private int age;
+    }
+}
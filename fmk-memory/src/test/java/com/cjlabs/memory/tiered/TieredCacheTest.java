@@ -0,0 +1,241 @@
+package com.cjlabs.memory.tiered;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TieredCache 测试类
+ * 两个 TieredCacheManager 共享同一个进程内存储，模拟两个实例共用一个 Redis
+ */
+@DisplayName("TieredCache 二级缓存测试")
+class TieredCacheTest {
+
+    private InMemoryTieredCacheStore store;
+    private TieredCacheManager podA;
+    private TieredCacheManager podB;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryTieredCacheStore();
+        podA = new TieredCacheManager(store);
+        podB = new TieredCacheManager(store);
+    }
+
+    @Test
+    @DisplayName("测试读取路径 - L1 → L2 → loader，统计各级命中率")
+    void testReadThrough() {
+        TieredCache<String> cacheA = podA.getCache("user", String.class);
+        TieredCache<String> cacheB = podB.getCache("user", String.class);
+        AtomicInteger loadCount = new AtomicInteger();
+
+        assertEquals("张三", cacheA.get("1", key -> {
+            loadCount.incrementAndGet();
+            return "张三";
+        }));
+        assertEquals("张三", cacheA.get("1", key -> "不应该加载"));
+        assertEquals("张三", cacheB.get("1", key -> "不应该加载"));
+
+        assertEquals(1, loadCount.get());
+        TieredCacheStats statsA = cacheA.stats();
+        assertEquals(0.5, statsA.getL1HitRatio(), 0.001);
+        assertEquals(1, statsA.getLoadCount());
+        TieredCacheStats statsB = cacheB.stats();
+        assertEquals(1, statsB.getL2HitCount(), "B 实例应该命中 L2");
+        assertEquals(1.0, statsB.getL2HitRatio(), 0.001);
+        System.out.println("✅ 读取路径: A=" + statsA + ", B=" + statsB);
+    }
+
+    @Test
+    @DisplayName("测试写入 - 其他实例 L1 被淘汰并读到新值")
+    void testPutEvictsPeerL1() {
+        TieredCache<String> cacheA = podA.getCache("user", String.class);
+        TieredCache<String> cacheB = podB.getCache("user", String.class);
+
+        cacheB.get("1", key -> "旧值");
+        assertEquals(1, cacheB.l1Size());
+
+        cacheA.put("1", "新值");
+
+        assertEquals(0, cacheB.l1Size(), "B 实例的 L1 应该被淘汰");
+        assertEquals("新值", cacheB.get("1", key -> "不应该加载"));
+        assertEquals(0, cacheA.stats().getInvalidationCount(), "自己发出的消息应该被忽略");
+        assertEquals(1, cacheB.stats().getInvalidationCount());
+        System.out.println("✅ 写入后其他实例读到新值");
+    }
+
+    @Test
+    @DisplayName("测试删除 - L2 和所有实例 L1 都被删除")
+    void testInvalidate() {
+        TieredCache<String> cacheA = podA.getCache("user", String.class);
+        TieredCache<String> cacheB = podB.getCache("user", String.class);
+        cacheA.put("1", "张三");
+        cacheB.get("1", key -> "不应该加载");
+
+        cacheA.invalidate("1");
+
+        assertNull(cacheA.getIfPresent("1"));
+        assertNull(cacheB.getIfPresent("1"));
+        System.out.println("✅ 删除后所有实例都读不到");
+    }
+
+    @Test
+    @DisplayName("测试命名空间失效 - 版本递增，旧 L2 数据不再可见")
+    void testInvalidateAll() {
+        TieredCache<String> cacheA = podA.getCache("dict", String.class);
+        TieredCache<String> cacheB = podB.getCache("dict", String.class);
+        for (int i = 0; i < 10; i++) {
+            int index = i;
+            cacheA.get(String.valueOf(i), key -> "v" + index);
+            cacheB.get(String.valueOf(i), key -> "不应该加载");
+        }
+        int l2SizeBefore = store.size();
+
+        cacheA.invalidateAll();
+
+        assertEquals(0, cacheA.l1Size());
+        assertEquals(0, cacheB.l1Size());
+        assertEquals("新值", cacheB.get("3", key -> "新值"), "旧命名空间的 L2 数据不应该再被读到");
+        // 新增版本号 key 和新命名空间下的 "3"，旧 key 由 TTL 过期，不需要扫描删除
+        assertEquals(l2SizeBefore + 2, store.size());
+        System.out.println("✅ 命名空间失效");
+    }
+
+    @Test
+    @DisplayName("测试并发写入竞争 - 加载期间收到失效消息，旧值不留在 L1")
+    void testRaceDuringLoad() throws InterruptedException {
+        TieredCache<String> cacheA = podA.getCache("user", String.class);
+        TieredCache<String> cacheB = podB.getCache("user", String.class);
+        // 与 Redis 一样在独立线程上投递消息
+        ExecutorService listenerThread = Executors.newSingleThreadExecutor();
+        store.deliveryExecutor = listenerThread;
+
+        // B 从数据库读到旧值的过程中，A 写入了新值
+        String loaded = cacheB.get("1", key -> {
+            cacheA.put("1", "新值");
+            sleep(100);
+            return "旧值";
+        });
+        listenerThread.shutdown();
+        assertTrue(listenerThread.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals("旧值", loaded, "本次调用返回自己读到的值");
+        assertEquals(0, cacheB.l1Size(), "旧值不应该留在 L1");
+        assertEquals("新值", cacheB.get("1", key -> "不应该加载"));
+        System.out.println("✅ 加载期间的并发写入不会被旧值覆盖");
+    }
+
+    @Test
+    @DisplayName("测试对象序列化 - L2 使用 JSON")
+    void testObjectValue() {
+        TieredCache<Map> cacheA = podA.getCache("config", Map.class);
+        TieredCache<Map> cacheB = podB.getCache("config", Map.class);
+
+        cacheA.put("site", Map.of("name", "fmk", "enabled", true));
+        Map<?, ?> value = cacheB.get("site", key -> null);
+
+        assertEquals("fmk", value.get("name"));
+        assertEquals(true, value.get("enabled"));
+        System.out.println("✅ 对象值通过 L2 共享: " + value);
+    }
+
+    @Test
+    @DisplayName("性能测试 - L1 命中路径")
+    void testL1HitPerformance() {
+        TieredCache<String> cache = podA.getCache("perf", String.class);
+        for (int i = 0; i < 1000; i++) {
+            int index = i;
+            cache.get(String.valueOf(i), key -> "v" + index);
+        }
+        String[] keys = new String[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = String.valueOf(i);
+        }
+
+        int count = 1_000_000;
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < count; i++) {
+            sink += cache.get(keys[i % 1000], key -> "").length();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(sink > 0);
+        assertTrue(cache.stats().getL1HitRatio() > 0.99);
+        System.out.printf("L1 命中 %d 次耗时 %dms，平均 %.1fns/次，L2 读取 %d 次%n",
+                count, elapsed / 1_000_000, (double) elapsed / count, store.readCount.get());
+        System.out.println("✅ L1 命中路径性能测试完成");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 进程内二级缓存存储，替代 Redis（忽略过期时间，默认在发布线程上同步投递消息）
+     */
+    private static final class InMemoryTieredCacheStore implements TieredCacheStore {
+        private final Map<String, String> data = new ConcurrentHashMap<>();
+        private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+        private final AtomicLong readCount = new AtomicLong();
+        private Executor deliveryExecutor = Runnable::run;
+
+        @Override
+        public String get(String key) {
+            readCount.incrementAndGet();
+            return data.get(key);
+        }
+
+        @Override
+        public void set(String key, String value, long expireSeconds) {
+            data.put(key, value);
+        }
+
+        @Override
+        public void setIfAbsent(String key, String value, long expireSeconds) {
+            data.putIfAbsent(key, value);
+        }
+
+        @Override
+        public void delete(String key) {
+            data.remove(key);
+        }
+
+        @Override
+        public long increment(String key) {
+            return Long.parseLong(data.merge(key, "1", (old, one) -> String.valueOf(Long.parseLong(old) + 1)));
+        }
+
+        @Override
+        public void publish(String message) {
+            listeners.forEach(listener -> deliveryExecutor.execute(() -> listener.accept(message)));
+        }
+
+        @Override
+        public void subscribe(Consumer<String> listener) {
+            listeners.add(listener);
+        }
+
+        int size() {
+            return data.size();
+        }
+    }
+}
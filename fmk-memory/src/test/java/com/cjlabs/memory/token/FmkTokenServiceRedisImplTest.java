@@ -0,0 +1,353 @@
+package com.cjlabs.memory.token;
+
+import com.cjlabs.core.types.longs.FmkUserId;
+import com.cjlabs.core.types.strings.FmkToken;
+import com.cjlabs.domain.enums.ClientTypeEnum;
+import com.cjlabs.memory.redis.FakeRedis;
+import com.cjlabs.web.threadlocal.FmkClientInfo;
+import com.cjlabs.web.threadlocal.FmkUserInfo;
+import com.cjlabs.web.token.FmkTokenProperties;
+import com.cjlabs.web.token.FmkTokenServiceSignedImpl;
+import com.cjlabs.web.token.bo.FmkTokenInfo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkTokenServiceRedisImpl 测试类
+ * 使用进程内 Redis 替身，两个服务实例共享同一个 Redis 模拟多实例部署
+ */
+@DisplayName("FmkTokenServiceRedisImpl Redis Token 测试")
+class FmkTokenServiceRedisImplTest {
+
+    private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+
+    private FakeRedis redis;
+    private FmkTokenProperties properties;
+    private FmkTokenServiceRedisImpl podA;
+    private FmkTokenServiceRedisImpl podB;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakeRedis();
+        StringRedisTemplate template = new StringRedisTemplate(redis.connectionFactory());
+        registerScripts(template);
+
+        properties = new FmkTokenProperties();
+        properties.setType("redis");
+        podA = newService(template);
+        podB = newService(template);
+    }
+
+    @Test
+    @DisplayName("测试创建 Token - 一次往返写入 Hash、过期时间和用户索引")
+    void testCreateToken() {
+        FmkToken token = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), clientInfo("10.0.0.1"));
+
+        assertNotNull(token);
+        assertEquals(1, redis.getRoundTrips(), "创建 Token 应该只有一次往返");
+        String tokenKey = "fmk:token:" + token.getValue();
+        assertEquals("1", redis.hash(tokenKey).get("userId"));
+        assertEquals(TimeUnit.HOURS.toSeconds(12), redis.ttlSeconds(tokenKey), 1);
+        assertEquals(TimeUnit.HOURS.toSeconds(12), redis.ttlSeconds("fmk:token:user:1"), 1);
+        System.out.println("✅ 创建 Token: " + redis.keys());
+    }
+
+    @Test
+    @DisplayName("测试多实例共享 - A 创建的 Token 在 B 上可用")
+    void testSharedAcrossInstances() {
+        FmkToken token = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), clientInfo("10.0.0.1"));
+
+        assertTrue(podB.validateToken(token));
+        assertEquals(FmkUserId.of(1), podB.getUserIdByToken(token).orElseThrow());
+        assertEquals("张三", podB.getUserInfoByToken(token).orElseThrow().getUserName());
+        FmkClientInfo clientInfo = podB.getClientInfoByToken(token).orElseThrow();
+        assertEquals("10.0.0.1", clientInfo.getIpAddress());
+        assertEquals(ClientTypeEnum.WEB, clientInfo.getClientType());
+
+        FmkTokenInfo tokenInfo = podB.getTokenInfoByToken(token).orElseThrow();
+        assertEquals(FmkUserId.of(1), tokenInfo.getUserId());
+        assertNotNull(tokenInfo.getExpireTime());
+        assertFalse(podB.validateToken(FmkToken.generate()));
+        System.out.println("✅ 多实例共享会话");
+    }
+
+    @Test
+    @DisplayName("测试用户索引 - 按用户查询和踢下线")
+    void testUserIndexAndKickOut() {
+        FmkUserId userId = FmkUserId.of(7);
+        FmkToken web = podA.createAndSaveToken(new FmkUserInfo(userId, "李四"), clientInfo("10.0.0.1"));
+        FmkToken app = podA.createAndSaveToken(new FmkUserInfo(userId, "李四"), clientInfo("10.0.0.2"));
+        FmkToken other = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(8), "王五"), null);
+
+        FmkToken found = podB.getTokenByUserId(userId).orElseThrow();
+        assertTrue(Set.of(web, app).contains(found));
+        assertEquals("李四", podB.getUserInfoByUserId(userId).orElseThrow().getUserName());
+
+        podB.revokeAllUserTokens(userId);
+
+        assertFalse(podA.validateToken(web));
+        assertFalse(podA.validateToken(app));
+        assertTrue(podA.validateToken(other), "其他用户不受影响");
+        assertTrue(podA.getTokenByUserId(userId).isEmpty());
+        assertFalse(redis.containsKey("fmk:token:user:7"));
+        System.out.println("✅ 踢下线移除用户所有 Token");
+    }
+
+    @Test
+    @DisplayName("测试撤销单个 Token - 同时移出用户索引")
+    void testRevokeToken() {
+        FmkUserId userId = FmkUserId.of(3);
+        FmkToken first = podA.createAndSaveToken(new FmkUserInfo(userId, "赵六"), null);
+        FmkToken second = podA.createAndSaveToken(new FmkUserInfo(userId, "赵六"), null);
+
+        assertTrue(podB.revokeToken(first));
+        assertFalse(podB.revokeToken(first), "重复撤销返回 false");
+
+        assertFalse(podA.validateToken(first));
+        assertEquals(second, podA.getTokenByUserId(userId).orElseThrow());
+        System.out.println("✅ 撤销单个 Token");
+    }
+
+    @Test
+    @DisplayName("测试过期 - Redis 原生过期，索引惰性清理")
+    void testExpireAndLazyIndexCleanup() {
+        FmkUserId userId = FmkUserId.of(5);
+        FmkToken oldToken = podA.createAndSaveToken(new FmkUserInfo(userId, "孙七"), null);
+        redis.advanceTime(6 * HOUR_MS);
+        FmkToken newToken = podA.createAndSaveToken(new FmkUserInfo(userId, "孙七"), null);
+        redis.advanceTime(7 * HOUR_MS);
+
+        assertFalse(podA.validateToken(oldToken), "超过 12 小时的 Token 应该失效");
+        assertTrue(podA.validateToken(newToken));
+        assertEquals(newToken, podA.getTokenByUserId(userId).orElseThrow());
+        assertEquals(1, new StringRedisTemplate(redis.connectionFactory()).opsForSet().size("fmk:token:user:5"),
+                "过期的 Token 应该从索引中移除");
+        System.out.println("✅ 过期 Token 不可用，索引惰性清理");
+    }
+
+    @Test
+    @DisplayName("测试刷新 - 读取 userId 后通过管道续期 Token 和用户索引")
+    void testRefreshToken() {
+        FmkToken token = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(9), "周八"), null);
+        redis.advanceTime(10 * HOUR_MS);
+        redis.resetRoundTrips();
+
+        assertTrue(podB.refreshToken(token));
+        assertEquals(2, redis.getRoundTrips(), "读取 userId 一次，续期管道一次");
+        assertEquals(TimeUnit.HOURS.toSeconds(12), redis.ttlSeconds("fmk:token:" + token.getValue()), 1);
+        assertEquals(TimeUnit.HOURS.toSeconds(12), redis.ttlSeconds("fmk:token:user:9"), 1);
+
+        redis.advanceTime(10 * HOUR_MS);
+        assertTrue(podA.validateToken(token), "刷新后应该按新的过期时间计算");
+        assertFalse(podA.refreshToken(FmkToken.generate()));
+        System.out.println("✅ 刷新 Token 续期");
+    }
+
+    @Test
+    @DisplayName("测试活跃时间合并写入 - 请求只记本地，定时一次写入")
+    void testLastActiveCoalesced() {
+        FmkToken token = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), clientInfo("10.0.0.1"));
+        String tokenKey = "fmk:token:" + token.getValue();
+        String createdActive = redis.hash(tokenKey).get("lastActiveTime");
+        redis.advanceTime(1000);
+        redis.resetRoundTrips();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(podA.getUserInfoByToken(token).isPresent());
+        }
+
+        assertEquals(1000, redis.getRoundTrips(), "每个请求只有读取，没有写入");
+        assertEquals(createdActive, redis.hash(tokenKey).get("lastActiveTime"));
+        assertEquals(1, podA.getPendingLastActiveCount());
+        assertTrue(podA.getClientInfoByToken(token).orElseThrow().getLastActiveTime().toEpochMilli()
+                >= Long.parseLong(createdActive), "读取时合并本地未写入的活跃时间");
+
+        redis.resetRoundTrips();
+        assertEquals(1, podA.flushLastActive());
+        assertEquals(1, redis.getRoundTrips());
+        assertNotEquals(createdActive, redis.hash(tokenKey).get("lastActiveTime"));
+        assertEquals(0, podA.getPendingLastActiveCount());
+        System.out.println("✅ 1000 次请求合并为 1 次活跃时间写入");
+    }
+
+    @Test
+    @DisplayName("测试活跃时间写入间隔 - 同一个 Token 在 granularity 内最多写入一次")
+    void testLastActiveGranularity() throws InterruptedException {
+        FmkToken token = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), null);
+        FmkToken other = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(2), "李四"), null);
+        assertTrue(podA.validateToken(token));
+        assertEquals(1, podA.flushLastActive());
+        // 活跃时间精度为毫秒，同一毫秒内的访问不算新的访问
+        Thread.sleep(5);
+
+        assertTrue(podA.validateToken(token));
+        assertTrue(podA.validateToken(other));
+        assertEquals(2, podA.getPendingLastActiveCount());
+        assertEquals(1, podA.flushLastActive(), "token 刚写入过，只写 other");
+        assertEquals(1, podA.getPendingLastActiveCount(), "token 留到下一个间隔再写");
+        assertEquals(1, podA.getLastActiveCoalescer().getQueueDepth());
+        assertEquals(2, podA.getLastActiveCoalescer().getWrittenCount());
+        assertTrue(podA.getLastActiveCoalescer().getMaxFlushLatencyMillis() >= 0);
+
+        podA.destroy();
+        assertEquals(0, podA.getPendingLastActiveCount(), "关闭时写入剩余的活跃时间");
+        System.out.println("✅ granularity 内合并写入");
+    }
+
+    @Test
+    @DisplayName("测试滑动过期 - 写入活跃时间时同时续期 Token 和用户索引")
+    void testSlidingExpire() {
+        properties.getRedis().setSlidingExpire(true);
+        FmkToken token = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(4), "钱十"), null);
+        redis.advanceTime(10 * HOUR_MS);
+        assertTrue(podA.validateToken(token));
+        redis.resetRoundTrips();
+
+        assertEquals(1, podA.flushLastActive());
+        assertEquals(2, redis.getRoundTrips(), "管道读取 userId 一次，写入和续期管道一次");
+        assertEquals(TimeUnit.HOURS.toSeconds(12), redis.ttlSeconds("fmk:token:" + token.getValue()), 1);
+        assertEquals(TimeUnit.HOURS.toSeconds(12), redis.ttlSeconds("fmk:token:user:4"), 1);
+
+        redis.advanceTime(10 * HOUR_MS);
+        assertTrue(podB.validateToken(token), "活跃的 Token 不会在 12 小时后过期");
+        System.out.println("✅ 滑动过期");
+    }
+
+    @Test
+    @DisplayName("测试滑动过期批量写入 - 不同用户的 Token 每个 key 单独一条命令，仍然两次往返")
+    void testSlidingExpireBatchAcrossUsers() {
+        properties.getRedis().setSlidingExpire(true);
+        FmkToken first = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(11), "甲"), null);
+        FmkToken second = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(12), "乙"), null);
+        FmkToken third = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(12), "乙"), null);
+        redis.advanceTime(10 * HOUR_MS);
+        assertTrue(podA.validateToken(first));
+        assertTrue(podA.validateToken(second));
+        assertTrue(podA.validateToken(third));
+        redis.resetRoundTrips();
+
+        assertEquals(3, podA.flushLastActive());
+        assertEquals(2, redis.getRoundTrips(), "管道读取 userId 一次，写入和续期管道一次");
+        assertEquals(TimeUnit.HOURS.toSeconds(12), redis.ttlSeconds("fmk:token:user:11"), 1);
+        assertEquals(TimeUnit.HOURS.toSeconds(12), redis.ttlSeconds("fmk:token:user:12"), 1);
+
+        redis.resetRoundTrips();
+        podB.revokeAllUserTokens(FmkUserId.of(12));
+        assertEquals(2, redis.getRoundTrips(), "读取用户索引一次，管道删除一次");
+        assertFalse(redis.containsKey("fmk:token:" + second.getValue()));
+        assertFalse(redis.containsKey("fmk:token:" + third.getValue()));
+        assertTrue(podB.validateToken(first));
+        System.out.println("✅ 多用户批量写入不会出现跨 slot 的脚本");
+    }
+
+    @Test
+    @DisplayName("测试活跃时间写入 - Token 已过期时不重新生成 key")
+    void testFlushSkipsExpiredToken() {
+        FmkToken token = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), null);
+        assertTrue(podA.validateToken(token));
+        redis.advanceTime(13 * HOUR_MS);
+
+        assertEquals(0, podA.flushLastActive());
+        assertFalse(redis.containsKey("fmk:token:" + token.getValue()), "过期 Token 不应该被 HSET 重新创建");
+        System.out.println("✅ 过期 Token 不会被活跃时间写入复活");
+    }
+
+    @Test
+    @DisplayName("测试 key 前缀 - 使用 fmk.token.redis.key-prefix")
+    void testKeyPrefix() {
+        properties.getRedis().setKeyPrefix("app:session:");
+        FmkToken token = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(2), "吴九"), null);
+
+        assertTrue(redis.containsKey("app:session:" + token.getValue()));
+        assertTrue(redis.containsKey("app:session:user:2"));
+        assertTrue(podB.refreshToken(token));
+        System.out.println("✅ key 前缀生效: " + redis.keys());
+    }
+
+    @Test
+    @DisplayName("性能测试 - Redis 存储与签名 Token 的每请求往返次数和耗时")
+    void testCompareWithSignedToken() {
+        FmkTokenProperties signedProperties = new FmkTokenProperties();
+        signedProperties.getSigned().setSecret("0123456789abcdef0123456789abcdef");
+        FmkTokenServiceSignedImpl signedService = new FmkTokenServiceSignedImpl();
+        signedService.setTokenProperties(signedProperties);
+
+        FmkToken redisToken = podA.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), null);
+        FmkToken signedToken = signedService.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), null);
+        int requests = 200;
+        redis.setRttMillis(1);
+        redis.resetRoundTrips();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            assertTrue(podB.getUserInfoByToken(redisToken).isPresent());
+        }
+        long redisNanos = System.nanoTime() - start;
+        int redisRoundTrips = redis.getRoundTrips();
+
+        redis.resetRoundTrips();
+        start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            assertTrue(signedService.getUserInfoByToken(signedToken).isPresent());
+        }
+        long signedNanos = System.nanoTime() - start;
+
+        assertEquals(requests, redisRoundTrips);
+        assertEquals(0, redis.getRoundTrips(), "签名 Token 校验不访问 Redis");
+        assertTrue(signedNanos < redisNanos);
+        System.out.printf("%d 个请求（RTT=%dms）：Redis %d 次往返 %dms，签名 Token 0 次往返 %dms%n",
+                requests, redis.getRttMillis(), redisRoundTrips,
+                TimeUnit.NANOSECONDS.toMillis(redisNanos), TimeUnit.NANOSECONDS.toMillis(signedNanos));
+        System.out.println("✅ 签名 Token 没有网络往返");
+    }
+
+    private FmkTokenServiceRedisImpl newService(StringRedisTemplate template) {
+        FmkTokenServiceRedisImpl service = new FmkTokenServiceRedisImpl();
+        service.setTokenProperties(properties);
+        service.setStringRedisTemplate(template);
+        return service;
+    }
+
+    private static FmkClientInfo clientInfo(String ip) {
+        FmkClientInfo clientInfo = new FmkClientInfo();
+        clientInfo.setIpAddress(ip);
+        clientInfo.setClientType(ClientTypeEnum.WEB);
+        clientInfo.setBrowser("Chrome");
+        return clientInfo;
+    }
+
+    /**
+     * 注册与 Lua 脚本等价的 Java 实现
+     */
+    private void registerScripts(StringRedisTemplate template) {
+        redis.registerScript(FmkTokenServiceRedisImpl.REFRESH_SCRIPT, (keys, argv) -> {
+            assertEquals(1, keys.size(), "脚本只访问一个 key，不会出现 CROSSSLOT");
+            Object userId = template.opsForHash().get(keys.get(0), "userId");
+            if (!argv.get(1).equals(userId)) {
+                return 0L;
+            }
+            template.expire(keys.get(0), Long.parseLong(argv.get(0)), TimeUnit.SECONDS);
+            return 1L;
+        });
+        redis.registerScript(FmkTokenServiceRedisImpl.TOUCH_SCRIPT, (keys, argv) -> {
+            assertEquals(1, keys.size(), "脚本只访问一个 key，不会出现 CROSSSLOT");
+            if (!Boolean.TRUE.equals(template.hasKey(keys.get(0)))) {
+                return 0L;
+            }
+            template.opsForHash().put(keys.get(0), "lastActiveTime", argv.get(1));
+            long seconds = Long.parseLong(argv.get(0));
+            if (seconds > 0) {
+                template.expire(keys.get(0), seconds, TimeUnit.SECONDS);
+            }
+            return 1L;
+        });
+    }
+}
@@ -6,25 +6,48 @@ import com.cjlabs.web.filter.CorsFilter;
 import com.cjlabs.web.filter.FmkTraceService;
 import com.cjlabs.web.filter.TraceFilter;
 import com.cjlabs.web.json.FmkJacksonUtil;
+import com.cjlabs.web.log.FmkAccessLogFilter;
+import com.cjlabs.web.log.FmkAccessLogProperties;
+import com.cjlabs.web.log.FmkAccessLogWriter;
+import com.cjlabs.web.metrics.FmkEndpointMetricsEndpoint;
+import com.cjlabs.web.metrics.FmkEndpointMetricsInterceptor;
+import com.cjlabs.web.metrics.FmkEndpointMetricsProperties;
+import com.cjlabs.web.metrics.FmkEndpointMetricsRegistry;
+import com.cjlabs.web.requestinterceptor.FmkAdminUserCheckService;
+import com.cjlabs.web.requestinterceptor.FmkAuthProperties;
+import com.cjlabs.web.requestinterceptor.FmkAuthenticationInterceptor;
 import com.cjlabs.web.requestinterceptor.FmkContextInterceptor;
+import com.cjlabs.web.requestinterceptor.FmkMaintenanceSnapshot;
+import com.cjlabs.web.requestinterceptor.IFmkMaintenanceProvider;
 import com.cjlabs.web.serializer.BigDecimalSerializer;
 import com.cjlabs.web.serializer.EmptyStringToNullDeserializer;
+import com.cjlabs.web.serializer.FmkEnumModule;
 import com.cjlabs.web.serializer.LongToStringSerializer;
+import com.cjlabs.web.thread.FmkThreadPoolAutoSizer;
 import com.cjlabs.web.thread.FmkThreadPoolMonitor;
 import com.cjlabs.web.thread.FmkThreadPoolProperties;
 import com.cjlabs.web.thread.FmkTtlThreadPoolTaskExecutor;
+import com.cjlabs.web.thread.FmkVirtualThreadTaskExecutor;
 import com.cjlabs.web.token.FmkTokenProperties;
 import com.cjlabs.web.token.FmkTokenServiceMemoryImpl;
+import com.cjlabs.web.token.FmkTokenServiceSignedImpl;
 import com.cjlabs.web.token.IFmkTokenService;
+import com.cjlabs.web.util.ClientInfoUtil;
 import com.cjlabs.web.util.FmkSpringUtil;
+import com.cjlabs.web.util.ip.FmkClientIpProperties;
+import com.cjlabs.web.util.ip.FmkClientIpResolver;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.DispatcherType;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -38,7 +61,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import org.springframework.web.filter.CommonsRequestLoggingFilter;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -50,7 +72,8 @@ import java.util.concurrent.ThreadPoolExecutor;
 @Slf4j
 @AutoConfiguration
 // @ComponentScan(basePackages = "com.cjlabs.web")
-@EnableConfigurationProperties({FmkThreadPoolProperties.class, FmkTokenProperties.class})
+@EnableConfigurationProperties({FmkThreadPoolProperties.class, FmkTokenProperties.class, FmkClientIpProperties.class,
+        FmkAuthProperties.class, FmkAccessLogProperties.class, FmkEndpointMetricsProperties.class})
 public class FmkWebAutoConfiguration implements WebMvcConfigurer {
     public FmkWebAutoConfiguration() {
         log.info("FmkWebAutoConfiguration|初始化|Fmk Web 模块自动配置加载");
@@ -81,6 +104,20 @@ public class FmkWebAutoConfiguration implements WebMvcConfigurer {
         return service;
     }
 
+    /**
+     * 签名 Token 服务
+     * 只在 fmk.token.type=signed 时创建，校验 Token 不访问任何存储
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fmk.token.type", havingValue = "signed")
+    @ConditionalOnMissingBean(IFmkTokenService.class)
+    public IFmkTokenService fmkTokenServiceSigned(@Autowired FmkTokenProperties tokenProperties) {
+        log.info("FmkWebAutoConfiguration|注册Signed Token服务");
+        FmkTokenServiceSignedImpl service = new FmkTokenServiceSignedImpl();
+        service.setTokenProperties(tokenProperties);
+        return service;
+    }
+
     /**
      * Spring 上下文工具类
      * 用于在非 Spring 管理的类中获取 Bean
@@ -117,13 +154,26 @@ public class FmkWebAutoConfiguration implements WebMvcConfigurer {
         return new FmkTraceService();
     }
 
+    /**
+     * 客户端 IP 解析
+     * 按 fmk.client-ip 配置可信代理和代理头
+     */
+    @Bean
+    @ConditionalOnMissingBean(FmkClientIpResolver.class)
+    public FmkClientIpResolver fmkClientIpResolver(FmkClientIpProperties properties) {
+        log.info("FmkWebAutoConfiguration|注册FmkClientIpResolver");
+        return new FmkClientIpResolver(properties);
+    }
+
     /**
      * 上下文拦截器
      * 负责设置请求上下文信息（用户信息、客户端信息等）
      */
     @Bean
-    public FmkContextInterceptor fmkContextInterceptor(@Autowired(required = false) IFmkTokenService fmkTokenService) {
+    public FmkContextInterceptor fmkContextInterceptor(@Autowired(required = false) IFmkTokenService fmkTokenService,
+                                                       FmkClientIpResolver fmkClientIpResolver) {
         log.info("FmkWebAutoConfiguration|注册FmkContextInterceptor");
+        ClientInfoUtil.setClientIpResolver(fmkClientIpResolver);
         FmkContextInterceptor fmkContextInterceptor = new FmkContextInterceptor();
 
         if (fmkTokenService != null) {
@@ -139,6 +189,34 @@ public class FmkWebAutoConfiguration implements WebMvcConfigurer {
         return fmkContextInterceptor;
     }
 
+    /**
+     * 系统维护公告快照
+     * 只在 fmk.auth.enabled=true 时创建，后台定时从 IFmkMaintenanceProvider 刷新
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fmk.auth.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(FmkMaintenanceSnapshot.class)
+    public FmkMaintenanceSnapshot fmkMaintenanceSnapshot(FmkAuthProperties properties,
+                                                         ObjectProvider<IFmkMaintenanceProvider> maintenanceProvider) {
+        log.info("FmkWebAutoConfiguration|注册FmkMaintenanceSnapshot|refreshSeconds={}", properties.getMaintenanceRefreshSeconds());
+        return new FmkMaintenanceSnapshot(maintenanceProvider.getIfAvailable(), properties.getMaintenanceRefreshSeconds());
+    }
+
+    /**
+     * 登录认证拦截器
+     * 只在 fmk.auth.enabled=true 时创建
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fmk.auth.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(FmkAuthenticationInterceptor.class)
+    public FmkAuthenticationInterceptor fmkAuthenticationInterceptor(FmkAuthProperties properties,
+                                                                     ObjectProvider<FmkAdminUserCheckService> adminUserCheckService,
+                                                                     FmkMaintenanceSnapshot fmkMaintenanceSnapshot) {
+        log.info("FmkWebAutoConfiguration|注册FmkAuthenticationInterceptor");
+        return new FmkAuthenticationInterceptor(properties.getWhitelist(), properties.getAdminPaths(),
+                adminUserCheckService.getIfAvailable(), fmkMaintenanceSnapshot);
+    }
+
     /**
      * POST + OPTIONS 请求过滤器
      * 最高优先级，用于处理跨域预检请求
@@ -185,27 +263,89 @@ public class FmkWebAutoConfiguration implements WebMvcConfigurer {
     }
 
     /**
-     * 请求日志过滤器
-     * 最低优先级，确保在所有过滤器之后执行
+     * 访问日志写入
+     * 后台线程格式化并输出访问日志
      */
     @Bean
     @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
-    public FilterRegistrationBean<CommonsRequestLoggingFilter> logFilterRegistration() {
-        CommonsRequestLoggingFilter logFilter = new CommonsRequestLoggingFilter();
-        logFilter.setIncludeQueryString(true);
-        logFilter.setIncludePayload(true);
-        logFilter.setIncludeHeaders(true);
-        logFilter.setMaxPayloadLength(10000);
-        logFilter.setBeforeMessagePrefix("请求处理前: ");
-        logFilter.setAfterMessagePrefix("请求处理后: ");
-
-        FilterRegistrationBean<CommonsRequestLoggingFilter> registration = new FilterRegistrationBean<>(logFilter);
+    @ConditionalOnProperty(name = "fmk.access-log.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(FmkAccessLogWriter.class)
+    public FmkAccessLogWriter fmkAccessLogWriter(FmkAccessLogProperties properties) {
+        log.info("FmkWebAutoConfiguration|注册FmkAccessLogWriter");
+        return new FmkAccessLogWriter(properties.getQueueSize(), properties.getMaxPayloadLength(),
+                properties.getBufferPoolSize(), null);
+    }
+
+    /**
+     * 访问日志过滤器
+     * 最低优先级，确保在所有过滤器之后执行；请求线程只收集原始值，格式化和输出在后台线程
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(name = "fmk.access-log.enabled", havingValue = "true")
+    public FilterRegistrationBean<FmkAccessLogFilter> logFilterRegistration(FmkAccessLogProperties properties,
+                                                                           FmkAccessLogWriter fmkAccessLogWriter) {
+        FmkAccessLogFilter logFilter = new FmkAccessLogFilter(properties, fmkAccessLogWriter);
+
+        FilterRegistrationBean<FmkAccessLogFilter> registration = new FilterRegistrationBean<>(logFilter);
         registration.setOrder(Integer.MAX_VALUE);
         registration.addUrlPatterns("/*");
-        log.info("FmkWebAutoConfiguration|注册CommonsRequestLoggingFilter|order={}", Integer.MAX_VALUE);
+        // 异步请求在最后一次分派结束时记录
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        log.info("FmkWebAutoConfiguration|注册FmkAccessLogFilter|order={}|sampleRate={}|slowThresholdMillis={}",
+                Integer.MAX_VALUE, properties.getSampleRate(), properties.getSlowThresholdMillis());
         return registration;
     }
 
+    /**
+     * 接口耗时统计
+     * 按 HandlerMethod 统计耗时分布、状态码和正在处理的请求数
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(name = "fmk.endpoint-metrics.enabled", havingValue = "true", matchIfMissing = true)
+    @ConditionalOnMissingBean(FmkEndpointMetricsRegistry.class)
+    public FmkEndpointMetricsRegistry fmkEndpointMetricsRegistry(FmkEndpointMetricsProperties properties) {
+        log.info("FmkWebAutoConfiguration|注册FmkEndpointMetricsRegistry|highestTrackableMillis={}|significantDigits={}",
+                properties.getHighestTrackableMillis(), properties.getSignificantDigits());
+        return new FmkEndpointMetricsRegistry(properties.getHighestTrackableMillis(), properties.getSignificantDigits());
+    }
+
+    /**
+     * 接口耗时统计拦截器
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(name = "fmk.endpoint-metrics.enabled", havingValue = "true", matchIfMissing = true)
+    public FmkEndpointMetricsInterceptor fmkEndpointMetricsInterceptor(FmkEndpointMetricsRegistry fmkEndpointMetricsRegistry) {
+        log.info("FmkWebAutoConfiguration|注册FmkEndpointMetricsInterceptor");
+        return new FmkEndpointMetricsInterceptor(fmkEndpointMetricsRegistry);
+    }
+
+    /**
+     * 接口耗时统计注册到 Micrometer
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(name = {"fmk.endpoint-metrics.enabled", "fmk.endpoint-metrics.micrometer-enabled"},
+            havingValue = "true", matchIfMissing = true)
+    public MeterBinder fmkEndpointMeterBinder(FmkEndpointMetricsRegistry fmkEndpointMetricsRegistry) {
+        log.info("FmkWebAutoConfiguration|注册接口耗时统计Micrometer指标");
+        return fmkEndpointMetricsRegistry::bindTo;
+    }
+
+    /**
+     * 接口耗时统计 actuator 端点 /actuator/fmkendpoints
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(name = "fmk.endpoint-metrics.enabled", havingValue = "true", matchIfMissing = true)
+    @ConditionalOnAvailableEndpoint(endpoint = FmkEndpointMetricsEndpoint.class)
+    public FmkEndpointMetricsEndpoint fmkEndpointMetricsEndpoint(FmkEndpointMetricsRegistry fmkEndpointMetricsRegistry) {
+        log.info("FmkWebAutoConfiguration|注册FmkEndpointMetricsEndpoint");
+        return new FmkEndpointMetricsEndpoint(fmkEndpointMetricsRegistry);
+    }
+
     // ==================== 5. Jackson 序列化配置 ====================
 
     /**
@@ -213,6 +353,7 @@ public class FmkWebAutoConfiguration implements WebMvcConfigurer {
      * - Long 转 String（防止 JS 精度丢失）
      * - BigDecimal 格式化
      * - 空字符串转 null
+     * - IEnumStr / IEnumInt 枚举按 name 或 code 反序列化
      */
     @Bean
     public Jackson2ObjectMapperBuilderCustomizer jacksonCustomizer() {
@@ -222,7 +363,7 @@ public class FmkWebAutoConfiguration implements WebMvcConfigurer {
             customModule.addSerializer(long.class, new LongToStringSerializer());
             customModule.addSerializer(BigDecimal.class, new BigDecimalSerializer());
             customModule.addDeserializer(String.class, new EmptyStringToNullDeserializer());
-            builder.modules(customModule);
+            builder.modules(customModule, new FmkEnumModule());
             log.info("FmkWebAutoConfiguration|配置Jackson序列化器");
         };
     }
@@ -264,6 +405,7 @@ public class FmkWebAutoConfiguration implements WebMvcConfigurer {
         executor.setRejectedExecutionHandler(createRejectionPolicy(properties.getRejectionPolicy(), executor));
         executor.setWaitForTasksToCompleteOnShutdown(properties.isWaitForTasksToCompleteOnShutdown());
         executor.setAwaitTerminationSeconds(properties.getAwaitTerminationSeconds());
+        executor.setScheduling(properties.getScheduling());
 
         executor.initialize();
 
@@ -276,6 +418,21 @@ public class FmkWebAutoConfiguration implements WebMvcConfigurer {
         return executor;
     }
 
+    /**
+     * 虚拟线程执行器
+     * 只在 fmk.thread-pool.virtual.enabled=true 时创建，适合阻塞 I/O 较多的并发调用，按 workload 限制并发
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fmk.thread-pool.virtual.enabled", havingValue = "true")
+    @ConditionalOnMissingBean(name = "fmkVirtualThreadTaskExecutor")
+    public FmkVirtualThreadTaskExecutor fmkVirtualThreadTaskExecutor(FmkThreadPoolProperties properties) {
+        FmkThreadPoolProperties.Virtual virtual = properties.getVirtual();
+        log.info("FmkWebAutoConfiguration|注册FmkVirtualThreadTaskExecutor|defaultConcurrency={}|workloadConcurrency={}",
+                virtual.getDefaultConcurrency(), virtual.getWorkloadConcurrency());
+        return new FmkVirtualThreadTaskExecutor(virtual.getThreadNamePrefix(), virtual.getDefaultConcurrency(),
+                virtual.getWorkloadConcurrency(), properties.getAwaitTerminationSeconds());
+    }
+
     /**
      * 创建拒绝策略处理器
      */
@@ -312,9 +469,15 @@ public class FmkWebAutoConfiguration implements WebMvcConfigurer {
      */
     @Bean
     @ConditionalOnMissingBean(FmkThreadPoolMonitor.class)
-    public FmkThreadPoolMonitor threadPoolMonitor(@Qualifier("fmkThreadPoolTaskExecutor") ThreadPoolTaskExecutor executor) {
-        log.info("FmkWebAutoConfiguration|注册FmkThreadPoolMonitor");
-        return new FmkThreadPoolMonitor(executor);
+    public FmkThreadPoolMonitor threadPoolMonitor(@Qualifier("fmkThreadPoolTaskExecutor") ThreadPoolTaskExecutor executor,
+                                                  FmkThreadPoolProperties properties) {
+        FmkThreadPoolProperties.Adaptive adaptive = properties.getAdaptive();
+        // 以启动时线程池的最大线程数为上限，自适应调整不超过用户的配置
+        FmkThreadPoolAutoSizer autoSizer = adaptive.isEnabled()
+                ? new FmkThreadPoolAutoSizer(adaptive, executor.getMaxPoolSize()) : null;
+        log.info("FmkWebAutoConfiguration|注册FmkThreadPoolMonitor|period={}s|adaptive={}",
+                properties.getMonitoringPeriod(), adaptive.isEnabled());
+        return new FmkThreadPoolMonitor(executor, properties.getMonitoringPeriod(), autoSizer);
     }
 
     // ==================== 7. Token 模块配置 ====================
@@ -1,9 +1,12 @@
 package com.cjlabs.web;
 
+import com.cjlabs.web.metrics.FmkEndpointMetricsInterceptor;
+import com.cjlabs.web.requestinterceptor.FmkAuthenticationInterceptor;
 import com.cjlabs.web.requestinterceptor.FmkContextInterceptor;
 
 import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.context.annotation.Configuration;
@@ -22,6 +25,18 @@ public class FmkWebMvcConfiguration implements WebMvcConfigurer {
     @Autowired(required = false)
     private FmkContextInterceptor contextInterceptor;
 
+    /**
+     * 只在 fmk.auth.enabled=true 时存在
+     */
+    @Autowired
+    private ObjectProvider<FmkAuthenticationInterceptor> authenticationInterceptorProvider;
+
+    /**
+     * 只在 fmk.endpoint-metrics.enabled=true（默认）时存在
+     */
+    @Autowired
+    private ObjectProvider<FmkEndpointMetricsInterceptor> endpointMetricsInterceptorProvider;
+
     // 排除路径列表
     private static final List<String> EXCLUDE_PATHS = Lists.newArrayList(
             "/static/**",
@@ -34,6 +49,16 @@ public class FmkWebMvcConfiguration implements WebMvcConfigurer {
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // 耗时统计拦截器最先执行，包含其他拦截器的耗时和被拦截（401/403）的请求
+        FmkEndpointMetricsInterceptor endpointMetricsInterceptor = endpointMetricsInterceptorProvider.getIfAvailable();
+        if (endpointMetricsInterceptor != null) {
+            registry.addInterceptor(endpointMetricsInterceptor)
+                    .addPathPatterns("/**")
+                    .excludePathPatterns(EXCLUDE_PATHS)
+                    .order(0);
+            log.info("FmkWebMvcConfiguration|配置接口耗时统计拦截器");
+        }
+
         if (contextInterceptor != null) {
             registry.addInterceptor(contextInterceptor)
                     .addPathPatterns("/**")
@@ -43,5 +68,15 @@ public class FmkWebMvcConfiguration implements WebMvcConfigurer {
         } else {
             log.warn("FmkWebMvcConfiguration|FmkContextInterceptor未初始化，跳过拦截器注册");
         }
+
+        // 登录认证拦截器在上下文拦截器之后，需要读取当前用户
+        FmkAuthenticationInterceptor authenticationInterceptor = authenticationInterceptorProvider.getIfAvailable();
+        if (authenticationInterceptor != null) {
+            registry.addInterceptor(authenticationInterceptor)
+                    .addPathPatterns("/**")
+                    .excludePathPatterns(EXCLUDE_PATHS)
+                    .order(2);
+            log.info("FmkWebMvcConfiguration|配置登录认证拦截器");
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.cjlabs.web.anno;
+
+import java.lang.annotation.*;
+
+/**
+ * 管理员权限注解
+ * 标记在 Controller 类或方法上，表示该接口需要登录且是管理员才能访问（方法上的 @NoLogin 优先）
+ * <p>
+ * 使用示例:
+ * 1. 标记在类上：整个 Controller 的所有方法都需要管理员权限
+ *
+ * @AdminAuth
+ * @RestController public class AdminUserController { ... }
+ * <p>
+ * 2. 标记在方法上：只有该方法需要管理员权限
+ * @AdminAuth
+ * @PostMapping("/admin/user/disable") public Result disable() { ... }
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AdminAuth {
+
+    /**
+     * 描述信息（可选）
+     */
+    String value() default "";
+}
@@ -16,8 +16,7 @@ import java.lang.annotation.*;
  * @NoLogin
  * @GetMapping("/public/data") public Result getData() { ... }
  */
-@Target({ElementType.TYPE})
-//@Target({ElementType.TYPE, ElementType.METHOD})
+@Target({ElementType.TYPE, ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface NoLogin {
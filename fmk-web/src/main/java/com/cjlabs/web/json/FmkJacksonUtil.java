@@ -1,5 +1,7 @@
 package com.cjlabs.web.json;
 
+import com.cjlabs.web.serializer.FmkEnumModule;
+
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -47,6 +49,8 @@ public class FmkJacksonUtil {
         mapper.registerModule(new ParameterNamesModule());
         // 支持Java8时间API
         mapper.registerModule(new JavaTimeModule());
+        // IEnumStr / IEnumInt 枚举按 name 或 code 反序列化
+        mapper.registerModule(new FmkEnumModule());
 
         // ============== 序列化配置 ==============
 
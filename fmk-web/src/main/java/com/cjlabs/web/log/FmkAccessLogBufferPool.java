@@ -0,0 +1,53 @@
+package com.cjlabs.web.log;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 请求体缓冲区池
+ * <p>
+ * 请求线程借出，写日志的线程写完后归还；池满时归还的缓冲区直接丢弃，池空时新建
+ */
+final class FmkAccessLogBufferPool {
+
+    private final int bufferSize;
+
+    private final int maxPooled;
+
+    private final ConcurrentLinkedQueue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    FmkAccessLogBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = Math.max(1, bufferSize);
+        this.maxPooled = Math.max(0, maxPooled);
+    }
+
+    byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        if (buffer == null) {
+            return new byte[bufferSize];
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    void release(byte[] buffer) {
+        if (buffer == null || buffer.length != bufferSize) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        buffers.offer(buffer);
+    }
+
+    int bufferSize() {
+        return bufferSize;
+    }
+
+    int pooledCount() {
+        return pooled.get();
+    }
+}
@@ -0,0 +1,64 @@
+package com.cjlabs.web.log;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 一条访问日志
+ * <p>
+ * 请求线程只复制原始值（请求体是借来的缓冲区），由写日志的线程格式化
+ */
+@Getter
+@Setter
+public class FmkAccessLogEvent {
+
+    /**
+     * 记录原因
+     */
+    public enum Reason {
+        SAMPLED,
+        SLOW,
+        ERROR
+    }
+
+    private Reason reason;
+
+    private long startTimeMillis;
+
+    private long costMillis;
+
+    private String method;
+
+    private String uri;
+
+    private String queryString;
+
+    private int status;
+
+    private String traceId;
+
+    private String spanId;
+
+    private Long userId;
+
+    private String clientIp;
+
+    /**
+     * 请求头，按 name, value, name, value... 排列，已脱敏
+     */
+    private String[] headers;
+
+    /**
+     * 请求体前缀（借来的缓冲区，写完后归还）
+     */
+    private byte[] payload;
+
+    private int payloadLength;
+
+    /**
+     * 请求体是否超过记录长度
+     */
+    private boolean payloadTruncated;
+
+    private String characterEncoding;
+}
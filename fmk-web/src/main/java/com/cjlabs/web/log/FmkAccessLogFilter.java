@@ -0,0 +1,359 @@
+package com.cjlabs.web.log;
+
+import com.cjlabs.web.requestinterceptor.FmkPathPatternTrie;
+import com.cjlabs.web.threadlocal.FmkContextUtil;
+import com.cjlabs.web.util.ClientInfoUtil;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 访问日志过滤器，替代 CommonsRequestLoggingFilter
+ * <p>
+ * 请求线程只做三件事：边读边把请求体前缀复制到借来的缓冲区、请求结束时决定是否记录、把原始值放入队列；
+ * 格式化和输出由 {@link FmkAccessLogWriter} 的后台线程完成。
+ * <p>
+ * 是否记录：慢请求和 5xx 响应总是记录，其余按路径采样率（pathSamples，按顺序取第一个匹配的）或默认采样率随机采样；
+ * 路径规则匹配去掉 context path 并解码之后的路径（与鉴权拦截器相同），不匹配原始 URI。
+ * 只记录应用实际读取的请求体（与 ContentCachingRequestWrapper 相同），表单参数不单独记录。
+ * <p>
+ * 异步请求第一次分派结束时还没有响应，开始时间和请求体放在请求属性中，在最后一次分派结束时记录
+ */
+@Slf4j
+public class FmkAccessLogFilter extends OncePerRequestFilter {
+
+    private static final String REDACTED = "***";
+
+    /**
+     * 异步请求未结束时保存 {@link Pending} 的请求属性
+     */
+    private static final String PENDING_ATTRIBUTE = FmkAccessLogFilter.class.getName() + ".PENDING";
+
+    private final FmkAccessLogWriter writer;
+
+    private final double defaultSampleRate;
+
+    private final double[] pathSampleRates;
+
+    private final FmkPathPatternTrie pathSamples = new FmkPathPatternTrie();
+
+    private final long slowThresholdMillis;
+
+    private final boolean alwaysLogErrors;
+
+    private final boolean includeQueryString;
+
+    private final boolean includeHeaders;
+
+    private final boolean includePayload;
+
+    private final Set<String> redactHeaders = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    public FmkAccessLogFilter(FmkAccessLogProperties properties, FmkAccessLogWriter writer) {
+        this.writer = writer;
+        this.defaultSampleRate = properties.getSampleRate();
+        List<FmkAccessLogProperties.PathSample> samples = properties.getPathSamples();
+        if (samples.size() > 31) {
+            throw new RuntimeException("fmk.access-log.path-samples 最多 31 条: " + samples.size());
+        }
+        this.pathSampleRates = new double[samples.size()];
+        for (int i = 0; i < samples.size(); i++) {
+            pathSamples.add(samples.get(i).getPattern(), 1 << i);
+            pathSampleRates[i] = samples.get(i).getRate();
+        }
+        this.slowThresholdMillis = properties.getSlowThresholdMillis();
+        this.alwaysLogErrors = properties.isAlwaysLogErrors();
+        this.includeQueryString = properties.isIncludeQueryString();
+        this.includeHeaders = properties.isIncludeHeaders();
+        this.includePayload = properties.isIncludePayload() && properties.getMaxPayloadLength() > 0;
+        this.redactHeaders.addAll(properties.getRedactHeaders());
+    }
+
+    /**
+     * 异步分派也要经过，最后一次分派结束时记录
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!writer.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Pending pending;
+        HttpServletRequest chainRequest = request;
+        if (isAsyncDispatch(request)) {
+            pending = (Pending) request.getAttribute(PENDING_ATTRIBUTE);
+            if (pending == null) {
+                // 第一次分派时没有收集
+                filterChain.doFilter(request, response);
+                return;
+            }
+        } else {
+            CapturingRequest capturingRequest = includePayload ? new CapturingRequest(request, writer) : null;
+            pending = new Pending(System.currentTimeMillis(), System.nanoTime(), capturingRequest);
+            if (capturingRequest != null) {
+                chainRequest = capturingRequest;
+            }
+        }
+
+        boolean failed = false;
+        try {
+            filterChain.doFilter(chainRequest, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                // 响应还没有产生，等最后一次分派
+                request.setAttribute(PENDING_ATTRIBUTE, pending);
+            } else {
+                request.removeAttribute(PENDING_ATTRIBUTE);
+                record(request, response, pending, failed);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, Pending pending, boolean failed) {
+        long costMillis = (System.nanoTime() - pending.startNanos) / 1_000_000;
+        int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+        CapturingRequest capturingRequest = pending.capturingRequest;
+        byte[] payload = capturingRequest != null ? capturingRequest.buffer : null;
+        // 没有路径采样规则时不需要计算路径
+        String lookupPath = pathSampleRates.length > 0 ? UrlPathHelper.defaultInstance.getLookupPathForRequest(request) : null;
+        FmkAccessLogEvent.Reason reason = decide(lookupPath, status, costMillis);
+        if (reason == null) {
+            writer.releaseBuffer(payload);
+        } else {
+            FmkAccessLogEvent event = createEvent(request, capturingRequest, reason, pending.startTimeMillis, costMillis, status);
+            if (!writer.offer(event)) {
+                writer.releaseBuffer(payload);
+            }
+        }
+    }
+
+    /**
+     * 决定是否记录
+     *
+     * @param lookupPath 应用内路径（不含 context path，已解码），没有路径采样规则时可以为 null
+     * @return 不记录时返回 null
+     */
+    FmkAccessLogEvent.Reason decide(String lookupPath, int status, long costMillis) {
+        if (slowThresholdMillis > 0 && costMillis >= slowThresholdMillis) {
+            return FmkAccessLogEvent.Reason.SLOW;
+        }
+        if (alwaysLogErrors && status >= 500) {
+            return FmkAccessLogEvent.Reason.ERROR;
+        }
+        double rate = defaultSampleRate;
+        if (pathSampleRates.length > 0) {
+            int matched = pathSamples.match(lookupPath);
+            if (matched != 0) {
+                rate = pathSampleRates[Integer.numberOfTrailingZeros(matched)];
+            }
+        }
+        if (rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate)) {
+            return FmkAccessLogEvent.Reason.SAMPLED;
+        }
+        return null;
+    }
+
+    private FmkAccessLogEvent createEvent(HttpServletRequest request, CapturingRequest capturingRequest,
+                                          FmkAccessLogEvent.Reason reason, long startTimeMillis, long costMillis, int status) {
+        FmkAccessLogEvent event = new FmkAccessLogEvent();
+        event.setReason(reason);
+        event.setStartTimeMillis(startTimeMillis);
+        event.setCostMillis(costMillis);
+        event.setMethod(request.getMethod());
+        event.setUri(request.getRequestURI());
+        if (includeQueryString) {
+            event.setQueryString(request.getQueryString());
+        }
+        event.setStatus(status);
+        event.setTraceId(FmkContextUtil.getTraceIdString(null));
+        event.setSpanId(FmkContextUtil.getSpanIdString(null));
+        event.setUserId(FmkContextUtil.getUserIdValue(null));
+        event.setClientIp(ClientInfoUtil.getClientIp(request));
+        if (includeHeaders) {
+            event.setHeaders(copyHeaders(request));
+        }
+        if (capturingRequest != null && capturingRequest.buffer != null) {
+            event.setPayload(capturingRequest.buffer);
+            event.setPayloadLength(capturingRequest.length);
+            event.setPayloadTruncated(capturingRequest.truncated);
+            event.setCharacterEncoding(request.getCharacterEncoding());
+        }
+        return event;
+    }
+
+    /**
+     * 复制请求头，需要脱敏的只记录 ***
+     */
+    private String[] copyHeaders(HttpServletRequest request) {
+        Enumeration<String> names = request.getHeaderNames();
+        if (names == null) {
+            return null;
+        }
+        List<String> headers = new ArrayList<>(32);
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            headers.add(name);
+            headers.add(redactHeaders.contains(name) ? REDACTED : request.getHeader(name));
+        }
+        return headers.toArray(new String[0]);
+    }
+
+    /**
+     * 第一次分派开始时收集的值
+     */
+    private record Pending(long startTimeMillis, long startNanos, CapturingRequest capturingRequest) {
+    }
+
+    /**
+     * 边读边复制请求体前缀，缓冲区在第一次读到数据时才借出
+     */
+    static final class CapturingRequest extends HttpServletRequestWrapper {
+
+        private final FmkAccessLogWriter writer;
+
+        private byte[] buffer;
+
+        private int length;
+
+        private boolean truncated;
+
+        private ServletInputStream inputStream;
+
+        private BufferedReader reader;
+
+        CapturingRequest(HttpServletRequest request, FmkAccessLogWriter writer) {
+            super(request);
+            this.writer = writer;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new CapturingInputStream(super.getInputStream());
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return reader;
+        }
+
+        private void capture(int b) {
+            ensureBuffer();
+            if (length < buffer.length) {
+                buffer[length++] = (byte) b;
+            } else {
+                truncated = true;
+            }
+        }
+
+        private void capture(byte[] bytes, int offset, int count) {
+            if (count <= 0) {
+                return;
+            }
+            ensureBuffer();
+            int copy = Math.min(count, buffer.length - length);
+            if (copy > 0) {
+                System.arraycopy(bytes, offset, buffer, length, copy);
+                length += copy;
+            }
+            if (copy < count) {
+                truncated = true;
+            }
+        }
+
+        private void ensureBuffer() {
+            if (buffer == null) {
+                buffer = writer.acquireBuffer();
+            }
+        }
+
+        private final class CapturingInputStream extends ServletInputStream {
+
+            private final ServletInputStream delegate;
+
+            private CapturingInputStream(ServletInputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = delegate.read();
+                if (b >= 0) {
+                    capture(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int count) throws IOException {
+                int read = delegate.read(bytes, offset, count);
+                if (read > 0) {
+                    capture(bytes, offset, read);
+                }
+                return read;
+            }
+
+            @Override
+            public int readLine(byte[] bytes, int offset, int count) throws IOException {
+                int read = delegate.readLine(bytes, offset, count);
+                if (read > 0) {
+                    capture(bytes, offset, read);
+                }
+                return read;
+            }
+
+            @Override
+            public boolean isFinished() {
+                return delegate.isFinished();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                delegate.setReadListener(readListener);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.cjlabs.web.log;
+
+import com.cjlabs.domain.common.FmkConstant;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 访问日志配置
+ *
+ * 配置示例：
+ * <pre>
+ * fmk:
+ *   access-log:
+ *     enabled: false                # 是否启用访问日志，默认关闭
+ *     sample-rate: 1.0              # 默认采样率（0 ~ 1）
+ *     path-samples:                 # 按路径采样（Ant 风格，按顺序取第一个匹配的），最多 31 条
+ *       - pattern: /api/common/**
+ *         rate: 0.1
+ *     slow-threshold-millis: 1000   # 慢请求阈值（毫秒），慢请求总是记录，0 表示不启用
+ *     always-log-errors: true       # 5xx 响应总是记录
+ *     include-query-string: true
+ *     include-headers: false        # 记录请求头（脱敏后），默认不记录
+ *     include-payload: false        # 记录请求体，默认不记录
+ *     max-payload-length: 10000     # 请求体最多记录的字节数
+ *     redact-headers:               # 只记录 *** 的请求头（不区分大小写）
+ *       - Authorization
+ *     queue-size: 8192              # 待写入队列大小（2 的幂），满了丢弃
+ *     buffer-pool-size: 256         # 请求体缓冲区池大小
+ * </pre>
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fmk.access-log")
+public class FmkAccessLogProperties {
+
+    /**
+     * 是否启用访问日志
+     */
+    private boolean enabled = false;
+
+    /**
+     * 默认采样率（0 ~ 1），没有匹配 pathSamples 时使用
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * 按路径采样，按顺序取第一个匹配的
+     */
+    private List<PathSample> pathSamples = new ArrayList<>();
+
+    /**
+     * 慢请求阈值（毫秒），超过阈值的请求不受采样影响，总是记录；小于等于 0 表示不启用
+     */
+    private long slowThresholdMillis = 1000;
+
+    /**
+     * 5xx 响应总是记录
+     */
+    private boolean alwaysLogErrors = true;
+
+    private boolean includeQueryString = true;
+
+    /**
+     * 记录请求头，可能包含个人信息，默认不记录
+     */
+    private boolean includeHeaders = false;
+
+    /**
+     * 记录请求体，可能包含个人信息，默认不记录
+     */
+    private boolean includePayload = false;
+
+    /**
+     * 请求体最多记录的字节数
+     */
+    private int maxPayloadLength = 10000;
+
+    /**
+     * 只记录 *** 的请求头
+     */
+    private List<String> redactHeaders = new ArrayList<>(List.of(
+            "Authorization",
+            "Proxy-Authorization",
+            "Cookie",
+            FmkConstant.HEADER_USER_TOKEN
+    ));
+
+    /**
+     * 待写入队列大小，向上取 2 的幂；队列满时丢弃，不阻塞请求
+     */
+    private int queueSize = 8192;
+
+    /**
+     * 请求体缓冲区池大小
+     */
+    private int bufferPoolSize = 256;
+
+    /**
+     * 按路径采样的规则
+     */
+    @Getter
+    @Setter
+    public static class PathSample {
+
+        /**
+         * 路径（Ant 风格），匹配不含 context path、已解码的应用内路径
+         */
+        private String pattern;
+
+        /**
+         * 采样率（0 ~ 1）
+         */
+        private double rate;
+    }
+}
@@ -0,0 +1,319 @@
+package com.cjlabs.web.log;
+
+import com.cjlabs.domain.common.FmkConstant;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志写入
+ * <p>
+ * 请求线程调用 {@link #offer} 把事件放入无锁队列后立即返回；后台线程取出事件、格式化并写入 {@link Sink}，
+ * 然后归还请求体缓冲区。队列满时丢弃并计数，写日志慢不会拖慢请求。
+ * 队列为空时后台线程挂起，由 {@link #offer} 唤醒，空闲时不占用 CPU
+ */
+@Slf4j
+public class FmkAccessLogWriter implements InitializingBean, DisposableBean {
+
+    /**
+     * 默认输出的 logger 名称，可以在 logback 中单独配置级别和 appender
+     */
+    public static final String ACCESS_LOGGER_NAME = "FMK_ACCESS_LOG";
+
+    /**
+     * 队列为空时最长挂起时间，正常情况下由 offer 唤醒，只是兜底
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 日志输出
+     */
+    public interface Sink {
+
+        /**
+         * 是否需要输出，返回 false 时过滤器不收集日志
+         */
+        default boolean isEnabled() {
+            return true;
+        }
+
+        /**
+         * 输出一条日志（只在写日志的线程调用）
+         *
+         * @param event 事件，调用结束后请求体缓冲区会被归还，不要持有
+         * @param line  格式化后的日志
+         */
+        void write(FmkAccessLogEvent event, String line);
+    }
+
+    private final FmkAccessLogRingBuffer<FmkAccessLogEvent> queue;
+
+    private final FmkAccessLogBufferPool bufferPool;
+
+    private final Sink sink;
+
+    /**
+     * 保证同一时间只有一个线程取队列（后台线程，或停止时的当前线程）
+     */
+    private final Object drainLock = new Object();
+
+    private final StringBuilder lineBuilder = new StringBuilder(512);
+
+    private final LongAdder enqueuedCount = new LongAdder();
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final LongAdder writtenCount = new LongAdder();
+
+    private volatile boolean running;
+
+    private volatile Thread writerThread;
+
+    /**
+     * 后台线程是否正在（或即将）挂起，offer 看到 true 时唤醒它
+     */
+    private volatile boolean idle;
+
+    /**
+     * @param queueSize      队列大小，向上取 2 的幂
+     * @param payloadLength  请求体最多记录的字节数
+     * @param bufferPoolSize 请求体缓冲区池大小
+     * @param sink           日志输出，为 null 时输出到 {@link #ACCESS_LOGGER_NAME}
+     */
+    public FmkAccessLogWriter(int queueSize, int payloadLength, int bufferPoolSize, Sink sink) {
+        this.queue = new FmkAccessLogRingBuffer<>(queueSize);
+        this.bufferPool = new FmkAccessLogBufferPool(payloadLength, bufferPoolSize);
+        this.sink = sink != null ? sink : new LoggerSink();
+    }
+
+    public boolean isEnabled() {
+        return sink.isEnabled();
+    }
+
+    /**
+     * 放入队列，不阻塞
+     *
+     * @return 队列已满时返回 false，调用方负责归还请求体缓冲区
+     */
+    public boolean offer(FmkAccessLogEvent event) {
+        if (queue.offer(event)) {
+            enqueuedCount.increment();
+            if (idle) {
+                Thread thread = writerThread;
+                if (thread != null) {
+                    LockSupport.unpark(thread);
+                }
+            }
+            return true;
+        }
+        droppedCount.increment();
+        return false;
+    }
+
+    /**
+     * 借出请求体缓冲区
+     */
+    byte[] acquireBuffer() {
+        return bufferPool.acquire();
+    }
+
+    /**
+     * 归还请求体缓冲区
+     */
+    void releaseBuffer(byte[] buffer) {
+        bufferPool.release(buffer);
+    }
+
+    FmkAccessLogBufferPool bufferPool() {
+        return bufferPool;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        start();
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::runLoop, "fmk-access-log-writer");
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+        log.info("FmkAccessLogWriter|start|queueCapacity={}|payloadLength={}", queue.capacity(), bufferPool.bufferSize());
+    }
+
+    /**
+     * 停止后台线程，队列中剩余的事件在当前线程写完
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Thread thread = writerThread;
+        writerThread = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+        log.info("FmkAccessLogWriter|stop|enqueued={}|written={}|dropped={}",
+                enqueuedCount.sum(), writtenCount.sum(), droppedCount.sum());
+    }
+
+    private void runLoop() {
+        while (running) {
+            if (drain() > 0) {
+                continue;
+            }
+            // 先设置标记再检查队列：offer 要么看到标记并唤醒，要么它放入的事件在这里被看到
+            idle = true;
+            if (queue.size() == 0 && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            idle = false;
+        }
+    }
+
+    /**
+     * 写出队列中的全部事件
+     *
+     * @return 写出的数量
+     */
+    int drain() {
+        synchronized (drainLock) {
+            int count = 0;
+            FmkAccessLogEvent event;
+            while ((event = queue.poll()) != null) {
+                try {
+                    sink.write(event, format(event));
+                    writtenCount.increment();
+                } catch (Exception e) {
+                    log.error("FmkAccessLogWriter|drain|写入访问日志失败|uri={}", event.getUri(), e);
+                } finally {
+                    bufferPool.release(event.getPayload());
+                    event.setPayload(null);
+                }
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 格式化一条日志
+     */
+    String format(FmkAccessLogEvent event) {
+        StringBuilder sb = lineBuilder;
+        sb.setLength(0);
+        sb.append("FmkAccessLog|").append(event.getReason())
+                .append('|').append(event.getMethod())
+                .append('|').append(event.getUri());
+        if (event.getQueryString() != null) {
+            sb.append('?').append(event.getQueryString());
+        }
+        sb.append("|status=").append(event.getStatus())
+                .append("|costMs=").append(event.getCostMillis())
+                .append("|ip=").append(event.getClientIp());
+        if (event.getUserId() != null) {
+            sb.append("|userId=").append(event.getUserId());
+        }
+        String[] headers = event.getHeaders();
+        if (headers != null) {
+            sb.append("|headers=[");
+            for (int i = 0; i + 1 < headers.length; i += 2) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(headers[i]).append(':').append(headers[i + 1]);
+            }
+            sb.append(']');
+        }
+        if (event.getPayload() != null && event.getPayloadLength() > 0) {
+            sb.append("|payload=").append(new String(event.getPayload(), 0, event.getPayloadLength(), charset(event)));
+            if (event.isPayloadTruncated()) {
+                sb.append("...(truncated)");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Charset charset(FmkAccessLogEvent event) {
+        String encoding = event.getCharacterEncoding();
+        if (encoding == null) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(encoding);
+        } catch (Exception e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    public long getEnqueuedCount() {
+        return enqueuedCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * 输出到 {@link #ACCESS_LOGGER_NAME}，输出时把 traceId / spanId 放入 MDC，与请求线程的日志格式一致
+     */
+    private static class LoggerSink implements Sink {
+
+        private static final Logger ACCESS_LOG = LoggerFactory.getLogger(ACCESS_LOGGER_NAME);
+
+        @Override
+        public boolean isEnabled() {
+            return ACCESS_LOG.isInfoEnabled();
+        }
+
+        @Override
+        public void write(FmkAccessLogEvent event, String line) {
+            if (event.getTraceId() != null) {
+                MDC.put(FmkConstant.MDC_TRACE_ID, event.getTraceId());
+            }
+            if (event.getSpanId() != null) {
+                MDC.put(FmkConstant.MDC_SPAN_ID, event.getSpanId());
+            }
+            try {
+                ACCESS_LOG.info(line);
+            } finally {
+                MDC.remove(FmkConstant.MDC_TRACE_ID);
+                MDC.remove(FmkConstant.MDC_SPAN_ID);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.cjlabs.web.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 接口耗时统计 actuator 端点
+ * <ul>
+ *     <li>GET /actuator/fmkendpoints?top=20：按 p99 从高到低列出接口</li>
+ *     <li>DELETE /actuator/fmkendpoints：清空耗时分布（例如发布后重新观察）</li>
+ * </ul>
+ */
+@Endpoint(id = "fmkendpoints")
+public class FmkEndpointMetricsEndpoint {
+
+    private final FmkEndpointMetricsRegistry registry;
+
+    public FmkEndpointMetricsEndpoint(FmkEndpointMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> endpoints(@Nullable Integer top) {
+        List<FmkEndpointSnapshot> snapshots = registry.snapshots(top == null ? 0 : top);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("inFlight", registry.getInFlight());
+        result.put("endpointCount", registry.size());
+        result.put("endpoints", snapshots);
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        registry.resetLatency();
+    }
+}
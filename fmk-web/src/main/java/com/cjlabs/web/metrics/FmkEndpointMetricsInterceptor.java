@@ -0,0 +1,61 @@
+package com.cjlabs.web.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 接口耗时统计拦截器
+ * <p>
+ * 只统计 HandlerMethod（Controller 方法），按方法而不是原始 URI 归类，路径变量不会产生新的统计项。
+ * 开始时间和统计项放在 request attribute 中，异步请求在最终 dispatch 的 afterCompletion 中记录
+ */
+public class FmkEndpointMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String START_NANOS_ATTRIBUTE = FmkEndpointMetricsInterceptor.class.getName() + ".START_NANOS";
+
+    private static final String STATS_ATTRIBUTE = FmkEndpointMetricsInterceptor.class.getName() + ".STATS";
+
+    private final FmkEndpointMetricsRegistry registry;
+
+    public FmkEndpointMetricsInterceptor(FmkEndpointMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        // 异步请求再次 dispatch 时沿用第一次的开始时间
+        if (request.getAttribute(START_NANOS_ATTRIBUTE) != null) {
+            return true;
+        }
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        FmkEndpointStats stats = registry.stats(handlerMethod, pattern);
+        stats.requestStarted();
+        request.setAttribute(STATS_ATTRIBUTE, stats);
+        request.setAttribute(START_NANOS_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object startNanos = request.getAttribute(START_NANOS_ATTRIBUTE);
+        Object stats = request.getAttribute(STATS_ATTRIBUTE);
+        if (!(startNanos instanceof Long start) || !(stats instanceof FmkEndpointStats endpointStats)) {
+            return;
+        }
+        request.removeAttribute(START_NANOS_ATTRIBUTE);
+        request.removeAttribute(STATS_ATTRIBUTE);
+
+        int status = response.getStatus();
+        if (ex != null && status < 500) {
+            // 没有被异常处理器处理的异常，最终由容器返回 500
+            status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        }
+        endpointStats.requestFinished(System.nanoTime() - start, status);
+    }
+}
@@ -0,0 +1,45 @@
+package com.cjlabs.web.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 接口耗时统计配置
+ *
+ * 配置示例：
+ * <pre>
+ * fmk:
+ *   endpoint-metrics:
+ *     enabled: true                  # 是否按 HandlerMethod 统计耗时分布
+ *     highest-trackable-millis: 60000 # 可区分的最大耗时（毫秒），更慢的请求按该值记录
+ *     significant-digits: 2          # 直方图精度（有效数字位数，1 ~ 5）
+ *     micrometer-enabled: true       # 是否注册到 Micrometer
+ * </pre>
+ * 统计结果通过 actuator 端点 /actuator/fmkendpoints 查看（需要在 management.endpoints.web.exposure.include 中暴露）
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fmk.endpoint-metrics")
+public class FmkEndpointMetricsProperties {
+
+    /**
+     * 是否启用接口耗时统计
+     */
+    private boolean enabled = true;
+
+    /**
+     * 可区分的最大耗时（毫秒），超过的按该值记录
+     */
+    private long highestTrackableMillis = 60_000;
+
+    /**
+     * 直方图精度（有效数字位数），2 表示误差不超过 1%
+     */
+    private int significantDigits = 2;
+
+    /**
+     * 是否注册到 Micrometer（fmk.endpoint.* 指标）
+     */
+    private boolean micrometerEnabled = true;
+}
@@ -0,0 +1,182 @@
+package com.cjlabs.web.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 接口统计注册表
+ * <p>
+ * 按 HandlerMethod 的 Controller 类和 {@link Method} 保存 {@link FmkEndpointStats}，同一个方法映射的所有路径（包括路径变量）合并统计。
+ * 通过 {@link #bindTo} 注册到 Micrometer 后，每个接口注册以下指标
+ * （tag endpoint=全限定类名#方法名(参数类型)，如 com.demo.OrderController#detail(Long)，重载方法和不同包的同名类不会合并）：
+ * <ul>
+ *     <li>fmk.endpoint.latency：耗时分位数（毫秒），tag quantile=0.5/0.9/0.99/0.999/max；
+ *     分位数是进程启动（或上次调用 {@link #resetLatency}）以来的累计值，不是每次采集之间的窗口值</li>
+ *     <li>fmk.endpoint.requests：累计请求数</li>
+ *     <li>fmk.endpoint.responses：累计响应数，tag status=2xx/3xx/4xx/5xx</li>
+ *     <li>fmk.endpoint.inflight：正在处理的请求数</li>
+ * </ul>
+ */
+@Slf4j
+public class FmkEndpointMetricsRegistry {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final long highestTrackableMillis;
+
+    private final int significantDigits;
+
+    private final Map<EndpointKey, FmkEndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    private final List<MeterRegistry> meterRegistries = new CopyOnWriteArrayList<>();
+
+    public FmkEndpointMetricsRegistry(long highestTrackableMillis, int significantDigits) {
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new RuntimeException("fmk.endpoint-metrics.significant-digits 必须在 1 ~ 5 之间: " + significantDigits);
+        }
+        this.highestTrackableMillis = highestTrackableMillis;
+        this.significantDigits = significantDigits;
+    }
+
+    /**
+     * 取接口的统计，第一次访问时创建
+     *
+     * @param handlerMethod 处理方法
+     * @param pattern       映射路径，只在创建时使用
+     */
+    public FmkEndpointStats stats(HandlerMethod handlerMethod, String pattern) {
+        // 父类中的方法被多个 Controller 继承时 Method 相同，按 Controller 类区分
+        EndpointKey key = new EndpointKey(handlerMethod.getBeanType(), handlerMethod.getMethod());
+        FmkEndpointStats stats = endpoints.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        FmkEndpointStats created = new FmkEndpointStats(endpointName(key), pattern, highestTrackableMillis, significantDigits);
+        stats = endpoints.putIfAbsent(key, created);
+        if (stats != null) {
+            return stats;
+        }
+        for (MeterRegistry meterRegistry : meterRegistries) {
+            register(meterRegistry, created);
+        }
+        log.info("FmkEndpointMetricsRegistry|stats|新增接口统计|endpoint={}|pattern={}", created.getEndpoint(), pattern);
+        return created;
+    }
+
+    /**
+     * 所有接口的快照，按 p99 从高到低排序
+     *
+     * @param top 只返回前 top 个，小于等于 0 时返回全部
+     */
+    public List<FmkEndpointSnapshot> snapshots(int top) {
+        List<FmkEndpointSnapshot> snapshots = new ArrayList<>(endpoints.size());
+        for (FmkEndpointStats stats : endpoints.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        snapshots.sort(Comparator.comparingDouble(FmkEndpointSnapshot::getP99Millis).reversed());
+        if (top > 0 && snapshots.size() > top) {
+            return new ArrayList<>(snapshots.subList(0, top));
+        }
+        return snapshots;
+    }
+
+    /**
+     * 所有接口正在处理的请求数
+     */
+    public long getInFlight() {
+        long sum = 0;
+        for (FmkEndpointStats stats : endpoints.values()) {
+            sum += stats.getInFlight();
+        }
+        return sum;
+    }
+
+    /**
+     * 清空所有接口的耗时分布，之后的分位数只包含清空之后的请求
+     */
+    public void resetLatency() {
+        for (FmkEndpointStats stats : endpoints.values()) {
+            stats.resetLatency();
+        }
+        log.info("FmkEndpointMetricsRegistry|resetLatency|endpoints={}", endpoints.size());
+    }
+
+    public int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * 注册到 Micrometer，之后新增的接口也会注册
+     */
+    public void bindTo(MeterRegistry registry) {
+        // 先加入列表再注册已有接口，并发新增的接口最多重复注册一次，Micrometer 按 id 去重
+        meterRegistries.add(registry);
+        Gauge.builder("fmk.http.inflight", this, FmkEndpointMetricsRegistry::getInFlight)
+                .description("正在处理的请求数")
+                .register(registry);
+        for (FmkEndpointStats stats : endpoints.values()) {
+            register(registry, stats);
+        }
+    }
+
+    /**
+     * 接口名称：全限定类名#方法名(参数类型简单名)
+     */
+    private static String endpointName(EndpointKey key) {
+        StringBuilder name = new StringBuilder(key.beanType().getName())
+                .append('#').append(key.method().getName()).append('(');
+        Class<?>[] parameterTypes = key.method().getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                name.append(',');
+            }
+            name.append(parameterTypes[i].getSimpleName());
+        }
+        return name.append(')').toString();
+    }
+
+    private static void register(MeterRegistry registry, FmkEndpointStats stats) {
+        Tags tags = Tags.of("endpoint", stats.getEndpoint());
+        for (double quantile : QUANTILES) {
+            double percentile = quantile * 100;
+            Gauge.builder("fmk.endpoint.latency", stats, s -> s.percentileMillis(percentile))
+                    .tags(tags).tag("quantile", String.valueOf(quantile))
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        }
+        Gauge.builder("fmk.endpoint.latency", stats, FmkEndpointStats::maxMillis)
+                .tags(tags).tag("quantile", "max")
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionCounter.builder("fmk.endpoint.requests", stats, FmkEndpointStats::getCount)
+                .tags(tags)
+                .register(registry);
+        for (int statusClass = 2; statusClass <= 5; statusClass++) {
+            int current = statusClass;
+            FunctionCounter.builder("fmk.endpoint.responses", stats, s -> s.getStatusClassCount(current))
+                    .tags(tags).tag("status", current + "xx")
+                    .register(registry);
+        }
+        Gauge.builder("fmk.endpoint.inflight", stats, FmkEndpointStats::getInFlight)
+                .tags(tags)
+                .register(registry);
+    }
+
+    /**
+     * 统计项的 key：Controller 类 + 处理方法
+     */
+    private record EndpointKey(Class<?> beanType, Method method) {
+    }
+}
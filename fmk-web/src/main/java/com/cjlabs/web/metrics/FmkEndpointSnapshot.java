@@ -0,0 +1,56 @@
+package com.cjlabs.web.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * 接口统计快照
+ */
+@Getter
+@Setter
+public class FmkEndpointSnapshot {
+
+    /**
+     * 接口名称（全限定类名#方法名(参数类型)）
+     */
+    private String endpoint;
+
+    /**
+     * 映射路径
+     */
+    private String pattern;
+
+    /**
+     * 累计请求数
+     */
+    private long count;
+
+    /**
+     * 正在处理的请求数
+     */
+    private long inFlight;
+
+    /**
+     * 耗时分布中的样本数（重置耗时分布后小于 count）
+     */
+    private long sampleCount;
+
+    private double meanMillis;
+
+    private double maxMillis;
+
+    private double p50Millis;
+
+    private double p90Millis;
+
+    private double p99Millis;
+
+    private double p999Millis;
+
+    /**
+     * 状态码 -> 累计次数，0 表示范围外的状态码
+     */
+    private Map<Integer, Long> statusCounts;
+}
@@ -0,0 +1,191 @@
+package com.cjlabs.web.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个接口（HandlerMethod）的统计
+ * <p>
+ * 请求线程只写 {@link Recorder}（无锁、不分配内存）和 {@link LongAdder}；
+ * 读取时把 Recorder 中新增的部分合并到累计直方图，合并和读取在锁内完成，不影响请求线程。
+ * 耗时按微秒记录
+ */
+public class FmkEndpointStats {
+
+    /**
+     * 状态码计数的下标范围，范围外的状态码记在 0
+     */
+    private static final int MAX_STATUS = 600;
+
+    private final String endpoint;
+
+    private final String pattern;
+
+    private final long highestTrackableMicros;
+
+    private final Recorder recorder;
+
+    /**
+     * 累计直方图，只在 synchronized 中访问
+     */
+    private final Histogram total;
+
+    private Histogram interval;
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder inFlight = new LongAdder();
+
+    private final AtomicReferenceArray<LongAdder> statusCounts = new AtomicReferenceArray<>(MAX_STATUS);
+
+    /**
+     * @param endpoint               接口名称（全限定类名#方法名(参数类型)）
+     * @param pattern                映射路径
+     * @param highestTrackableMillis 可区分的最大耗时（毫秒）
+     * @param significantDigits      直方图精度
+     */
+    public FmkEndpointStats(String endpoint, String pattern, long highestTrackableMillis, int significantDigits) {
+        this.endpoint = endpoint;
+        this.pattern = pattern;
+        this.highestTrackableMicros = Math.max(2, highestTrackableMillis * 1000);
+        this.recorder = new Recorder(highestTrackableMicros, significantDigits);
+        this.total = new Histogram(highestTrackableMicros, significantDigits);
+    }
+
+    /**
+     * 请求开始
+     */
+    public void requestStarted() {
+        inFlight.increment();
+    }
+
+    /**
+     * 请求结束，记录耗时和状态码
+     *
+     * @param costNanos 耗时（纳秒）
+     * @param status    HTTP 状态码
+     */
+    public void requestFinished(long costNanos, int status) {
+        inFlight.decrement();
+        count.increment();
+        long micros = costNanos / 1000;
+        recorder.recordValue(micros < 0 ? 0 : Math.min(micros, highestTrackableMicros));
+        statusCounter(status).increment();
+    }
+
+    private LongAdder statusCounter(int status) {
+        int index = status > 0 && status < MAX_STATUS ? status : 0;
+        LongAdder counter = statusCounts.get(index);
+        if (counter == null) {
+            statusCounts.compareAndSet(index, null, new LongAdder());
+            counter = statusCounts.get(index);
+        }
+        return counter;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    /**
+     * 某个状态码的累计次数，0 表示范围外的状态码
+     */
+    public long getStatusCount(int status) {
+        LongAdder counter = statusCounts.get(status > 0 && status < MAX_STATUS ? status : 0);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * 某类状态码（2 表示 2xx）的累计次数
+     */
+    public long getStatusClassCount(int statusClass) {
+        long sum = 0;
+        int from = statusClass * 100;
+        for (int i = from; i < from + 100 && i < MAX_STATUS; i++) {
+            LongAdder counter = statusCounts.get(i);
+            if (counter != null) {
+                sum += counter.sum();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 累计耗时分位数（毫秒）
+     *
+     * @param percentile 0 ~ 100
+     */
+    public synchronized double percentileMillis(double percentile) {
+        merge();
+        return total.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * 累计最大耗时（毫秒）
+     */
+    public synchronized double maxMillis() {
+        merge();
+        return total.getMaxValue() / 1000.0;
+    }
+
+    /**
+     * 生成快照
+     */
+    public synchronized FmkEndpointSnapshot snapshot() {
+        merge();
+        FmkEndpointSnapshot snapshot = new FmkEndpointSnapshot();
+        snapshot.setEndpoint(endpoint);
+        snapshot.setPattern(pattern);
+        snapshot.setCount(getCount());
+        snapshot.setInFlight(getInFlight());
+        snapshot.setSampleCount(total.getTotalCount());
+        snapshot.setMeanMillis(total.getTotalCount() == 0 ? 0 : total.getMean() / 1000.0);
+        snapshot.setMaxMillis(total.getMaxValue() / 1000.0);
+        snapshot.setP50Millis(total.getValueAtPercentile(50) / 1000.0);
+        snapshot.setP90Millis(total.getValueAtPercentile(90) / 1000.0);
+        snapshot.setP99Millis(total.getValueAtPercentile(99) / 1000.0);
+        snapshot.setP999Millis(total.getValueAtPercentile(99.9) / 1000.0);
+        Map<Integer, Long> statuses = new TreeMap<>();
+        for (int i = 0; i < MAX_STATUS; i++) {
+            LongAdder counter = statusCounts.get(i);
+            if (counter != null) {
+                statuses.put(i, counter.sum());
+            }
+        }
+        snapshot.setStatusCounts(statuses);
+        return snapshot;
+    }
+
+    /**
+     * 清空耗时分布（请求数和状态码计数保持累计，Micrometer 计数器要求单调递增）
+     */
+    public synchronized void resetLatency() {
+        merge();
+        total.reset();
+    }
+
+    /**
+     * 把 Recorder 中新增的部分合并到累计直方图
+     */
+    private void merge() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+    }
+}
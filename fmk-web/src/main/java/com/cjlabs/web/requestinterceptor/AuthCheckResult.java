@@ -1,10 +1,10 @@
-// package com.cjlabs.web.requestinterceptor;
-//
-// /**
-//  * 认证检查结果枚举
-//  */
-// public enum AuthCheckResult {
-//     ALLOW,          // 允许访问
-//     REQUIRE_ADMIN,  // 需要管理员权限
-//     CONTINUE        // 继续后续检查
-// }
\ No newline at end of file
+package com.cjlabs.web.requestinterceptor;
+
+/**
+ * 认证检查结果枚举
+ */
+public enum AuthCheckResult {
+    ALLOW,          // 允许访问
+    REQUIRE_ADMIN,  // 需要管理员权限
+    CONTINUE        // 继续后续检查
+}
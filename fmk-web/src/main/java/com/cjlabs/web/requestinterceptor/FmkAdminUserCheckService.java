@@ -1,22 +1,13 @@
-// package com.cjlabs.web.requestinterceptor;
-//
-// import com.xodo.business.admin.sysrole.service.SysRoleService;
-// import com.xodo.business.admin.sysuser.resp.SysAdminUserResponse;
-// import com.xodo.business.admin.sysuser.service.SysAdminUserService;
-// import org.springframework.beans.factory.annotation.Autowired;
-// import org.springframework.stereotype.Component;
-//
-// import java.util.Objects;
-//
-// @Component
-// public class FmkAdminUserCheckService {
-//     @Autowired
-//     private SysAdminUserService sysAdminUserService;
-//     @Autowired
-//     private SysRoleService sysRoleService;
-//
-//     public boolean checkRole() {
-//         SysAdminUserResponse sysUserDetail = sysAdminUserService.getSysUserDetail();
-//         return Objects.nonNull(sysUserDetail);
-//     }
-// }
+package com.cjlabs.web.requestinterceptor;
+
+/**
+ * 管理员权限检查，由业务实现（如查询当前用户的后台账号和角色）
+ * 没有实现时，需要管理员权限的接口一律拒绝
+ */
+public interface FmkAdminUserCheckService {
+
+    /**
+     * 当前登录用户是否有管理员权限
+     */
+    boolean checkRole();
+}
@@ -0,0 +1,52 @@
+package com.cjlabs.web.requestinterceptor;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 登录认证拦截器配置
+ *
+ * 配置示例：
+ * <pre>
+ * fmk:
+ *   auth:
+ *     enabled: true                  # 是否启用登录认证拦截器（默认不启用）
+ *     whitelist:                     # 不需要登录的路径（Ant 风格）
+ *       - /api/front/user/loginOrRegister
+ *       - /api/common/**
+ *     admin-paths:                   # 需要管理员权限的路径（Ant 风格）
+ *       - /api/admin/**
+ *     maintenance-refresh-seconds: 10  # 维护公告刷新间隔（秒）
+ * </pre>
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fmk.auth")
+public class FmkAuthProperties {
+
+    /**
+     * 是否启用登录认证拦截器
+     */
+    private boolean enabled = false;
+
+    /**
+     * 不需要登录的路径
+     */
+    private List<String> whitelist = new ArrayList<>(List.of(
+            "/favicon.ico"
+    ));
+
+    /**
+     * 需要管理员权限的路径
+     */
+    private List<String> adminPaths = new ArrayList<>();
+
+    /**
+     * 维护公告刷新间隔（秒），小于等于 0 表示只在启动时读取一次
+     */
+    private long maintenanceRefreshSeconds = 10;
+}
@@ -1,290 +1,229 @@
-// package com.cjlabs.web.requestinterceptor;
-//
-// import com.xodo.business.common.dict.bo.DictMaintenanceNoticeBO;
-// import com.xodo.business.common.dict.service.CommonDictInfoServiceV2;
-// import com.xodo.fmk.core.FmkResult;
-// import com.xodo.fmk.jdk.basetype.type.FmkUserId;
-// import com.xodo.fmk.json.FmkJacksonUtil;
-// import com.xodo.fmk.web.FmkContextUtil;
-// import com.xodo.fmk.web.annotation.AdminAuth;
-// import com.xodo.fmk.web.annotation.NoAuth;
-// import com.xodo.fmk.web.exception.ExceptionDbInterface;
-// import com.xodo.fmk.web.exception.ExceptionService;
-// import lombok.extern.slf4j.Slf4j;
-// import org.apache.commons.lang3.StringUtils;
-// import org.springframework.beans.factory.annotation.Autowired;
-// import org.springframework.http.MediaType;
-// import org.springframework.stereotype.Component;
-// import org.springframework.util.AntPathMatcher;
-// import org.springframework.web.bind.annotation.RequestMethod;
-// import org.springframework.web.method.HandlerMethod;
-// import org.springframework.web.servlet.HandlerInterceptor;
-//
-// import javax.servlet.http.HttpServletRequest;
-// import javax.servlet.http.HttpServletResponse;
-// import java.io.IOException;
-// import java.nio.charset.StandardCharsets;
-// import java.util.Optional;
-// import java.util.Set;
-//
-// import static com.xodo.fmk.common.FmkConstant.API_PREFIX;
-//
-// /**
-//  * 登录认证拦截器
-//  * 验证用户是否已登录，对于需要登录的接口进行拦截
-//  */
-// @Slf4j
-// @Component
-// public class FmkAuthenticationInterceptor implements HandlerInterceptor {
-//     @Autowired
-//     private FmkAdminUserCheckService fmkAdminUserCheckService;
-//     @Autowired
-//     private ExceptionService exceptionService;
-//     @Autowired
-//     private CommonDictInfoServiceV2 commonDictInfoServiceV2;
-//
-//     private final AntPathMatcher pathMatcher = new AntPathMatcher();
-//
-//     /**
-//      * 不需要登录的接口路径列表（白名单）
-//      */
-//     private static final Set<String> NO_AUTH_REQUIRED_PATHS = Set.of(
-//             // API_PREFIX + "/front/user/register",
-//             // API_PREFIX + "/front/user/tg/register",
-//             API_PREFIX + "/front/user/loginOrRegister",
-//             API_PREFIX + "/admin/sysAdminUser/login",
-//
-//             API_PREFIX + "/common/**",
-//
-//             "/favicon.ico"
-//     );
-//
-//     /**
-//      * 系统管理接口（需要特殊权限）
-//      */
-//     private static final Set<String> ADMIN_REQUIRED_PATHS = Set.of(
-//             API_PREFIX + "/admin/**"
-//     );
-//
-//     @Override
-//     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-//         try {
-//             // 对于OPTIONS请求，直接放行
-//             if (RequestMethod.OPTIONS.name().equalsIgnoreCase(request.getMethod())) {
-//                 return true;
-//             }
-//
-//             Optional<DictMaintenanceNoticeBO> systemMaintenanceConfig = commonDictInfoServiceV2.getSystemMaintenanceConfig();
-//             if (systemMaintenanceConfig.isPresent()) {
-//                 DictMaintenanceNoticeBO dictMaintenanceNoticeBO = systemMaintenanceConfig.get();
-//                 if (dictMaintenanceNoticeBO.isEnabledFlag()) {
-//                     sendErrorResponse(response, 500,
-//                             dictMaintenanceNoticeBO.getZhMsg(), dictMaintenanceNoticeBO.getEnMsg(),
-//                             null, null);
-//                     return false;
-//                 }
-//             }
-//
-//
-//             String requestPath = request.getRequestURI();
-//             log.info("Authentication check for path: {}", requestPath);
-//
-//             // 检查方法级别的注解（优先级最高）
-//             AuthCheckResult annotationResult = checkAnnotations(handler, requestPath);
-//             if (annotationResult != AuthCheckResult.CONTINUE) {
-//                 return handleAuthResult(annotationResult, response, requestPath);
-//             }
-//
-//             // 检查是否在白名单中
-//             if (isPathInWhitelist(requestPath)) {
-//                 log.info("Path in whitelist, allowing access: {}", requestPath);
-//                 return true;
-//             }
-//
-//             // 检查用户是否已登录
-//             Optional<FmkUserId> userIdOptional = FmkContextUtil.getUserId();
-//             if (userIdOptional.isEmpty()) {
-//                 log.warn("User not logged in for path: {}", requestPath);
-//                 handleUnauthorized(response, "用户未登录，请先登录", "User not logged in, please login first");
-//                 return false;
-//             }
-//
-//             FmkUserId userId = userIdOptional.get();
-//
-//             // 检查管理员接口权限
-//             if (isAdminPath(requestPath)) {
-//                 boolean checkedRole = fmkAdminUserCheckService.checkRole();
-//                 if (checkedRole == false) {
-//                     log.warn("Non-admin user trying to access admin path: userId={}, path={}", userId, requestPath);
-//                     handleForbidden(response, "权限不足，需要管理员权限", "Insufficient permissions, admin access required");
-//                     return false;
-//                 }
-//                 log.info("Admin access granted: userId={}, path={}", userId, requestPath);
-//             }
-//
-//             log.info("Authentication successful: userId={}, path={}", userId, requestPath);
-//             return true;
-//
-//         } catch (Exception e) {
-//             log.error("Authentication check failed for path: {}", request.getRequestURI(), e);
-//             return handleException(response, e);
-//         }
-//     }
-//
-//     /**
-//      * 检查方法和类级别的注解
-//      */
-//     private AuthCheckResult checkAnnotations(Object handler, String requestPath) {
-//         if (!(handler instanceof HandlerMethod)) {
-//             return AuthCheckResult.CONTINUE;
-//         }
-//
-//         HandlerMethod handlerMethod = (HandlerMethod) handler;
-//
-//         // 检查 @NoAuth 注解（方法级别优先）
-//         NoAuth noAuth = handlerMethod.getMethodAnnotation(NoAuth.class);
-//         if (noAuth == null) {
-//             noAuth = handlerMethod.getBeanType().getAnnotation(NoAuth.class);
-//         }
-//
-//         if (noAuth != null) {
-//             log.info("@NoAuth annotation found, allowing access: {}", requestPath);
-//             return AuthCheckResult.ALLOW;
-//         }
-//
-//         // 检查 @AdminAuth 注解
-//         AdminAuth adminAuth = handlerMethod.getMethodAnnotation(AdminAuth.class);
-//         if (adminAuth == null) {
-//             adminAuth = handlerMethod.getBeanType().getAnnotation(AdminAuth.class);
-//         }
-//
-//         if (adminAuth != null) {
-//             log.info("@AdminAuth annotation found, admin access required: {}", requestPath);
-//             return AuthCheckResult.REQUIRE_ADMIN;
-//         }
-//
-//         return AuthCheckResult.CONTINUE;
-//     }
-//
-//     /**
-//      * 处理认证检查结果
-//      */
-//     private boolean handleAuthResult(AuthCheckResult result, HttpServletResponse response, String requestPath) {
-//         if (result == null) {
-//             return true; // 这里保持与 default 分支一致
-//         }
-//
-//         switch (result) {
-//             case ALLOW:
-//                 return true;
-//             case REQUIRE_ADMIN:
-//                 Optional<FmkUserId> userIdOptional = FmkContextUtil.getUserId();
-//                 if (userIdOptional.isEmpty()) {
-//                     try {
-//                         handleUnauthorized(response, "用户未登录，请先登录", "User not logged in, please login first");
-//                     } catch (IOException e) {
-//                         log.error("Failed to send unauthorized response", e);
-//                     }
-//                     return false;
-//                 }
-//
-//                 boolean checkedRole = fmkAdminUserCheckService.checkRole();
-//                 if (checkedRole == false) {
-//                     try {
-//                         handleForbidden(response, "权限不足，需要管理员权限", "Insufficient permissions, admin access required");
-//                     } catch (IOException e) {
-//                         log.error("Failed to send forbidden response", e);
-//                     }
-//                     return false;
-//                 }
-//                 return true;
-//             default:
-//                 return true;
-//         }
-//     }
-//
-//     /**
-//      * 检查路径是否在白名单中
-//      */
-//     private boolean isPathInWhitelist(String requestPath) {
-//         return NO_AUTH_REQUIRED_PATHS.stream()
-//                 .anyMatch(pattern -> pathMatcher.match(pattern, requestPath));
-//     }
-//
-//     /**
-//      * 检查是否是管理员路径
-//      */
-//     private boolean isAdminPath(String requestPath) {
-//         return ADMIN_REQUIRED_PATHS.stream()
-//                 .anyMatch(pattern -> pathMatcher.match(pattern, requestPath));
-//     }
-//
-//     /**
-//      * 处理未授权访问 (401)
-//      */
-//     private void handleUnauthorized(HttpServletResponse response, String zhMessage, String enMessage) throws IOException {
-//         sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, zhMessage, enMessage,
-//                 ExceptionDbInterface.AUTHENTICATION_USER.AUTHENTICATION_USER,
-//                 ExceptionDbInterface.AUTHENTICATION_USER.MsgValue.TOKEN_EXPIRED);
-//     }
-//
-//     /**
-//      * 处理权限不足 (403)
-//      */
-//     private void handleForbidden(HttpServletResponse response, String zhMessage, String enMessage) throws IOException {
-//         sendErrorResponse(response, HttpServletResponse.SC_FORBIDDEN, zhMessage, enMessage,
-//                 ExceptionDbInterface.AUTHENTICATION_USER.AUTHENTICATION_USER,
-//                 ExceptionDbInterface.AUTHENTICATION_USER.MsgValue.TOKEN_EXPIRED);
-//     }
-//
-//     /**
-//      * 发送错误响应
-//      */
-//     private void sendErrorResponse(HttpServletResponse response,
-//                                    int statusCode,
-//                                    String zhMessage,
-//                                    String enMessage,
-//                                    String msgType,
-//                                    String msgKey) throws IOException {
-//         response.setStatus(statusCode);
-//         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-//         response.setCharacterEncoding(StandardCharsets.UTF_8.name());
-//
-//         String errorMessage = getErrorMessage(msgType, msgKey, zhMessage, enMessage);
-//         FmkResult<Object> result = FmkResult.error(statusCode, errorMessage);
-//         String jsonResponse = FmkJacksonUtil.toJson(result);
-//
-//         response.getWriter().write(jsonResponse);
-//         response.getWriter().flush();
-//
-//         log.info("Error response sent: status={}, message={}", statusCode, errorMessage);
-//     }
-//
-//     /**
-//      * 获取错误消息
-//      */
-//     private String getErrorMessage(String msgType, String msgKey, String zhMessage, String enMessage) {
-//         try {
-//             if (StringUtils.isNotBlank(zhMessage) && StringUtils.isNotBlank(enMessage)) {
-//                 return exceptionService.commonErrorMsg(zhMessage, enMessage);
-//             }
-//             return exceptionService.errorMsg(msgType, msgKey);
-//         } catch (Exception e) {
-//             log.warn("Failed to get error message from exception service, using default message", e);
-//             return exceptionService.commonErrorMsg(zhMessage, enMessage);
-//         }
-//     }
-//
-//     /**
-//      * 处理异常情况
-//      */
-//     private boolean handleException(HttpServletResponse response, Exception e) {
-//         try {
-//             handleUnauthorized(response, "认证检查失败", "Authentication check failed");
-//         } catch (IOException ioException) {
-//             log.error("Failed to send error response", ioException);
-//         }
-//         return false;
-//     }
-//
-// }
\ No newline at end of file
+package com.cjlabs.web.requestinterceptor;
+
+import com.cjlabs.core.types.longs.FmkUserId;
+import com.cjlabs.web.anno.AdminAuth;
+import com.cjlabs.web.anno.NoLogin;
+import com.cjlabs.web.json.FmkJacksonUtil;
+import com.cjlabs.web.threadlocal.FmkContextUtil;
+import com.cjlabs.web.threadlocal.FmkResult;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 登录认证拦截器
+ * 验证用户是否已登录，对于需要登录的接口进行拦截
+ * <p>
+ * 检查顺序：
+ * 1. OPTIONS 请求直接放行
+ * 2. 系统维护中返回维护公告（读取 {@link FmkMaintenanceSnapshot} 的内存快照）
+ * 3. 接口上的 @NoLogin / @AdminAuth（方法上的优先于类上的），每个接口方法只解析一次
+ * 4. 白名单路径放行
+ * 5. 未登录返回 401
+ * 6. 管理员路径检查管理员权限，没有权限返回 403
+ * <p>
+ * 白名单和管理员路径在创建时编译成 {@link FmkPathPatternTrie}，匹配耗时与路径数量无关。
+ * 匹配的是 Spring MVC 查找接口时使用的路径：去掉 context path 和 ; 参数并解码，
+ * 不能通过 /api/admin;x=1/...、/api/%61dmin/... 或带 context path 的原始 URI 绕过
+ */
+@Slf4j
+public class FmkAuthenticationInterceptor implements HandlerInterceptor {
+
+    /**
+     * 白名单路径的标记
+     */
+    static final int FLAG_WHITELIST = 1;
+
+    /**
+     * 管理员路径的标记
+     */
+    static final int FLAG_ADMIN = 1 << 1;
+
+    static final String ERROR_TYPE = "AUTHENTICATION";
+    static final String NOT_LOGIN = "NOT_LOGIN";
+    static final String NO_PERMISSION = "NO_PERMISSION";
+    static final String MAINTENANCE = "MAINTENANCE";
+    static final String CHECK_FAILED = "CHECK_FAILED";
+
+    private final FmkPathPatternTrie pathPatterns = new FmkPathPatternTrie();
+
+    /**
+     * 接口方法的注解检查结果
+     */
+    private final Map<Method, AuthCheckResult> policyCache = new ConcurrentHashMap<>();
+
+    private final FmkAdminUserCheckService fmkAdminUserCheckService;
+
+    private final FmkMaintenanceSnapshot maintenanceSnapshot;
+
+    /**
+     * @param whitelist                不需要登录的路径
+     * @param adminPaths               需要管理员权限的路径
+     * @param fmkAdminUserCheckService 管理员权限检查，为 null 时需要管理员权限的接口一律拒绝
+     * @param maintenanceSnapshot      维护公告，为 null 时不检查
+     */
+    public FmkAuthenticationInterceptor(Collection<String> whitelist,
+                                        Collection<String> adminPaths,
+                                        FmkAdminUserCheckService fmkAdminUserCheckService,
+                                        FmkMaintenanceSnapshot maintenanceSnapshot) {
+        if (whitelist != null) {
+            whitelist.forEach(pattern -> pathPatterns.add(pattern, FLAG_WHITELIST));
+        }
+        if (adminPaths != null) {
+            adminPaths.forEach(pattern -> pathPatterns.add(pattern, FLAG_ADMIN));
+        }
+        this.fmkAdminUserCheckService = fmkAdminUserCheckService;
+        this.maintenanceSnapshot = maintenanceSnapshot;
+        log.info("FmkAuthenticationInterceptor|初始化|whitelist={}|adminPaths={}|adminCheck={}",
+                whitelist, adminPaths, fmkAdminUserCheckService != null);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        try {
+            // 对于OPTIONS请求，直接放行
+            if (RequestMethod.OPTIONS.name().equalsIgnoreCase(request.getMethod())) {
+                return true;
+            }
+
+            if (maintenanceSnapshot != null) {
+                Optional<FmkMaintenanceNotice> notice = maintenanceSnapshot.getActiveNotice();
+                if (notice.isPresent()) {
+                    sendErrorResponse(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, MAINTENANCE, notice.get());
+                    return false;
+                }
+            }
+
+            String requestPath = UrlPathHelper.defaultInstance.getLookupPathForRequest(request);
+
+            // 检查方法级别的注解（优先级最高）
+            AuthCheckResult annotationResult = checkAnnotations(handler);
+            if (annotationResult == AuthCheckResult.ALLOW) {
+                return true;
+            }
+            if (annotationResult == AuthCheckResult.REQUIRE_ADMIN) {
+                return checkLogin(response, requestPath) && checkAdmin(response, requestPath);
+            }
+
+            int flags = pathPatterns.match(requestPath);
+            // 检查是否在白名单中
+            if ((flags & FLAG_WHITELIST) != 0) {
+                return true;
+            }
+
+            // 检查用户是否已登录
+            if (!checkLogin(response, requestPath)) {
+                return false;
+            }
+
+            // 检查管理员接口权限
+            if ((flags & FLAG_ADMIN) != 0) {
+                return checkAdmin(response, requestPath);
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("FmkAuthenticationInterceptor|preHandle|认证检查失败|path={}", request.getRequestURI(), e);
+            try {
+                sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, CHECK_FAILED, null);
+            } catch (IOException ioException) {
+                log.error("FmkAuthenticationInterceptor|preHandle|发送错误响应失败", ioException);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 检查方法和类级别的注解，每个接口方法只解析一次
+     */
+    AuthCheckResult checkAnnotations(Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return AuthCheckResult.CONTINUE;
+        }
+        return policyCache.computeIfAbsent(handlerMethod.getMethod(),
+                method -> resolvePolicy(method, handlerMethod.getBeanType()));
+    }
+
+    /**
+     * 方法上的注解优先于类上的注解，同一位置上 @NoLogin 优先于 @AdminAuth
+     */
+    private static AuthCheckResult resolvePolicy(Method method, Class<?> beanType) {
+        if (AnnotatedElementUtils.hasAnnotation(method, NoLogin.class)) {
+            return AuthCheckResult.ALLOW;
+        }
+        if (AnnotatedElementUtils.hasAnnotation(method, AdminAuth.class)) {
+            return AuthCheckResult.REQUIRE_ADMIN;
+        }
+        if (AnnotatedElementUtils.hasAnnotation(beanType, NoLogin.class)) {
+            return AuthCheckResult.ALLOW;
+        }
+        if (AnnotatedElementUtils.hasAnnotation(beanType, AdminAuth.class)) {
+            return AuthCheckResult.REQUIRE_ADMIN;
+        }
+        return AuthCheckResult.CONTINUE;
+    }
+
+    /**
+     * 已解析的接口方法数量
+     */
+    int policyCacheSize() {
+        return policyCache.size();
+    }
+
+    /**
+     * 检查是否已登录，未登录时返回 401
+     */
+    private boolean checkLogin(HttpServletResponse response, String requestPath) throws IOException {
+        Optional<FmkUserId> userIdOptional = FmkContextUtil.getUserId();
+        if (userIdOptional.isEmpty()) {
+            log.warn("FmkAuthenticationInterceptor|checkLogin|用户未登录|path={}", requestPath);
+            sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, NOT_LOGIN, null);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 检查管理员权限，没有权限时返回 403
+     */
+    private boolean checkAdmin(HttpServletResponse response, String requestPath) throws IOException {
+        boolean checkedRole = fmkAdminUserCheckService != null && fmkAdminUserCheckService.checkRole();
+        if (!checkedRole) {
+            log.warn("FmkAuthenticationInterceptor|checkAdmin|非管理员访问管理员接口|userId={}|path={}",
+                    FmkContextUtil.getUserId().orElse(null), requestPath);
+            sendErrorResponse(response, HttpServletResponse.SC_FORBIDDEN, NO_PERMISSION, null);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 发送错误响应
+     */
+    private void sendErrorResponse(HttpServletResponse response, int statusCode, String errorKey, Object data) throws IOException {
+        response.setStatus(statusCode);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        FmkResult<Object> result = FmkResult.error(statusCode, ERROR_TYPE, errorKey);
+        result.setData(data);
+        response.getWriter().write(FmkJacksonUtil.toJson(result));
+        response.getWriter().flush();
+
+        log.debug("FmkAuthenticationInterceptor|sendErrorResponse|status={}|errorKey={}", statusCode, errorKey);
+    }
+}
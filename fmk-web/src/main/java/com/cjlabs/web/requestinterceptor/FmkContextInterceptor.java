@@ -1,6 +1,5 @@
 package com.cjlabs.web.requestinterceptor;
 
-import com.cjlabs.core.types.longs.FmkUserId;
 import com.cjlabs.core.types.strings.FmkToken;
 import com.cjlabs.core.types.strings.FmkTraceId;
 import com.cjlabs.domain.enums.ClientTypeEnum;
@@ -8,6 +7,7 @@ import com.cjlabs.domain.enums.FmkLanguageEnum;
 import com.cjlabs.domain.enums.IEnumStr;
 import com.cjlabs.web.threadlocal.FmkClientInfo;
 import com.cjlabs.web.threadlocal.FmkContextInfo;
+import com.cjlabs.web.threadlocal.FmkContextLoader;
 import com.cjlabs.web.threadlocal.FmkContextUtil;
 import com.cjlabs.web.threadlocal.FmkUserInfo;
 import com.cjlabs.web.token.IFmkTokenService;
@@ -24,13 +24,19 @@ import org.springframework.web.servlet.HandlerInterceptor;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.cjlabs.domain.common.FmkConstant.*;
 
 /**
  * 上下文拦截器
- * 在请求开始时设置上下文信息，请求结束时清理
+ * 在请求开始时给上下文设置按需加载（{@link RequestContextLoader}），请求结束时解除
+ * <p>
+ * Token 校验、客户端信息、语言和请求头在接口第一次读取时才解析，没有用到的不解析；
+ * 带 Token 的请求在 preHandle 中记录活跃时间（不查询存储），接口不读取用户时 Token 也会续期；
+ * 伪造的 Token 不会无限占用内存，见 {@link IFmkTokenService#touchToken}
  */
 @Slf4j
 public class FmkContextInterceptor implements HandlerInterceptor {
@@ -82,22 +88,23 @@ public class FmkContextInterceptor implements HandlerInterceptor {
 
             FmkContextInfo contextInfo = contextInfoOpt.get();
 
-            // 设置客户端信息
-            setClientInfo(request, contextInfo);
-
-            // 设置用户信息
-            setUserInfo(request, contextInfo);
+            // 设置请求URI（如果TraceFilter已经设置，则不需要再设置）
+            if (contextInfo.getRequestUri() == null) {
+                contextInfo.setRequestUri(request.getRequestURI());
+            }
 
-            // 设置请求信息
-            setRequestInfo(request, contextInfo);
+            // 其他信息在第一次读取时加载
+            contextInfo.attachLoader(new RequestContextLoader(request));
 
-            // 设置请求头信息
-            setHeaders(request, contextInfo);
+            // 活跃时间与接口是否读取用户无关
+            FmkToken fmkToken = contextInfo.getToken();
+            if (fmkToken != null && fmkTokenService != null) {
+                fmkTokenService.touchToken(fmkToken);
+            }
 
             if (log.isDebugEnabled()) {
-                log.debug("FmkContextInterceptor|preHandle|上下文信息增强完成|uri={}|userId={}|traceId={}",
+                log.debug("FmkContextInterceptor|preHandle|上下文按需加载已设置|uri={}|traceId={}",
                         request.getRequestURI(),
-                        Optional.ofNullable(contextInfo.getUserId()).map(FmkUserId::getValue).orElse(null),
                         Optional.ofNullable(contextInfo.getTraceId()).map(FmkTraceId::getValue).orElse(null));
             }
         } catch (Exception e) {
@@ -113,8 +120,9 @@ public class FmkContextInterceptor implements HandlerInterceptor {
                                 Object handler,
                                 Exception ex) {
         // 不需要清理上下文，由TraceFilter负责
-        // 只清理MDC中的用户ID，因为这是在拦截器中设置的
+        // 解除按需加载（请求对象即将回收），清理MDC中的用户ID，因为这是在拦截器中设置的
         try {
+            FmkContextUtil.getContextInfo().ifPresent(FmkContextInfo::detachLoader);
             MDC.remove(MDC_USER_ID);
 
             if (log.isDebugEnabled()) {
@@ -126,59 +134,61 @@ public class FmkContextInterceptor implements HandlerInterceptor {
     }
 
     /**
-     * 设置用户信息
+     * 加载 Token
+     */
+    private FmkToken loadToken(HttpServletRequest request) {
+        String userToken = request.getHeader(HEADER_USER_TOKEN);
+        if (StringUtils.isBlank(userToken)) {
+            if (log.isDebugEnabled()) {
+                log.debug("FmkContextInterceptor|loadToken|未提供用户Token");
+            }
+            return null;
+        }
+        return FmkToken.ofNullable(userToken);
+    }
+
+    /**
+     * 加载用户信息
      */
-    private void setUserInfo(HttpServletRequest request, FmkContextInfo contextInfo) {
+    private FmkUserInfo loadUserInfo(HttpServletRequest request, FmkToken fmkToken) {
         if (fmkTokenService == null) {
-            log.warn("FmkContextInterceptor|setUserInfo|Token服务未启用");
-            return;
+            log.warn("FmkContextInterceptor|loadUserInfo|Token服务未启用");
+            return null;
+        }
+        if (fmkToken == null) {
+            // 检查是否需要设置系统用户
+            // setSystemUserIfNeeded(request, contextInfo);
+            return null;
         }
 
         try {
-            String userToken = request.getHeader(HEADER_USER_TOKEN);
-            if (StringUtils.isBlank(userToken)) {
-                if (log.isDebugEnabled()) {
-                    log.debug("FmkContextInterceptor|setUserInfo|未提供用户Token");
-                }
-                // 检查是否需要设置系统用户
+            Optional<FmkUserInfo> userInfoOptional = fmkTokenService.getUserInfoByToken(fmkToken);
+            if (userInfoOptional.isEmpty()) {
+                log.warn("FmkContextInterceptor|loadUserInfo|Token验证失败|token={}",
+                        maskToken(fmkToken.getValue()));
+                // Token验证失败，检查是否需要设置系统用户
                 // setSystemUserIfNeeded(request, contextInfo);
-                return;
+                return null;
             }
 
-            // 设置 token 到上下文
-            FmkToken fmkToken = FmkToken.ofNullable(userToken);
-            contextInfo.setToken(fmkToken);
+            FmkUserInfo fmkUserInfo = userInfoOptional.get();
 
-            Optional<FmkUserInfo> userInfoOptional = fmkTokenService.getUserInfoByToken(fmkToken);
-            userInfoOptional.ifPresentOrElse(
-                    fmkUserInfo -> {
-                        // 设置用户信息和ID
-                        contextInfo.setUserInfo(fmkUserInfo);
-                        contextInfo.setUserId(fmkUserInfo.getUserId());
-
-                        // 添加用户ID到MDC，便于日志追踪
-                        MDC.put(MDC_USER_ID, String.valueOf(fmkUserInfo.getUserId().getValue()));
-
-                        // 获取并设置设备信息到Token服务中（用于活跃状态更新）
-                        updateTokenClientInfo(request, fmkToken);
-
-                        if (log.isDebugEnabled()) {
-                            log.debug("FmkContextInterceptor|setUserInfo|用户信息设置成功|userId={}",
-                                    fmkUserInfo.getUserId().getValue());
-                        }
-                    },
-                    () -> {
-                        log.warn("FmkContextInterceptor|setUserInfo|Token验证失败|token={}",
-                                maskToken(userToken));
-                        // Token验证失败，检查是否需要设置系统用户
-                        // setSystemUserIfNeeded(request, contextInfo);
-                    }
-            );
+            // 添加用户ID到MDC，便于日志追踪
+            MDC.put(MDC_USER_ID, String.valueOf(fmkUserInfo.getUserId().getValue()));
+
+            // 获取并设置设备信息到Token服务中（用于活跃状态更新）
+            updateTokenClientInfo(request, fmkToken);
 
+            if (log.isDebugEnabled()) {
+                log.debug("FmkContextInterceptor|loadUserInfo|用户信息加载成功|userId={}",
+                        fmkUserInfo.getUserId().getValue());
+            }
+            return fmkUserInfo;
         } catch (Exception e) {
-            log.error("FmkContextInterceptor|setUserInfo|设置用户信息失败", e);
+            log.error("FmkContextInterceptor|loadUserInfo|加载用户信息失败", e);
             // 异常情况下也检查是否需要设置系统用户
             // setSystemUserIfNeeded(request, contextInfo);
+            return null;
         }
     }
 
@@ -223,12 +233,11 @@ public class FmkContextInterceptor implements HandlerInterceptor {
     // }
 
     /**
-     * 设置客户端信息
+     * 加载客户端信息
      */
-    private void setClientInfo(HttpServletRequest request, FmkContextInfo contextInfo) {
+    private FmkClientInfo loadClientInfo(HttpServletRequest request) {
+        FmkClientInfo fmkClientInfo = new FmkClientInfo();
         try {
-            FmkClientInfo fmkClientInfo = contextInfo.getFmkClientInfo();
-
             // 获取客户端IP
             String clientIp = ClientInfoUtil.getClientIp(request);
             fmkClientInfo.setIpAddress(clientIp);
@@ -247,14 +256,15 @@ public class FmkContextInterceptor implements HandlerInterceptor {
             setCustomHeaders(request, fmkClientInfo);
 
             if (log.isDebugEnabled()) {
-                log.debug("FmkContextInterceptor|setClientInfo|客户端信息设置成功|ip={}|os={}|browser={}",
+                log.debug("FmkContextInterceptor|loadClientInfo|客户端信息加载成功|ip={}|os={}|browser={}",
                         clientIp, fmkClientInfo.getOperatingSystem(), fmkClientInfo.getBrowser());
             }
         } catch (Exception e) {
-            log.error("FmkContextInterceptor|setClientInfo|设置客户端信息失败", e);
+            log.error("FmkContextInterceptor|loadClientInfo|加载客户端信息失败", e);
             // 设置默认值防止后续处理出错
             // setDefaultClientInfo(contextInfo.getClientInfo());
         }
+        return fmkClientInfo;
     }
 
     // /**
@@ -300,56 +310,48 @@ public class FmkContextInterceptor implements HandlerInterceptor {
     }
 
     /**
-     * 设置请求信息
+     * 加载语言
      */
-    private void setRequestInfo(HttpServletRequest request, FmkContextInfo contextInfo) {
+    private FmkLanguageEnum loadLanguage(HttpServletRequest request) {
         try {
-            // 设置请求URI（如果TraceFilter已经设置，则不需要再设置）
-            if (contextInfo.getRequestUri() == null) {
-                String requestUri = request.getRequestURI();
-                contextInfo.setRequestUri(requestUri);
-            }
-
-            // 设置语言
             String deviceLanguage = request.getHeader(HEADER_DEVICE_LANGUAGE);
-            if (StringUtils.isNotBlank(deviceLanguage)) {
-                IEnumStr.getEnumByCode(deviceLanguage, FmkLanguageEnum.class)
-                        .ifPresent(language -> {
-                            contextInfo.setLanguage(language);
-                            if (log.isDebugEnabled()) {
-                                log.debug("FmkContextInterceptor|setRequestInfo|语言设置成功|language={}", deviceLanguage);
-                            }
-                        });
+            if (StringUtils.isBlank(deviceLanguage)) {
+                return null;
             }
+            Optional<FmkLanguageEnum> language = IEnumStr.getEnumByCode(deviceLanguage, FmkLanguageEnum.class);
+            if (language.isPresent() && log.isDebugEnabled()) {
+                log.debug("FmkContextInterceptor|loadLanguage|语言加载成功|language={}", deviceLanguage);
+            }
+            return language.orElse(null);
         } catch (Exception e) {
-            log.error("FmkContextInterceptor|setRequestInfo|设置请求信息失败", e);
+            log.error("FmkContextInterceptor|loadLanguage|加载语言失败", e);
+            return null;
         }
     }
 
     /**
-     * 设置所有请求头
+     * 加载所有请求头
      */
-    private void setHeaders(HttpServletRequest request, FmkContextInfo contextInfo) {
+    private Map<String, String> loadHeaders(HttpServletRequest request) {
+        Map<String, String> headers = new ConcurrentHashMap<>();
         try {
             Enumeration<String> headerNames = request.getHeaderNames();
-            int headerCount = 0;
-
             while (headerNames.hasMoreElements()) {
                 String headerName = headerNames.nextElement();
                 String headerValue = request.getHeader(headerName);
 
                 if (StringUtils.isNotBlank(headerName) && headerValue != null) {
-                    contextInfo.getHeaders().put(headerName, headerValue);
-                    headerCount++;
+                    headers.put(headerName, headerValue);
                 }
             }
 
             if (log.isDebugEnabled()) {
-                log.debug("FmkContextInterceptor|setHeaders|请求头设置完成|count={}", headerCount);
+                log.debug("FmkContextInterceptor|loadHeaders|请求头加载完成|count={}", headers.size());
             }
         } catch (Exception e) {
-            log.error("FmkContextInterceptor|setHeaders|设置请求头失败", e);
+            log.error("FmkContextInterceptor|loadHeaders|加载请求头失败", e);
         }
+        return headers;
     }
 
     /**
@@ -377,4 +379,96 @@ public class FmkContextInterceptor implements HandlerInterceptor {
             log.error("FmkContextInterceptor|updateTokenDeviceInfo|更新设备信息失败", e);
         }
     }
+
+    /**
+     * 从当前请求按需加载上下文字段
+     */
+    private final class RequestContextLoader implements FmkContextLoader {
+
+        private final HttpServletRequest request;
+
+        private RequestContextLoader(HttpServletRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public FmkToken loadToken() {
+            return FmkContextInterceptor.this.loadToken(request);
+        }
+
+        @Override
+        public FmkUserInfo loadUserInfo(FmkToken token) {
+            return FmkContextInterceptor.this.loadUserInfo(request, token);
+        }
+
+        @Override
+        public FmkLanguageEnum loadLanguage() {
+            return FmkContextInterceptor.this.loadLanguage(request);
+        }
+
+        @Override
+        public FmkClientInfo loadClientInfo() {
+            return FmkContextInterceptor.this.loadClientInfo(request);
+        }
+
+        @Override
+        public Map<String, String> loadHeaders() {
+            return FmkContextInterceptor.this.loadHeaders(request);
+        }
+
+        @Override
+        public String loadHeader(String name) {
+            return request.getHeader(name);
+        }
+
+        @Override
+        public FmkContextLoader detach() {
+            return new DetachedContextLoader();
+        }
+    }
+
+    /**
+     * 传递到异步线程的加载器，只按 Token 加载用户信息，不读取请求、不写 MDC
+     */
+    private final class DetachedContextLoader implements FmkContextLoader {
+
+        @Override
+        public FmkToken loadToken() {
+            return null;
+        }
+
+        @Override
+        public FmkUserInfo loadUserInfo(FmkToken token) {
+            if (fmkTokenService == null || token == null) {
+                return null;
+            }
+
+            try {
+                return fmkTokenService.getUserInfoByToken(token).orElse(null);
+            } catch (Exception e) {
+                log.error("FmkContextInterceptor|DetachedContextLoader|加载用户信息失败", e);
+                return null;
+            }
+        }
+
+        @Override
+        public FmkLanguageEnum loadLanguage() {
+            return null;
+        }
+
+        @Override
+        public FmkClientInfo loadClientInfo() {
+            return null;
+        }
+
+        @Override
+        public Map<String, String> loadHeaders() {
+            return null;
+        }
+
+        @Override
+        public String loadHeader(String name) {
+            return null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.cjlabs.web.requestinterceptor;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * 系统维护公告
+ */
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class FmkMaintenanceNotice {
+
+    /**
+     * 是否维护中，维护中时所有接口返回维护公告
+     */
+    private boolean enabledFlag;
+
+    /**
+     * 中文公告
+     */
+    private String zhMsg;
+
+    /**
+     * 英文公告
+     */
+    private String enMsg;
+}
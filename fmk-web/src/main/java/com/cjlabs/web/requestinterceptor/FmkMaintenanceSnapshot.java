@@ -0,0 +1,95 @@
+package com.cjlabs.web.requestinterceptor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 系统维护公告的内存快照
+ * <p>
+ * 请求线程只读一个 volatile 字段；后台线程每隔 refreshSeconds 从 {@link IFmkMaintenanceProvider} 读取一次，
+ * 读取失败时保留上一次的快照
+ */
+@Slf4j
+public class FmkMaintenanceSnapshot implements InitializingBean, DisposableBean {
+
+    private final IFmkMaintenanceProvider provider;
+
+    private final long refreshSeconds;
+
+    private volatile FmkMaintenanceNotice current;
+
+    private ScheduledExecutorService refreshExecutor;
+
+    /**
+     * @param provider       数据来源，为 null 时始终不在维护中
+     * @param refreshSeconds 刷新间隔（秒），小于等于 0 表示只在启动时读取一次
+     */
+    public FmkMaintenanceSnapshot(IFmkMaintenanceProvider provider, long refreshSeconds) {
+        this.provider = provider;
+        this.refreshSeconds = refreshSeconds;
+    }
+
+    /**
+     * 当前是否维护中
+     *
+     * @return 维护中时返回公告，否则返回 empty
+     */
+    public Optional<FmkMaintenanceNotice> getActiveNotice() {
+        FmkMaintenanceNotice notice = current;
+        return notice != null && notice.isEnabledFlag() ? Optional.of(notice) : Optional.empty();
+    }
+
+    /**
+     * 立即从数据来源读取一次
+     *
+     * @return 是否读取成功
+     */
+    public boolean refresh() {
+        if (provider == null) {
+            return true;
+        }
+        try {
+            FmkMaintenanceNotice notice = provider.load().orElse(null);
+            FmkMaintenanceNotice previous = current;
+            current = notice;
+            boolean wasEnabled = previous != null && previous.isEnabledFlag();
+            boolean enabled = notice != null && notice.isEnabledFlag();
+            if (wasEnabled != enabled) {
+                log.info("FmkMaintenanceSnapshot|refresh|维护状态变化|enabled={}|notice={}", enabled, notice);
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("FmkMaintenanceSnapshot|refresh|读取维护公告失败，保留上一次的快照|current={}", current, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        refresh();
+        if (provider == null || refreshSeconds <= 0) {
+            return;
+        }
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fmk-maintenance-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshExecutor.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        log.info("FmkMaintenanceSnapshot|start|refreshSeconds={}", refreshSeconds);
+    }
+
+    @Override
+    public void destroy() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+            refreshExecutor = null;
+        }
+    }
+}
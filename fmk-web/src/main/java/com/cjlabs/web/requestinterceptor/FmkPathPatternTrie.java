@@ -0,0 +1,354 @@
+package com.cjlabs.web.requestinterceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 路径模式前缀树，启动时把 Ant 风格的路径模式按 "/" 分段编译成树，匹配时按请求路径逐段查找
+ * <p>
+ * 支持的分段：
+ * 1. 普通文本：精确匹配（区分大小写），按哈希表查找
+ * 2. * 或 {变量}：匹配一个分段
+ * 3. **：匹配零个或多个分段
+ * 4. 含 * ? {变量} 的分段（如 *.ico、v?）：按通配符匹配一个分段；{变量:正则} 按正则匹配
+ * <p>
+ * 匹配耗时只与路径的分段数和路径上 ** 的数量有关，与模式总数无关；匹配时不切分字符串、不创建对象。
+ * 与 AntPathMatcher 的区别：路径中连续的 "/" 和结尾的 "/" 忽略
+ * <p>
+ * 每个模式带一组标记（flags），匹配结果是所有匹配上的模式的标记按位或；构建完成后只读，可以多线程并发匹配
+ */
+public final class FmkPathPatternTrie {
+
+    private final Node root = new Node();
+
+    private int patternCount;
+
+    /**
+     * 添加路径模式
+     *
+     * @param pattern 如 /api/admin/**、/api/user/{id}、/favicon.ico
+     * @param flags   匹配上时返回的标记，不能为 0
+     */
+    public void add(String pattern, int flags) {
+        if (pattern == null || pattern.isBlank()) {
+            throw new RuntimeException("路径模式不能为空");
+        }
+        if (flags == 0) {
+            throw new RuntimeException("路径模式的标记不能为 0: " + pattern);
+        }
+        Node node = root;
+        int length = pattern.length();
+        int pos = 0;
+        while (true) {
+            while (pos < length && pattern.charAt(pos) == '/') {
+                pos++;
+            }
+            if (pos >= length) {
+                break;
+            }
+            int end = pattern.indexOf('/', pos);
+            if (end < 0) {
+                end = length;
+            }
+            node = node.child(pattern.substring(pos, end));
+            pos = end;
+        }
+        node.flags |= flags;
+        patternCount++;
+    }
+
+    /**
+     * 匹配路径
+     *
+     * @return 所有匹配上的模式的标记按位或，没有匹配时返回 0
+     */
+    public int match(String path) {
+        if (path == null) {
+            return 0;
+        }
+        return match(root, path, 0);
+    }
+
+    /**
+     * 模式数量
+     */
+    public int size() {
+        return patternCount;
+    }
+
+    private static int match(Node node, String path, int pos) {
+        int length = path.length();
+        while (pos < length && path.charAt(pos) == '/') {
+            pos++;
+        }
+
+        int result = 0;
+        if (node.multi != null) {
+            // ** 依次尝试匹配 0、1、2...个分段
+            int p = pos;
+            while (true) {
+                result |= match(node.multi, path, p);
+                if (p >= length) {
+                    break;
+                }
+                int next = path.indexOf('/', p);
+                p = next < 0 ? length : next;
+                while (p < length && path.charAt(p) == '/') {
+                    p++;
+                }
+            }
+        }
+        if (pos >= length) {
+            return result | node.flags;
+        }
+
+        int end = path.indexOf('/', pos);
+        if (end < 0) {
+            end = length;
+        }
+        if (node.literals != null) {
+            Node child = node.literals.get(path, pos, end);
+            if (child != null) {
+                result |= match(child, path, end);
+            }
+        }
+        if (node.single != null) {
+            result |= match(node.single, path, end);
+        }
+        if (node.globs != null) {
+            for (GlobChild glob : node.globs) {
+                if (glob.matches(path, pos, end)) {
+                    result |= match(glob.node, path, end);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 树节点
+     */
+    private static final class Node {
+
+        private LiteralTable literals;
+
+        private Node single;
+
+        private Node multi;
+
+        private List<GlobChild> globs;
+
+        private int flags;
+
+        private Node child(String segment) {
+            if ("**".equals(segment)) {
+                if (multi == null) {
+                    multi = new Node();
+                }
+                return multi;
+            }
+            if ("*".equals(segment) || isWholeVariable(segment)) {
+                if (single == null) {
+                    single = new Node();
+                }
+                return single;
+            }
+            if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                if (globs == null) {
+                    globs = new ArrayList<>(2);
+                }
+                for (GlobChild glob : globs) {
+                    if (glob.segment.equals(segment)) {
+                        return glob.node;
+                    }
+                }
+                GlobChild glob = new GlobChild(segment);
+                globs.add(glob);
+                return glob.node;
+            }
+            if (literals == null) {
+                literals = new LiteralTable();
+            }
+            return literals.getOrCreate(segment);
+        }
+
+        /**
+         * 整个分段是 {变量}（不带正则）
+         */
+        private static boolean isWholeVariable(String segment) {
+            return segment.length() > 2 && segment.charAt(0) == '{' && segment.indexOf('}') == segment.length() - 1
+                    && segment.indexOf(':') < 0;
+        }
+    }
+
+    /**
+     * 含通配符的分段
+     */
+    private static final class GlobChild {
+
+        private final String segment;
+
+        private final Node node = new Node();
+
+        /**
+         * 含 {变量:正则} 时按正则匹配，否则按通配符匹配
+         */
+        private final Pattern regex;
+
+        /**
+         * {变量} 替换成 * 之后的通配符
+         */
+        private final String glob;
+
+        private GlobChild(String segment) {
+            this.segment = segment;
+            if (segment.indexOf(':') >= 0 && segment.indexOf('{') >= 0) {
+                this.regex = Pattern.compile(toRegex(segment));
+                this.glob = null;
+            } else {
+                this.regex = null;
+                this.glob = segment.replaceAll("\\{[^}]*}", "*");
+            }
+        }
+
+        private boolean matches(String path, int from, int to) {
+            if (regex != null) {
+                return regex.matcher(path.subSequence(from, to)).matches();
+            }
+            return globMatches(glob, 0, path, from, to);
+        }
+
+        /**
+         * 通配符匹配：* 匹配任意个字符，? 匹配一个字符
+         */
+        private static boolean globMatches(String glob, int g, String text, int t, int end) {
+            int starG = -1;
+            int starT = -1;
+            while (t < end) {
+                if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == text.charAt(t))) {
+                    g++;
+                    t++;
+                } else if (g < glob.length() && glob.charAt(g) == '*') {
+                    starG = g++;
+                    starT = t;
+                } else if (starG >= 0) {
+                    g = starG + 1;
+                    t = ++starT;
+                } else {
+                    return false;
+                }
+            }
+            while (g < glob.length() && glob.charAt(g) == '*') {
+                g++;
+            }
+            return g == glob.length();
+        }
+
+        /**
+         * 分段转换为正则：{变量:正则} 使用给出的正则，{变量} 和 * 转换为 .*，? 转换为 .
+         */
+        private static String toRegex(String segment) {
+            StringBuilder sb = new StringBuilder();
+            int i = 0;
+            while (i < segment.length()) {
+                char c = segment.charAt(i);
+                if (c == '{') {
+                    int close = segment.indexOf('}', i);
+                    if (close < 0) {
+                        throw new RuntimeException("路径模式的变量没有结束: " + segment);
+                    }
+                    String variable = segment.substring(i + 1, close);
+                    int colon = variable.indexOf(':');
+                    sb.append('(').append(colon < 0 ? ".*" : variable.substring(colon + 1)).append(')');
+                    i = close + 1;
+                    continue;
+                }
+                if (c == '*') {
+                    sb.append(".*");
+                } else if (c == '?') {
+                    sb.append('.');
+                } else {
+                    sb.append(Pattern.quote(String.valueOf(c)));
+                }
+                i++;
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 普通文本分段的哈希表（开放寻址），按路径中的 [from, to) 查找，不需要 substring
+     */
+    private static final class LiteralTable {
+
+        private String[] keys = new String[8];
+
+        private Node[] values = new Node[8];
+
+        private int size;
+
+        private Node get(String path, int from, int to) {
+            int mask = keys.length - 1;
+            int index = hash(path, from, to) & mask;
+            while (true) {
+                String key = keys[index];
+                if (key == null) {
+                    return null;
+                }
+                if (key.length() == to - from && key.regionMatches(0, path, from, to - from)) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        private Node getOrCreate(String segment) {
+            Node existing = get(segment, 0, segment.length());
+            if (existing != null) {
+                return existing;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            Node node = new Node();
+            put(segment, node);
+            return node;
+        }
+
+        private void put(String key, Node node) {
+            int mask = keys.length - 1;
+            int index = hash(key, 0, key.length()) & mask;
+            while (keys[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = node;
+            size++;
+        }
+
+        private void resize() {
+            String[] oldKeys = keys;
+            Node[] oldValues = values;
+            keys = new String[oldKeys.length * 2];
+            values = new Node[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        /**
+         * 与 String.hashCode 相同的算法，再打散高位
+         */
+        private static int hash(String text, int from, int to) {
+            int h = 0;
+            for (int i = from; i < to; i++) {
+                h = 31 * h + text.charAt(i);
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.cjlabs.web.requestinterceptor;
+
+import java.util.Optional;
+
+/**
+ * 系统维护公告的数据来源，由业务实现（如读取字典表）
+ * 只由 {@link FmkMaintenanceSnapshot} 定时调用，请求线程不会调用
+ */
+public interface IFmkMaintenanceProvider {
+
+    /**
+     * 读取当前的维护公告
+     *
+     * @return 没有配置时返回 empty
+     */
+    Optional<FmkMaintenanceNotice> load();
+}
@@ -10,17 +10,91 @@ import java.math.RoundingMode;
 
 /**
  * BigDecimal序列化器
- * 统一金额格式，避免科学计数法，保留2位小数
+ * 统一金额格式，避免科学计数法，最多保留18位小数（四舍五入），去掉末尾的0，以字符串输出
+ * <p>
+ * 有效数字不超过 18 位、小数位数在 0 ~ 18 之间的值（绝大多数金额）通过 movePointRight 取出 long 后去掉末尾的 0，
+ * 把数字写入字符数组后交给 JsonGenerator：小数位数大于 0 时 movePointRight 会创建一个不含 BigInteger 的中间 BigDecimal，
+ * 不创建 BigInteger 和中间 String；0 和小整数使用缓存的字符串。
+ * 其他值使用 setScale(18) + stripTrailingZeros + toPlainString，两种方式的输出完全相同
  */
 public class BigDecimalSerializer extends JsonSerializer<BigDecimal> {
 
+    /**
+     * 最多保留的小数位数
+     */
+    private static final int MAX_SCALE = 18;
+
+    /**
+     * 不超过 18 位有效数字的值，去掉小数点后一定能放进 long
+     */
+    private static final int MAX_LONG_PRECISION = 18;
+
+    /**
+     * 符号 + "0." + 18 位小数
+     */
+    private static final int MAX_LENGTH = 1 + 2 + MAX_SCALE;
+
+    private static final String[] SMALL_INTEGERS = new String[1024];
+
+    static {
+        for (int i = 0; i < SMALL_INTEGERS.length; i++) {
+            SMALL_INTEGERS[i] = Integer.toString(i);
+        }
+    }
+
+    @Override
+    public Class<BigDecimal> handledType() {
+        return BigDecimal.class;
+    }
+
     @Override
     public void serialize(BigDecimal value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
         if (value == null) {
             gen.writeNull();
-        } else {
-            // 保留18位小数，四舍五入
-            gen.writeString(value.setScale(18, RoundingMode.HALF_UP).stripTrailingZeros().toPlainString());
+            return;
         }
+        int scale = value.scale();
+        if (scale < 0 || scale > MAX_SCALE || value.precision() > MAX_LONG_PRECISION) {
+            // 需要舍入、负小数位数或超过 long 范围，极少出现
+            gen.writeString(format(value));
+            return;
+        }
+
+        // 小数位数为 0 时返回自身，否则只创建一个不含 BigInteger 的 BigDecimal
+        long unscaled = value.movePointRight(scale).longValue();
+        while (scale > 0 && unscaled % 10 == 0) {
+            unscaled /= 10;
+            scale--;
+        }
+        if (scale == 0 && unscaled >= 0 && unscaled < SMALL_INTEGERS.length) {
+            gen.writeString(SMALL_INTEGERS[(int) unscaled]);
+            return;
+        }
+
+        char[] buffer = new char[MAX_LENGTH];
+        int pos = MAX_LENGTH;
+        long digits = Math.abs(unscaled);
+        if (scale > 0) {
+            for (int i = 0; i < scale; i++) {
+                buffer[--pos] = (char) ('0' + digits % 10);
+                digits /= 10;
+            }
+            buffer[--pos] = '.';
+        }
+        do {
+            buffer[--pos] = (char) ('0' + digits % 10);
+            digits /= 10;
+        } while (digits != 0);
+        if (unscaled < 0) {
+            buffer[--pos] = '-';
+        }
+        gen.writeString(buffer, pos, MAX_LENGTH - pos);
+    }
+
+    /**
+     * 通用格式化：保留18位小数，四舍五入，去掉末尾的0
+     */
+    static String format(BigDecimal value) {
+        return value.setScale(MAX_SCALE, RoundingMode.HALF_UP).stripTrailingZeros().toPlainString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package com.cjlabs.web.serializer;
+
+import com.cjlabs.domain.enums.FmkEnumRegistry;
+import com.cjlabs.domain.enums.IEnumInt;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * IEnumStr / IEnumInt 枚举反序列化器
+ * <p>
+ * 字符串先按 name() 查找（与 Jackson 默认行为一致），再按 code 查找（IEnumStr 不区分大小写，IEnumInt 按数字解析）；
+ * 数字按 code 查找（IEnumInt），IEnumStr 的数字与 Jackson 默认一样按下标查找。
+ * 查找都走 {@link FmkEnumRegistry} 的索引
+ */
+public class FmkEnumDeserializer<T extends Enum<T>> extends JsonDeserializer<T> {
+
+    private final Class<T> enumClass;
+
+    private final boolean intCode;
+
+    public FmkEnumDeserializer(Class<T> enumClass) {
+        this.enumClass = enumClass;
+        this.intCode = IEnumInt.class.isAssignableFrom(enumClass);
+    }
+
+    @Override
+    public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            String text = p.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            T value = fromText(text);
+            if (value != null || ctxt.isEnabled(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL)) {
+                return value;
+            }
+            return enumClass.cast(ctxt.handleWeirdStringValue(enumClass, text, "not one of the names or codes of %s",
+                    enumClass.getSimpleName()));
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            int number = p.getIntValue();
+            T value = fromNumber(number, ctxt);
+            if (value != null || ctxt.isEnabled(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL)) {
+                return value;
+            }
+            return enumClass.cast(ctxt.handleWeirdNumberValue(enumClass, number, "not one of the codes of %s",
+                    enumClass.getSimpleName()));
+        }
+        return enumClass.cast(ctxt.handleUnexpectedToken(enumClass, p));
+    }
+
+    private T fromText(String text) {
+        T value = FmkEnumRegistry.findByName(text, enumClass);
+        if (value != null) {
+            return value;
+        }
+        if (!intCode) {
+            return FmkEnumRegistry.findByCode(text, enumClass);
+        }
+        try {
+            return FmkEnumRegistry.findByCode(Integer.parseInt(text), enumClass);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private T fromNumber(int number, DeserializationContext ctxt) {
+        if (intCode) {
+            return FmkEnumRegistry.findByCode(number, enumClass);
+        }
+        T value = FmkEnumRegistry.findByCode(String.valueOf(number), enumClass);
+        if (value != null || ctxt.isEnabled(DeserializationFeature.FAIL_ON_NUMBERS_FOR_ENUMS)) {
+            return value;
+        }
+        List<T> values = FmkEnumRegistry.values(enumClass);
+        return number >= 0 && number < values.size() ? values.get(number) : null;
+    }
+
+    @Override
+    public Class<?> handledType() {
+        return enumClass;
+    }
+}
@@ -0,0 +1,40 @@
+package com.cjlabs.web.serializer;
+
+import com.cjlabs.domain.enums.IEnumInt;
+import com.cjlabs.domain.enums.IEnumStr;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * IEnumStr / IEnumInt 枚举的 Jackson 模块
+ * 反序列化时同时接受 name() 和 code，见 {@link FmkEnumDeserializer}；序列化不变（仍输出 name()）
+ * <p>
+ * 枚举上有 @JsonValue 时保留 Jackson 默认行为
+ */
+public class FmkEnumModule extends SimpleModule {
+
+    public FmkEnumModule() {
+        super("FmkEnumModule");
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+        super.setupModule(context);
+        context.addDeserializers(new Deserializers.Base() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public JsonDeserializer<?> findEnumDeserializer(Class<?> type, DeserializationConfig config, BeanDescription beanDesc) {
+                if (!IEnumStr.class.isAssignableFrom(type) && !IEnumInt.class.isAssignableFrom(type)) {
+                    return null;
+                }
+                if (beanDesc.findJsonValueAccessor() != null) {
+                    return null;
+                }
+                return new FmkEnumDeserializer(type);
+            }
+        });
+    }
+}
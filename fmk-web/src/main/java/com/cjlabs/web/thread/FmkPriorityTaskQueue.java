@@ -0,0 +1,475 @@
+package com.cjlabs.web.thread;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按优先级和租户调度的线程池队列
+ * <p>
+ * 每个优先级一条通道，先取高优先级通道；低优先级通道有任务时，最高优先级连续取出 starvationGuard 个后让出一次，
+ * 让出的机会在所有有任务的低优先级通道之间轮流，HIGH 和 NORMAL 都很忙时 LOW 也不会饿死。
+ * 同一通道内按租户轮流取，每个租户每轮最多连续取出 weight 个（加权轮询），一个租户的大量任务不会挡住其他租户。
+ * <p>
+ * 容量固定；准入上限可在运行时调整，只限制 NORMAL 和 LOW，HIGH 可以一直排到容量上限。
+ * 没有实现 {@link PrioritizedTask} 的任务按 NORMAL 和默认租户处理
+ */
+public class FmkPriorityTaskQueue extends AbstractQueue<Runnable>
+        implements BlockingQueue<Runnable>, FmkTtlThreadPoolTaskExecutor.AdmissionControlled {
+
+    private static final FmkTaskPriority[] PRIORITIES = FmkTaskPriority.values();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final int capacity;
+
+    private volatile int admissionLimit;
+
+    /**
+     * 高优先级连续取出多少个后让低优先级取一次，小于等于 0 表示严格按优先级
+     */
+    private final int starvationGuard;
+
+    private final Map<String, Integer> tenantWeights;
+
+    private final int defaultTenantWeight;
+
+    private final Lane[] lanes = new Lane[PRIORITIES.length];
+
+    private int count;
+
+    /**
+     * 低优先级有任务时，高优先级已经连续取出的个数
+     */
+    private int skipped;
+
+    /**
+     * 上一次让出给的通道，下一次从它后面的通道开始找
+     */
+    private int lastYielded = -1;
+
+    /**
+     * @param capacity            容量
+     * @param starvationGuard     高优先级连续取出多少个后让低优先级取一次，小于等于 0 表示严格按优先级
+     * @param tenantWeights       租户 -> 每轮连续取出的个数
+     * @param defaultTenantWeight 没有单独配置的租户的权重
+     */
+    public FmkPriorityTaskQueue(int capacity, int starvationGuard, Map<String, Integer> tenantWeights, int defaultTenantWeight) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.admissionLimit = capacity;
+        this.starvationGuard = starvationGuard;
+        this.tenantWeights = tenantWeights != null ? Map.copyOf(tenantWeights) : Map.of();
+        this.defaultTenantWeight = Math.max(1, defaultTenantWeight);
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * 队列中的任务，携带优先级和租户
+     */
+    interface PrioritizedTask {
+
+        FmkTaskPriority priority();
+
+        String tenant();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getAdmissionLimit() {
+        return admissionLimit;
+    }
+
+    @Override
+    public void setAdmissionLimit(int admissionLimit) {
+        this.admissionLimit = Math.max(0, Math.min(admissionLimit, capacity));
+    }
+
+    /**
+     * 某个优先级排队的任务数
+     */
+    public int size(FmkTaskPriority priority) {
+        lock.lock();
+        try {
+            return lanes[priority.ordinal()].size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        Objects.requireNonNull(task);
+        lock.lock();
+        try {
+            if (!admit(task)) {
+                return false;
+            }
+            enqueue(task);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(task);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (!admit(task)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(task);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable task) throws InterruptedException {
+        Objects.requireNonNull(task);
+        lock.lockInterruptibly();
+        try {
+            while (!admit(task)) {
+                notFull.await();
+            }
+            enqueue(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return count > 0 ? dequeue() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            if (count == 0) {
+                return null;
+            }
+            Lane lane = lanes[selectLane(false)];
+            return lane.active.peekFirst().tasks.peekFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                if (lane.remove(o)) {
+                    count--;
+                    notFull.signal();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        lock.lock();
+        try {
+            int n = Math.min(count, maxElements);
+            for (int i = 0; i < n; i++) {
+                c.add(dequeue());
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按优先级和租户排列的快照，通过迭代器删除会删除队列中的任务
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> snapshot = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                for (TenantQueue tenantQueue : lane.active) {
+                    snapshot.addAll(tenantQueue.tasks);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        Iterator<Runnable> iterator = snapshot.iterator();
+        return new Iterator<>() {
+            private Runnable last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                last = iterator.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                FmkPriorityTaskQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    private boolean admit(Runnable task) {
+        if (count >= capacity) {
+            return false;
+        }
+        return priority(task) == FmkTaskPriority.HIGH || count < admissionLimit;
+    }
+
+    private void enqueue(Runnable task) {
+        String tenant = task instanceof PrioritizedTask prioritized ? prioritized.tenant() : FmkTaskOptions.DEFAULT_TENANT;
+        lanes[priority(task).ordinal()].offer(task, tenant);
+        count++;
+        notEmpty.signal();
+    }
+
+    private Runnable dequeue() {
+        Runnable task = lanes[selectLane(true)].poll();
+        count--;
+        notFull.signal();
+        return task;
+    }
+
+    /**
+     * 选择要取的通道，调用前 count > 0
+     *
+     * @param take 是否真正取出（peek 时不更新让出计数）
+     */
+    private int selectLane(boolean take) {
+        int highest = 0;
+        while (lanes[highest].size == 0) {
+            highest++;
+        }
+        int lower = nextLowerLane(highest);
+        if (lower < 0) {
+            if (take) {
+                skipped = 0;
+            }
+            return highest;
+        }
+        if (starvationGuard > 0 && skipped >= starvationGuard) {
+            if (take) {
+                skipped = 0;
+                lastYielded = lower;
+            }
+            return lower;
+        }
+        if (take) {
+            skipped++;
+        }
+        return highest;
+    }
+
+    /**
+     * 比 highest 低的有任务的通道，从上一次让出的通道后面开始轮流
+     *
+     * @return 没有时返回 -1
+     */
+    private int nextLowerLane(int highest) {
+        int count = lanes.length - highest - 1;
+        int offset = lastYielded > highest ? lastYielded - highest : 0;
+        for (int i = 0; i < count; i++) {
+            int lane = highest + 1 + (offset + i) % count;
+            if (lanes[lane].size > 0) {
+                return lane;
+            }
+        }
+        return -1;
+    }
+
+    private static FmkTaskPriority priority(Runnable task) {
+        return task instanceof PrioritizedTask prioritized ? prioritized.priority() : FmkTaskPriority.NORMAL;
+    }
+
+    /**
+     * 一个优先级的通道：租户轮询
+     */
+    private final class Lane {
+
+        private final Map<String, TenantQueue> tenants = new HashMap<>();
+
+        /**
+         * 有任务的租户，队首是当前轮到的租户
+         */
+        private final ArrayDeque<TenantQueue> active = new ArrayDeque<>();
+
+        private int size;
+
+        private void offer(Runnable task, String tenant) {
+            TenantQueue tenantQueue = tenants.get(tenant);
+            if (tenantQueue == null) {
+                tenantQueue = new TenantQueue(tenant, tenantWeights.getOrDefault(tenant, defaultTenantWeight));
+                tenants.put(tenant, tenantQueue);
+                active.addLast(tenantQueue);
+            }
+            tenantQueue.tasks.addLast(task);
+            size++;
+        }
+
+        private Runnable poll() {
+            TenantQueue tenantQueue = active.peekFirst();
+            Runnable task = tenantQueue.tasks.pollFirst();
+            size--;
+            if (tenantQueue.tasks.isEmpty()) {
+                // 没有任务的租户不保留，租户数量不会无限增长
+                active.pollFirst();
+                tenants.remove(tenantQueue.tenant);
+            } else if (--tenantQueue.credit <= 0) {
+                tenantQueue.credit = tenantQueue.weight;
+                active.addLast(active.pollFirst());
+            }
+            return task;
+        }
+
+        private boolean remove(Object task) {
+            for (TenantQueue tenantQueue : active) {
+                if (tenantQueue.tasks.remove(task)) {
+                    size--;
+                    if (tenantQueue.tasks.isEmpty()) {
+                        active.remove(tenantQueue);
+                        tenants.remove(tenantQueue.tenant);
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class TenantQueue {
+
+        private final String tenant;
+
+        private final int weight;
+
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        /**
+         * 本轮剩余可以连续取出的个数
+         */
+        private int credit;
+
+        private TenantQueue(String tenant, int weight) {
+            this.tenant = tenant;
+            this.weight = Math.max(1, weight);
+            this.credit = this.weight;
+        }
+    }
+}
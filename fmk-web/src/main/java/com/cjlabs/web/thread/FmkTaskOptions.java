@@ -0,0 +1,58 @@
+package com.cjlabs.web.thread;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * 任务调度选项：优先级、租户和超时时间
+ * <p>
+ * 超时时间从提交时开始计算，任务开始执行前已经超时则直接丢弃，Future 以 {@link java.util.concurrent.TimeoutException} 结束
+ */
+@Getter
+public class FmkTaskOptions {
+
+    /**
+     * 没有指定租户时使用
+     */
+    public static final String DEFAULT_TENANT = "default";
+
+    public static final FmkTaskOptions HIGH = new FmkTaskOptions(FmkTaskPriority.HIGH, DEFAULT_TENANT, null);
+
+    public static final FmkTaskOptions NORMAL = new FmkTaskOptions(FmkTaskPriority.NORMAL, DEFAULT_TENANT, null);
+
+    public static final FmkTaskOptions LOW = new FmkTaskOptions(FmkTaskPriority.LOW, DEFAULT_TENANT, null);
+
+    private final FmkTaskPriority priority;
+
+    private final String tenant;
+
+    /**
+     * 超时时间（纳秒），0 表示不限制
+     */
+    private final long timeoutNanos;
+
+    /**
+     * @param priority 优先级，为 null 时使用 NORMAL
+     * @param tenant   租户，同一优先级内按租户轮流执行，为 null 时使用 {@link #DEFAULT_TENANT}
+     * @param timeout  从提交开始计算的超时时间，为 null 时不限制
+     */
+    public FmkTaskOptions(FmkTaskPriority priority, String tenant, Duration timeout) {
+        this.priority = priority != null ? priority : FmkTaskPriority.NORMAL;
+        this.tenant = tenant != null ? tenant : DEFAULT_TENANT;
+        this.timeoutNanos = timeout != null ? Math.max(1, timeout.toNanos()) : 0;
+    }
+
+    public static FmkTaskOptions of(FmkTaskPriority priority, String tenant) {
+        return new FmkTaskOptions(priority, tenant, null);
+    }
+
+    public static FmkTaskOptions of(FmkTaskPriority priority, String tenant, Duration timeout) {
+        return new FmkTaskOptions(priority, tenant, timeout);
+    }
+
+    @Override
+    public String toString() {
+        return "FmkTaskOptions{priority=" + priority + ", tenant=" + tenant + ", timeoutNanos=" + timeoutNanos + "}";
+    }
+}
@@ -0,0 +1,19 @@
+package com.cjlabs.web.thread;
+
+/**
+ * 任务优先级，按声明顺序从高到低
+ */
+public enum FmkTaskPriority {
+    /**
+     * 延迟敏感的任务，例如请求链路中的并行调用
+     */
+    HIGH,
+    /**
+     * 默认优先级
+     */
+    NORMAL,
+    /**
+     * 批处理等可以延后的任务
+     */
+    LOW
+}
@@ -0,0 +1,82 @@
+package com.cjlabs.web.thread;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * 任务耗时分布（微秒）
+ * <p>
+ * 按线程分散到多个 {@link Recorder}，执行任务的线程只写自己那一份（无锁、不分配内存），
+ * 线程池中的多个线程不会争用同一组原子变量；读取时把所有分片新增的部分合并到累计直方图
+ */
+final class FmkTaskTimer {
+
+    /**
+     * 可区分的最大耗时：1 小时
+     */
+    private static final long HIGHEST_TRACKABLE_MICROS = 3_600_000_000L;
+
+    /**
+     * 分片数上限，每个分片约占几十 KB
+     */
+    private static final int MAX_STRIPES = 8;
+
+    private final Recorder[] stripes;
+
+    /**
+     * 每个分片回收使用的区间直方图（只能回收同一个 Recorder 产生的）
+     */
+    private final Histogram[] intervals;
+
+    private final int mask;
+
+    /**
+     * 累计直方图，只在 synchronized 中访问
+     */
+    private final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 2);
+
+    FmkTaskTimer() {
+        int processors = Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors());
+        int size = Integer.highestOneBit(Math.max(1, processors - 1) << 1);
+        this.stripes = new Recorder[size];
+        this.intervals = new Histogram[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Recorder(HIGHEST_TRACKABLE_MICROS, 2);
+        }
+        this.mask = size - 1;
+    }
+
+    void record(long nanos) {
+        long micros = nanos / 1000;
+        long id = Thread.currentThread().threadId();
+        Recorder recorder = stripes[(int) (id ^ (id >>> 16)) & mask];
+        recorder.recordValue(micros < 0 ? 0 : Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+    }
+
+    /**
+     * 累计耗时分位数（毫秒）
+     *
+     * @param percentile 0 ~ 100
+     */
+    synchronized double percentileMillis(double percentile) {
+        merge();
+        return total.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    synchronized double maxMillis() {
+        merge();
+        return total.getMaxValue() / 1000.0;
+    }
+
+    synchronized long count() {
+        merge();
+        return total.getTotalCount();
+    }
+
+    private void merge() {
+        for (int i = 0; i < stripes.length; i++) {
+            intervals[i] = stripes[i].getIntervalHistogram(intervals[i]);
+            total.add(intervals[i]);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.cjlabs.web.thread;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 自适应线程数控制器
+ * <p>
+ * 每个监控周期根据两次 {@link ThreadPoolMetrics} 采样的差值计算区间内的到达率 λ、平均执行耗时 S、平均排队耗时和利用率：
+ * <ul>
+ *     <li>按 Little 定律，需要的线程数 ≈ λ * S / 目标利用率</li>
+ *     <li>平均排队耗时超过目标、出现拒绝或利用率超过目标时扩大：至少增加 increaseStep，
+ *     最多跳到 Little 定律的估算值，单个周期不超过翻倍（加性增加）</li>
+ *     <li>利用率低于 lowUtilization 并且排队很少，连续 cooldownSamples 个周期后缩小到 decreaseFactor 倍，
+ *     但不低于 Little 定律的估算值（乘性减少）</li>
+ *     <li>利用率在 lowUtilization 和目标利用率之间时保持不变，扩大后也要等 cooldownSamples 个周期才允许缩小，避免来回调整</li>
+ *     <li>队列准入上限 = 核心线程的处理能力 * maxQueueWaitMillis，排队再多也无法在可接受的时间内处理</li>
+ *     <li>最大线程数 = 核心线程数 * burstRatio，核心线程数和最大线程数都不超过线程池配置的最大线程数</li>
+ * </ul>
+ * 决策只依赖采样序列和传入的时间，不读取系统时钟，可以用模拟负载确定性地测试
+ */
+@Slf4j
+public class FmkThreadPoolAutoSizer {
+
+    /**
+     * 调整动作
+     */
+    public enum Action {
+        HOLD,
+        INCREASE,
+        DECREASE
+    }
+
+    private final FmkThreadPoolProperties.Adaptive config;
+
+    /**
+     * 线程池配置的最大线程数，调整结果不超过它
+     */
+    private final int maxPoolSize;
+
+    private ThreadPoolMetrics previous;
+
+    private long previousNanos;
+
+    /**
+     * 连续满足缩小条件的周期数
+     */
+    private int calmSamples;
+
+    /**
+     * 距离上次扩大的周期数
+     */
+    private int samplesSinceIncrease = Integer.MAX_VALUE;
+
+    /**
+     * 最近一次有完成任务的区间的平均执行耗时（纳秒）
+     */
+    private double executionNanos;
+
+    /**
+     * @param config      自适应配置
+     * @param maxPoolSize 线程池配置的最大线程数
+     */
+    public FmkThreadPoolAutoSizer(FmkThreadPoolProperties.Adaptive config, int maxPoolSize) {
+        if (config.getMinCorePoolSize() < 1 || config.getMaxCorePoolSize() < config.getMinCorePoolSize()) {
+            throw new RuntimeException("fmk.thread-pool.adaptive 线程数范围不正确: min-core-pool-size="
+                    + config.getMinCorePoolSize() + ", max-core-pool-size=" + config.getMaxCorePoolSize());
+        }
+        if (config.getLowUtilization() <= 0 || config.getLowUtilization() >= config.getTargetUtilization()
+                || config.getTargetUtilization() > 1) {
+            throw new RuntimeException("fmk.thread-pool.adaptive 需要 0 < low-utilization < target-utilization <= 1: low-utilization="
+                    + config.getLowUtilization() + ", target-utilization=" + config.getTargetUtilization());
+        }
+        if (config.getDecreaseFactor() <= 0 || config.getDecreaseFactor() >= 1 || config.getBurstRatio() < 1) {
+            throw new RuntimeException("fmk.thread-pool.adaptive 需要 0 < decrease-factor < 1 且 burst-ratio >= 1");
+        }
+        if (maxPoolSize < config.getMinCorePoolSize()) {
+            throw new RuntimeException("fmk.thread-pool.max-pool-size 不能小于 adaptive.min-core-pool-size: max-pool-size="
+                    + maxPoolSize + ", min-core-pool-size=" + config.getMinCorePoolSize());
+        }
+        this.config = config;
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * 采样并调整线程池
+     */
+    public Decision adjust(FmkTtlThreadPoolTaskExecutor executor) {
+        ThreadPoolMetrics sample = executor.getMetrics();
+        Decision decision = decide(sample, System.nanoTime());
+        if (decision.isChanged()) {
+            apply(executor, decision);
+            log.info("FmkThreadPoolAutoSizer|adjust|{}|threadNamePrefix={}|core={}->{}|max={}->{}|queueAdmission={}->{}"
+                            + "|arrivalRate={}|utilization={}|queueWaitMs={}|littleThreads={}",
+                    decision.getAction(), sample.getThreadNamePrefix(),
+                    sample.getCorePoolSize(), decision.getCorePoolSize(),
+                    sample.getMaxPoolSize(), decision.getMaxPoolSize(),
+                    sample.getQueueAdmissionLimit(), decision.getQueueAdmissionLimit(),
+                    String.format("%.1f", decision.getArrivalRate()), String.format("%.2f", decision.getUtilization()),
+                    String.format("%.1f", decision.getQueueWaitMillis()), decision.getLittleThreads());
+        }
+        return decision;
+    }
+
+    /**
+     * 根据采样计算新的线程数和队列准入上限
+     *
+     * @param sample   当前采样（计数为累计值）
+     * @param nowNanos 采样时间
+     */
+    public synchronized Decision decide(ThreadPoolMetrics sample, long nowNanos) {
+        ThreadPoolMetrics last = previous;
+        long lastNanos = previousNanos;
+        previous = sample;
+        previousNanos = nowNanos;
+
+        int core = sample.getCorePoolSize();
+        if (last == null || nowNanos <= lastNanos) {
+            return hold(sample, core, 0, 0, 0, 0);
+        }
+
+        double intervalNanos = nowNanos - lastNanos;
+        long completed = sample.getCompletedTasks() - last.getCompletedTasks();
+        long submitted = sample.getTotalTasks() - last.getTotalTasks();
+        long rejected = sample.getRejectedTasks() - last.getRejectedTasks();
+        long busyNanos = sample.getExecutionNanosTotal() - last.getExecutionNanosTotal();
+        long waitNanos = sample.getQueueWaitNanosTotal() - last.getQueueWaitNanosTotal();
+
+        if (completed > 0) {
+            executionNanos = (double) busyNanos / completed;
+        }
+        double arrivalRate = submitted * 1e9 / intervalNanos;
+        double queueWaitMillis = completed > 0 ? waitNanos / 1e6 / completed : 0;
+        double utilization = busyNanos / (intervalNanos * Math.max(1, sample.getPoolSize()));
+        int littleThreads = (int) Math.ceil(arrivalRate * executionNanos / 1e9 / config.getTargetUtilization());
+
+        if (samplesSinceIncrease < Integer.MAX_VALUE) {
+            samplesSinceIncrease++;
+        }
+
+        // 排队超时且队列仍有积压（积压已经处理完时排队耗时只是滞后的信号）、出现拒绝，
+        // 或者按到达率估算的利用率已经超过目标（队列还没来得及积压）
+        boolean congested = (queueWaitMillis > config.getTargetQueueWaitMillis() && sample.getQueueSize() > 0)
+                || rejected > 0
+                || (littleThreads > core && utilization > config.getTargetUtilization());
+        if (congested) {
+            calmSamples = 0;
+            // 单个周期最多翻倍，避免一次突发就扩到上限
+            int target = clamp(Math.max(core + config.getIncreaseStep(), Math.min(littleThreads, core * 2)));
+            if (target > core) {
+                samplesSinceIncrease = 0;
+                return decision(sample, Action.INCREASE, target, arrivalRate, utilization, queueWaitMillis, littleThreads);
+            }
+            return hold(sample, core, arrivalRate, utilization, queueWaitMillis, littleThreads);
+        }
+
+        boolean idle = utilization < config.getLowUtilization()
+                && queueWaitMillis < config.getTargetQueueWaitMillis() / 2.0;
+        if (!idle) {
+            calmSamples = 0;
+            return hold(sample, core, arrivalRate, utilization, queueWaitMillis, littleThreads);
+        }
+
+        calmSamples++;
+        if (calmSamples < config.getCooldownSamples() || samplesSinceIncrease < config.getCooldownSamples()) {
+            return hold(sample, core, arrivalRate, utilization, queueWaitMillis, littleThreads);
+        }
+        int target = clamp(Math.max(littleThreads, (int) Math.floor(core * config.getDecreaseFactor())));
+        if (target >= core) {
+            return hold(sample, core, arrivalRate, utilization, queueWaitMillis, littleThreads);
+        }
+        calmSamples = 0;
+        return decision(sample, Action.DECREASE, target, arrivalRate, utilization, queueWaitMillis, littleThreads);
+    }
+
+    /**
+     * 按决策调整线程池，先扩大上限再扩大核心数，先缩小核心数再缩小上限，任何时刻核心线程数都不超过最大线程数
+     */
+    public static void apply(ThreadPoolTaskExecutor executor, Decision decision) {
+        if (decision.getCorePoolSize() > executor.getMaxPoolSize()) {
+            executor.setMaxPoolSize(decision.getMaxPoolSize());
+            executor.setCorePoolSize(decision.getCorePoolSize());
+        } else {
+            executor.setCorePoolSize(decision.getCorePoolSize());
+            executor.setMaxPoolSize(decision.getMaxPoolSize());
+        }
+        if (executor instanceof FmkTtlThreadPoolTaskExecutor fmkExecutor && decision.getQueueAdmissionLimit() > 0) {
+            fmkExecutor.setQueueAdmissionLimit(decision.getQueueAdmissionLimit());
+        }
+    }
+
+    private Decision hold(ThreadPoolMetrics sample, int core, double arrivalRate, double utilization,
+                          double queueWaitMillis, int littleThreads) {
+        // 核心线程数不变，但超出配置范围（例如启动配置）时仍然收敛到范围内
+        int target = clamp(core);
+        Action action = target > core ? Action.INCREASE : target < core ? Action.DECREASE : Action.HOLD;
+        return decision(sample, action, target, arrivalRate, utilization, queueWaitMillis, littleThreads);
+    }
+
+    private Decision decision(ThreadPoolMetrics sample, Action action, int core, double arrivalRate, double utilization,
+                              double queueWaitMillis, int littleThreads) {
+        // core 已经按 maxPoolSize 限制过，max 不会小于 core
+        int max = Math.max(core, Math.min(maxPoolSize, (int) Math.ceil(core * config.getBurstRatio())));
+        int admission = queueAdmission(core, sample.getQueueCapacity());
+        boolean changed = core != sample.getCorePoolSize() || max != sample.getMaxPoolSize()
+                || admission != sample.getQueueAdmissionLimit();
+        return new Decision(action, changed, core, max, admission, arrivalRate, utilization, queueWaitMillis, littleThreads);
+    }
+
+    /**
+     * 核心线程在 maxQueueWaitMillis 内能处理的任务数
+     */
+    private int queueAdmission(int core, int queueCapacity) {
+        if (queueCapacity <= 0) {
+            return 0;
+        }
+        if (executionNanos <= 0) {
+            return queueCapacity;
+        }
+        double admission = core * (config.getMaxQueueWaitMillis() * 1e6 / executionNanos);
+        return (int) Math.max(Math.min(config.getMinQueueAdmission(), queueCapacity), Math.min(Math.ceil(admission), queueCapacity));
+    }
+
+    private int clamp(int core) {
+        int upper = Math.min(config.getMaxCorePoolSize(), maxPoolSize);
+        return Math.max(config.getMinCorePoolSize(), Math.min(upper, core));
+    }
+
+    /**
+     * 调整决策
+     */
+    @Getter
+    public static class Decision {
+
+        private final Action action;
+
+        /**
+         * 线程数或队列准入上限是否需要调整
+         */
+        private final boolean changed;
+
+        private final int corePoolSize;
+
+        private final int maxPoolSize;
+
+        /**
+         * 队列准入上限，没有队列时为 0
+         */
+        private final int queueAdmissionLimit;
+
+        /**
+         * 区间内每秒提交的任务数
+         */
+        private final double arrivalRate;
+
+        /**
+         * 区间内线程的忙碌比例
+         */
+        private final double utilization;
+
+        /**
+         * 区间内完成任务的平均排队耗时
+         */
+        private final double queueWaitMillis;
+
+        /**
+         * 按 Little 定律估算的线程数
+         */
+        private final int littleThreads;
+
+        public Decision(Action action, boolean changed, int corePoolSize, int maxPoolSize, int queueAdmissionLimit,
+                        double arrivalRate, double utilization, double queueWaitMillis, int littleThreads) {
+            this.action = action;
+            this.changed = changed;
+            this.corePoolSize = corePoolSize;
+            this.maxPoolSize = maxPoolSize;
+            this.queueAdmissionLimit = queueAdmissionLimit;
+            this.arrivalRate = arrivalRate;
+            this.utilization = utilization;
+            this.queueWaitMillis = queueWaitMillis;
+            this.littleThreads = littleThreads;
+        }
+    }
+}
@@ -17,6 +17,10 @@ public class FmkThreadPoolMonitor {
     private final ThreadPoolTaskExecutor threadPoolTaskExecutor;
     private final ScheduledExecutorService scheduler;
     private final int monitoringPeriodSeconds;
+    /**
+     * 自适应线程数控制器，未启用时为 null
+     */
+    private final FmkThreadPoolAutoSizer autoSizer;
 
     // 默认60秒
     public FmkThreadPoolMonitor(ThreadPoolTaskExecutor threadPoolTaskExecutor) {
@@ -24,8 +28,17 @@ public class FmkThreadPoolMonitor {
     }
 
     public FmkThreadPoolMonitor(ThreadPoolTaskExecutor threadPoolTaskExecutor, int monitoringPeriodSeconds) {
+        this(threadPoolTaskExecutor, monitoringPeriodSeconds, null);
+    }
+
+    /**
+     * @param autoSizer 每个监控周期按采样调整线程数，为 null 时只输出监控日志
+     */
+    public FmkThreadPoolMonitor(ThreadPoolTaskExecutor threadPoolTaskExecutor, int monitoringPeriodSeconds,
+                                FmkThreadPoolAutoSizer autoSizer) {
         this.threadPoolTaskExecutor = threadPoolTaskExecutor;
         this.monitoringPeriodSeconds = monitoringPeriodSeconds;
+        this.autoSizer = autoSizer;
         this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "thread-pool-monitor");
             t.setDaemon(true);
@@ -71,6 +84,15 @@ public class FmkThreadPoolMonitor {
             log.info("  Task Count: {}", executor.getTaskCount());
             log.info("  Completed Tasks: {}", executor.getCompletedTaskCount());
         }
+        if (autoSizer != null && threadPoolTaskExecutor instanceof FmkTtlThreadPoolTaskExecutor fmkExecutor) {
+            try {
+                autoSizer.adjust(fmkExecutor);
+            } catch (RuntimeException e) {
+                // 调整失败不能中断定时任务，否则后续周期不再执行
+                log.error("FmkThreadPoolMonitor|monitorThreadPool|自适应调整失败|threadNamePrefix={}",
+                        threadPoolTaskExecutor.getThreadNamePrefix(), e);
+            }
+        }
     }
 
     /**
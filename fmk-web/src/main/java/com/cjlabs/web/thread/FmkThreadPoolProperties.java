@@ -4,6 +4,9 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Getter
 @Setter
 @ConfigurationProperties(prefix = "fmk.thread-pool")
@@ -62,4 +65,180 @@ public class FmkThreadPoolProperties {
      * 监控统计间隔(秒)
      */
     private int monitoringPeriod = 10;
-}
\ No newline at end of file
+
+    /**
+     * 虚拟线程执行器配置
+     */
+    private Virtual virtual = new Virtual();
+
+    /**
+     * 自适应线程数配置
+     */
+    private Adaptive adaptive = new Adaptive();
+
+    /**
+     * 优先级调度配置
+     */
+    private Scheduling scheduling = new Scheduling();
+
+    /**
+     * 虚拟线程执行器配置
+     *
+     * 配置示例：
+     * <pre>
+     * fmk:
+     *   thread-pool:
+     *     virtual:
+     *       enabled: true                # 注册 fmkVirtualThreadTaskExecutor
+     *       thread-name-prefix: fmk-vt-
+     *       default-concurrency: 1000    # 没有单独配置的 workload 的并发上限，小于等于 0 表示不限制
+     *       workload-concurrency:        # 按 workload 限制并发，例如下游服务的连接数
+     *         redis: 200
+     *         order-api: 50
+     * </pre>
+     */
+    @Getter
+    @Setter
+    public static class Virtual {
+        /**
+         * 是否启用虚拟线程执行器
+         */
+        private boolean enabled = false;
+
+        /**
+         * 虚拟线程名称前缀
+         */
+        private String threadNamePrefix = "fmk-vt-";
+
+        /**
+         * 没有单独配置的 workload 的并发上限，小于等于 0 表示不限制
+         */
+        private int defaultConcurrency = 1000;
+
+        /**
+         * workload -> 并发上限
+         */
+        private Map<String, Integer> workloadConcurrency = new LinkedHashMap<>();
+    }
+
+    /**
+     * 自适应线程数配置，由 {@link FmkThreadPoolMonitor} 每个监控周期调整一次
+     *
+     * 配置示例：
+     * <pre>
+     * fmk:
+     *   thread-pool:
+     *     adaptive:
+     *       enabled: true
+     *       min-core-pool-size: 4
+     *       max-core-pool-size: 100
+     *       burst-ratio: 1.5               # 最大线程数 = 核心线程数 * burst-ratio，不超过 max-pool-size
+     *       target-utilization: 0.75       # 按 Little 定律估算线程数时的目标利用率
+     *       low-utilization: 0.4           # 利用率低于该值并且排队很少时才缩小
+     *       target-queue-wait-millis: 50   # 平均排队耗时超过该值时扩大
+     *       max-queue-wait-millis: 500     # 队列准入上限 = 处理能力 * 该时间
+     * </pre>
+     */
+    @Getter
+    @Setter
+    public static class Adaptive {
+        /**
+         * 是否启用自适应线程数
+         */
+        private boolean enabled = false;
+
+        /**
+         * 核心线程数下限
+         */
+        private int minCorePoolSize = 2;
+
+        /**
+         * 核心线程数上限
+         */
+        private int maxCorePoolSize = 100;
+
+        /**
+         * 最大线程数与核心线程数的比例，队列达到准入上限时用于应对突发；调整后的线程数不超过 max-pool-size
+         */
+        private double burstRatio = 1.5;
+
+        /**
+         * 目标利用率（0 ~ 1）
+         */
+        private double targetUtilization = 0.75;
+
+        /**
+         * 低利用率阈值（0 ~ 1），低于该值并且持续 cooldownSamples 个周期才缩小
+         */
+        private double lowUtilization = 0.4;
+
+        /**
+         * 目标平均排队耗时(毫秒)
+         */
+        private long targetQueueWaitMillis = 50;
+
+        /**
+         * 可接受的最大排队耗时(毫秒)，用于计算队列准入上限
+         */
+        private long maxQueueWaitMillis = 500;
+
+        /**
+         * 队列准入上限的下限
+         */
+        private int minQueueAdmission = 16;
+
+        /**
+         * 每次扩大的最少线程数（加性增加）
+         */
+        private int increaseStep = 2;
+
+        /**
+         * 每次缩小的比例（乘性减少）
+         */
+        private double decreaseFactor = 0.8;
+
+        /**
+         * 连续多少个周期满足缩小条件才缩小，扩大后同样要等待这么多个周期
+         */
+        private int cooldownSamples = 3;
+    }
+
+    /**
+     * 优先级调度配置，启用后线程池队列按优先级和租户取任务，见 {@link FmkPriorityTaskQueue}
+     *
+     * 配置示例：
+     * <pre>
+     * fmk:
+     *   thread-pool:
+     *     scheduling:
+     *       enabled: true
+     *       starvation-guard: 16          # 高优先级连续执行 16 个后让低优先级执行一个
+     *       default-tenant-weight: 1
+     *       tenant-weights:
+     *         tenant-a: 3                 # 同一优先级内 tenant-a 每轮执行 3 个，其他租户 1 个
+     * </pre>
+     */
+    @Getter
+    @Setter
+    public static class Scheduling {
+        /**
+         * 是否启用优先级调度
+         */
+        private boolean enabled = false;
+
+        /**
+         * 低优先级有任务时，高优先级连续执行多少个后让出一次，小于等于 0 表示严格按优先级
+         */
+        private int starvationGuard = 16;
+
+        /**
+         * 没有单独配置的租户的权重
+         */
+        private int defaultTenantWeight = 1;
+
+        /**
+         * 租户 -> 同一优先级内每轮连续执行的任务数
+         */
+        private Map<String, Integer> tenantWeights = new LinkedHashMap<>();
+    }
+}
@@ -2,19 +2,24 @@ package com.cjlabs.web.thread;
 
 import com.alibaba.ttl.TtlRunnable;
 import com.alibaba.ttl.TtlCallable;
-import com.cjlabs.core.time.FmkInstantUtil;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.io.Serial;
-import java.time.Duration;
-import java.time.Instant;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 支持TTL的线程池执行器
  * 继承自Spring的ThreadPoolTaskExecutor，对所有任务进行TTL包装
+ * <p>
+ * 每个任务在提交时记录时间，开始执行时记录排队耗时，结束时记录执行耗时和是否失败；
+ * 计数使用 LongAdder，耗时写入无锁直方图，提交路径上没有锁。
+ * 监控日志由 {@link FmkThreadPoolMonitor} 定时输出，不在提交任务时检查
+ * <p>
+ * 带 {@link FmkTaskOptions} 提交的任务可以指定超时时间，开始执行前已经超时的任务直接丢弃；
+ * 启用 {@link #setScheduling 优先级调度} 后队列按优先级和租户取任务，见 {@link FmkPriorityTaskQueue}
  */
 @Slf4j
 public class FmkTtlThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
@@ -22,24 +27,59 @@ public class FmkTtlThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
     private static final long serialVersionUID = 1L;
 
     /**
-     * 最后一次监控的时间戳
+     * 提交的任务总数
      */
-    private Instant lastMonitorTime = FmkInstantUtil.now();
+    private final LongAdder totalTasks = new LongAdder();
 
     /**
-     * 提交的任务总数
+     * 完成的任务总数（包括失败的任务）
      */
-    private long totalTasks = 0;
+    private final LongAdder completedTasks = new LongAdder();
 
     /**
-     * 完成的任务总数
+     * 抛出异常的任务总数
      */
-    private long completedTasks = 0;
+    private final LongAdder failedTasks = new LongAdder();
 
     /**
      * 拒绝的任务总数
      */
-    private long rejectedTasks = 0;
+    private final LongAdder rejectedTasks = new LongAdder();
+
+    /**
+     * 排队耗时：提交到开始执行
+     */
+    private final transient FmkTaskTimer queueWaitTimer = new FmkTaskTimer();
+
+    /**
+     * 执行耗时
+     */
+    private final transient FmkTaskTimer executionTimer = new FmkTaskTimer();
+
+    /**
+     * 累计排队耗时（纳秒），与完成数一起计算区间平均值
+     */
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    /**
+     * 累计执行耗时（纳秒）
+     */
+    private final LongAdder executionNanos = new LongAdder();
+
+    /**
+     * 开始执行前已经超时而丢弃的任务总数
+     */
+    private final LongAdder expiredTasks = new LongAdder();
+
+    /**
+     * 队列准入上限，运行时可调整，见 {@link #setQueueAdmissionLimit}
+     */
+    private transient volatile AdmissionControlled admissionQueue;
+
+    /**
+     * 优先级调度配置，为 null 或未启用时使用先进先出队列
+     */
+    private transient FmkThreadPoolProperties.Scheduling scheduling;
 
     /**
      * 是否启用监控
@@ -47,50 +87,41 @@ public class FmkTtlThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
     private final boolean enableMonitoring;
 
     /**
-     * 监控统计间隔(毫秒)
+     * 监控统计间隔(秒)
      */
-    private final long monitoringPeriodMs;
+    private final int monitoringPeriodSeconds;
 
     public FmkTtlThreadPoolTaskExecutor(boolean enableMonitoring, int monitoringPeriodSeconds) {
         this.enableMonitoring = enableMonitoring;
-        this.monitoringPeriodMs = monitoringPeriodSeconds * 1000L;
+        this.monitoringPeriodSeconds = monitoringPeriodSeconds;
+        // 默认拒绝策略同样统计拒绝数
+        setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
     }
 
-    // 在 FmkTtlThreadPoolTaskExecutor 中添加
     @Override
     public void execute(Runnable task) {
-        incrementTotalTasks();
-        try {
-            super.execute(TtlRunnable.get(task));
-        } catch (RejectedExecutionException e) {
-            incrementRejectedTasks();
-            throw e;
-        }
+        super.execute(TtlRunnable.get(new TimedRunnable(task)));
     }
 
     @Override
     public void execute(Runnable task, long startTimeout) {
-        incrementTotalTasks();
-        super.execute(TtlRunnable.get(task), startTimeout);
+        super.execute(TtlRunnable.get(new TimedRunnable(task)), startTimeout);
     }
 
     @Override
     public Future<?> submit(Runnable task) {
-        incrementTotalTasks();
-        return super.submit(TtlRunnable.get(task));
+        return super.submit(TtlRunnable.get(new TimedRunnable(task)));
     }
 
     @Override
     public <T> Future<T> submit(Callable<T> task) {
-        incrementTotalTasks();
-        return super.submit(TtlCallable.get(task));
+        return super.submit(TtlCallable.get(new TimedCallable<>(task)));
     }
 
     /**
      * 提交可获取CompletableFuture结果的任务
      */
     public <T> CompletableFuture<T> submitCompletable(Callable<T> task) {
-        incrementTotalTasks();
         return CompletableFuture.supplyAsync(() -> {
             try {
                 return TtlCallable.get(task).call();
@@ -104,58 +135,163 @@ public class FmkTtlThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
      * 提交可获取CompletableFuture结果的Runnable任务
      */
     public CompletableFuture<Void> submitCompletable(Runnable task) {
-        incrementTotalTasks();
         return CompletableFuture.runAsync(TtlRunnable.get(task), this);
     }
 
+    /**
+     * 按选项执行：超时的任务不执行，启用优先级调度时按优先级和租户排队
+     */
+    public void execute(Runnable task, FmkTaskOptions options) {
+        super.execute(new ScheduledTask(options, TtlRunnable.get(new TimedRunnable(task)), null));
+    }
+
+    /**
+     * 按选项提交，超时未开始执行时 Future 以 {@link TimeoutException} 结束
+     */
+    public Future<?> submit(Runnable task, FmkTaskOptions options) {
+        return submit(Executors.callable(task), options);
+    }
+
+    /**
+     * 按选项提交，超时未开始执行时 Future 以 {@link TimeoutException} 结束
+     */
+    public <T> Future<T> submit(Callable<T> task, FmkTaskOptions options) {
+        ExpirableFutureTask<T> future = new ExpirableFutureTask<>(TtlCallable.get(new TimedCallable<>(task)));
+        super.execute(new ScheduledTask(options, future, future::expire));
+        return future;
+    }
+
+    /**
+     * 按选项提交可获取CompletableFuture结果的任务，超时未开始执行时以 {@link TimeoutException} 结束
+     */
+    public <T> CompletableFuture<T> submitCompletable(Callable<T> task, FmkTaskOptions options) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable runnable = TtlRunnable.get(new TimedRunnable(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }));
+        super.execute(new ScheduledTask(options, runnable,
+                () -> future.completeExceptionally(new TimeoutException("任务开始执行前已超时"))));
+        return future;
+    }
+
+    /**
+     * 设置优先级调度配置，需要在 {@link #initialize()} 之前调用
+     * <p>
+     * 需要队列容量大于 0，并且没有设置 TaskDecorator（装饰后的任务无法识别优先级，按 NORMAL 处理）
+     */
+    public void setScheduling(FmkThreadPoolProperties.Scheduling scheduling) {
+        this.scheduling = scheduling;
+    }
+
+    /**
+     * 队列容量大于 0 时使用可以调整准入上限的队列，启用优先级调度时使用 {@link FmkPriorityTaskQueue}
+     */
     @Override
-    protected void cancelRemainingTask(Runnable task) {
-        super.cancelRemainingTask(TtlRunnable.get(task));
+    protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            if (scheduling != null && scheduling.isEnabled()) {
+                log.warn("FmkTtlThreadPoolTaskExecutor|createQueue|队列容量为 0，优先级调度不生效|threadNamePrefix={}",
+                        getThreadNamePrefix());
+            }
+            return super.createQueue(queueCapacity);
+        }
+        if (scheduling != null && scheduling.isEnabled()) {
+            FmkPriorityTaskQueue queue = new FmkPriorityTaskQueue(queueCapacity, scheduling.getStarvationGuard(),
+                    scheduling.getTenantWeights(), scheduling.getDefaultTenantWeight());
+            this.admissionQueue = queue;
+            return queue;
+        }
+        AdmissionQueue queue = new AdmissionQueue(queueCapacity);
+        this.admissionQueue = queue;
+        return queue;
     }
 
     /**
-     * 增加总任务计数并检查是否需要输出监控信息
+     * 调整队列准入上限（不超过队列容量）
+     * <p>
+     * 队列中的任务数达到准入上限后，新任务不再排队：线程数小于最大线程数时新建线程，否则交给拒绝策略
      */
-    private synchronized void incrementTotalTasks() {
-        totalTasks++;
-        checkAndLogMetrics();
+    public void setQueueAdmissionLimit(int limit) {
+        AdmissionControlled queue = admissionQueue;
+        if (queue != null) {
+            queue.setAdmissionLimit(limit);
+        }
+    }
+
+    /**
+     * 当前队列准入上限，没有队列时返回 0
+     */
+    public int getQueueAdmissionLimit() {
+        AdmissionControlled queue = admissionQueue;
+        return queue != null ? queue.getAdmissionLimit() : 0;
+    }
+
+    /**
+     * 设置拒绝策略，自动包装为 {@link MonitoredRejectedExecutionHandler} 以统计拒绝数
+     */
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler rejectedExecutionHandler) {
+        if (rejectedExecutionHandler != null && !(rejectedExecutionHandler instanceof MonitoredRejectedExecutionHandler)) {
+            rejectedExecutionHandler = new MonitoredRejectedExecutionHandler(rejectedExecutionHandler, this);
+        }
+        super.setRejectedExecutionHandler(rejectedExecutionHandler);
     }
 
     /**
      * 增加完成任务计数
      */
-    public synchronized void incrementCompletedTasks() {
-        completedTasks++;
+    public void incrementCompletedTasks() {
+        completedTasks.increment();
     }
 
     /**
      * 增加拒绝任务计数
      */
-    public synchronized void incrementRejectedTasks() {
-        rejectedTasks++;
+    public void incrementRejectedTasks() {
+        rejectedTasks.increment();
+    }
+
+    public boolean isEnableMonitoring() {
+        return enableMonitoring;
+    }
+
+    public int getMonitoringPeriodSeconds() {
+        return monitoringPeriodSeconds;
     }
 
     /**
-     * 检查是否需要输出监控信息
+     * 任务开始执行
+     *
+     * @return 开始时间（纳秒）
      */
-    private void checkAndLogMetrics() {
-        if (!enableMonitoring) {
-            return;
-        }
-
-        Instant currentTime = FmkInstantUtil.now();  // 👈 改为 Instant
-        Duration duration = Duration.between(lastMonitorTime, currentTime);  // 👈 使用 Duration 计算间隔
+    private long taskStarted(long submitNanos) {
+        long startNanos = System.nanoTime();
+        queueWaitTimer.record(startNanos - submitNanos);
+        queueWaitNanos.add(startNanos - submitNanos);
+        return startNanos;
+    }
 
-        if (duration.toMillis() >= monitoringPeriodMs) {  // 👈 转换为毫秒比较
-            logMetrics();
-            lastMonitorTime = currentTime;
+    /**
+     * 任务执行结束
+     */
+    private void taskFinished(long startNanos, boolean failed) {
+        long costNanos = System.nanoTime() - startNanos;
+        executionTimer.record(costNanos);
+        executionNanos.add(costNanos);
+        completedTasks.increment();
+        if (failed) {
+            failedTasks.increment();
         }
     }
 
     /**
      * 输出监控信息
      */
-    public synchronized void logMetrics() {
+    public void logMetrics() {
         if (!enableMonitoring) {
             return;
         }
@@ -175,9 +311,14 @@ public class FmkTtlThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
         log.info("  Pool Size: {}/{} (current/max)", poolSize, maxPoolSize);
         log.info("  Active Threads: {}", activeCount);
         log.info("  Core Pool Size: {}", corePoolSize);
-        log.info("  Queue: {}/{} (used/total)", queueSize, queueSize + queueRemainingCapacity);
-        log.info("  Tasks: {} submitted, {} completed, {} rejected",
-                totalTasks, completedTasks, rejectedTasks);
+        log.info("  Queue: {}/{} (used/total), admission limit {}", queueSize, queueSize + queueRemainingCapacity,
+                getQueueAdmissionLimit());
+        log.info("  Tasks: {} submitted, {} completed, {} failed, {} rejected, {} expired",
+                totalTasks.sum(), completedTasks.sum(), failedTasks.sum(), rejectedTasks.sum(), expiredTasks.sum());
+        log.info("  Queue Wait: p50={}ms p99={}ms max={}ms",
+                queueWaitTimer.percentileMillis(50), queueWaitTimer.percentileMillis(99), queueWaitTimer.maxMillis());
+        log.info("  Execution: p50={}ms p99={}ms max={}ms",
+                executionTimer.percentileMillis(50), executionTimer.percentileMillis(99), executionTimer.maxMillis());
         log.info("  Executor Tasks: {} submitted, {} completed",
                 taskCount, completedTaskCount);
     }
@@ -198,9 +339,21 @@ public class FmkTtlThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
         metrics.setCompletedTaskCount(executor.getCompletedTaskCount());
         metrics.setQueueSize(executor.getQueue().size());
         metrics.setQueueRemainingCapacity(executor.getQueue().remainingCapacity());
-        metrics.setTotalTasks(totalTasks);
-        metrics.setCompletedTasks(completedTasks);
-        metrics.setRejectedTasks(rejectedTasks);
+        metrics.setTotalTasks(totalTasks.sum());
+        metrics.setCompletedTasks(completedTasks.sum());
+        metrics.setFailedTasks(failedTasks.sum());
+        metrics.setRejectedTasks(rejectedTasks.sum());
+        metrics.setExpiredTasks(expiredTasks.sum());
+        metrics.setQueueWaitP50Millis(queueWaitTimer.percentileMillis(50));
+        metrics.setQueueWaitP99Millis(queueWaitTimer.percentileMillis(99));
+        metrics.setQueueWaitMaxMillis(queueWaitTimer.maxMillis());
+        metrics.setExecutionP50Millis(executionTimer.percentileMillis(50));
+        metrics.setExecutionP99Millis(executionTimer.percentileMillis(99));
+        metrics.setExecutionMaxMillis(executionTimer.maxMillis());
+        metrics.setQueueWaitNanosTotal(queueWaitNanos.sum());
+        metrics.setExecutionNanosTotal(executionNanos.sum());
+        metrics.setQueueCapacity(getQueueCapacity());
+        metrics.setQueueAdmissionLimit(getQueueAdmissionLimit());
 
         return metrics;
     }
@@ -230,4 +383,182 @@ public class FmkTtlThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
         }
     }
 
+    /**
+     * 容量固定、准入上限可以在运行时调整的队列
+     */
+    interface AdmissionControlled {
+
+        int capacity();
+
+        int getAdmissionLimit();
+
+        /**
+         * 调整准入上限，超出 [0, capacity] 时取边界值
+         */
+        void setAdmissionLimit(int admissionLimit);
+    }
+
+    /**
+     * 可以在运行时收紧准入上限的队列，容量本身不变
+     */
+    private static final class AdmissionQueue extends LinkedBlockingQueue<Runnable> implements AdmissionControlled {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private volatile int admissionLimit;
+
+        private AdmissionQueue(int capacity) {
+            super(capacity);
+            this.capacity = capacity;
+            this.admissionLimit = capacity;
+        }
+
+        @Override
+        public int capacity() {
+            return capacity;
+        }
+
+        @Override
+        public int getAdmissionLimit() {
+            return admissionLimit;
+        }
+
+        @Override
+        public void setAdmissionLimit(int admissionLimit) {
+            this.admissionLimit = Math.max(0, Math.min(admissionLimit, capacity));
+        }
+
+        @Override
+        public boolean offer(Runnable runnable) {
+            // 近似判断，并发时可能短暂超过准入上限，但不会超过容量
+            if (size() >= admissionLimit) {
+                return false;
+            }
+            return super.offer(runnable);
+        }
+    }
+
+    /**
+     * 带优先级、租户和超时时间的任务，是线程池队列中的元素
+     */
+    private final class ScheduledTask implements Runnable, FmkPriorityTaskQueue.PrioritizedTask {
+        private final FmkTaskPriority priority;
+        private final String tenant;
+        /**
+         * 超时时刻（纳秒），不限制时为 0
+         */
+        private final long deadlineNanos;
+        /**
+         * 已经包装过 TTL 和耗时统计的任务
+         */
+        private final Runnable delegate;
+        /**
+         * 超时丢弃时通知调用方
+         */
+        private final Runnable onExpired;
+
+        private ScheduledTask(FmkTaskOptions options, Runnable delegate, Runnable onExpired) {
+            FmkTaskOptions taskOptions = options != null ? options : FmkTaskOptions.NORMAL;
+            this.priority = taskOptions.getPriority();
+            this.tenant = taskOptions.getTenant();
+            long timeoutNanos = taskOptions.getTimeoutNanos();
+            // 0 表示不限制，计算出的时刻恰好为 0 时顺延 1 纳秒
+            this.deadlineNanos = timeoutNanos > 0 ? (System.nanoTime() + timeoutNanos) | 1 : 0;
+            this.delegate = delegate;
+            this.onExpired = onExpired;
+        }
+
+        @Override
+        public FmkTaskPriority priority() {
+            return priority;
+        }
+
+        @Override
+        public String tenant() {
+            return tenant;
+        }
+
+        @Override
+        public void run() {
+            if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) {
+                expiredTasks.increment();
+                log.debug("FmkTtlThreadPoolTaskExecutor|run|任务开始执行前已超时，丢弃|priority={}|tenant={}", priority, tenant);
+                if (onExpired != null) {
+                    onExpired.run();
+                }
+                return;
+            }
+            delegate.run();
+        }
+    }
+
+    /**
+     * 超时丢弃时以 {@link TimeoutException} 结束的 FutureTask
+     */
+    private static final class ExpirableFutureTask<T> extends FutureTask<T> {
+
+        private ExpirableFutureTask(Callable<T> callable) {
+            super(callable);
+        }
+
+        private void expire() {
+            setException(new TimeoutException("任务开始执行前已超时"));
+        }
+    }
+
+    /**
+     * 记录排队和执行耗时的 Runnable，在提交线程创建
+     */
+    private final class TimedRunnable implements Runnable {
+        private final Runnable delegate;
+        private final long submitNanos;
+
+        private TimedRunnable(Runnable delegate) {
+            totalTasks.increment();
+            this.delegate = delegate;
+            this.submitNanos = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            long startNanos = taskStarted(submitNanos);
+            boolean failed = true;
+            try {
+                delegate.run();
+                failed = false;
+            } finally {
+                taskFinished(startNanos, failed);
+            }
+        }
+    }
+
+    /**
+     * 记录排队和执行耗时的 Callable，在提交线程创建
+     */
+    private final class TimedCallable<T> implements Callable<T> {
+        private final Callable<T> delegate;
+        private final long submitNanos;
+
+        private TimedCallable(Callable<T> delegate) {
+            totalTasks.increment();
+            this.delegate = delegate;
+            this.submitNanos = System.nanoTime();
+        }
+
+        @Override
+        public T call() throws Exception {
+            long startNanos = taskStarted(submitNanos);
+            boolean failed = true;
+            try {
+                T result = delegate.call();
+                failed = false;
+                return result;
+            } finally {
+                taskFinished(startNanos, failed);
+            }
+        }
+    }
+
 }
\ No newline at end of file
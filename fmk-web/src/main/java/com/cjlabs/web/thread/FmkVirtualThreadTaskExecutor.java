@@ -0,0 +1,264 @@
+package com.cjlabs.web.thread;
+
+import com.alibaba.ttl.TtlCallable;
+import com.alibaba.ttl.TtlRunnable;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程执行器，适合 HTTP、Redis、数据库等阻塞 I/O 较多的并发调用
+ * <p>
+ * 每个任务一个虚拟线程，没有队列；并发数按 workload 用信号量限制，超过限制的任务在自己的虚拟线程中等待许可，
+ * 提交线程不会阻塞。提交时捕获 TTL 上下文和 MDC，在虚拟线程中恢复，结束后还原。
+ * <p>
+ * 与 {@link FmkTtlThreadPoolTaskExecutor} 的区别：平台线程池适合 CPU 密集任务，线程数就是并发上限；
+ * 虚拟线程执行器的并发上限只由信号量决定，阻塞等待不占用平台线程
+ */
+@Slf4j
+public class FmkVirtualThreadTaskExecutor implements AsyncTaskExecutor, DisposableBean {
+
+    /**
+     * 不指定 workload 时使用
+     */
+    public static final String DEFAULT_WORKLOAD = "default";
+
+    private final String threadNamePrefix;
+
+    private final ExecutorService executor;
+
+    /**
+     * 没有单独配置的 workload 的并发上限，小于等于 0 表示不限制
+     */
+    private final int defaultConcurrency;
+
+    private final Map<String, Integer> workloadConcurrency;
+
+    private final Map<String, Semaphore> limiters = new ConcurrentHashMap<>();
+
+    private final int awaitTerminationSeconds;
+
+    private final LongAdder submittedTasks = new LongAdder();
+
+    private final LongAdder completedTasks = new LongAdder();
+
+    private final LongAdder failedTasks = new LongAdder();
+
+    /**
+     * @param threadNamePrefix        虚拟线程名称前缀
+     * @param defaultConcurrency      没有单独配置的 workload 的并发上限，小于等于 0 表示不限制
+     * @param workloadConcurrency     workload -> 并发上限
+     * @param awaitTerminationSeconds 关闭时等待任务完成的最长时间(秒)
+     */
+    public FmkVirtualThreadTaskExecutor(String threadNamePrefix, int defaultConcurrency,
+                                        Map<String, Integer> workloadConcurrency, int awaitTerminationSeconds) {
+        this.threadNamePrefix = threadNamePrefix;
+        this.defaultConcurrency = defaultConcurrency;
+        this.workloadConcurrency = workloadConcurrency != null ? Map.copyOf(workloadConcurrency) : Map.of();
+        this.awaitTerminationSeconds = awaitTerminationSeconds;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        execute(DEFAULT_WORKLOAD, task);
+    }
+
+    /**
+     * 按 workload 的并发上限执行
+     */
+    public void execute(String workload, Runnable task) {
+        executor.execute(new LimitedTask<>(limiter(workload), TtlRunnable.get(task), null));
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return submit(DEFAULT_WORKLOAD, task);
+    }
+
+    public Future<?> submit(String workload, Runnable task) {
+        return executor.submit((Runnable) new LimitedTask<>(limiter(workload), TtlRunnable.get(task), null));
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return submit(DEFAULT_WORKLOAD, task);
+    }
+
+    public <T> Future<T> submit(String workload, Callable<T> task) {
+        return executor.submit((Callable<T>) new LimitedTask<>(limiter(workload), null, TtlCallable.get(task)));
+    }
+
+    /**
+     * 提交可获取CompletableFuture结果的任务
+     */
+    public <T> CompletableFuture<T> submitCompletable(Callable<T> task) {
+        return submitCompletable(DEFAULT_WORKLOAD, task);
+    }
+
+    public <T> CompletableFuture<T> submitCompletable(String workload, Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, runnable -> execute(workload, runnable));
+    }
+
+    /**
+     * 提交可获取CompletableFuture结果的Runnable任务
+     */
+    public CompletableFuture<Void> submitCompletable(Runnable task) {
+        return submitCompletable(DEFAULT_WORKLOAD, task);
+    }
+
+    public CompletableFuture<Void> submitCompletable(String workload, Runnable task) {
+        return CompletableFuture.runAsync(task, runnable -> execute(workload, runnable));
+    }
+
+    private Semaphore limiter(String workload) {
+        String key = workload != null ? workload : DEFAULT_WORKLOAD;
+        Semaphore limiter = limiters.get(key);
+        if (limiter != null) {
+            return limiter;
+        }
+        int permits = workloadConcurrency.getOrDefault(key, defaultConcurrency);
+        // 不限制时使用许可足够多的信号量，执行路径保持一致
+        return limiters.computeIfAbsent(key, k -> new Semaphore(permits > 0 ? permits : Integer.MAX_VALUE));
+    }
+
+    /**
+     * workload 当前可用的许可数
+     */
+    public int availablePermits(String workload) {
+        return limiter(workload).availablePermits();
+    }
+
+    /**
+     * workload 中等待许可的任务数（近似值）
+     */
+    public int waitingTasks(String workload) {
+        return limiter(workload).getQueueLength();
+    }
+
+    public long getSubmittedTasks() {
+        return submittedTasks.sum();
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks.sum();
+    }
+
+    public long getFailedTasks() {
+        return failedTasks.sum();
+    }
+
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(awaitTerminationSeconds, TimeUnit.SECONDS)) {
+                log.warn("FmkVirtualThreadTaskExecutor|destroy|等待任务完成超时|threadNamePrefix={}|awaitTerminationSeconds={}",
+                        threadNamePrefix, awaitTerminationSeconds);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("FmkVirtualThreadTaskExecutor|destroy|submitted={}|completed={}|failed={}",
+                submittedTasks.sum(), completedTasks.sum(), failedTasks.sum());
+    }
+
+    /**
+     * 在虚拟线程中获取许可、恢复 MDC，然后执行已经包装过 TTL 的任务（runnable 和 callable 二选一）
+     */
+    private final class LimitedTask<T> implements Runnable, Callable<T> {
+
+        private final Semaphore limiter;
+
+        private final Runnable runnable;
+
+        private final Callable<T> callable;
+
+        private final Map<String, String> mdc;
+
+        private LimitedTask(Semaphore limiter, Runnable runnable, Callable<T> callable) {
+            submittedTasks.increment();
+            this.limiter = limiter;
+            this.runnable = runnable;
+            this.callable = callable;
+            this.mdc = MDC.getCopyOfContextMap();
+        }
+
+        @Override
+        public void run() {
+            try {
+                call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }
+
+        @Override
+        public T call() throws Exception {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedTasks.increment();
+                throw new CancellationException("等待并发许可时被中断");
+            }
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setMdc(mdc);
+            boolean failed = true;
+            try {
+                T result = null;
+                if (callable != null) {
+                    result = callable.call();
+                } else {
+                    runnable.run();
+                }
+                failed = false;
+                return result;
+            } finally {
+                setMdc(previous);
+                limiter.release();
+                completedTasks.increment();
+                if (failed) {
+                    failedTasks.increment();
+                }
+            }
+        }
+    }
+
+    private static void setMdc(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
@@ -20,6 +20,18 @@ public class ThreadPoolMetrics {
     private int queueRemainingCapacity;
     private long totalTasks;
     private long completedTasks;
+    private long failedTasks;
     private long rejectedTasks;
+    private long expiredTasks;
+    private double queueWaitP50Millis;
+    private double queueWaitP99Millis;
+    private double queueWaitMaxMillis;
+    private double executionP50Millis;
+    private double executionP99Millis;
+    private double executionMaxMillis;
+    private long queueWaitNanosTotal;
+    private long executionNanosTotal;
+    private int queueCapacity;
+    private int queueAdmissionLimit;
 
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import com.cjlabs.core.types.strings.FmkToken;
 import com.cjlabs.core.types.strings.FmkTraceId;
 import com.cjlabs.domain.enums.FmkLanguageEnum;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -15,11 +16,28 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 请求上下文
+ * <p>
+ * traceId、spanId、请求时间和 URI 由 TraceFilter 直接设置；Token、用户、语言、客户端信息和请求头
+ * 在第一次读取时才通过 {@link FmkContextLoader} 加载并缓存，接口没有用到的字段不会解析。
+ * 调用 setter 设置的值优先，不会再加载。
+ * <p>
+ * 通过 TTL 传递到异步线程时使用 {@link #snapshot()}：只复制已经加载的字段，不在提交任务时校验 Token；
+ * 异步线程拿到的是不再依赖请求的副本
+ */
 @Getter
 @Setter
 @ToString(onlyExplicitlyIncluded = true)
 public class FmkContextInfo {
 
+    private static final int TOKEN = 1;
+    private static final int USER_INFO = 1 << 1;
+    private static final int LANGUAGE = 1 << 2;
+    private static final int CLIENT_INFO = 1 << 3;
+    private static final int HEADERS = 1 << 4;
+    private static final int ALL = TOKEN | USER_INFO | LANGUAGE | CLIENT_INFO | HEADERS;
+
     /**
      * 追踪ID
      */
@@ -61,17 +79,31 @@ public class FmkContextInfo {
     /**
      * 客户端信息
      */
-    private FmkClientInfo fmkClientInfo = new FmkClientInfo();
+    private FmkClientInfo fmkClientInfo;
 
     /**
      * 请求头信息
      */
-    private Map<String, String> headers = new ConcurrentHashMap<>();
+    private Map<String, String> headers;
 
     /**
      * 自定义属性
      */
-    private Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private Map<String, Object> attributes;
+
+    /**
+     * 按需加载，为 null 时不再加载（未加载的字段使用默认值）
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private FmkContextLoader loader;
+
+    /**
+     * 已加载（或已设置）的字段
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int resolved;
 
     /**
      * 创建一个基础的上下文信息实例
@@ -84,18 +116,207 @@ public class FmkContextInfo {
         return info;
     }
 
+    // ==================== 按需加载 ====================
+
+    /**
+     * 设置按需加载，之前未加载的字段在第一次读取时加载
+     */
+    public void attachLoader(FmkContextLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * 解除按需加载（请求结束时调用），之后未加载的字段使用默认值
+     */
+    public void detachLoader() {
+        this.loader = null;
+    }
+
+    /**
+     * 加载全部字段
+     */
+    public void resolveAll() {
+        getToken();
+        getUserInfo();
+        getLanguage();
+        getFmkClientInfo();
+        getHeaders();
+    }
+
+    /**
+     * 创建副本，副本不持有请求，请求头和自定义属性复制一份（跳过 null 值）
+     * <p>
+     * Token 和语言各读一个请求头，在当前线程直接读取；用户信息未加载时副本持有 {@link FmkContextLoader#detach()}，
+     * 在异步线程第一次读取时才按 Token 加载；客户端信息和请求头依赖请求，只复制已经加载的，未加载的在副本中为默认值。
+     * 用户信息和客户端信息与原上下文共享，按只读使用
+     */
+    public FmkContextInfo snapshot() {
+        FmkContextInfo copy = new FmkContextInfo();
+        copy.traceId = traceId;
+        copy.spanId = spanId;
+        copy.token = getToken();
+        copy.language = getLanguage();
+        copy.requestTime = requestTime;
+        copy.requestUri = requestUri;
+        copy.resolved = ALL;
+        if ((resolved & USER_INFO) != 0 || loader == null) {
+            copy.userInfo = userInfo;
+        } else {
+            copy.loader = loader.detach();
+            copy.resolved &= ~USER_INFO;
+        }
+        if ((resolved & CLIENT_INFO) != 0) {
+            copy.fmkClientInfo = fmkClientInfo;
+        }
+        if ((resolved & HEADERS) != 0 && headers != null) {
+            copy.headers = copyOf(headers);
+        }
+        if (attributes != null) {
+            copy.attributes = copyOf(attributes);
+        }
+        return copy;
+    }
+
+    /**
+     * 复制到 ConcurrentHashMap，跳过 null 键和 null 值
+     */
+    private static <V> Map<String, V> copyOf(Map<String, V> source) {
+        Map<String, V> copy = new ConcurrentHashMap<>(Math.max(16, source.size() * 2));
+        source.forEach((key, value) -> {
+            if (key != null && value != null) {
+                copy.put(key, value);
+            }
+        });
+        return copy;
+    }
+
+    /**
+     * 字段是否需要加载（未加载过且有 loader），调用后标记为已加载
+     */
+    private boolean needLoad(int field) {
+        if ((resolved & field) != 0) {
+            return false;
+        }
+        if (loader == null) {
+            return false;
+        }
+        resolved |= field;
+        return true;
+    }
+
+    // ==================== 按需加载的字段 ====================
+
+    /**
+     * 获取 Token
+     */
+    public FmkToken getToken() {
+        if (needLoad(TOKEN)) {
+            token = loader.loadToken();
+        }
+        return token;
+    }
+
+    public void setToken(FmkToken token) {
+        this.token = token;
+        resolved |= TOKEN;
+    }
+
+    /**
+     * 获取用户信息，第一次读取时按 Token 加载
+     */
+    public FmkUserInfo getUserInfo() {
+        if (needLoad(USER_INFO)) {
+            FmkToken currentToken = getToken();
+            userInfo = loader == null ? null : loader.loadUserInfo(currentToken);
+        }
+        return userInfo;
+    }
+
+    public void setUserInfo(FmkUserInfo userInfo) {
+        this.userInfo = userInfo;
+        resolved |= USER_INFO;
+    }
+
+    /**
+     * 获取语言，请求没有指定时为 EN_US
+     */
+    public FmkLanguageEnum getLanguage() {
+        if (needLoad(LANGUAGE)) {
+            FmkLanguageEnum loaded = loader.loadLanguage();
+            if (loaded != null) {
+                language = loaded;
+            }
+        }
+        return language;
+    }
+
+    public void setLanguage(FmkLanguageEnum language) {
+        this.language = language;
+        resolved |= LANGUAGE;
+    }
+
+    /**
+     * 获取客户端信息
+     */
+    public FmkClientInfo getFmkClientInfo() {
+        if (needLoad(CLIENT_INFO)) {
+            fmkClientInfo = loader.loadClientInfo();
+        }
+        if (fmkClientInfo == null) {
+            fmkClientInfo = new FmkClientInfo();
+            resolved |= CLIENT_INFO;
+        }
+        return fmkClientInfo;
+    }
+
+    public void setFmkClientInfo(FmkClientInfo fmkClientInfo) {
+        this.fmkClientInfo = fmkClientInfo;
+        resolved |= CLIENT_INFO;
+    }
+
+    /**
+     * 获取全部请求头
+     */
+    public Map<String, String> getHeaders() {
+        if (needLoad(HEADERS)) {
+            headers = loader.loadHeaders();
+        }
+        if (headers == null) {
+            headers = new ConcurrentHashMap<>();
+            resolved |= HEADERS;
+        }
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+        resolved |= HEADERS;
+    }
+
+    /**
+     * 获取自定义属性
+     */
+    public Map<String, Object> getAttributes() {
+        if (attributes == null) {
+            attributes = new ConcurrentHashMap<>();
+        }
+        return attributes;
+    }
+
     /**
      * 获取用户ID
      */
     @ToString.Include(name = "userId")
     public FmkUserId getUserId() {
-        return userInfo != null ? userInfo.getUserId() : null;
+        FmkUserInfo currentUserInfo = getUserInfo();
+        return currentUserInfo != null ? currentUserInfo.getUserId() : null;
     }
 
     /**
      * 设置用户ID和用户信息
      */
     public void setUserId(FmkUserId userId) {
+        resolved |= USER_INFO;
         if (userId == null) {
             this.userInfo = null;
             return;
@@ -111,6 +332,7 @@ public class FmkContextInfo {
      * 设置用户信息和用户ID
      */
     public FmkUserInfo setUserInfoAndUserId(FmkUserId inputUserId) {
+        resolved |= USER_INFO;
         if (inputUserId == null) {
             this.userInfo = null;
             return null;
@@ -126,7 +348,7 @@ public class FmkContextInfo {
      * 获取属性
      */
     public Object getAttribute(String key) {
-        return attributes.get(key);
+        return attributes == null ? null : attributes.get(key);
     }
 
     /**
@@ -134,7 +356,7 @@ public class FmkContextInfo {
      */
     @SuppressWarnings("unchecked")
     public <T> T getAttribute(String key, Class<T> type) {
-        Object value = attributes.get(key);
+        Object value = getAttribute(key);
         if (type.isInstance(value)) {
             return (T) value;
         }
@@ -152,34 +374,40 @@ public class FmkContextInfo {
      * 设置属性
      */
     public void setAttribute(String key, Object value) {
-        attributes.put(key, value);
+        getAttributes().put(key, value);
     }
 
     /**
      * 移除属性
      */
     public void removeAttribute(String key) {
-        attributes.remove(key);
+        if (attributes != null) {
+            attributes.remove(key);
+        }
     }
 
     /**
      * 检查是否有用户信息
      */
     public boolean hasUserInfo() {
-        return userInfo != null && userInfo.getUserId() != null;
+        FmkUserInfo currentUserInfo = getUserInfo();
+        return currentUserInfo != null && currentUserInfo.getUserId() != null;
     }
 
     /**
-     * 获取请求头
+     * 获取请求头，未加载全部请求头时直接读取单个请求头
      */
     public String getHeader(String name) {
-        return headers.get(name);
+        if ((resolved & HEADERS) == 0 && loader != null) {
+            return loader.loadHeader(name);
+        }
+        return headers == null ? null : headers.get(name);
     }
 
     /**
      * 设置请求头
      */
     public void setHeader(String name, String value) {
-        headers.put(name, value);
+        getHeaders().put(name, value);
     }
 }
\ No newline at end of file
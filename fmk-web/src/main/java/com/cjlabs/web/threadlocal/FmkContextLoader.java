@@ -0,0 +1,61 @@
+package com.cjlabs.web.threadlocal;
+
+import com.cjlabs.core.types.strings.FmkToken;
+import com.cjlabs.domain.enums.FmkLanguageEnum;
+
+import java.util.Map;
+
+/**
+ * 上下文字段的按需加载
+ * <p>
+ * {@link FmkContextInfo} 的 Token、用户、语言、客户端信息和请求头在第一次读取时才通过它加载，
+ * 加载结果缓存在上下文中；实现通常持有当前请求，只能在请求线程、请求结束前使用
+ */
+public interface FmkContextLoader {
+
+    /**
+     * 加载 Token
+     *
+     * @return 没有 Token 时返回 null
+     */
+    FmkToken loadToken();
+
+    /**
+     * 按 Token 加载用户信息
+     *
+     * @param token 可能为 null
+     * @return 未登录或 Token 无效时返回 null
+     */
+    FmkUserInfo loadUserInfo(FmkToken token);
+
+    /**
+     * 加载语言
+     *
+     * @return 没有指定时返回 null
+     */
+    FmkLanguageEnum loadLanguage();
+
+    /**
+     * 加载客户端信息（IP、User-Agent 等）
+     */
+    FmkClientInfo loadClientInfo();
+
+    /**
+     * 加载全部请求头
+     */
+    Map<String, String> loadHeaders();
+
+    /**
+     * 读取单个请求头，不需要加载全部请求头
+     */
+    String loadHeader(String name);
+
+    /**
+     * 传递到其他线程时使用的加载器：不再持有请求，只用于按 Token 加载用户信息
+     *
+     * @return 为 null 时副本中未加载的用户信息为 null
+     */
+    default FmkContextLoader detach() {
+        return null;
+    }
+}
@@ -22,7 +22,20 @@ public class FmkContextUtil {
         // 私有构造函数，防止实例化
     }
 
-    private static final ThreadLocal<FmkContextInfo> CONTEXT_HOLDER = new TransmittableThreadLocal<>();
+    /**
+     * 传递到异步线程（TTL 捕获、创建子线程）时传递快照，见 {@link FmkContextInfo#snapshot()}
+     */
+    private static final ThreadLocal<FmkContextInfo> CONTEXT_HOLDER = new TransmittableThreadLocal<>() {
+        @Override
+        public FmkContextInfo copy(FmkContextInfo parentValue) {
+            return parentValue == null ? null : parentValue.snapshot();
+        }
+
+        @Override
+        protected FmkContextInfo childValue(FmkContextInfo parentValue) {
+            return parentValue == null ? null : parentValue.snapshot();
+        }
+    };
 
     /**
      * 获取上下文信息
@@ -0,0 +1,329 @@
+package com.cjlabs.web.token;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token 最后活跃时间合并写入（write-behind）
+ * <p>
+ * 请求只在本地记录最新的活跃时间（一次 Map 读 + 一次 volatile 写），
+ * 定时任务把有变化的 Token 分批交给 {@link Writer} 写入存储；
+ * 同一个 Token 两次写入至少间隔 granularity，频繁访问的 Token 不会每个请求写一次。
+ * <p>
+ * 已写入且超过 granularity 没有再访问的 Token 会被移出本地记录，内存只与活跃 Token 数量相关；
+ * 记录的 Token 数量有上限，调用方可能传入未校验的 Token，达到上限后新的 Token 不再记录（已记录的照常更新）
+ *
+ * @author cjlabs
+ */
+@Slf4j
+public class FmkLastActiveCoalescer {
+
+    /**
+     * 批量写入活跃时间
+     */
+    @FunctionalInterface
+    public interface Writer {
+        /**
+         * @param batch token → 活跃时间（毫秒），按记录顺序排列
+         * @return 实际写入的数量（已失效的 Token 不计）
+         */
+        int write(Map<String, Long> batch);
+    }
+
+    /**
+     * 默认最多记录的 Token 数量
+     */
+    public static final int DEFAULT_MAX_TRACKED = 100_000;
+
+    private final String name;
+
+    private final long granularityMillis;
+
+    private final int batchSize;
+
+    private final int maxTracked;
+
+    private final Writer writer;
+
+    private final Map<String, Stamp> stamps = new ConcurrentHashMap<>();
+
+    private final LongAdder touchCount = new LongAdder();
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final LongAdder writtenCount = new LongAdder();
+
+    private final LongAdder flushCount = new LongAdder();
+
+    private volatile long lastFlushNanos;
+
+    private volatile long maxFlushNanos;
+
+    private ScheduledExecutorService flushExecutor;
+
+    /**
+     * @param name              名称，用于线程名和日志
+     * @param granularityMillis 同一个 Token 两次写入的最小间隔（毫秒），小于等于 0 表示每次 flush 都写
+     * @param batchSize         每批写入的最大数量
+     * @param writer            批量写入
+     */
+    public FmkLastActiveCoalescer(String name, long granularityMillis, int batchSize, Writer writer) {
+        this(name, granularityMillis, batchSize, DEFAULT_MAX_TRACKED, writer);
+    }
+
+    /**
+     * @param name              名称，用于线程名和日志
+     * @param granularityMillis 同一个 Token 两次写入的最小间隔（毫秒），小于等于 0 表示每次 flush 都写
+     * @param batchSize         每批写入的最大数量
+     * @param maxTracked        最多记录的 Token 数量
+     * @param writer            批量写入
+     */
+    public FmkLastActiveCoalescer(String name, long granularityMillis, int batchSize, int maxTracked, Writer writer) {
+        this.name = name;
+        this.granularityMillis = Math.max(0, granularityMillis);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxTracked = Math.max(1, maxTracked);
+        this.writer = writer;
+    }
+
+    /**
+     * 记录活跃时间，只写本地；记录数达到上限时丢弃新的 Token
+     */
+    public void touch(String token, long timeMillis) {
+        Stamp stamp = stamps.get(token);
+        if (stamp == null) {
+            // 上限为近似值，并发记录时可能略微超过
+            if (stamps.size() >= maxTracked) {
+                droppedCount.increment();
+                return;
+            }
+            stamp = stamps.computeIfAbsent(token, key -> new Stamp());
+        }
+        if (timeMillis > stamp.latest) {
+            stamp.latest = timeMillis;
+        }
+        touchCount.increment();
+    }
+
+    /**
+     * 本地记录的最新活跃时间（可能尚未写入存储）
+     *
+     * @return 没有记录时返回 null
+     */
+    public Long getLatest(String token) {
+        Stamp stamp = stamps.get(token);
+        return stamp == null ? null : stamp.latest;
+    }
+
+    /**
+     * 移除 Token 的本地记录（Token 撤销时调用，避免写入已删除的 Token）
+     */
+    public void remove(String token) {
+        stamps.remove(token);
+    }
+
+    /**
+     * 把有变化且距上次写入超过 granularity 的 Token 分批写入
+     *
+     * @return 写入的数量
+     */
+    public synchronized int flush() {
+        if (stamps.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        Map<String, Long> batch = new LinkedHashMap<>();
+        int written = 0;
+        for (Map.Entry<String, Stamp> entry : stamps.entrySet()) {
+            String token = entry.getKey();
+            Stamp stamp = entry.getValue();
+            long latest = stamp.latest;
+
+            if (latest <= stamp.written) {
+                // 没有新的访问，超过 granularity 后不再需要记录上次写入时间
+                if (now - stamp.writtenAt >= granularityMillis && stamps.remove(token, stamp) && stamp.latest > stamp.written) {
+                    // 移除的同时有新的访问，放回去
+                    stamps.putIfAbsent(token, stamp);
+                }
+                continue;
+            }
+            if (now - stamp.writtenAt < granularityMillis) {
+                continue;
+            }
+
+            batch.put(token, latest);
+            stamp.written = latest;
+            stamp.writtenAt = now;
+            if (batch.size() >= batchSize) {
+                written += write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            written += write(batch);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = elapsed;
+        if (elapsed > maxFlushNanos) {
+            maxFlushNanos = elapsed;
+        }
+        flushCount.increment();
+        writtenCount.add(written);
+
+        if (log.isDebugEnabled()) {
+            log.debug("FmkLastActiveCoalescer|flush|写入活跃时间|name={}|count={}|costMs={}|tracked={}",
+                    name, written, TimeUnit.NANOSECONDS.toMillis(elapsed), stamps.size());
+        }
+        return written;
+    }
+
+    /**
+     * 启动定时写入
+     *
+     * @param flushIntervalMillis 写入间隔（毫秒），小于等于 0 表示不启动
+     */
+    public synchronized void start(long flushIntervalMillis) {
+        if (flushIntervalMillis <= 0 || flushExecutor != null) {
+            return;
+        }
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                log.error("FmkLastActiveCoalescer|flush|写入活跃时间失败|name={}", name, e);
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("FmkLastActiveCoalescer|start|name={}|flushIntervalMillis={}|granularityMillis={}",
+                name, flushIntervalMillis, granularityMillis);
+    }
+
+    /**
+     * 停止定时写入，并写入剩余的活跃时间（不受 granularity 限制）
+     */
+    public synchronized void stop() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            flushExecutor = null;
+        }
+        stamps.values().forEach(stamp -> stamp.writtenAt = 0);
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("FmkLastActiveCoalescer|stop|关闭前写入活跃时间失败|name={}", name, e);
+        }
+    }
+
+    // ==================== 指标 ====================
+
+    /**
+     * 等待写入的 Token 数量（队列深度）
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Stamp stamp : stamps.values()) {
+            if (stamp.latest > stamp.written) {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * 本地记录的 Token 数量（包括已写入、仍在 granularity 内的）
+     */
+    public int getTrackedCount() {
+        return stamps.size();
+    }
+
+    /**
+     * 累计记录的访问次数
+     */
+    public long getTouchCount() {
+        return touchCount.sum();
+    }
+
+    /**
+     * 累计因记录数达到上限而丢弃的访问次数
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 累计写入的数量
+     */
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    /**
+     * 累计执行 flush 的次数
+     */
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    /**
+     * 最近一次 flush 耗时（毫秒）
+     */
+    public double getLastFlushLatencyMillis() {
+        return lastFlushNanos / 1_000_000.0;
+    }
+
+    /**
+     * flush 最大耗时（毫秒）
+     */
+    public double getMaxFlushLatencyMillis() {
+        return maxFlushNanos / 1_000_000.0;
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    private int write(Map<String, Long> batch) {
+        try {
+            return writer.write(batch);
+        } catch (RuntimeException e) {
+            // 写入失败，恢复为待写入，下次 flush 重试
+            for (String token : batch.keySet()) {
+                Stamp stamp = stamps.get(token);
+                if (stamp != null) {
+                    stamp.written = 0;
+                    stamp.writtenAt = 0;
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 单个 Token 的活跃时间记录
+     */
+    private static final class Stamp {
+        /**
+         * 最新的活跃时间，请求线程写
+         */
+        private volatile long latest;
+
+        /**
+         * 已写入的活跃时间和写入时刻，只有 flush 线程写
+         */
+        private volatile long written;
+
+        private volatile long writtenAt;
+    }
+}
@@ -0,0 +1,304 @@
+package com.cjlabs.web.token;
+
+import com.cjlabs.core.types.longs.FmkUserId;
+import com.cjlabs.web.threadlocal.FmkUserInfo;
+import com.cjlabs.web.token.bo.FmkTokenInfo;
+import com.cjlabs.web.token.enums.TokenSessionLimitPolicyEnum;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 有界、自动过期的内存 Token 存储
+ * <p>
+ * 1. Token 存在 Caffeine 中：最大条数 + 绝对过期（expireTime）+ 空闲过期，
+ * 过期由 Caffeine 的时间轮按条目调度，不需要全表扫描
+ * 2. 用户索引 userId -> 该用户的 Token（按登录顺序），按用户查询、踢下线都是 O(1)
+ * 3. Token 因过期、容量淘汰或撤销被移除时，同步从用户索引中删除，索引大小不会超过 Token 数量
+ * <p>
+ * 注意：用户索引的 compute 中只能调用不加锁的缓存读操作（getIfPresentQuietly），
+ * 写操作放在 compute 之外，避免与 Caffeine 维护线程（持有淘汰锁时回调移除监听）互相等待
+ *
+ * @author cjlabs
+ */
+@Slf4j
+public class FmkMemoryTokenStore {
+
+    private final Cache<String, FmkTokenInfo> tokenCache;
+
+    private final Map<FmkUserId, UserSessions> userSessionsMap = new ConcurrentHashMap<>();
+
+    private final Duration absoluteTtl;
+
+    private final int maxSessionsPerUser;
+
+    private final TokenSessionLimitPolicyEnum sessionLimitPolicy;
+
+    /**
+     * @param maxSize            最多保存的 Token 数量，超过后按 Caffeine 的 W-TinyLFU 策略淘汰
+     * @param absoluteTtl        绝对过期时间（登录后多久失效）
+     * @param idleTtl            空闲过期时间，null 或 0 表示不启用
+     * @param maxSessionsPerUser 每个用户最多同时在线的会话数，小于等于 0 表示不限制
+     * @param sessionLimitPolicy 超过会话上限时的策略
+     */
+    public FmkMemoryTokenStore(long maxSize,
+                               Duration absoluteTtl,
+                               Duration idleTtl,
+                               int maxSessionsPerUser,
+                               TokenSessionLimitPolicyEnum sessionLimitPolicy) {
+        this.absoluteTtl = Objects.requireNonNull(absoluteTtl, "absoluteTtl");
+        this.maxSessionsPerUser = Math.max(0, maxSessionsPerUser);
+        this.sessionLimitPolicy = sessionLimitPolicy == null ? TokenSessionLimitPolicyEnum.EVICT_OLDEST : sessionLimitPolicy;
+
+        long idleNanos = idleTtl == null || idleTtl.isNegative() ? 0 : idleTtl.toNanos();
+        this.tokenCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(idleNanos))
+                .scheduler(Scheduler.systemScheduler())
+                .executor(Runnable::run)
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    /**
+     * 保存 Token，expireTime 按绝对过期时间重新设置
+     *
+     * @return false 表示超过会话上限且策略为 REJECT_NEW
+     */
+    public boolean save(FmkTokenInfo tokenInfo, FmkUserInfo userInfo) {
+        String token = tokenInfo.getToken().getValue();
+        tokenInfo.setExpireTime(Instant.now().plus(absoluteTtl));
+
+        List<String> evictedTokens = new ArrayList<>(1);
+        boolean[] rejected = new boolean[1];
+        userSessionsMap.compute(tokenInfo.getUserId(), (userId, sessions) -> {
+            if (sessions == null) {
+                sessions = new UserSessions();
+            }
+            synchronized (sessions) {
+                if (maxSessionsPerUser > 0) {
+                    // 索引中可能还留着刚过期、移除监听尚未回调的 Token，先剔除再判断是否超限
+                    sessions.tokens.removeIf(t -> tokenCache.policy().getIfPresentQuietly(t) == null);
+                    while (sessions.tokens.size() >= maxSessionsPerUser) {
+                        if (sessionLimitPolicy == TokenSessionLimitPolicyEnum.REJECT_NEW) {
+                            rejected[0] = true;
+                            return sessions.tokens.isEmpty() ? null : sessions;
+                        }
+                        String oldest = sessions.tokens.iterator().next();
+                        sessions.tokens.remove(oldest);
+                        evictedTokens.add(oldest);
+                    }
+                }
+                sessions.userInfo = userInfo;
+                sessions.tokens.add(token);
+            }
+            return sessions;
+        });
+
+        if (rejected[0]) {
+            log.warn("FmkMemoryTokenStore|save|超过会话上限，拒绝登录|userId={}|maxSessionsPerUser={}",
+                    tokenInfo.getUserId().getValue(), maxSessionsPerUser);
+            return false;
+        }
+
+        tokenCache.put(token, tokenInfo);
+        for (String evicted : evictedTokens) {
+            tokenCache.invalidate(evicted);
+            log.info("FmkMemoryTokenStore|save|超过会话上限，踢掉最早的会话|userId={}|maxSessionsPerUser={}",
+                    tokenInfo.getUserId().getValue(), maxSessionsPerUser);
+        }
+        return true;
+    }
+
+    /**
+     * 获取 Token 信息，计为一次访问（刷新空闲过期时间）
+     */
+    public FmkTokenInfo get(String token) {
+        return tokenCache.getIfPresent(token);
+    }
+
+    /**
+     * 获取 Token 信息，不计为访问
+     */
+    public FmkTokenInfo peek(String token) {
+        return tokenCache.policy().getIfPresentQuietly(token);
+    }
+
+    /**
+     * 刷新绝对过期时间
+     *
+     * @return Token 不存在时返回 false
+     */
+    public boolean refresh(String token) {
+        Instant expireTime = Instant.now().plus(absoluteTtl);
+        // 返回新对象，让 Caffeine 按 expireAfterUpdate 重新计算过期时间
+        FmkTokenInfo refreshed = tokenCache.asMap().computeIfPresent(token, (key, tokenInfo) -> {
+            FmkTokenInfo copy = new FmkTokenInfo();
+            copy.setToken(tokenInfo.getToken());
+            copy.setUserId(tokenInfo.getUserId());
+            copy.setClientInfo(tokenInfo.getClientInfo());
+            copy.setExpireTime(expireTime);
+            return copy;
+        });
+        return refreshed != null;
+    }
+
+    /**
+     * 移除 Token
+     *
+     * @return 被移除的 Token 信息，不存在时返回 null
+     */
+    public FmkTokenInfo remove(String token) {
+        return tokenCache.asMap().remove(token);
+    }
+
+    /**
+     * 获取用户当前有效的 Token，按登录顺序排列
+     */
+    public List<String> getTokens(FmkUserId userId) {
+        UserSessions sessions = userSessionsMap.get(userId);
+        if (sessions == null) {
+            return Collections.emptyList();
+        }
+        List<String> tokens;
+        synchronized (sessions) {
+            tokens = new ArrayList<>(sessions.tokens);
+        }
+        tokens.removeIf(t -> tokenCache.policy().getIfPresentQuietly(t) == null);
+        return tokens;
+    }
+
+    /**
+     * 获取用户信息，用户没有有效的 Token 时返回 null
+     */
+    public FmkUserInfo getUserInfo(FmkUserId userId) {
+        UserSessions sessions = userSessionsMap.get(userId);
+        if (sessions == null) {
+            return null;
+        }
+        // 时间轮按桶批量移除，已过期的 Token 可能还在索引中，逐个确认
+        synchronized (sessions) {
+            for (String token : sessions.tokens) {
+                if (tokenCache.policy().getIfPresentQuietly(token) != null) {
+                    return sessions.userInfo;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 移除用户所有 Token
+     *
+     * @return 移除的 Token 数量
+     */
+    public int removeUser(FmkUserId userId) {
+        UserSessions sessions = userSessionsMap.remove(userId);
+        if (sessions == null) {
+            return 0;
+        }
+        List<String> tokens;
+        synchronized (sessions) {
+            tokens = new ArrayList<>(sessions.tokens);
+        }
+        tokenCache.invalidateAll(tokens);
+        return tokens.size();
+    }
+
+    /**
+     * 立即执行过期清理（正常情况下由 Caffeine 调度，不需要手动调用）
+     * <p>
+     * 时间轮最小的桶约 1 秒，刚过期的 Token 读取时已不可见，但可能要到下一个桶才会被移除
+     */
+    public void cleanUp() {
+        tokenCache.cleanUp();
+    }
+
+    /**
+     * 当前 Token 数量（近似值）
+     */
+    public long size() {
+        return tokenCache.estimatedSize();
+    }
+
+    /**
+     * 用户索引中的用户数量
+     */
+    public int userCount() {
+        return userSessionsMap.size();
+    }
+
+    private void onRemoval(String token, FmkTokenInfo tokenInfo, RemovalCause cause) {
+        // 刷新过期时间属于替换，Token 仍然有效
+        if (cause == RemovalCause.REPLACED || token == null || tokenInfo == null) {
+            return;
+        }
+        userSessionsMap.computeIfPresent(tokenInfo.getUserId(), (userId, sessions) -> {
+            synchronized (sessions) {
+                sessions.tokens.remove(token);
+                return sessions.tokens.isEmpty() ? null : sessions;
+            }
+        });
+    }
+
+    /**
+     * 单个用户的会话
+     */
+    private static class UserSessions {
+        /**
+         * 按登录顺序排列的 Token
+         */
+        private final Set<String> tokens = new LinkedHashSet<>(4);
+
+        private volatile FmkUserInfo userInfo;
+    }
+
+    /**
+     * 过期策略：绝对过期时间取 expireTime，启用空闲过期时取两者中较早的
+     */
+    private static class TokenExpiry implements Expiry<String, FmkTokenInfo> {
+
+        private final long idleNanos;
+
+        TokenExpiry(long idleNanos) {
+            this.idleNanos = idleNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String token, FmkTokenInfo tokenInfo, long currentTime) {
+            return expireNanos(tokenInfo);
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, FmkTokenInfo tokenInfo, long currentTime, long currentDuration) {
+            return expireNanos(tokenInfo);
+        }
+
+        @Override
+        public long expireAfterRead(String token, FmkTokenInfo tokenInfo, long currentTime, long currentDuration) {
+            return idleNanos > 0 ? expireNanos(tokenInfo) : currentDuration;
+        }
+
+        private long expireNanos(FmkTokenInfo tokenInfo) {
+            long remainingMillis = tokenInfo.getExpireTime().toEpochMilli() - System.currentTimeMillis();
+            long absoluteNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+            return idleNanos > 0 ? Math.min(idleNanos, absoluteNanos) : absoluteNanos;
+        }
+    }
+}
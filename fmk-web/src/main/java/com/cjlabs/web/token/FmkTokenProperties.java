@@ -11,13 +11,27 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * fmk:
  *   token:
  *     enabled: true          # 是否启用 Token 功能
- *     type: memory           # 存储类型：memory（内存）或 redis（Redis）
+ *     type: memory           # 存储类型：memory（内存）、redis（Redis）或 signed（签名 Token，不存储）
  *     memory:
  *       max-size: 10000      # 内存最大缓存数量
  *       expire-hours: 24     # 过期时间（小时）
+ *       idle-minutes: 0      # 空闲过期时间（分钟），0 表示不启用
+ *       max-sessions-per-user: 0            # 每个用户最多会话数，0 表示不限制
+ *       session-limit-policy: EVICT_OLDEST  # 超过上限时：EVICT_OLDEST（踢掉最早的）/ REJECT_NEW（拒绝登录）
  *     redis:
  *       key-prefix: "fmk:token:"  # Redis Key 前缀
  *       expire-hours: 12          # 过期时间（小时）
+ *       sliding-expire: false     # 写入活跃时间时是否同时续期（滑动过期）
+ *     signed:
+ *       secret: "至少 32 字节的密钥"  # HMAC-SHA256 签名密钥
+ *       key-version: 1            # 密钥版本，写入 Token，轮换密钥时加 1
+ *       previous-secret: ""       # 上一个版本的密钥，轮换期间用于校验旧 Token
+ *       expire-hours: 12          # 过期时间（小时）
+ *       revoked-max-size: 100000  # 本地撤销名单最大数量
+ *     last-active:
+ *       flush-seconds: 30         # 最后活跃时间批量写入间隔（秒），0 表示不定时写入
+ *       granularity-seconds: 60   # 同一个 Token 两次写入的最小间隔（秒）
+ *       batch-size: 500           # 每批写入的最大数量
  * </pre>
  */
 @Data
@@ -30,7 +44,7 @@ public class FmkTokenProperties {
     private boolean enabled = true;
 
     /**
-     * Token 存储方式：memory（内存）/ redis（Redis）
+     * Token 存储方式：memory（内存）/ redis（Redis）/ signed（签名 Token）
      * <p>
      * TokenSaveTypeEnum.MEMORY
      */
@@ -46,6 +60,16 @@ public class FmkTokenProperties {
      */
     private MemoryConfig memory = new MemoryConfig();
 
+    /**
+     * 签名 Token 配置（当 save=signed 时生效）
+     */
+    private SignedConfig signed = new SignedConfig();
+
+    /**
+     * 最后活跃时间合并写入配置（memory、redis 生效）
+     */
+    private LastActiveConfig lastActive = new LastActiveConfig();
+
     /**
      * Redis 配置类
      */
@@ -60,6 +84,11 @@ public class FmkTokenProperties {
          * TTL 时间（小时）
          */
         private int expireHours = 12;
+
+        /**
+         * 写入最后活跃时间时是否同时续期 Token 和用户索引（滑动过期）
+         */
+        private boolean slidingExpire = false;
     }
 
     /**
@@ -78,7 +107,85 @@ public class FmkTokenProperties {
          * 过期时间（小时）
          */
         private int expireHours = 12;
+
+        /**
+         * 空闲过期时间（分钟），超过该时间未访问即失效，小于等于 0 表示不启用
+         */
+        private int idleMinutes = 0;
+
+        /**
+         * 每个用户最多同时在线的会话数，小于等于 0 表示不限制
+         */
+        private int maxSessionsPerUser = 0;
+
+        /**
+         * 超过会话数上限时的策略
+         * <p>
+         * TokenSessionLimitPolicyEnum.EVICT_OLDEST
+         */
+        private String sessionLimitPolicy = "EVICT_OLDEST";
     }
 
+    /**
+     * 签名 Token 配置类
+     */
+    @Data
+    public static class SignedConfig {
+        /**
+         * HMAC-SHA256 签名密钥，至少 32 字节
+         */
+        private String secret;
+
+        /**
+         * 密钥版本（0~255），写入 Token 的第一个字节
+         */
+        private int keyVersion = 1;
+
+        /**
+         * 上一个版本（keyVersion - 1，0 的上一个版本是 255）的密钥，轮换期间用于校验旧 Token，为空表示不接受旧版本
+         */
+        private String previousSecret;
+
+        /**
+         * 过期时间（小时）
+         */
+        private int expireHours = 12;
+
+        /**
+         * 本地撤销名单最大数量
+         */
+        private int revokedMaxSize = 100000;
+
+        /**
+         * 本地会话信息（用户信息、最近签发的 Token、客户端信息）缓存的最大数量
+         */
+        private int sessionCacheMaxSize = 100000;
+    }
+
+    /**
+     * 最后活跃时间合并写入配置类
+     */
+    @Data
+    public static class LastActiveConfig {
+        /**
+         * 批量写入间隔（秒），小于等于 0 表示不定时写入
+         */
+        private int flushSeconds = 30;
+
+        /**
+         * 同一个 Token 两次写入的最小间隔（秒）
+         */
+        private int granularitySeconds = 60;
+
+        /**
+         * 每批写入的最大数量
+         */
+        private int batchSize = 500;
+
+        /**
+         * 本地最多记录的 Token 数量，达到上限后新的 Token 不再记录活跃时间
+         */
+        private int maxTracked = FmkLastActiveCoalescer.DEFAULT_MAX_TRACKED;
+    }
 
-}
\ No newline at end of file
+}
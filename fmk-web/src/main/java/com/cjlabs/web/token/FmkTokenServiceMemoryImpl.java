@@ -1,24 +1,30 @@
 package com.cjlabs.web.token;
 
-import com.cjlabs.core.time.FmkInstantUtil;
 import com.cjlabs.core.types.longs.FmkUserId;
 import com.cjlabs.core.types.strings.FmkToken;
+import com.cjlabs.domain.enums.IEnumStr;
 import com.cjlabs.web.threadlocal.FmkClientInfo;
 import com.cjlabs.web.threadlocal.FmkUserInfo;
 import com.cjlabs.web.token.bo.FmkTokenInfo;
+import com.cjlabs.web.token.enums.TokenSessionLimitPolicyEnum;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Token 服务内存实现
  * <p>
  * 使用内存存储 Token，适合开发环境和单机环境
  * 启用条件：fmk.token.type=memory（默认）
+ * <p>
+ * 存储见 {@link FmkMemoryTokenStore}：条数有上限，过期 Token 自动移除，按用户查询不需要遍历；
+ * 最后活跃时间由 {@link FmkLastActiveCoalescer} 合并写入
  *
  * @author cjlabs
  */
@@ -26,15 +32,14 @@ import java.util.concurrent.ConcurrentHashMap;
 // @Primary
 // @Service("FmkTokenServiceMemoryImpl")
 // @ConditionalOnProperty(name = "fmk.token.type", havingValue = "memory", matchIfMissing = true)
-public class FmkTokenServiceMemoryImpl implements IFmkTokenService {
+public class FmkTokenServiceMemoryImpl implements IFmkTokenService, InitializingBean, DisposableBean {
 
     // @Autowired
     private FmkTokenProperties tokenProperties;
 
-    // Token到 TokenInfo 的映射（统一存储所有 Token 信息）
-    private static final Map<FmkToken, FmkTokenInfo> TOKEN_TOKEN_INFO_MAP = new ConcurrentHashMap<>();
-    // 用户ID到用户信息的映射
-    private static final Map<FmkUserId, FmkUserInfo> USER_ID_USER_INFO_MAP = new ConcurrentHashMap<>();
+    private FmkMemoryTokenStore tokenStore;
+
+    private FmkLastActiveCoalescer lastActiveCoalescer;
 
     /**
      * 构造函数 - 打印初始化日志
@@ -46,6 +51,37 @@ public class FmkTokenServiceMemoryImpl implements IFmkTokenService {
     // 添加 setter 方法
     public void setTokenProperties(FmkTokenProperties tokenProperties) {
         this.tokenProperties = tokenProperties;
+
+        FmkTokenProperties.MemoryConfig memory = tokenProperties.getMemory();
+        Optional<TokenSessionLimitPolicyEnum> policy =
+                IEnumStr.getEnumByCode(memory.getSessionLimitPolicy(), TokenSessionLimitPolicyEnum.class);
+        if (policy.isEmpty()) {
+            log.warn("FmkTokenServiceMemoryImpl|setTokenProperties|未知的会话上限策略，使用EVICT_OLDEST|sessionLimitPolicy={}",
+                    memory.getSessionLimitPolicy());
+        }
+        this.tokenStore = new FmkMemoryTokenStore(
+                memory.getMaxSize(),
+                Duration.ofHours(memory.getExpireHours()),
+                Duration.ofMinutes(Math.max(0, memory.getIdleMinutes())),
+                memory.getMaxSessionsPerUser(),
+                policy.orElse(TokenSessionLimitPolicyEnum.EVICT_OLDEST));
+
+        FmkTokenProperties.LastActiveConfig lastActive = tokenProperties.getLastActive();
+        this.lastActiveCoalescer = new FmkLastActiveCoalescer("fmk-token-memory-last-active",
+                TimeUnit.SECONDS.toMillis(lastActive.getGranularitySeconds()),
+                lastActive.getBatchSize(),
+                lastActive.getMaxTracked(),
+                this::writeLastActive);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        lastActiveCoalescer.start(TimeUnit.SECONDS.toMillis(tokenProperties.getLastActive().getFlushSeconds()));
+    }
+
+    @Override
+    public void destroy() {
+        lastActiveCoalescer.stop();
     }
 
     @Override
@@ -56,42 +92,26 @@ public class FmkTokenServiceMemoryImpl implements IFmkTokenService {
         }
 
         try {
-            // 检查缓存大小限制
-            int maxSize = tokenProperties.getMemory().getMaxSize();
-            if (TOKEN_TOKEN_INFO_MAP.size() >= maxSize) {
-                log.warn("FmkTokenServiceMemoryImpl|createAndSaveToken|缓存已满|maxSize={}|currentSize={}", maxSize, TOKEN_TOKEN_INFO_MAP.size());
-                // TODO: 实现LRU淘汰策略
-                // 这里应该要tg通知了
-                // return null;
-            }
-
             // 生成 Token
             FmkToken token = FmkToken.generate();
 
-            // 创建 TokenInfo
+            // 创建 TokenInfo，过期时间由存储按 expireHours 设置
             FmkTokenInfo tokenInfo = new FmkTokenInfo();
             tokenInfo.setToken(token);
             tokenInfo.setUserId(userInfo.getUserId());
 
-            FmkTokenProperties.MemoryConfig memory = tokenProperties.getMemory();
-            int expireHours = memory.getExpireHours();
-            Instant plus = FmkInstantUtil.now().plus(expireHours, ChronoUnit.HOURS);
-            tokenInfo.setExpireTime(plus);
-
             // 设置客户端信息
             if (clientInfo != null) {
                 clientInfo.updateLastActiveTime();
                 tokenInfo.setClientInfo(clientInfo);
             }
 
-            // 存储 TokenInfo
-            TOKEN_TOKEN_INFO_MAP.put(token, tokenInfo);
-
-            // 存储用户信息
-            USER_ID_USER_INFO_MAP.put(userInfo.getUserId(), userInfo);
+            if (!tokenStore.save(tokenInfo, userInfo)) {
+                return null;
+            }
 
-            log.info("FmkTokenServiceMemoryImpl|createAndSaveToken|创建成功|userId={}|token={}|maxSize={}",
-                    userInfo.getUserId().getValue(), maskToken(token.getValue()), maxSize);
+            log.info("FmkTokenServiceMemoryImpl|createAndSaveToken|创建成功|userId={}|token={}|size={}",
+                    userInfo.getUserId().getValue(), maskToken(token.getValue()), tokenStore.size());
 
             return token;
         } catch (Exception e) {
@@ -102,40 +122,29 @@ public class FmkTokenServiceMemoryImpl implements IFmkTokenService {
 
     @Override
     public boolean validateToken(FmkToken token) {
-        if (token == null) {
-            return false;
-        }
-
-        // 检查Token是否存在
-        FmkTokenInfo tokenInfo = TOKEN_TOKEN_INFO_MAP.get(token);
+        // 过期的 Token 已由存储移除，查得到即有效
+        FmkTokenInfo tokenInfo = getTokenInfo(token);
         if (tokenInfo == null) {
             return false;
         }
 
-        Instant expireTime = tokenInfo.getExpireTime();
-        if (expireTime == null) {
-            return false;
-        }
-
-        // 检查Token是否过期
-        if (FmkInstantUtil.now().compareTo(expireTime) > 0) {
-            log.info("FmkTokenServiceMemoryImpl|validateToken|Token已过期|token={}|expireTime={}",
-                    maskToken(token.getValue()), expireTime);
-            return false;
-        }
-
-        updateLastActiveTime(token);
+        lastActiveCoalescer.touch(token.getValue(), System.currentTimeMillis());
 
         return true;
     }
 
     @Override
-    public Optional<FmkUserId> getUserIdByToken(FmkToken token) {
-        if (token == null) {
-            return Optional.empty();
+    public void touchToken(FmkToken token) {
+        // 查本地存储不需要网络往返，只记录存在的 Token
+        if (getTokenInfo(token) == null) {
+            return;
         }
+        lastActiveCoalescer.touch(token.getValue(), System.currentTimeMillis());
+    }
 
-        FmkTokenInfo tokenInfo = TOKEN_TOKEN_INFO_MAP.get(token);
+    @Override
+    public Optional<FmkUserId> getUserIdByToken(FmkToken token) {
+        FmkTokenInfo tokenInfo = getTokenInfo(token);
         if (tokenInfo == null) {
             return Optional.empty();
         }
@@ -145,18 +154,12 @@ public class FmkTokenServiceMemoryImpl implements IFmkTokenService {
 
     @Override
     public Optional<FmkUserInfo> getUserInfoByToken(FmkToken token) {
-        if (token == null) {
-            return Optional.empty();
-        }
-
-        FmkTokenInfo tokenInfo = TOKEN_TOKEN_INFO_MAP.get(token);
+        FmkTokenInfo tokenInfo = getTokenInfo(token);
         if (tokenInfo == null) {
             return Optional.empty();
         }
 
-        FmkUserInfo fmkUserInfo = USER_ID_USER_INFO_MAP.get(tokenInfo.getUserId());
-
-        return Optional.ofNullable(fmkUserInfo);
+        return Optional.ofNullable(tokenStore.getUserInfo(tokenInfo.getUserId()));
     }
 
     @Override
@@ -165,14 +168,13 @@ public class FmkTokenServiceMemoryImpl implements IFmkTokenService {
             return Optional.empty();
         }
 
-        for (Map.Entry<FmkToken, FmkTokenInfo> entry : TOKEN_TOKEN_INFO_MAP.entrySet()) {
-            FmkTokenInfo tokenInfo = entry.getValue();
-            if (tokenInfo.getUserId().equals(userId)) {
-                return Optional.of(entry.getKey());
-            }
+        // 返回最近登录的 Token
+        List<String> tokens = tokenStore.getTokens(userId);
+        if (tokens.isEmpty()) {
+            return Optional.empty();
         }
 
-        return Optional.empty();
+        return Optional.ofNullable(FmkToken.ofNullable(tokens.get(tokens.size() - 1)));
     }
 
     @Override
@@ -181,45 +183,38 @@ public class FmkTokenServiceMemoryImpl implements IFmkTokenService {
             return Optional.empty();
         }
 
-        FmkUserInfo fmkUserInfo = USER_ID_USER_INFO_MAP.get(userId);
-
-        return Optional.ofNullable(fmkUserInfo);
+        return Optional.ofNullable(tokenStore.getUserInfo(userId));
     }
 
     @Override
     public Optional<FmkClientInfo> getClientInfoByToken(FmkToken token) {
-        if (token == null) {
-            return Optional.empty();
-        }
-
-        FmkTokenInfo tokenInfo = TOKEN_TOKEN_INFO_MAP.get(token);
+        FmkTokenInfo tokenInfo = getTokenInfo(token);
         if (tokenInfo == null) {
             return Optional.empty();
         }
 
         FmkClientInfo clientInfo = tokenInfo.getClientInfo();
+        Long pending = lastActiveCoalescer.getLatest(token.getValue());
+        if (clientInfo != null && pending != null
+                && (clientInfo.getLastActiveTime() == null || pending > clientInfo.getLastActiveTime().toEpochMilli())) {
+            clientInfo.setLastActiveTime(Instant.ofEpochMilli(pending));
+        }
 
         return Optional.ofNullable(clientInfo);
     }
 
     @Override
     public Optional<FmkTokenInfo> getTokenInfoByToken(FmkToken token) {
-        if (Objects.isNull(token)) {
-            return Optional.empty();
-        }
-
-        FmkTokenInfo tokenInfo = TOKEN_TOKEN_INFO_MAP.get(token);
-        if (tokenInfo == null) {
-            return Optional.empty();
-        }
-
-        return Optional.of(tokenInfo);
+        return Optional.ofNullable(getTokenInfo(token));
     }
 
     @Override
     public boolean refreshToken(FmkToken token) {
-        // 内存实现暂不支持刷新过期时间
-        return validateToken(token);
+        if (token == null) {
+            return false;
+        }
+
+        return tokenStore.refresh(token.getValue());
     }
 
     @Override
@@ -228,8 +223,8 @@ public class FmkTokenServiceMemoryImpl implements IFmkTokenService {
             return false;
         }
 
-        // 从 TokenInfo 映射中移除
-        FmkTokenInfo removed = TOKEN_TOKEN_INFO_MAP.remove(token);
+        lastActiveCoalescer.remove(token.getValue());
+        FmkTokenInfo removed = tokenStore.remove(token.getValue());
 
         if (removed != null) {
             log.info("FmkTokenServiceMemoryImpl|revokeToken|移除Token|token={}|userId={}",
@@ -246,75 +241,53 @@ public class FmkTokenServiceMemoryImpl implements IFmkTokenService {
             return;
         }
 
-        Optional<FmkToken> tokenOptional = getTokenByUserId(userId);
-        if (tokenOptional.isEmpty()) {
-            return;
-        }
-
-        TOKEN_TOKEN_INFO_MAP.remove(tokenOptional.get());
-
-        // 移除用户信息缓存
-        USER_ID_USER_INFO_MAP.remove(userId);
-
-        log.info("FmkTokenServiceMemoryImpl|revokeAllUserTokens|移除用户所有Token|userId={}", userId.getValue());
+        int count = tokenStore.removeUser(userId);
 
+        log.info("FmkTokenServiceMemoryImpl|revokeAllUserTokens|移除用户所有Token|userId={}|count={}", userId.getValue(), count);
     }
 
     @Override
     public void cleanExpiredTokens() {
-        Instant now = FmkInstantUtil.now();
-
-        // 收集需要删除的 Token（避免在迭代时修改Map）
-        List<FmkToken> expiredTokens = new ArrayList<>();
-
-        for (Map.Entry<FmkToken, FmkTokenInfo> entry : TOKEN_TOKEN_INFO_MAP.entrySet()) {
-            FmkTokenInfo tokenInfo = entry.getValue();
-            Instant expireTime = tokenInfo.getExpireTime();
+        // 过期由存储自动调度，这里只是触发一次立即清理
+        tokenStore.cleanUp();
+    }
 
-            // 检查是否过期
-            if (expireTime != null && now.compareTo(expireTime) > 0) {
-                expiredTokens.add(entry.getKey());
-            }
-        }
+    /**
+     * 当前 Token 数量（近似值）
+     */
+    public long getTokenCount() {
+        return tokenStore.size();
+    }
 
-        // 删除过期的 Token
-        for (FmkToken token : expiredTokens) {
-            FmkTokenInfo removed = TOKEN_TOKEN_INFO_MAP.remove(token);
-            if (removed != null) {
-                log.info("FmkTokenServiceMemoryImpl|cleanExpiredTokens|清理过期Token|token={}|userId={}|expireTime={}",
-                        maskToken(token.getValue()),
-                        removed.getUserId().getValue(),
-                        removed.getExpireTime());
-            }
-        }
+    /**
+     * 最后活跃时间合并写入，用于查看队列深度和写入耗时
+     */
+    public FmkLastActiveCoalescer getLastActiveCoalescer() {
+        return lastActiveCoalescer;
     }
 
     // ==================== 私有辅助方法 ====================
 
     /**
-     * 更新设备最后活跃时间
+     * 批量写入最后活跃时间，已失效的 Token 跳过
      */
-    private void updateExpireTime(FmkToken token) {
-        FmkTokenInfo tokenInfo = TOKEN_TOKEN_INFO_MAP.get(token);
-        if (tokenInfo != null) {
-            Instant expireTime = tokenInfo.getExpireTime();
-
-            FmkTokenProperties.MemoryConfig memory = tokenProperties.getMemory();
-            int expireHours = memory.getExpireHours();
-            Instant plus = expireTime.plus(expireHours, ChronoUnit.HOURS);
-            tokenInfo.setExpireTime(plus);
+    private int writeLastActive(Map<String, Long> batch) {
+        int written = 0;
+        for (Map.Entry<String, Long> entry : batch.entrySet()) {
+            FmkTokenInfo tokenInfo = tokenStore.peek(entry.getKey());
+            if (tokenInfo != null && tokenInfo.getClientInfo() != null) {
+                tokenInfo.getClientInfo().setLastActiveTime(Instant.ofEpochMilli(entry.getValue()));
+                written++;
+            }
         }
+        return written;
     }
 
-    private void updateLastActiveTime(FmkToken token) {
-        if (token == null) {
-            return;
-        }
-
-        FmkTokenInfo tokenInfo = TOKEN_TOKEN_INFO_MAP.get(token);
-        if (tokenInfo != null && tokenInfo.getClientInfo() != null) {
-            tokenInfo.getClientInfo().updateLastActiveTime();
+    private FmkTokenInfo getTokenInfo(FmkToken token) {
+        if (Objects.isNull(token)) {
+            return null;
         }
+        return tokenStore.get(token.getValue());
     }
 
     /**
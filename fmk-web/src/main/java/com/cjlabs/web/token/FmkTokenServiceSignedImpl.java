@@ -0,0 +1,486 @@
+package com.cjlabs.web.token;
+
+import com.cjlabs.core.types.longs.FmkUserId;
+import com.cjlabs.core.types.strings.FmkToken;
+import com.cjlabs.web.threadlocal.FmkClientInfo;
+import com.cjlabs.web.threadlocal.FmkUserInfo;
+import com.cjlabs.web.token.bo.FmkTokenInfo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 服务签名实现（无状态）
+ * <p>
+ * Token 自身携带 userId、过期时间和会话纪元，用 HMAC-SHA256 签名，校验只需要一次本地 HMAC 计算，
+ * 每个请求没有任何 Map / Redis 访问。启用条件：fmk.token.type=signed
+ * <p>
+ * Token 格式：TOKEN_ + Base64Url(37 字节)，共 56 个字符，满足 {@link FmkToken} 的格式要求
+ * <pre>
+ * [0]      密钥版本
+ * [1, 9)   userId
+ * [9, 13)  过期时间（秒，无符号，可用到 2106 年）
+ * [13, 17) 会话纪元（秒，无符号）
+ * [17, 21) 随机数（区分同一用户同一秒签发的 Token）
+ * [21, 37) HMAC-SHA256(前 21 字节) 的前 16 字节
+ * </pre>
+ * 注销：
+ * 1. revokeToken 把 Token 放入本地撤销名单，直到 Token 自然过期
+ * 2. revokeAllUserTokens 推进用户的会话纪元，纪元更小的 Token 全部失效
+ * <p>
+ * 注意：撤销名单和纪元表只在本实例内存中，不与其他实例共享，也不会在重启后保留：
+ * 在一个实例上撤销的 Token 在其他实例上仍然有效，直到自然过期。多实例部署需要自行广播注销事件，
+ * 或者使用 fmk.token.type=redis。
+ * 用户名、客户端信息、用户最近签发的 Token 不在 Token 中，只有签发 Token 的实例能查到
+ *
+ * @author cjlabs
+ */
+@Slf4j
+public class FmkTokenServiceSignedImpl implements IFmkTokenService {
+
+    private static final String TOKEN_PREFIX = "TOKEN_";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final int PAYLOAD_LENGTH = 21;
+
+    private static final int MAC_LENGTH = 16;
+
+    private static final int TOKEN_BYTES = PAYLOAD_LENGTH + MAC_LENGTH;
+
+    /**
+     * Base64Url 无填充编码后的长度
+     */
+    private static final int TOKEN_CHARS = TOKEN_PREFIX.length() + (TOKEN_BYTES * 4 + 2) / 3;
+
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private FmkTokenProperties tokenProperties;
+
+    private int keyVersion;
+
+    /**
+     * Mac 不是线程安全的，每个线程缓存一个，避免每次校验都初始化密钥
+     */
+    private ThreadLocal<Mac> currentMac;
+
+    private ThreadLocal<Mac> previousMac;
+
+    /**
+     * 已撤销的 Token，条目在 Token 过期时移除
+     */
+    private Cache<String, Instant> revokedTokens;
+
+    /**
+     * 用户会话纪元，纪元小于该值的 Token 无效；条目在所有旧 Token 都过期后移除
+     */
+    private Cache<FmkUserId, Long> userEpochs;
+
+    /**
+     * 本实例签发 Token 时的用户信息，只用于补充用户名
+     */
+    private Cache<FmkUserId, FmkUserInfo> userInfoCache;
+
+    /**
+     * 本实例为每个用户最近签发的 Token
+     */
+    private Cache<FmkUserId, FmkToken> latestTokens;
+
+    /**
+     * 本实例签发 Token 时的客户端信息
+     */
+    private Cache<String, FmkClientInfo> clientInfoCache;
+
+    /**
+     * 构造函数 - 打印初始化日志
+     */
+    public FmkTokenServiceSignedImpl() {
+        log.info("==> Token服务初始化：签名模式（Signed）");
+    }
+
+    public void setTokenProperties(FmkTokenProperties tokenProperties) {
+        this.tokenProperties = tokenProperties;
+
+        FmkTokenProperties.SignedConfig signed = tokenProperties.getSigned();
+        if (signed.getKeyVersion() < 0 || signed.getKeyVersion() > 255) {
+            throw new RuntimeException("fmk.token.signed.key-version 必须在 0~255 之间");
+        }
+        this.keyVersion = signed.getKeyVersion();
+        this.currentMac = macThreadLocal(signed.getSecret());
+        this.previousMac = StringUtils.isBlank(signed.getPreviousSecret()) ? null : macThreadLocal(signed.getPreviousSecret());
+
+        Duration expire = Duration.ofHours(signed.getExpireHours());
+        this.revokedTokens = Caffeine.newBuilder()
+                .maximumSize(signed.getRevokedMaxSize())
+                .expireAfter(new Expiry<String, Instant>() {
+                    @Override
+                    public long expireAfterCreate(String token, Instant expireTime, long currentTime) {
+                        long remainingMillis = expireTime.toEpochMilli() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Instant expireTime, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Instant expireTime, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.userEpochs = Caffeine.newBuilder()
+                .expireAfterWrite(expire)
+                .build();
+        this.userInfoCache = Caffeine.newBuilder()
+                .maximumSize(signed.getSessionCacheMaxSize())
+                .expireAfterWrite(expire)
+                .build();
+        this.latestTokens = Caffeine.newBuilder()
+                .maximumSize(signed.getSessionCacheMaxSize())
+                .expireAfterWrite(expire)
+                .build();
+        this.clientInfoCache = Caffeine.newBuilder()
+                .maximumSize(signed.getSessionCacheMaxSize())
+                .expireAfterWrite(expire)
+                .build();
+    }
+
+    @Override
+    public FmkToken createAndSaveToken(FmkUserInfo userInfo, FmkClientInfo clientInfo) {
+        if (userInfo == null || userInfo.getUserId() == null) {
+            log.warn("FmkTokenServiceSignedImpl|createAndSaveToken|userInfo为空");
+            return null;
+        }
+
+        FmkUserId userId = userInfo.getUserId();
+        long expireSeconds = Instant.now().getEpochSecond()
+                + TimeUnit.HOURS.toSeconds(tokenProperties.getSigned().getExpireHours());
+        long epoch = currentEpoch(userId);
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        bytes[0] = (byte) keyVersion;
+        putLong(bytes, 1, userId.getValue());
+        // 过期时间和纪元按无符号 32 位写入
+        putInt(bytes, 9, (int) expireSeconds);
+        putInt(bytes, 13, (int) epoch);
+        putInt(bytes, 17, ThreadLocalRandom.current().nextInt());
+        byte[] mac = sign(currentMac.get(), bytes);
+        System.arraycopy(mac, 0, bytes, PAYLOAD_LENGTH, MAC_LENGTH);
+
+        FmkToken token = FmkToken.of(TOKEN_PREFIX + ENCODER.encodeToString(bytes));
+        userInfoCache.put(userId, userInfo);
+        latestTokens.put(userId, token);
+        if (clientInfo != null) {
+            clientInfoCache.put(token.getValue(), clientInfo);
+        }
+
+        log.info("FmkTokenServiceSignedImpl|createAndSaveToken|创建成功|userId={}|token={}|epoch={}",
+                userId.getValue(), maskToken(token.getValue()), epoch);
+        return token;
+    }
+
+    @Override
+    public boolean validateToken(FmkToken token) {
+        return verify(token) != null;
+    }
+
+    @Override
+    public Optional<FmkUserId> getUserIdByToken(FmkToken token) {
+        return Optional.ofNullable(verify(token)).map(claims -> claims.userId);
+    }
+
+    @Override
+    public Optional<FmkUserInfo> getUserInfoByToken(FmkToken token) {
+        Claims claims = verify(token);
+        if (claims == null) {
+            return Optional.empty();
+        }
+
+        FmkUserInfo userInfo = userInfoCache.getIfPresent(claims.userId);
+        return Optional.of(userInfo != null ? userInfo : FmkUserInfo.ofUserId(claims.userId));
+    }
+
+    /**
+     * 本实例为该用户最近签发且仍然有效的 Token；其他实例签发的 Token 查不到
+     */
+    @Override
+    public Optional<FmkToken> getTokenByUserId(FmkUserId userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+
+        FmkToken token = latestTokens.getIfPresent(userId);
+        if (token == null || verify(token) == null) {
+            return Optional.empty();
+        }
+        return Optional.of(token);
+    }
+
+    @Override
+    public Optional<FmkUserInfo> getUserInfoByUserId(FmkUserId userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(userInfoCache.getIfPresent(userId));
+    }
+
+    /**
+     * 客户端信息不在 Token 中，只能查到本实例签发时记录的客户端信息
+     */
+    @Override
+    public Optional<FmkClientInfo> getClientInfoByToken(FmkToken token) {
+        if (verify(token) == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(clientInfoCache.getIfPresent(token.getValue()));
+    }
+
+    @Override
+    public Optional<FmkTokenInfo> getTokenInfoByToken(FmkToken token) {
+        Claims claims = verify(token);
+        if (claims == null) {
+            return Optional.empty();
+        }
+
+        FmkTokenInfo tokenInfo = new FmkTokenInfo();
+        tokenInfo.setToken(token);
+        tokenInfo.setUserId(claims.userId);
+        tokenInfo.setExpireTime(Instant.ofEpochSecond(claims.expireSeconds));
+        return Optional.of(tokenInfo);
+    }
+
+    /**
+     * 签名 Token 的过期时间不可修改，这里只校验有效性；需要续期时使用 {@link #reissueToken}
+     */
+    @Override
+    public boolean refreshToken(FmkToken token) {
+        return validateToken(token);
+    }
+
+    /**
+     * 用有效的 Token 换一个新的 Token（新的过期时间），旧 Token 撤销
+     */
+    public Optional<FmkToken> reissueToken(FmkToken token) {
+        Claims claims = verify(token);
+        if (claims == null) {
+            return Optional.empty();
+        }
+
+        FmkUserInfo userInfo = userInfoCache.getIfPresent(claims.userId);
+        FmkToken newToken = createAndSaveToken(userInfo != null ? userInfo : FmkUserInfo.ofUserId(claims.userId),
+                clientInfoCache.getIfPresent(token.getValue()));
+        revokedTokens.put(token.getValue(), Instant.ofEpochSecond(claims.expireSeconds));
+        clientInfoCache.invalidate(token.getValue());
+        return Optional.ofNullable(newToken);
+    }
+
+    /**
+     * 撤销单个 Token，只对本实例生效
+     */
+    @Override
+    public boolean revokeToken(FmkToken token) {
+        Claims claims = verify(token);
+        if (claims == null) {
+            return false;
+        }
+
+        revokedTokens.put(token.getValue(), Instant.ofEpochSecond(claims.expireSeconds));
+        clientInfoCache.invalidate(token.getValue());
+        log.info("FmkTokenServiceSignedImpl|revokeToken|撤销Token|token={}|userId={}",
+                maskToken(token.getValue()), claims.userId.getValue());
+        return true;
+    }
+
+    /**
+     * 推进用户的会话纪元，只对本实例生效
+     */
+    @Override
+    public void revokeAllUserTokens(FmkUserId userId) {
+        if (userId == null) {
+            return;
+        }
+
+        // 纪元取当前秒数，条目过期（纪元回到 0）后再次注销时仍然大于之前签发的所有纪元
+        long nowSeconds = Instant.now().getEpochSecond();
+        Long epoch = userEpochs.asMap().merge(userId, nowSeconds, (old, now) -> Math.max(old + 1, now));
+        userInfoCache.invalidate(userId);
+        latestTokens.invalidate(userId);
+
+        log.info("FmkTokenServiceSignedImpl|revokeAllUserTokens|更新用户会话纪元|userId={}|epoch={}", userId.getValue(), epoch);
+    }
+
+    @Override
+    public void cleanExpiredTokens() {
+        // Token 本身带过期时间，这里只清理撤销名单
+        revokedTokens.cleanUp();
+        userEpochs.cleanUp();
+    }
+
+    // ==================== 私有辅助方法 ====================
+
+    /**
+     * 校验签名、过期时间、会话纪元和撤销名单
+     *
+     * @return 校验失败返回 null
+     */
+    private Claims verify(FmkToken token) {
+        if (Objects.isNull(token)) {
+            return null;
+        }
+
+        String value = token.getValue();
+        if (value.length() != TOKEN_CHARS || !value.startsWith(TOKEN_PREFIX)) {
+            return null;
+        }
+
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(value.substring(TOKEN_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        ThreadLocal<Mac> macThreadLocal = macOf(bytes[0] & 0xFF);
+        if (macThreadLocal == null) {
+            return null;
+        }
+
+        byte[] expected = sign(macThreadLocal.get(), bytes);
+        byte[] actual = new byte[MAC_LENGTH];
+        System.arraycopy(bytes, PAYLOAD_LENGTH, actual, 0, MAC_LENGTH);
+        byte[] expectedTruncated = new byte[MAC_LENGTH];
+        System.arraycopy(expected, 0, expectedTruncated, 0, MAC_LENGTH);
+        if (!MessageDigest.isEqual(expectedTruncated, actual)) {
+            return null;
+        }
+
+        long expireSeconds = getInt(bytes, 9) & 0xFFFFFFFFL;
+        if (Instant.now().getEpochSecond() >= expireSeconds) {
+            return null;
+        }
+
+        FmkUserId userId = FmkUserId.of(getLong(bytes, 1));
+        if ((getInt(bytes, 13) & 0xFFFFFFFFL) < currentEpoch(userId)) {
+            return null;
+        }
+
+        if (revokedTokens.getIfPresent(value) != null) {
+            return null;
+        }
+
+        return new Claims(userId, expireSeconds);
+    }
+
+    private long currentEpoch(FmkUserId userId) {
+        Long epoch = userEpochs.getIfPresent(userId);
+        return epoch == null ? 0 : epoch;
+    }
+
+    private ThreadLocal<Mac> macOf(int version) {
+        if (version == keyVersion) {
+            return currentMac;
+        }
+        // 版本号只有一个字节，0 的上一个版本是 255
+        if (previousMac != null && version == ((keyVersion + 255) & 0xFF)) {
+            return previousMac;
+        }
+        return null;
+    }
+
+    private static byte[] sign(Mac mac, byte[] bytes) {
+        mac.update(bytes, 0, PAYLOAD_LENGTH);
+        return mac.doFinal();
+    }
+
+    private static ThreadLocal<Mac> macThreadLocal(String secret) {
+        if (StringUtils.isBlank(secret) || secret.getBytes(StandardCharsets.UTF_8).length < MIN_SECRET_BYTES) {
+            throw new RuntimeException("fmk.token.signed.secret 至少需要 " + MIN_SECRET_BYTES + " 字节");
+        }
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        return ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException("初始化 " + HMAC_ALGORITHM + " 失败", e);
+            }
+        });
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int getInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24)
+                | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8)
+                | (bytes[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Token 掩码处理
+     */
+    private String maskToken(String token) {
+        if (token == null || token.length() <= 10) {
+            return "***";
+        }
+        return token.substring(0, 10) + "...";
+    }
+
+    /**
+     * 校验通过的 Token 内容
+     */
+    private static final class Claims {
+        private final FmkUserId userId;
+        private final long expireSeconds;
+
+        private Claims(FmkUserId userId, long expireSeconds) {
+            this.userId = userId;
+            this.expireSeconds = expireSeconds;
+        }
+    }
+}
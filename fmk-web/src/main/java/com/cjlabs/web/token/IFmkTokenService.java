@@ -52,6 +52,15 @@ public interface IFmkTokenService {
      */
     Optional<FmkTokenInfo> getTokenInfoByToken(FmkToken token);
 
+    /**
+     * 记录 Token 的最后活跃时间，不校验 Token；默认不记录（无状态实现）
+     * <p>
+     * 只写本地，由实现批量写入存储，不存在的 Token 在写入时跳过；
+     * 每个带 Token 的请求都会调用，Token 可能是伪造的，实现要能本地校验或限制记录数量
+     */
+    default void touchToken(FmkToken token) {
+    }
+
     /**
      * 刷新 Token 过期时间
      */
@@ -10,6 +10,7 @@ public enum TokenSaveTypeEnum implements IEnumStr {
 
     MEMORY("MEMORY", "内存"),
     REDIS("REDIS", "redis"),
+    SIGNED("SIGNED", "签名"),
     ;
 
     private final String code;
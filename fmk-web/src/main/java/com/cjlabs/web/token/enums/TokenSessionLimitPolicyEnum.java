@@ -0,0 +1,30 @@
+package com.cjlabs.web.token.enums;
+
+import com.cjlabs.domain.enums.IEnumStr;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 用户会话数超过上限时的处理策略
+ */
+@Getter
+@AllArgsConstructor
+public enum TokenSessionLimitPolicyEnum implements IEnumStr {
+
+    EVICT_OLDEST("EVICT_OLDEST", "踢掉最早的会话"),
+    REJECT_NEW("REJECT_NEW", "拒绝新的登录"),
+    ;
+
+    private final String code;
+    private final String msg;
+
+    @Override
+    public String getCode() {
+        return this.code;
+    }
+
+    @Override
+    public String getMsg() {
+        return this.msg;
+    }
+}
@@ -5,13 +5,15 @@ import com.cjlabs.core.strings.FmkStringUtil;
 import com.cjlabs.domain.enums.ClientTypeEnum;
 import com.cjlabs.domain.enums.IEnumStr;
 import com.cjlabs.web.threadlocal.FmkClientInfo;
+import com.cjlabs.web.util.ip.FmkClientIpProperties;
+import com.cjlabs.web.util.ip.FmkClientIpResolver;
+import com.cjlabs.web.util.ip.FmkIpAddress;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.Optional;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -20,18 +22,14 @@ import java.util.regex.Pattern;
 @Slf4j
 public class ClientInfoUtil {
 
+    /**
+     * User-Agent 解析引擎，不同 UA 的数量有限，解析结果按 UA 缓存
+     */
+    private static final FmkUserAgentParser USER_AGENT_PARSER = new FmkUserAgentParser(4096);
+
     // User-Agent 解析的正则表达式
     private static final Pattern MOBILE_PATTERN = Pattern.compile("Mobile|Android|iPhone|iPad|iPod|BlackBerry|Windows Phone", Pattern.CASE_INSENSITIVE);
     private static final Pattern APP_PATTERN = Pattern.compile("(\\w+App|Native|ReactNative|Flutter|Cordova|PhoneGap)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CHROME_PATTERN = Pattern.compile("Chrome/([\\d.]+)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern FIREFOX_PATTERN = Pattern.compile("Firefox/([\\d.]+)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern SAFARI_PATTERN = Pattern.compile("Version/([\\d.]+).*Safari", Pattern.CASE_INSENSITIVE);
-    private static final Pattern EDGE_PATTERN = Pattern.compile("Edg?(?:e)?/([\\d.]+)", Pattern.CASE_INSENSITIVE);
-
-    private static final Pattern ANDROID_PATTERN = Pattern.compile("Android ([\\d.]+)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern IOS_PATTERN = Pattern.compile("OS ([\\d_]+)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern WINDOWS_PATTERN = Pattern.compile("Windows NT ([\\d.]+)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern MAC_PATTERN = Pattern.compile("Mac OS X ([\\d_]+)", Pattern.CASE_INSENSITIVE);
 
     // API 客户端标识
     private static final Pattern API_CLIENT_PATTERN = Pattern.compile(
@@ -39,70 +37,39 @@ public class ClientInfoUtil {
             Pattern.CASE_INSENSITIVE
     );
 
-    // 已知的代理头字段
-    private static final String[] PROXY_HEADERS = {
-            "X-Forwarded-For",
-            "X-Real-IP",
-            "X-Original-Forwarded-For",
-            "Proxy-Client-IP",
-            "WL-Proxy-Client-IP",
-            "HTTP_X_FORWARDED_FOR",
-            "HTTP_X_FORWARDED",
-            "HTTP_X_CLUSTER_CLIENT_IP",
-            "HTTP_CLIENT_IP",
-            "HTTP_FORWARDED_FOR",
-            "HTTP_FORWARDED"
-    };
+    /**
+     * 客户端 IP 解析，默认按 {@link FmkClientIpProperties} 的默认值创建，自动配置时替换为配置的实例
+     */
+    private static volatile FmkClientIpResolver clientIpResolver = new FmkClientIpResolver(new FmkClientIpProperties());
+
+    /**
+     * 设置客户端 IP 解析（可信代理、代理头）
+     */
+    public static void setClientIpResolver(FmkClientIpResolver resolver) {
+        if (resolver != null) {
+            clientIpResolver = resolver;
+        }
+    }
 
     /**
      * 获取客户端真实IP地址
+     * 直接连接的地址是可信代理时才读取代理头，见 {@link FmkClientIpResolver}
      */
     public static String getClientIp(HttpServletRequest request) {
         if (request == null) {
             return "unknown";
         }
 
-        // 按优先级检查代理头
-        for (String header : PROXY_HEADERS) {
-            String ip = getValidIpFromHeader(request, header);
-            if (ip != null) {
-                return ip;
-            }
+        FmkIpAddress address = clientIpResolver.resolve(request);
+        if (address != null) {
+            return address.toString();
         }
 
-        // 最后取 remote address
+        // remote address 不是 IP（如 Unix Socket），原样返回
         String remoteAddr = request.getRemoteAddr();
         return FmkStringUtil.isNotBlank(remoteAddr) ? remoteAddr : "unknown";
     }
 
-    /**
-     * 从指定头字段获取有效IP
-     */
-    private static String getValidIpFromHeader(HttpServletRequest request, String headerName) {
-        String headerValue = request.getHeader(headerName);
-        if (FmkStringUtil.isBlank(headerValue) || "unknown".equalsIgnoreCase(headerValue)) {
-            return null;
-        }
-
-        // 处理多级代理的情况，第一个IP为客户端真实IP
-        int index = headerValue.indexOf(",");
-        String ip = index != -1 ? headerValue.substring(0, index).trim() : headerValue.trim();
-
-        // 验证IP格式（简单验证）
-        return isValidIp(ip) ? ip : null;
-    }
-
-    /**
-     * 简单IP格式验证
-     */
-    private static boolean isValidIp(String ip) {
-        if (FmkStringUtil.isBlank(ip) || "unknown".equalsIgnoreCase(ip)) {
-            return false;
-        }
-        // 简单检查是否包含数字和点号（IPv4）或冒号（IPv6）
-        return ip.matches("^[\\d.:a-fA-F]+$") && !ip.equals("0.0.0.0") && !ip.equals("127.0.0.1");
-    }
-
     /**
      * 解析 User-Agent 获取设备和浏览器信息
      */
@@ -119,14 +86,14 @@ public class ClientInfoUtil {
             // DeviceTypeEnum deviceType = parseDeviceType(userAgent);
             // clientInfo.setDeviceType(deviceType);
 
-            // 解析操作系统
-            String operatingSystem = parseOperatingSystem(userAgent);
-            fmkClientInfo.setOperatingSystem(operatingSystem);
+            // 解析操作系统和浏览器
+            FmkUserAgentParser.UserAgentInfo userAgentInfo = USER_AGENT_PARSER.parse(userAgent);
+            userAgentInfo.applyTo(fmkClientInfo);
 
-            // 解析浏览器
-            parseBrowser(userAgent, fmkClientInfo);
-
-            log.info("ClientInfoUtil|parseUserAgent|解析完成|os={}|browser={}", operatingSystem, fmkClientInfo.getBrowser());
+            if (log.isDebugEnabled()) {
+                log.debug("ClientInfoUtil|parseUserAgent|解析完成|os={}|browser={}",
+                        userAgentInfo.getOperatingSystem(), userAgentInfo.getBrowser());
+            }
 
         } catch (Exception e) {
             log.warn("ClientInfoUtil|parseUserAgent|解析User-Agent失败|userAgent={}", userAgent, e);
@@ -179,118 +146,20 @@ public class ClientInfoUtil {
             return "Unknown";
         }
 
-        Matcher matcher;
-
-        // Android
-        matcher = ANDROID_PATTERN.matcher(userAgent);
-        if (matcher.find()) {
-            return "Android " + matcher.group(1);
-        }
-
-        // iOS
-        matcher = IOS_PATTERN.matcher(userAgent);
-        if (matcher.find()) {
-            String version = matcher.group(1).replace("_", ".");
-            return "iOS " + version;
-        }
-
-        // Windows
-        matcher = WINDOWS_PATTERN.matcher(userAgent);
-        if (matcher.find()) {
-            String version = matcher.group(1);
-            return "Windows " + getWindowsVersion(version);
-        }
-
-        // macOS
-        matcher = MAC_PATTERN.matcher(userAgent);
-        if (matcher.find()) {
-            String version = matcher.group(1).replace("_", ".");
-            return "macOS " + version;
-        }
-
-        // 其他系统
-        if (userAgent.toLowerCase().contains("linux")) {
-            return "Linux";
-        }
-
-        if (userAgent.toLowerCase().contains("unix")) {
-            return "Unix";
-        }
-
-        return "Unknown";
+        return USER_AGENT_PARSER.parse(userAgent).getOperatingSystem();
     }
 
     /**
      * 解析浏览器
      */
     public static void parseBrowser(String userAgent, FmkClientInfo fmkClientInfo) {
-        if (FmkStringUtil.isBlank(userAgent) || fmkClientInfo == null) {
-            fmkClientInfo.setBrowser("Unknown");
-            fmkClientInfo.setBrowserVersion("Unknown");
-            return;
-        }
-
-        Matcher matcher;
-
-        // Edge (需要在 Chrome 之前检查，因为 Edge 也包含 Chrome)
-        matcher = EDGE_PATTERN.matcher(userAgent);
-        if (matcher.find()) {
-            fmkClientInfo.setBrowser("Edge");
-            fmkClientInfo.setBrowserVersion(matcher.group(1));
+        if (fmkClientInfo == null) {
             return;
         }
 
-        // Chrome
-        matcher = CHROME_PATTERN.matcher(userAgent);
-        if (matcher.find()) {
-            fmkClientInfo.setBrowser("Chrome");
-            fmkClientInfo.setBrowserVersion(matcher.group(1));
-            return;
-        }
-
-        // Firefox
-        matcher = FIREFOX_PATTERN.matcher(userAgent);
-        if (matcher.find()) {
-            fmkClientInfo.setBrowser("Firefox");
-            fmkClientInfo.setBrowserVersion(matcher.group(1));
-            return;
-        }
-
-        // Safari
-        matcher = SAFARI_PATTERN.matcher(userAgent);
-        if (matcher.find()) {
-            fmkClientInfo.setBrowser("Safari");
-            fmkClientInfo.setBrowserVersion(matcher.group(1));
-            return;
-        }
-
-        // 其他浏览器
-        fmkClientInfo.setBrowser("Unknown");
-        fmkClientInfo.setBrowserVersion("Unknown");
-    }
-
-    /**
-     * Windows 版本号映射
-     */
-    private static String getWindowsVersion(String ntVersion) {
-        switch (ntVersion) {
-            case "10.0":
-                return "10/11";  // Windows 10 和 11 都是 NT 10.0
-            case "6.3":
-                return "8.1";
-            case "6.2":
-                return "8";
-            case "6.1":
-                return "7";
-            case "6.0":
-                return "Vista";
-            case "5.1":
-                return "XP";
-            case "5.0":
-                return "2000";
-            default:
-                return ntVersion;
-        }
+        FmkUserAgentParser.UserAgentInfo userAgentInfo = USER_AGENT_PARSER.parse(userAgent);
+        fmkClientInfo.setBrowser(userAgentInfo.getBrowser());
+        fmkClientInfo.setBrowserVersion(userAgentInfo.getBrowserVersion());
     }
 
     /**
@@ -0,0 +1,380 @@
+package com.cjlabs.web.util;
+
+import com.cjlabs.web.threadlocal.FmkClientInfo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * User-Agent 解析引擎
+ * <p>
+ * 1. 单次扫描：从左到右扫描一遍 UA，遇到可能的关键字（android、os、windows nt、mac os x、chrome/、edge/ 等）
+ * 时就地比较，记录每种关键字第一次出现的位置和版本号，不使用正则
+ * 2. 解析结果是不可变的 {@link UserAgentInfo}，按 UA 字符串缓存（有界），相同 UA 只解析一次、共享同一个结果
+ * <p>
+ * 识别规则与原来的正则实现一致：关键字不区分大小写，操作系统按 Android → iOS → Windows → macOS → Linux → Unix
+ * 的顺序判断，浏览器按 Edge → Chrome → Firefox → Safari 的顺序判断
+ */
+public class FmkUserAgentParser {
+
+    public static final String UNKNOWN = "Unknown";
+
+    /**
+     * 超过该长度的 UA 不缓存（避免恶意超长 UA 占用缓存）
+     */
+    private static final int MAX_CACHEABLE_LENGTH = 512;
+
+    private static final UserAgentInfo UNKNOWN_INFO = new UserAgentInfo(UNKNOWN, UNKNOWN, UNKNOWN);
+
+    private final Cache<String, UserAgentInfo> cache;
+
+    /**
+     * @param maxSize 最多缓存的 UA 数量，小于等于 0 表示不缓存
+     */
+    public FmkUserAgentParser(int maxSize) {
+        this.cache = maxSize > 0 ? Caffeine.newBuilder().maximumSize(maxSize).build() : null;
+    }
+
+    /**
+     * 解析 User-Agent，优先从缓存读取
+     */
+    public UserAgentInfo parse(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return UNKNOWN_INFO;
+        }
+        if (cache == null || userAgent.length() > MAX_CACHEABLE_LENGTH) {
+            return doParse(userAgent);
+        }
+        UserAgentInfo info = cache.getIfPresent(userAgent);
+        if (info == null) {
+            info = doParse(userAgent);
+            cache.put(userAgent, info);
+        }
+        return info;
+    }
+
+    /**
+     * 缓存中的 UA 数量（先执行待处理的淘汰）
+     */
+    public long cacheSize() {
+        if (cache == null) {
+            return 0;
+        }
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 解析 User-Agent，不使用缓存
+     */
+    static UserAgentInfo doParse(String ua) {
+        Scanner scanner = new Scanner(ua);
+        scanner.scan();
+        return new UserAgentInfo(scanner.operatingSystem(), scanner.browser(), scanner.browserVersion());
+    }
+
+    /**
+     * User-Agent 解析结果，不可变，可以在多个请求之间共享
+     */
+    public static final class UserAgentInfo {
+
+        private final String operatingSystem;
+
+        private final String browser;
+
+        private final String browserVersion;
+
+        UserAgentInfo(String operatingSystem, String browser, String browserVersion) {
+            this.operatingSystem = operatingSystem;
+            this.browser = browser;
+            this.browserVersion = browserVersion;
+        }
+
+        public String getOperatingSystem() {
+            return operatingSystem;
+        }
+
+        public String getBrowser() {
+            return browser;
+        }
+
+        public String getBrowserVersion() {
+            return browserVersion;
+        }
+
+        /**
+         * 写入客户端信息
+         */
+        public void applyTo(FmkClientInfo fmkClientInfo) {
+            fmkClientInfo.setOperatingSystem(operatingSystem);
+            fmkClientInfo.setBrowser(browser);
+            fmkClientInfo.setBrowserVersion(browserVersion);
+        }
+
+        @Override
+        public String toString() {
+            return operatingSystem + "|" + browser + "|" + browserVersion;
+        }
+    }
+
+    /**
+     * 单次扫描，记录每种关键字第一次匹配的版本号
+     * <p>
+     * 版本号以 [start, end) 的形式记录，最后才创建字符串
+     */
+    private static final class Scanner {
+
+        private final String ua;
+
+        private final int length;
+
+        // 操作系统：版本号的起止位置，-1 表示没有匹配
+        private int androidStart = -1, androidEnd;
+        private int iosStart = -1, iosEnd;
+        private int windowsStart = -1, windowsEnd;
+        private int macStart = -1, macEnd;
+        private boolean linux;
+        private boolean unix;
+
+        // 浏览器
+        private int edgeStart = -1, edgeEnd;
+        private int chromeStart = -1, chromeEnd;
+        private int firefoxStart = -1, firefoxEnd;
+        private int safariVersionStart = -1, safariVersionEnd;
+        private int lastSafari = -1;
+
+        private Scanner(String ua) {
+            this.ua = ua;
+            this.length = ua.length();
+        }
+
+        private void scan() {
+            for (int i = 0; i < length; i++) {
+                switch (lower(ua.charAt(i))) {
+                    case 'a' -> {
+                        if (androidStart < 0 && matches(i, "android ")) {
+                            int end = skipDigitsAndDots(i + 8);
+                            if (end > i + 8) {
+                                androidStart = i + 8;
+                                androidEnd = end;
+                            }
+                        }
+                    }
+                    case 'o' -> {
+                        if (iosStart < 0 && matches(i, "os ")) {
+                            int end = skipDigitsAndUnderscores(i + 3);
+                            if (end > i + 3) {
+                                iosStart = i + 3;
+                                iosEnd = end;
+                            }
+                        }
+                    }
+                    case 'w' -> {
+                        if (windowsStart < 0 && matches(i, "windows nt ")) {
+                            int end = skipDigitsAndDots(i + 11);
+                            if (end > i + 11) {
+                                windowsStart = i + 11;
+                                windowsEnd = end;
+                            }
+                        }
+                    }
+                    case 'm' -> {
+                        if (macStart < 0 && matches(i, "mac os x ")) {
+                            int end = skipDigitsAndUnderscores(i + 9);
+                            if (end > i + 9) {
+                                macStart = i + 9;
+                                macEnd = end;
+                            }
+                        }
+                    }
+                    case 'l' -> linux |= matches(i, "linux");
+                    case 'u' -> unix |= matches(i, "unix");
+                    case 'e' -> {
+                        if (edgeStart < 0) {
+                            scanEdge(i);
+                        }
+                    }
+                    case 'c' -> {
+                        if (chromeStart < 0 && matches(i, "chrome/")) {
+                            int end = skipDigitsAndDots(i + 7);
+                            if (end > i + 7) {
+                                chromeStart = i + 7;
+                                chromeEnd = end;
+                            }
+                        }
+                    }
+                    case 'f' -> {
+                        if (firefoxStart < 0 && matches(i, "firefox/")) {
+                            int end = skipDigitsAndDots(i + 8);
+                            if (end > i + 8) {
+                                firefoxStart = i + 8;
+                                firefoxEnd = end;
+                            }
+                        }
+                    }
+                    case 'v' -> {
+                        if (safariVersionStart < 0 && matches(i, "version/")) {
+                            int end = skipDigitsAndDots(i + 8);
+                            if (end > i + 8) {
+                                safariVersionStart = i + 8;
+                                safariVersionEnd = end;
+                            }
+                        }
+                    }
+                    case 's' -> {
+                        if (matches(i, "safari")) {
+                            lastSafari = i;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        /**
+         * Edge：ed、edg、ede、edge 后接 / 和版本号（与原正则 Edg?(?:e)?/ 一致）
+         */
+        private void scanEdge(int i) {
+            if (i + 1 >= length || lower(ua.charAt(i + 1)) != 'd') {
+                return;
+            }
+            int j = i + 2;
+            boolean hasG = j < length && lower(ua.charAt(j)) == 'g';
+            boolean hasGe = hasG && j + 1 < length && lower(ua.charAt(j + 1)) == 'e';
+            boolean hasE = j < length && lower(ua.charAt(j)) == 'e';
+            // 按正则的回溯顺序尝试：edge/、edg/、ede/、ed/
+            int[] candidates = {hasGe ? j + 2 : -1, hasG ? j + 1 : -1, hasE ? j + 1 : -1, j};
+            for (int slash : candidates) {
+                if (slash >= 0 && slash < length && ua.charAt(slash) == '/') {
+                    int end = skipDigitsAndDots(slash + 1);
+                    if (end > slash + 1) {
+                        edgeStart = slash + 1;
+                        edgeEnd = end;
+                        return;
+                    }
+                }
+            }
+        }
+
+        private String operatingSystem() {
+            if (androidStart >= 0) {
+                return "Android " + ua.substring(androidStart, androidEnd);
+            }
+            if (iosStart >= 0) {
+                return "iOS " + ua.substring(iosStart, iosEnd).replace('_', '.');
+            }
+            if (windowsStart >= 0) {
+                return "Windows " + windowsVersion(ua.substring(windowsStart, windowsEnd));
+            }
+            if (macStart >= 0) {
+                return "macOS " + ua.substring(macStart, macEnd).replace('_', '.');
+            }
+            if (linux) {
+                return "Linux";
+            }
+            if (unix) {
+                return "Unix";
+            }
+            return UNKNOWN;
+        }
+
+        private String browser() {
+            if (edgeStart >= 0) {
+                return "Edge";
+            }
+            if (chromeStart >= 0) {
+                return "Chrome";
+            }
+            if (firefoxStart >= 0) {
+                return "Firefox";
+            }
+            if (hasSafari()) {
+                return "Safari";
+            }
+            return UNKNOWN;
+        }
+
+        private String browserVersion() {
+            if (edgeStart >= 0) {
+                return ua.substring(edgeStart, edgeEnd);
+            }
+            if (chromeStart >= 0) {
+                return ua.substring(chromeStart, chromeEnd);
+            }
+            if (firefoxStart >= 0) {
+                return ua.substring(firefoxStart, firefoxEnd);
+            }
+            if (hasSafari()) {
+                return ua.substring(safariVersionStart, safariVersionEnd);
+            }
+            return UNKNOWN;
+        }
+
+        /**
+         * Safari：Version/版本号 之后出现 Safari
+         */
+        private boolean hasSafari() {
+            return safariVersionStart >= 0 && lastSafari >= safariVersionEnd;
+        }
+
+        /**
+         * 只按 ASCII 忽略大小写（与 Pattern.CASE_INSENSITIVE 一致）
+         */
+        private boolean matches(int offset, String lowerKeyword) {
+            int keywordLength = lowerKeyword.length();
+            if (offset + keywordLength > length) {
+                return false;
+            }
+            for (int k = 0; k < keywordLength; k++) {
+                if (lower(ua.charAt(offset + k)) != lowerKeyword.charAt(k)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int skipDigitsAndDots(int from) {
+            int i = from;
+            while (i < length) {
+                char c = ua.charAt(i);
+                if ((c < '0' || c > '9') && c != '.') {
+                    break;
+                }
+                i++;
+            }
+            return i;
+        }
+
+        private int skipDigitsAndUnderscores(int from) {
+            int i = from;
+            while (i < length) {
+                char c = ua.charAt(i);
+                if ((c < '0' || c > '9') && c != '_') {
+                    break;
+                }
+                i++;
+            }
+            return i;
+        }
+
+        private static char lower(char c) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        }
+
+        /**
+         * Windows 版本号映射
+         */
+        private static String windowsVersion(String ntVersion) {
+            return switch (ntVersion) {
+                case "10.0" -> "10/11";  // Windows 10 和 11 都是 NT 10.0
+                case "6.3" -> "8.1";
+                case "6.2" -> "8";
+                case "6.1" -> "7";
+                case "6.0" -> "Vista";
+                case "5.1" -> "XP";
+                case "5.0" -> "2000";
+                default -> ntVersion;
+            };
+        }
+    }
+}
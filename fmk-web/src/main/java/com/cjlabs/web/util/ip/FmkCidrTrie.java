@@ -0,0 +1,154 @@
+package com.cjlabs.web.util.ip;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * CIDR 前缀树（二叉 trie），判断 IP 是否属于一组网段
+ * <p>
+ * IPv4 网段按 IPv4-mapped 地址保存（a.b.c.d/n 即 ::ffff:a.b.c.d/(96+n)），IPv4 和 IPv6 共用一棵树。
+ * 节点用 int 数组保存左右子节点下标，查询最多比较 128 位，不分配对象；
+ * 构建完成后只读，可以多线程并发查询
+ */
+public final class FmkCidrTrie {
+
+    private static final int ROOT = 0;
+
+    /**
+     * 子节点下标：children[node * 2 + bit]，0 表示没有子节点（根节点不会是子节点）
+     */
+    private int[] children = new int[32];
+
+    /**
+     * 节点是否是某个网段的终点
+     */
+    private boolean[] terminal = new boolean[16];
+
+    private int nodeCount = 1;
+
+    private int cidrCount;
+
+    /**
+     * 由网段列表创建
+     *
+     * @param cidrs 如 10.0.0.0/8、fc00::/7；不带前缀长度表示单个地址
+     * @throws RuntimeException 网段格式不正确
+     */
+    public static FmkCidrTrie of(Collection<String> cidrs) {
+        FmkCidrTrie trie = new FmkCidrTrie();
+        if (cidrs != null) {
+            for (String cidr : cidrs) {
+                trie.add(cidr);
+            }
+        }
+        return trie;
+    }
+
+    /**
+     * 添加网段
+     *
+     * @throws RuntimeException 网段格式不正确
+     */
+    public void add(String cidr) {
+        if (cidr == null || cidr.isBlank()) {
+            throw new RuntimeException("网段不能为空");
+        }
+        String text = cidr.trim();
+        int slash = text.indexOf('/');
+        FmkIpAddress address = FmkIpAddress.parse(text, 0, slash < 0 ? text.length() : slash);
+        if (address == null) {
+            throw new RuntimeException("网段格式不正确: " + cidr);
+        }
+
+        int maxPrefix = address.isIpv4() ? 32 : 128;
+        int prefix = maxPrefix;
+        if (slash >= 0) {
+            prefix = parsePrefix(text, slash + 1);
+            if (prefix < 0 || prefix > maxPrefix) {
+                throw new RuntimeException("网段前缀长度不正确: " + cidr);
+            }
+        }
+        add(address, address.isIpv4() ? prefix + 96 : prefix);
+    }
+
+    /**
+     * 添加网段
+     *
+     * @param prefixLength 128 位地址上的前缀长度（IPv4 需要加 96）
+     */
+    public void add(FmkIpAddress address, int prefixLength) {
+        int node = ROOT;
+        for (int i = 0; i < prefixLength; i++) {
+            if (terminal[node]) {
+                // 已经被更短的网段覆盖
+                return;
+            }
+            int slot = node * 2 + address.bit(i);
+            if (children[slot] == 0) {
+                // 先扩容再取数组，否则会写入扩容前的数组
+                int child = newNode();
+                children[slot] = child;
+            }
+            node = children[slot];
+        }
+        if (!terminal[node]) {
+            terminal[node] = true;
+            cidrCount++;
+        }
+    }
+
+    /**
+     * IP 是否属于任意一个网段
+     */
+    public boolean contains(FmkIpAddress address) {
+        if (address == null) {
+            return false;
+        }
+        int node = ROOT;
+        for (int i = 0; i < 128; i++) {
+            if (terminal[node]) {
+                return true;
+            }
+            node = children[node * 2 + address.bit(i)];
+            if (node == 0) {
+                return false;
+            }
+        }
+        return terminal[node];
+    }
+
+    public boolean isEmpty() {
+        return cidrCount == 0;
+    }
+
+    /**
+     * 网段数量（被更短网段覆盖的不计）
+     */
+    public int size() {
+        return cidrCount;
+    }
+
+    private int newNode() {
+        if (nodeCount == terminal.length) {
+            terminal = Arrays.copyOf(terminal, nodeCount * 2);
+            children = Arrays.copyOf(children, nodeCount * 4);
+        }
+        return nodeCount++;
+    }
+
+    private static int parsePrefix(String text, int from) {
+        int length = text.length() - from;
+        if (length < 1 || length > 3) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
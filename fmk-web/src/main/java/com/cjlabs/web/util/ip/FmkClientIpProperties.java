@@ -0,0 +1,35 @@
+package com.cjlabs.web.util.ip;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "fmk.client-ip")
+public class FmkClientIpProperties {
+
+    /**
+     * 可信代理网段（CIDR），只有直接连接的地址属于这些网段时才读取代理头
+     * 默认是回环地址和内网地址（反向代理、负载均衡通常部署在内网）
+     */
+    private List<String> trustedProxies = new ArrayList<>(List.of(
+            "127.0.0.0/8",
+            "::1/128",
+            "10.0.0.0/8",
+            "172.16.0.0/12",
+            "192.168.0.0/16",
+            "fc00::/7"
+    ));
+
+    /**
+     * 按顺序读取的代理头，可以是逗号分隔的多级代理（如 X-Forwarded-For），也可以是单个地址（如 X-Real-IP）
+     */
+    private List<String> headers = new ArrayList<>(List.of(
+            "X-Forwarded-For",
+            "X-Real-IP"
+    ));
+}
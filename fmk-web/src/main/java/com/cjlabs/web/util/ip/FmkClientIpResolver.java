@@ -0,0 +1,167 @@
+package com.cjlabs.web.util.ip;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 客户端 IP 解析
+ * <p>
+ * 1. 直接连接的地址（remoteAddr）不是可信代理时，直接返回它，不读取任何代理头（代理头可以被客户端伪造）
+ * 2. 是可信代理时，按顺序读取配置的代理头，X-Forwarded-For 从右往左找第一个不是可信代理的地址；
+ * 全部是可信代理时取最左边的地址；遇到格式不正确的地址就停止，取它右边的地址
+ * 3. 代理头都没有有效地址时返回 remoteAddr
+ * <p>
+ * 拆分代理头时按下标扫描，不使用 split/正则；支持 [IPv6]:port 和 IPv4:port 形式
+ */
+@Slf4j
+public class FmkClientIpResolver {
+
+    private final FmkCidrTrie trustedProxies;
+
+    private final String[] headers;
+
+    public FmkClientIpResolver(FmkClientIpProperties properties) {
+        this(properties.getTrustedProxies(), properties.getHeaders());
+    }
+
+    /**
+     * @param trustedProxies 可信代理网段
+     * @param headers        按顺序读取的代理头
+     * @throws RuntimeException 网段格式不正确
+     */
+    public FmkClientIpResolver(List<String> trustedProxies, List<String> headers) {
+        this.trustedProxies = FmkCidrTrie.of(trustedProxies);
+        this.headers = headers == null ? new String[0] : headers.toArray(new String[0]);
+        log.info("FmkClientIpResolver|init|trustedProxies={}|headers={}", trustedProxies, headers);
+    }
+
+    /**
+     * 解析客户端 IP
+     *
+     * @return remoteAddr 格式不正确且没有可用的代理头时返回 null
+     */
+    public FmkIpAddress resolve(HttpServletRequest request) {
+        return resolve(request.getRemoteAddr(), request::getHeader);
+    }
+
+    /**
+     * 解析客户端 IP
+     *
+     * @param remoteAddr   直接连接的地址
+     * @param headerLookup 按名称读取请求头
+     * @return remoteAddr 格式不正确且没有可用的代理头时返回 null
+     */
+    public FmkIpAddress resolve(String remoteAddr, Function<String, String> headerLookup) {
+        FmkIpAddress remote = FmkIpAddress.parse(remoteAddr);
+        if (remote != null && !trustedProxies.contains(remote)) {
+            return remote;
+        }
+        for (String header : headers) {
+            String value = headerLookup.apply(header);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            FmkIpAddress address = selectFromChain(value);
+            if (address != null) {
+                return address;
+            }
+        }
+        return remote;
+    }
+
+    /**
+     * 是否是可信代理
+     */
+    public boolean isTrustedProxy(FmkIpAddress address) {
+        return trustedProxies.contains(address);
+    }
+
+    /**
+     * 从逗号分隔的代理链中选出客户端地址（从右往左第一个不可信的地址）
+     */
+    FmkIpAddress selectFromChain(String chain) {
+        FmkIpAddress candidate = null;
+        int end = chain.length();
+        while (end >= 0) {
+            int comma = chain.lastIndexOf(',', end - 1);
+            FmkIpAddress address = parseHop(chain, comma + 1, end);
+            if (address == null) {
+                // 格式不正确（如 unknown、被篡改），更左边的地址不可信
+                return candidate;
+            }
+            if (!trustedProxies.contains(address)) {
+                return address;
+            }
+            candidate = address;
+            if (comma < 0) {
+                break;
+            }
+            end = comma;
+        }
+        return candidate;
+    }
+
+    /**
+     * 解析代理链中的一个地址：去掉空白、[IPv6]:port 的方括号和端口、IPv4:port 的端口
+     */
+    private static FmkIpAddress parseHop(String chain, int from, int to) {
+        while (from < to && chain.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && chain.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (from == to) {
+            return null;
+        }
+
+        if (chain.charAt(from) == '[') {
+            int close = chain.indexOf(']', from);
+            if (close < 0 || close >= to) {
+                return null;
+            }
+            if (close + 1 < to && !isPort(chain, close + 1, to)) {
+                return null;
+            }
+            return FmkIpAddress.parse(chain, from + 1, close);
+        }
+
+        // 只有一个冒号的是 IPv4:port
+        int colon = -1;
+        for (int i = from; i < to; i++) {
+            if (chain.charAt(i) == ':') {
+                if (colon >= 0) {
+                    colon = -1;
+                    break;
+                }
+                colon = i;
+            }
+        }
+        if (colon >= 0) {
+            if (!isPort(chain, colon, to)) {
+                return null;
+            }
+            to = colon;
+        }
+        return FmkIpAddress.parse(chain, from, to);
+    }
+
+    /**
+     * [from, to) 是否是 ":端口"
+     */
+    private static boolean isPort(String text, int from, int to) {
+        if (text.charAt(from) != ':' || to - from < 2 || to - from > 6) {
+            return false;
+        }
+        for (int i = from + 1; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
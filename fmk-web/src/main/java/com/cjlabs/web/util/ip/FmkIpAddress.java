@@ -0,0 +1,348 @@
+package com.cjlabs.web.util.ip;
+
+/**
+ * IP 地址值类型
+ * <p>
+ * 用两个 long 保存 128 位地址，IPv4 按 IPv4-mapped 形式（::ffff:a.b.c.d）保存，
+ * 所以 IPv4 和 IPv6 可以放进同一棵前缀树比较。
+ * <p>
+ * 解析不使用正则，也不创建中间对象（split、substring、byte[]），只有解析成功时创建一个结果对象；
+ * 规则与 Guava InetAddresses 一致：IPv4 的每段不允许前导 0，IPv6 支持 :: 和结尾内嵌 IPv4，忽略 %zone
+ */
+public final class FmkIpAddress {
+
+    private static final long IPV4_MAPPED_PREFIX = 0xffffL << 32;
+
+    private final long high;
+
+    private final long low;
+
+    private FmkIpAddress(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * 解析 IP 地址
+     *
+     * @return 格式不正确时返回 null
+     */
+    public static FmkIpAddress parse(CharSequence text) {
+        return text == null ? null : parse(text, 0, text.length());
+    }
+
+    /**
+     * 解析 text 中 [from, to) 范围内的 IP 地址，不需要先 substring
+     *
+     * @return 格式不正确时返回 null
+     */
+    public static FmkIpAddress parse(CharSequence text, int from, int to) {
+        if (text == null || from < 0 || to > text.length() || from >= to) {
+            return null;
+        }
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == ':') {
+                return parseIpv6(text, from, to);
+            }
+        }
+        long ipv4 = parseIpv4(text, from, to);
+        return ipv4 < 0 ? null : new FmkIpAddress(0, IPV4_MAPPED_PREFIX | ipv4);
+    }
+
+    /**
+     * 由 IPv4 的 32 位整数创建
+     */
+    public static FmkIpAddress ofIpv4(int address) {
+        return new FmkIpAddress(0, IPV4_MAPPED_PREFIX | (address & 0xffffffffL));
+    }
+
+    /**
+     * 由 IPv6 的高 64 位和低 64 位创建（IPv4-mapped 地址视为 IPv4）
+     */
+    public static FmkIpAddress ofIpv6(long high, long low) {
+        return new FmkIpAddress(high, low);
+    }
+
+    public boolean isIpv4() {
+        return high == 0 && (low & 0xffffffff00000000L) == IPV4_MAPPED_PREFIX;
+    }
+
+    /**
+     * 是否是回环地址（127.0.0.0/8 或 ::1）
+     */
+    public boolean isLoopback() {
+        return isIpv4() ? (low & 0xff000000L) == 0x7f000000L : high == 0 && low == 1;
+    }
+
+    /**
+     * 是否是未指定地址（0.0.0.0 或 ::）
+     */
+    public boolean isUnspecified() {
+        return isIpv4() ? (low & 0xffffffffL) == 0 : high == 0 && low == 0;
+    }
+
+    /**
+     * 128 位地址的高 64 位（IPv4 为 0）
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * 128 位地址的低 64 位（IPv4 为 0x0000ffff_xxxxxxxx）
+     */
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * 第 index 位（从最高位开始，0 ~ 127）
+     */
+    int bit(int index) {
+        return index < 64
+                ? (int) (high >>> (63 - index)) & 1
+                : (int) (low >>> (127 - index)) & 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FmkIpAddress)) {
+            return false;
+        }
+        FmkIpAddress that = (FmkIpAddress) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high) * 31 + Long.hashCode(low);
+    }
+
+    /**
+     * IPv4 输出点分十进制，IPv6 按 RFC 5952 输出（小写、省略前导 0、最长的连续 0 段压缩为 ::）
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(39);
+        if (isIpv4()) {
+            sb.append((low >>> 24) & 0xff).append('.')
+                    .append((low >>> 16) & 0xff).append('.')
+                    .append((low >>> 8) & 0xff).append('.')
+                    .append(low & 0xff);
+            return sb.toString();
+        }
+
+        // 找最长的连续 0 段（至少 2 段才压缩）
+        int bestStart = -1;
+        int bestLength = 0;
+        int runStart = -1;
+        for (int i = 0; i <= 8; i++) {
+            if (i < 8 && group(i) == 0) {
+                if (runStart < 0) {
+                    runStart = i;
+                }
+            } else if (runStart >= 0) {
+                if (i - runStart > bestLength) {
+                    bestStart = runStart;
+                    bestLength = i - runStart;
+                }
+                runStart = -1;
+            }
+        }
+        if (bestLength < 2) {
+            bestStart = -1;
+        }
+
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                sb.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (i > 0 && i != bestStart + bestLength) {
+                sb.append(':');
+            }
+            sb.append(Integer.toHexString(group(i)));
+        }
+        return sb.toString();
+    }
+
+    private int group(int index) {
+        long word = index < 4 ? high : low;
+        return (int) (word >>> (48 - (index & 3) * 16)) & 0xffff;
+    }
+
+    // ==================== 解析 ====================
+
+    /**
+     * 解析点分十进制 IPv4
+     *
+     * @return 32 位地址，格式不正确时返回 -1
+     */
+    private static long parseIpv4(CharSequence text, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int i = from;
+        while (true) {
+            int start = i;
+            int value = 0;
+            while (i < to) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+                i++;
+            }
+            int digits = i - start;
+            // 每段 1~3 位数字，不大于 255，不允许前导 0（无法区分八进制）
+            if (digits == 0 || digits > 3 || value > 255 || (digits > 1 && text.charAt(start) == '0')) {
+                return -1;
+            }
+            address = (address << 8) | value;
+            octets++;
+            if (i == to) {
+                return octets == 4 ? address : -1;
+            }
+            if (octets == 4 || text.charAt(i) != '.') {
+                return -1;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * 解析 IPv6，支持 :: 压缩、结尾内嵌 IPv4 和 %zone（忽略）
+     * <p>
+     * :: 之前的组累加到 head，之后的组累加到 tail，最后把 head 左移到高位与 tail 合并
+     */
+    private static FmkIpAddress parseIpv6(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '%') {
+                // zone 不能为空
+                if (i == to - 1) {
+                    return null;
+                }
+                to = i;
+                break;
+            }
+        }
+        if (to - from < 2) {
+            return null;
+        }
+
+        long headHigh = 0, headLow = 0, tailHigh = 0, tailLow = 0;
+        int headGroups = 0, tailGroups = 0;
+        boolean skip = false;
+        int i = from;
+        if (text.charAt(i) == ':') {
+            // 只能以 :: 开头
+            if (text.charAt(i + 1) != ':') {
+                return null;
+            }
+            skip = true;
+            i += 2;
+        }
+        while (i < to) {
+            int start = i;
+            int value = 0;
+            while (i < to) {
+                int digit = hexDigit(text.charAt(i));
+                if (digit < 0) {
+                    break;
+                }
+                value = (value << 4) | digit;
+                i++;
+            }
+
+            int groups = 1;
+            long groupBits = value;
+            if (i < to && text.charAt(i) == '.') {
+                // 内嵌 IPv4，必须在最后，占 2 组
+                long ipv4 = parseIpv4(text, start, to);
+                if (ipv4 < 0) {
+                    return null;
+                }
+                groups = 2;
+                groupBits = ipv4;
+                i = to;
+            } else if (i == start || i - start > 4) {
+                return null;
+            }
+
+            if (headGroups + tailGroups + groups > 8) {
+                return null;
+            }
+            if (skip) {
+                tailHigh = (tailHigh << (16 * groups)) | (tailLow >>> (64 - 16 * groups));
+                tailLow = (tailLow << (16 * groups)) | groupBits;
+                tailGroups += groups;
+            } else {
+                headHigh = (headHigh << (16 * groups)) | (headLow >>> (64 - 16 * groups));
+                headLow = (headLow << (16 * groups)) | groupBits;
+                headGroups += groups;
+            }
+
+            if (i == to) {
+                break;
+            }
+            if (text.charAt(i) != ':') {
+                return null;
+            }
+            i++;
+            if (i == to) {
+                // 单个冒号结尾
+                return null;
+            }
+            if (text.charAt(i) == ':') {
+                if (skip) {
+                    return null;
+                }
+                skip = true;
+                i++;
+            }
+        }
+
+        int totalGroups = headGroups + tailGroups;
+        if (skip ? totalGroups > 7 : totalGroups != 8) {
+            return null;
+        }
+        int shift = (8 - headGroups) * 16;
+        long high = shiftLeftHigh(headHigh, headLow, shift) | tailHigh;
+        long low = (shift >= 64 ? 0 : headLow << shift) | tailLow;
+        return new FmkIpAddress(high, low);
+    }
+
+    /**
+     * 128 位左移后的高 64 位
+     */
+    private static long shiftLeftHigh(long high, long low, int shift) {
+        if (shift == 0) {
+            return high;
+        }
+        if (shift >= 128) {
+            return 0;
+        }
+        if (shift >= 64) {
+            return low << (shift - 64);
+        }
+        return (high << shift) | (low >>> (64 - shift));
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
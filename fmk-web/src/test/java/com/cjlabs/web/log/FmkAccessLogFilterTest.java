@@ -0,0 +1,344 @@
+package com.cjlabs.web.log;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkAccessLogFilter 测试类
+ */
+@DisplayName("FmkAccessLogFilter 异步访问日志测试")
+class FmkAccessLogFilterTest {
+
+    private final List<String> lines = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    @DisplayName("测试记录内容 - 请求体前缀、查询参数、请求头脱敏")
+    void testCaptureAndRedact() throws Exception {
+        FmkAccessLogProperties properties = properties();
+        FmkAccessLogWriter writer = newWriter(properties);
+        FmkAccessLogFilter filter = new FmkAccessLogFilter(properties, writer);
+
+        MockHttpServletRequest request = post("/api/order/create", "{\"amount\":100}");
+        request.setQueryString("from=app");
+        request.addHeader("Authorization", "Bearer secret");
+        request.addHeader("x-cj-token", "token-value");
+        request.addHeader("X-Custom", "visible");
+        filter.doFilter(request, new MockHttpServletResponse(), chain(201, 0));
+
+        assertEquals(1, writer.drain());
+        String line = lines.get(0);
+        assertTrue(line.startsWith("FmkAccessLog|SAMPLED|POST|/api/order/create?from=app|status=201"), line);
+        assertTrue(line.contains("payload={\"amount\":100}"), line);
+        assertTrue(line.contains("Authorization:***"), line);
+        assertTrue(line.contains("x-cj-token:***"), "脱敏不区分大小写");
+        assertTrue(line.contains("X-Custom:visible"), line);
+        assertFalse(line.contains("secret"));
+        System.out.println("✅ 记录内容正确: " + line);
+    }
+
+    @Test
+    @DisplayName("测试请求体截断 - 只记录前 maxPayloadLength 字节，缓冲区归还到池")
+    void testTruncateAndPool() throws Exception {
+        FmkAccessLogProperties properties = properties();
+        properties.setMaxPayloadLength(8);
+        FmkAccessLogWriter writer = newWriter(properties);
+        FmkAccessLogFilter filter = new FmkAccessLogFilter(properties, writer);
+
+        filter.doFilter(post("/api/a", "0123456789abcdef"), new MockHttpServletResponse(), chain(200, 0));
+        writer.drain();
+        assertTrue(lines.get(0).contains("payload=01234567...(truncated)"), lines.get(0));
+
+        for (int i = 0; i < 100; i++) {
+            filter.doFilter(post("/api/a", "body"), new MockHttpServletResponse(), chain(200, 0));
+            writer.drain();
+        }
+        assertEquals(1, writer.bufferPool().pooledCount(), "同一个缓冲区反复使用");
+        System.out.println("✅ 请求体截断和缓冲区复用正确");
+    }
+
+    @Test
+    @DisplayName("测试采样 - 按路径采样，慢请求和 5xx 总是记录")
+    void testSampling() throws Exception {
+        FmkAccessLogProperties properties = properties();
+        properties.setSampleRate(0);
+        properties.setSlowThresholdMillis(50);
+        FmkAccessLogProperties.PathSample keep = new FmkAccessLogProperties.PathSample();
+        keep.setPattern("/api/keep/**");
+        keep.setRate(1);
+        properties.getPathSamples().add(keep);
+        FmkAccessLogWriter writer = newWriter(properties);
+        FmkAccessLogFilter filter = new FmkAccessLogFilter(properties, writer);
+
+        filter.doFilter(post("/api/drop", "x"), new MockHttpServletResponse(), chain(200, 0));
+        filter.doFilter(post("/api/keep/1", "x"), new MockHttpServletResponse(), chain(200, 0));
+        filter.doFilter(post("/api/slow", "x"), new MockHttpServletResponse(), chain(200, 60));
+        filter.doFilter(post("/api/error", "x"), new MockHttpServletResponse(), chain(503, 0));
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(post("/api/fail", "x"), new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                        throw new IllegalStateException("boom");
+                    }
+                })));
+
+        writer.drain();
+        assertEquals(4, lines.size(), lines.toString());
+        assertTrue(lines.get(0).startsWith("FmkAccessLog|SAMPLED|POST|/api/keep/1"));
+        assertTrue(lines.get(1).startsWith("FmkAccessLog|SLOW|POST|/api/slow"));
+        assertTrue(lines.get(2).startsWith("FmkAccessLog|ERROR|POST|/api/error|status=503"));
+        assertTrue(lines.get(3).startsWith("FmkAccessLog|ERROR|POST|/api/fail|status=500"));
+        // 4 个读了请求体的请求最多同时借出 3 个缓冲区（/api/fail 没有读请求体），写完后全部归还
+        assertEquals(3, writer.bufferPool().pooledCount(), "记录和不记录的请求都归还缓冲区");
+        System.out.println("✅ 采样规则正确");
+    }
+
+    @Test
+    @DisplayName("测试采样路径 - 匹配去掉 context path 并解码后的路径")
+    void testSamplingLookupPath() throws Exception {
+        FmkAccessLogProperties properties = properties();
+        properties.setSampleRate(0);
+        FmkAccessLogProperties.PathSample keep = new FmkAccessLogProperties.PathSample();
+        keep.setPattern("/api/keep/**");
+        keep.setRate(1);
+        properties.getPathSamples().add(keep);
+        FmkAccessLogWriter writer = newWriter(properties);
+        FmkAccessLogFilter filter = new FmkAccessLogFilter(properties, writer);
+
+        MockHttpServletRequest withContextPath = post("/app/api/keep/1", "x");
+        withContextPath.setContextPath("/app");
+        filter.doFilter(withContextPath, new MockHttpServletResponse(), chain(200, 0));
+        filter.doFilter(post("/api/%6Beep/2", "x"), new MockHttpServletResponse(), chain(200, 0));
+        filter.doFilter(post("/app/api/drop", "x"), new MockHttpServletResponse(), chain(200, 0));
+
+        writer.drain();
+        assertEquals(2, lines.size(), lines.toString());
+        assertTrue(lines.get(0).startsWith("FmkAccessLog|SAMPLED|POST|/app/api/keep/1"), "日志中仍然记录原始 URI");
+        assertTrue(lines.get(1).startsWith("FmkAccessLog|SAMPLED|POST|/api/%6Beep/2"));
+        System.out.println("✅ 采样路径与鉴权使用相同的路径");
+    }
+
+    @Test
+    @DisplayName("测试默认配置 - 默认关闭，开启后也不记录请求头和请求体")
+    void testDefaults() throws Exception {
+        FmkAccessLogProperties properties = new FmkAccessLogProperties();
+        assertFalse(properties.isEnabled());
+        FmkAccessLogWriter writer = newWriter(properties);
+        FmkAccessLogFilter filter = new FmkAccessLogFilter(properties, writer);
+
+        MockHttpServletRequest request = post("/api/order/create", "{\"phone\":\"13800000000\"}");
+        request.addHeader("X-Custom", "visible");
+        filter.doFilter(request, new MockHttpServletResponse(), chain(200, 0));
+
+        writer.drain();
+        assertEquals(1, lines.size());
+        assertFalse(lines.get(0).contains("headers="), lines.get(0));
+        assertFalse(lines.get(0).contains("payload="), lines.get(0));
+        System.out.println("✅ 默认不记录请求头和请求体: " + lines.get(0));
+    }
+
+    @Test
+    @DisplayName("测试异步请求 - 第一次分派不记录，最后一次分派记录完整耗时和状态码")
+    void testAsyncRequest() throws Exception {
+        FmkAccessLogProperties properties = properties();
+        FmkAccessLogWriter writer = newWriter(properties);
+        FmkAccessLogFilter filter = new FmkAccessLogFilter(properties, writer);
+
+        MockHttpServletRequest request = post("/api/order/async", "{\"id\":1}");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.getInputStream().readAllBytes();
+                req.startAsync();
+            }
+        }));
+        assertEquals(0, writer.drain(), "异步处理还没有结束");
+
+        Thread.sleep(20);
+        request.setAsyncStarted(false);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        filter.doFilter(request, response, chain(202, 0));
+
+        assertEquals(1, writer.drain());
+        String line = lines.get(0);
+        assertTrue(line.startsWith("FmkAccessLog|SAMPLED|POST|/api/order/async|status=202"), line);
+        assertTrue(line.contains("payload={\"id\":1}"), "第一次分派读取的请求体");
+        long costMillis = Long.parseLong(line.replaceAll(".*\\|costMs=(\\d+)\\|.*", "$1"));
+        assertTrue(costMillis >= 20, "耗时从第一次分派开始: " + costMillis);
+        assertNull(request.getAttribute(FmkAccessLogFilter.class.getName() + ".PENDING"));
+        System.out.println("✅ 异步请求在结束时记录: " + line);
+    }
+
+    @Test
+    @DisplayName("测试空闲唤醒 - 后台线程空闲时挂起，放入事件后立即写出")
+    void testIdleWakeUp() throws Exception {
+        FmkAccessLogProperties properties = properties();
+        CountDownLatch written = new CountDownLatch(1);
+        FmkAccessLogWriter writer = new FmkAccessLogWriter(properties.getQueueSize(), properties.getMaxPayloadLength(),
+                properties.getBufferPoolSize(), (event, line) -> written.countDown());
+        writer.start();
+        try {
+            // 等后台线程进入挂起
+            Thread.sleep(50);
+            long start = System.nanoTime();
+            writer.offer(new FmkAccessLogEvent());
+            assertTrue(written.await(500, TimeUnit.MILLISECONDS), "由 offer 唤醒，不等兜底的挂起时间");
+            System.out.printf("放入到写出耗时 %.2fms%n", (System.nanoTime() - start) / 1e6);
+        } finally {
+            writer.stop();
+        }
+        System.out.println("✅ 空闲时挂起，放入后唤醒");
+    }
+
+    @Test
+    @DisplayName("测试无锁队列 - 多个生产者并发写入，不丢不重，每个生产者内有序")
+    void testRingBufferConcurrent() throws Exception {
+        FmkAccessLogRingBuffer<long[]> ring = new FmkAccessLogRingBuffer<>(1024);
+        int producers = 4;
+        int perProducer = 200_000;
+        AtomicLong rejected = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    if (!ring.offer(new long[]{producer, i})) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+            thread.start();
+        }
+
+        long[] last = {-1, -1, -1, -1};
+        long polled = 0;
+        while (done.getCount() > 0 || ring.size() > 0) {
+            long[] element = ring.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int producer = (int) element[0];
+            assertTrue(element[1] > last[producer], "同一个生产者内有序");
+            last[producer] = element[1];
+            polled++;
+        }
+        assertEquals((long) producers * perProducer, polled + rejected.get());
+        assertNull(ring.poll());
+        System.out.printf("✅ 无锁队列：取出 %d，队列满丢弃 %d%n", polled, rejected.get());
+    }
+
+    @Test
+    @DisplayName("性能测试 - 日志输出很慢时请求耗时不受影响")
+    void testLatencyIndependentOfLogVolume() throws Exception {
+        FmkAccessLogProperties properties = properties();
+        properties.setQueueSize(1024);
+        // 每条日志输出耗时 1ms，同步输出时每个请求至少 1ms
+        FmkAccessLogWriter writer = new FmkAccessLogWriter(properties.getQueueSize(), properties.getMaxPayloadLength(),
+                properties.getBufferPoolSize(), (event, line) -> sleepQuietly());
+        writer.start();
+        try {
+            FmkAccessLogFilter filter = new FmkAccessLogFilter(properties, writer);
+            String body = "{\"orderId\":123456789,\"items\":[1,2,3],\"remark\":\"" + "x".repeat(200) + "\"}";
+            int requests = 20_000;
+
+            // 预热
+            runRequests(filter, body, requests);
+
+            properties.setSampleRate(0);
+            FmkAccessLogFilter noLogFilter = new FmkAccessLogFilter(properties, writer);
+            long noLogNanos = runRequests(noLogFilter, body, requests);
+            long fullLogNanos = runRequests(filter, body, requests);
+
+            System.out.printf("每个请求耗时：不记录 %d ns，全部记录 %d ns（日志输出 1ms/条），已写 %d，丢弃 %d%n",
+                    noLogNanos, fullLogNanos, writer.getWrittenCount(), writer.getDroppedCount());
+            assertTrue(fullLogNanos < 200_000, "请求线程不等待日志输出");
+            assertTrue(writer.getDroppedCount() > 0, "输出跟不上时丢弃而不是阻塞");
+        } finally {
+            writer.stop();
+        }
+        System.out.println("✅ 请求耗时与日志量无关");
+    }
+
+    private long runRequests(FmkAccessLogFilter filter, String body, int requests) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            filter.doFilter(post("/api/order/create", body), new MockHttpServletResponse(), chain(200, 0));
+        }
+        return (System.nanoTime() - start) / requests;
+    }
+
+    /**
+     * 记录请求头和请求体的配置
+     */
+    private static FmkAccessLogProperties properties() {
+        FmkAccessLogProperties properties = new FmkAccessLogProperties();
+        properties.setEnabled(true);
+        properties.setIncludeHeaders(true);
+        properties.setIncludePayload(true);
+        return properties;
+    }
+
+    private FmkAccessLogWriter newWriter(FmkAccessLogProperties properties) {
+        return new FmkAccessLogWriter(properties.getQueueSize(), properties.getMaxPayloadLength(),
+                properties.getBufferPoolSize(), (event, line) -> lines.add(line));
+    }
+
+    private static MockHttpServletRequest post(String uri, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setContentType("application/json");
+        request.setCharacterEncoding("UTF-8");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+
+    /**
+     * 读取全部请求体，设置状态码，可选地等待一段时间
+     */
+    private static MockFilterChain chain(int status, long sleepMillis) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+                req.getInputStream().readAllBytes();
+                if (sleepMillis > 0) {
+                    try {
+                        Thread.sleep(sleepMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                resp.setStatus(status);
+            }
+        });
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
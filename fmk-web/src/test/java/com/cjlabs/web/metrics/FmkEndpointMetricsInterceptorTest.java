@@ -0,0 +1,287 @@
+package com.cjlabs.web.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkEndpointMetricsInterceptor 测试类
+ */
+@DisplayName("FmkEndpointMetricsInterceptor 接口耗时统计测试")
+class FmkEndpointMetricsInterceptorTest {
+
+    private final FmkEndpointMetricsRegistry registry = new FmkEndpointMetricsRegistry(60_000, 2);
+    private final FmkEndpointMetricsInterceptor interceptor = new FmkEndpointMetricsInterceptor(registry);
+
+    private static final String DETAIL = OrderController.class.getName() + "#detail(Long)";
+    private static final String LIST = OrderController.class.getName() + "#list()";
+
+    static class OrderController {
+        public String detail(Long id) {
+            return "detail";
+        }
+
+        public String detail(String orderNo) {
+            return "detail";
+        }
+
+        public String list() {
+            return "list";
+        }
+    }
+
+    /**
+     * 与 OrderController 简单类名相同的另一个 Controller
+     */
+    static class Admin {
+        static class OrderController {
+            public String list() {
+                return "admin list";
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试按 HandlerMethod 归类 - 路径变量不产生新的统计项，记录状态码和正在处理的请求")
+    void testPerHandlerMethod() throws Exception {
+        HandlerMethod detail = handler("detail", Long.class);
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = request("/api/order/" + i, "/api/order/{id}");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertTrue(interceptor.preHandle(request, response, detail));
+            assertEquals(1, registry.getInFlight());
+            response.setStatus(i < 8 ? 200 : 404);
+            interceptor.afterCompletion(request, response, detail, null);
+        }
+        MockHttpServletRequest failed = request("/api/order/x", "/api/order/{id}");
+        MockHttpServletResponse failedResponse = new MockHttpServletResponse();
+        interceptor.preHandle(failed, failedResponse, detail);
+        interceptor.afterCompletion(failed, failedResponse, detail, new IllegalStateException("boom"));
+
+        // 静态资源等非 Controller 请求不统计
+        MockHttpServletRequest resource = request("/static/a.js", null);
+        interceptor.preHandle(resource, new MockHttpServletResponse(), new Object());
+        interceptor.afterCompletion(resource, new MockHttpServletResponse(), new Object(), null);
+
+        assertEquals(1, registry.size());
+        FmkEndpointSnapshot snapshot = registry.snapshots(0).get(0);
+        assertEquals(DETAIL, snapshot.getEndpoint());
+        assertEquals("/api/order/{id}", snapshot.getPattern());
+        assertEquals(11, snapshot.getCount());
+        assertEquals(0, snapshot.getInFlight());
+        assertEquals(8L, snapshot.getStatusCounts().get(200));
+        assertEquals(2L, snapshot.getStatusCounts().get(404));
+        assertEquals(1L, snapshot.getStatusCounts().get(500), "未处理的异常记为 500");
+        System.out.println("✅ 按 HandlerMethod 统计正确: " + snapshot.getStatusCounts());
+    }
+
+    @Test
+    @DisplayName("测试异步请求 - 再次 dispatch 时沿用第一次的开始时间，只记录一次")
+    void testAsyncDispatch() throws Exception {
+        HandlerMethod list = handler("list");
+        MockHttpServletRequest request = request("/api/order/list", "/api/order/list");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, list);
+        interceptor.afterConcurrentHandlingStarted(request, response, list);
+        Thread.sleep(20);
+        interceptor.preHandle(request, response, list);
+        interceptor.afterCompletion(request, response, list, null);
+
+        FmkEndpointSnapshot snapshot = registry.snapshots(0).get(0);
+        assertEquals(1, snapshot.getCount());
+        assertEquals(0, snapshot.getInFlight());
+        assertTrue(snapshot.getMaxMillis() >= 20, "耗时包含异步处理时间: " + snapshot.getMaxMillis());
+        System.out.println("✅ 异步请求统计正确");
+    }
+
+    @Test
+    @DisplayName("测试分位数精度 - 与排序后精确值相差不超过 1%")
+    void testPercentileAccuracy() {
+        FmkEndpointStats stats = new FmkEndpointStats("test", "/test", 60_000, 2);
+        int samples = 100_000;
+        long[] micros = new long[samples];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < samples; i++) {
+            // 长尾分布：大部分 1 ~ 20ms，1% 在 200 ~ 2000ms
+            micros[i] = random.nextInt(100) == 0 ? random.nextLong(200_000, 2_000_000) : random.nextLong(1_000, 20_000);
+            stats.requestStarted();
+            stats.requestFinished(micros[i] * 1000, 200);
+        }
+        Arrays.sort(micros);
+
+        FmkEndpointSnapshot snapshot = stats.snapshot();
+        assertEquals(samples, snapshot.getSampleCount());
+        assertClose(exactMillis(micros, 50), snapshot.getP50Millis());
+        assertClose(exactMillis(micros, 90), snapshot.getP90Millis());
+        assertClose(exactMillis(micros, 99), snapshot.getP99Millis());
+        assertClose(exactMillis(micros, 99.9), snapshot.getP999Millis());
+        assertClose(micros[samples - 1] / 1000.0, snapshot.getMaxMillis());
+
+        stats.requestStarted();
+        stats.requestFinished(Long.MAX_VALUE, 200);
+        assertEquals(60_000, stats.maxMillis(), 60_000 * 0.01, "超过上限的耗时按上限记录");
+
+        stats.resetLatency();
+        assertEquals(0, stats.snapshot().getSampleCount());
+        assertEquals(samples + 1, stats.getCount(), "请求数不受重置影响");
+        System.out.printf("✅ 分位数精度正确：p50=%.2fms p99=%.2fms p999=%.2fms%n",
+                snapshot.getP50Millis(), snapshot.getP99Millis(), snapshot.getP999Millis());
+    }
+
+    @Test
+    @DisplayName("测试并发 - 多线程记录的同时读取快照，不丢样本")
+    void testConcurrentRecordAndSnapshot() throws Exception {
+        FmkEndpointStats stats = registry.stats(handler("list"), "/api/order/list");
+        int threads = 4;
+        int perThread = 200_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    stats.requestStarted();
+                    stats.requestFinished(1_000_000 + i, i % 100 == 0 ? 503 : 200);
+                }
+                done.countDown();
+            }).start();
+        }
+        long lastSamples = 0;
+        while (done.getCount() > 0) {
+            long sampleCount = stats.snapshot().getSampleCount();
+            assertTrue(sampleCount >= lastSamples, "样本数单调递增");
+            lastSamples = sampleCount;
+        }
+
+        FmkEndpointSnapshot snapshot = stats.snapshot();
+        assertEquals((long) threads * perThread, snapshot.getCount());
+        assertEquals((long) threads * perThread, snapshot.getSampleCount());
+        assertEquals((long) threads * perThread / 100, snapshot.getStatusCounts().get(503));
+        assertEquals(0, snapshot.getInFlight());
+        System.out.println("✅ 并发记录不丢样本");
+    }
+
+    @Test
+    @DisplayName("测试 Micrometer - 绑定前后新增的接口都会注册指标")
+    void testMicrometer() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        call(handler("detail", Long.class), "/api/order/{id}", 200);
+        registry.bindTo(meterRegistry);
+        call(handler("list"), "/api/order/list", 503);
+
+        assertEquals(1, meterRegistry.get("fmk.endpoint.requests").tag("endpoint", DETAIL).functionCounter().count());
+        assertEquals(1, meterRegistry.get("fmk.endpoint.responses").tag("endpoint", LIST)
+                .tag("status", "5xx").functionCounter().count());
+        assertEquals(0, meterRegistry.get("fmk.endpoint.responses").tag("endpoint", LIST)
+                .tag("status", "2xx").functionCounter().count());
+        assertTrue(meterRegistry.get("fmk.endpoint.latency").tag("endpoint", LIST)
+                .tag("quantile", "0.99").gauge().value() >= 0);
+        assertEquals(0, meterRegistry.get("fmk.http.inflight").gauge().value());
+        System.out.println("✅ Micrometer 指标注册正确");
+    }
+
+    @Test
+    @DisplayName("测试接口名称 - 重载方法和不同包的同名类分别统计")
+    void testDistinctEndpointNames() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        registry.bindTo(meterRegistry);
+        call(handler("detail", Long.class), "/api/order/{id}", 200);
+        call(handler("detail", String.class), "/api/order/no/{orderNo}", 200);
+        call(handler("list"), "/api/order/list", 200);
+        call(new HandlerMethod(new Admin.OrderController(), Admin.OrderController.class.getMethod("list")),
+                "/admin/order/list", 200);
+
+        assertEquals(4, registry.size());
+        String adminList = Admin.OrderController.class.getName() + "#list()";
+        for (String endpoint : new String[]{DETAIL, OrderController.class.getName() + "#detail(String)", LIST, adminList}) {
+            assertEquals(1, meterRegistry.get("fmk.endpoint.requests").tag("endpoint", endpoint).functionCounter().count(),
+                    endpoint);
+        }
+        System.out.println("✅ 接口名称不冲突: " + adminList);
+    }
+
+    @Test
+    @DisplayName("性能测试 - 记录路径（preHandle + afterCompletion）的开销")
+    void testRecordingOverhead() throws Exception {
+        HandlerMethod detail = handler("detail", Long.class);
+        int iterations = 1_000_000;
+        // 预热
+        measure(detail, iterations);
+        long singleThreadNanos = measure(detail, iterations);
+
+        int threads = 4;
+        long[] nanos = new long[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicBoolean failed = new AtomicBoolean();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            new Thread(() -> {
+                try {
+                    nanos[index] = measure(detail, iterations);
+                } catch (Exception e) {
+                    failed.set(true);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertFalse(failed.get());
+        long multiThreadNanos = Arrays.stream(nanos).max().orElse(0);
+
+        System.out.printf("每次记录耗时：单线程 %d ns，%d 线程并发 %d ns%n", singleThreadNanos, threads, multiThreadNanos);
+        assertTrue(singleThreadNanos < 2_000, "单线程记录开销过大: " + singleThreadNanos);
+        assertTrue(multiThreadNanos < 5_000, "并发记录开销过大: " + multiThreadNanos);
+        assertEquals((long) iterations * (threads + 2), registry.snapshots(0).get(0).getCount());
+        System.out.println("✅ 记录路径开销可以忽略");
+    }
+
+    private long measure(HandlerMethod handler, int iterations) throws Exception {
+        MockHttpServletRequest request = request("/api/order/1", "/api/order/{id}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            interceptor.preHandle(request, response, handler);
+            interceptor.afterCompletion(request, response, handler, null);
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private void call(HandlerMethod handler, String pattern, int status) throws Exception {
+        MockHttpServletRequest request = request(pattern, pattern);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, handler);
+        response.setStatus(status);
+        interceptor.afterCompletion(request, response, handler, null);
+    }
+
+    private static HandlerMethod handler(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return new HandlerMethod(new OrderController(), OrderController.class.getMethod(name, parameterTypes));
+    }
+
+    private static MockHttpServletRequest request(String uri, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (pattern != null) {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        }
+        return request;
+    }
+
+    private static double exactMillis(long[] sortedMicros, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sortedMicros.length) - 1;
+        return sortedMicros[Math.max(0, index)] / 1000.0;
+    }
+
+    private static void assertClose(double expected, double actual) {
+        assertEquals(expected, actual, expected * 0.01 + 0.001, "expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,197 @@
+package com.cjlabs.web.requestinterceptor;
+
+import com.cjlabs.core.types.longs.FmkUserId;
+import com.cjlabs.core.types.strings.FmkTraceId;
+import com.cjlabs.web.anno.AdminAuth;
+import com.cjlabs.web.anno.NoLogin;
+import com.cjlabs.web.threadlocal.FmkContextInfo;
+import com.cjlabs.web.threadlocal.FmkContextUtil;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkAuthenticationInterceptor 测试类
+ */
+@DisplayName("FmkAuthenticationInterceptor 登录认证测试")
+class FmkAuthenticationInterceptorTest {
+
+    private final AtomicBoolean admin = new AtomicBoolean();
+    private final AtomicReference<FmkMaintenanceNotice> notice = new AtomicReference<>();
+    private FmkMaintenanceSnapshot snapshot;
+    private FmkAuthenticationInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = new FmkMaintenanceSnapshot(() -> Optional.ofNullable(notice.get()), 0);
+        snapshot.afterPropertiesSet();
+        interceptor = new FmkAuthenticationInterceptor(
+                List.of("/api/common/**", "/api/admin/login"),
+                List.of("/api/admin/**"),
+                admin::get,
+                snapshot);
+        FmkContextUtil.setContextInfo(FmkContextInfo.createBasic(FmkTraceId.generate(), "/"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshot.destroy();
+        FmkContextUtil.clear();
+    }
+
+    @Test
+    @DisplayName("测试路径规则 - 白名单、未登录、管理员路径")
+    void testPathRules() throws Exception {
+        assertTrue(preHandle("GET", "/api/common/dict", null).allowed);
+        assertTrue(preHandle("POST", "/api/admin/login", null).allowed, "白名单优先于管理员路径");
+        assertTrue(preHandle("OPTIONS", "/api/front/user", null).allowed);
+
+        Result notLogin = preHandle("GET", "/api/front/user", null);
+        assertFalse(notLogin.allowed);
+        assertEquals(401, notLogin.response.getStatus());
+        assertTrue(notLogin.response.getContentAsString().contains(FmkAuthenticationInterceptor.NOT_LOGIN));
+
+        login();
+        assertTrue(preHandle("GET", "/api/front/user", null).allowed);
+
+        Result forbidden = preHandle("GET", "/api/admin/user/list", null);
+        assertEquals(403, forbidden.response.getStatus());
+        assertTrue(forbidden.response.getContentAsString().contains(FmkAuthenticationInterceptor.NO_PERMISSION));
+
+        admin.set(true);
+        assertTrue(preHandle("GET", "/api/admin/user/list", null).allowed);
+        System.out.println("✅ 路径规则正确");
+    }
+
+    @Test
+    @DisplayName("测试路径解析 - ; 参数、百分号编码和 context path 不能绕过管理员路径")
+    void testPathNormalization() throws Exception {
+        login();
+        assertEquals(403, preHandle("GET", "/api/admin;jsessionid=1/user/list", null).response.getStatus());
+        assertEquals(403, preHandle("GET", "/api/admin/user;x=1/list", null).response.getStatus());
+        assertEquals(403, preHandle("GET", "/api/%61dmin/user/list", null).response.getStatus());
+        assertEquals(403, preHandle("GET", "/ctx", "/ctx/api/admin/user/list", null).response.getStatus());
+        assertEquals(403, preHandle("GET", "/ctx", "/ctx/api/%61dmin;x=1/user/list", null).response.getStatus());
+
+        FmkContextUtil.getContextInfo().orElseThrow().setUserId(null);
+        assertTrue(preHandle("GET", "/ctx", "/ctx/api/common/dict", null).allowed, "白名单按去掉 context path 的路径匹配");
+        assertTrue(preHandle("GET", "/api/%63ommon/dict", null).allowed);
+        assertTrue(preHandle("POST", "/api/admin/login;jsessionid=1", null).allowed);
+        assertEquals(401, preHandle("GET", "/ctx", "/ctx/api/front/user", null).response.getStatus());
+        System.out.println("✅ 路径解析后再匹配");
+    }
+
+    @Test
+    @DisplayName("测试注解 - 方法上的注解优先，每个方法只解析一次")
+    void testAnnotations() throws Exception {
+        HandlerMethod open = handler(AdminController.class, "open");
+        HandlerMethod list = handler(AdminController.class, "list");
+        HandlerMethod publicData = handler(PublicController.class, "data");
+
+        assertTrue(preHandle("GET", "/api/front/open", open).allowed, "方法上的 @NoLogin 优先于类上的 @AdminAuth");
+        assertTrue(preHandle("GET", "/api/admin/data", publicData).allowed, "@NoLogin 跳过管理员路径");
+        assertEquals(401, preHandle("GET", "/api/front/list", list).response.getStatus());
+
+        login();
+        assertEquals(403, preHandle("GET", "/api/front/list", list).response.getStatus(), "类上的 @AdminAuth");
+        admin.set(true);
+        assertTrue(preHandle("GET", "/api/front/list", list).allowed);
+
+        for (int i = 0; i < 100; i++) {
+            preHandle("GET", "/api/front/list", handler(AdminController.class, "list"));
+        }
+        assertEquals(3, interceptor.policyCacheSize());
+        System.out.println("✅ 注解规则正确");
+    }
+
+    @Test
+    @DisplayName("测试维护公告 - 维护中返回 503，刷新失败保留上一次的快照")
+    void testMaintenance() throws Exception {
+        login();
+        notice.set(new FmkMaintenanceNotice(true, "系统维护中", "Under maintenance"));
+        assertTrue(snapshot.refresh());
+
+        Result result = preHandle("GET", "/api/common/dict", null);
+        assertFalse(result.allowed);
+        assertEquals(503, result.response.getStatus());
+        assertTrue(result.response.getContentAsString().contains("Under maintenance"));
+        assertTrue(preHandle("OPTIONS", "/api/common/dict", null).allowed);
+
+        FmkMaintenanceSnapshot failing = new FmkMaintenanceSnapshot(() -> {
+            throw new IllegalStateException("dict unavailable");
+        }, 0);
+        assertFalse(failing.refresh());
+        assertTrue(failing.getActiveNotice().isEmpty());
+
+        notice.set(new FmkMaintenanceNotice(false, null, null));
+        snapshot.refresh();
+        assertTrue(preHandle("GET", "/api/common/dict", null).allowed);
+        System.out.println("✅ 维护公告正确");
+    }
+
+    @Test
+    @DisplayName("测试没有管理员检查 - 管理员路径一律拒绝")
+    void testNoAdminService() throws Exception {
+        interceptor = new FmkAuthenticationInterceptor(null, List.of("/api/admin/**"), null, null);
+        login();
+        assertEquals(403, preHandle("GET", "/api/admin/x", null).response.getStatus());
+        assertTrue(preHandle("GET", "/api/front/x", null).allowed);
+        System.out.println("✅ 没有管理员检查时拒绝");
+    }
+
+    private void login() {
+        FmkContextUtil.getContextInfo().orElseThrow().setUserId(FmkUserId.of(1));
+    }
+
+    private Result preHandle(String method, String uri, Object handler) throws Exception {
+        return preHandle(method, "", uri, handler);
+    }
+
+    private Result preHandle(String method, String contextPath, String uri, Object handler) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setContextPath(contextPath);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean allowed = interceptor.preHandle(request, response, handler);
+        return new Result(allowed, response);
+    }
+
+    private static HandlerMethod handler(Class<?> type, String methodName) throws Exception {
+        return new HandlerMethod(type.getDeclaredConstructor().newInstance(), type.getMethod(methodName));
+    }
+
+    private record Result(boolean allowed, MockHttpServletResponse response) {
+    }
+
+    @AdminAuth
+    public static class AdminController {
+
+        @NoLogin
+        public String open() {
+            return "open";
+        }
+
+        public String list() {
+            return "list";
+        }
+    }
+
+    @NoLogin
+    public static class PublicController {
+
+        public String data() {
+            return "data";
+        }
+    }
+}
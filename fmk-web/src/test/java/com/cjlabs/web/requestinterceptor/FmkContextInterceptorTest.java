@@ -0,0 +1,273 @@
+package com.cjlabs.web.requestinterceptor;
+
+import com.alibaba.ttl.TtlRunnable;
+import com.cjlabs.core.types.longs.FmkUserId;
+import com.cjlabs.core.types.strings.FmkToken;
+import com.cjlabs.core.types.strings.FmkTraceId;
+import com.cjlabs.domain.enums.FmkLanguageEnum;
+import com.cjlabs.web.threadlocal.FmkClientInfo;
+import com.cjlabs.web.threadlocal.FmkContextInfo;
+import com.cjlabs.web.threadlocal.FmkContextUtil;
+import com.cjlabs.web.threadlocal.FmkUserInfo;
+import com.cjlabs.web.token.FmkTokenProperties;
+import com.cjlabs.web.token.FmkTokenServiceMemoryImpl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.cjlabs.domain.common.FmkConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkContextInterceptor 测试类
+ */
+@DisplayName("FmkContextInterceptor 按需加载上下文测试")
+class FmkContextInterceptorTest {
+
+    private CountingTokenService tokenService;
+    private FmkContextInterceptor interceptor;
+    private FmkToken token;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = new CountingTokenService();
+        tokenService.setTokenProperties(new FmkTokenProperties());
+        token = tokenService.createAndSaveToken(new FmkUserInfo(FmkUserId.of(42), "张三"), null);
+        interceptor = new FmkContextInterceptor();
+        interceptor.setFmkTokenService(tokenService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        FmkContextUtil.clear();
+    }
+
+    @Test
+    @DisplayName("测试按需加载 - 读取前不校验 Token、不解析客户端信息")
+    void testLazy() {
+        MockHttpServletRequest request = newRequest();
+        FmkContextInfo contextInfo = startRequest(request);
+
+        assertEquals(0, tokenService.lookups.get(), "preHandle 不校验 Token");
+        assertEquals("/api/demo", contextInfo.getRequestUri());
+        assertEquals("Mozilla/5.0 test", contextInfo.getHeader(HEADER_USER_AGENT), "单个请求头直接读取");
+
+        assertEquals(FmkUserId.of(42), FmkContextUtil.getUserId().orElseThrow());
+        assertEquals(FmkUserId.of(42), contextInfo.getUserId());
+        assertTrue(contextInfo.hasUserInfo());
+        assertEquals(1, tokenService.lookups.get(), "只校验一次");
+
+        assertEquals(FmkLanguageEnum.ZH_CN, FmkContextUtil.getCurrentLanguage());
+        FmkClientInfo clientInfo = contextInfo.getFmkClientInfo();
+        assertEquals("203.0.113.7", clientInfo.getIpAddress());
+        assertSame(clientInfo, contextInfo.getFmkClientInfo());
+        assertEquals(request.getHeader("X-Custom-1"), contextInfo.getHeaders().get("X-Custom-1"));
+        System.out.println("✅ 上下文按需加载");
+    }
+
+    @Test
+    @DisplayName("测试设置优先 - setter 设置的值不再加载")
+    void testSetterWins() {
+        FmkContextInfo contextInfo = startRequest(newRequest());
+        contextInfo.setUserId(FmkUserId.of(7));
+        contextInfo.setLanguage(FmkLanguageEnum.EN_US);
+
+        assertEquals(FmkUserId.of(7), contextInfo.getUserId());
+        assertEquals(FmkLanguageEnum.EN_US, contextInfo.getLanguage());
+        assertEquals(0, tokenService.lookups.get());
+        System.out.println("✅ setter 优先");
+    }
+
+    @Test
+    @DisplayName("测试请求结束 - 解除加载后未加载的字段使用默认值")
+    void testDetachAfterCompletion() {
+        MockHttpServletRequest request = newRequest();
+        FmkContextInfo contextInfo = startRequest(request);
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+
+        assertNull(contextInfo.getUserInfo());
+        assertEquals(FmkLanguageEnum.EN_US, contextInfo.getLanguage());
+        assertNull(contextInfo.getHeader(HEADER_USER_AGENT));
+        assertNotNull(contextInfo.getFmkClientInfo());
+        assertEquals(0, tokenService.lookups.get());
+        System.out.println("✅ 请求结束后不再读取请求");
+    }
+
+    @Test
+    @DisplayName("测试异步传递 - 提交任务时只复制已加载的字段，用户信息在异步线程按需加载")
+    void testSnapshotOnCapture() throws InterruptedException {
+        MockHttpServletRequest request = newRequest();
+        FmkContextInfo contextInfo = startRequest(request);
+        contextInfo.getFmkClientInfo();
+        contextInfo.getHeaders();
+        contextInfo.setAttribute("k", "v");
+
+        AtomicReference<FmkContextInfo> seen = new AtomicReference<>();
+        AtomicReference<FmkUserId> seenUserId = new AtomicReference<>();
+        Runnable task = TtlRunnable.get(() -> {
+            FmkContextInfo current = FmkContextUtil.getContextInfo().orElse(null);
+            seen.set(current);
+            seenUserId.set(current.getUserId());
+        });
+        assertEquals(0, tokenService.lookups.get(), "捕获时不校验 Token");
+
+        // 请求结束、请求对象被复用之后才执行
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+        request.removeHeader(HEADER_USER_TOKEN);
+        contextInfo.setAttribute("k", "changed");
+
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+
+        FmkContextInfo snapshot = seen.get();
+        assertNotSame(contextInfo, snapshot);
+        assertEquals(FmkUserId.of(42), seenUserId.get(), "异步线程按捕获时的 Token 加载");
+        assertEquals(1, tokenService.lookups.get());
+        assertEquals(FmkLanguageEnum.ZH_CN, snapshot.getLanguage());
+        assertEquals("203.0.113.7", snapshot.getFmkClientInfo().getIpAddress());
+        assertEquals("Mozilla/5.0 test", snapshot.getHeader(HEADER_USER_AGENT));
+        assertEquals("v", snapshot.getAttribute("k"), "自定义属性是捕获时的副本");
+        assertEquals(contextInfo.getTraceId(), snapshot.getTraceId());
+        System.out.println("✅ 异步线程拿到上下文快照");
+    }
+
+    @Test
+    @DisplayName("测试异步传递 - 未加载的客户端信息和请求头不复制，null 值不影响复制")
+    void testSnapshotSkipsUnresolved() {
+        FmkContextInfo contextInfo = startRequest(newRequest());
+        contextInfo.setUserId(FmkUserId.of(7));
+
+        FmkContextInfo snapshot = contextInfo.snapshot();
+        assertEquals(FmkUserId.of(7), snapshot.getUserId());
+        assertNull(snapshot.getHeader(HEADER_USER_AGENT), "副本不读取请求");
+        assertNull(snapshot.getFmkClientInfo().getIpAddress());
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-Null", null);
+        headers.put("X-Value", "1");
+        contextInfo.setHeaders(headers);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("k", null);
+        contextInfo.setAttributes(attributes);
+        snapshot = contextInfo.snapshot();
+        assertEquals(Map.of("X-Value", "1"), snapshot.getHeaders());
+        assertTrue(snapshot.getAttributes().isEmpty());
+        assertEquals(0, tokenService.lookups.get());
+        System.out.println("✅ 快照只复制已加载的字段");
+    }
+
+    @Test
+    @DisplayName("测试活跃时间 - 接口不读取用户时也记录 Token 活跃时间")
+    void testTouchWithoutUser() {
+        startRequest(newRequest());
+        assertEquals(1, tokenService.touches.get());
+        assertEquals(0, tokenService.lookups.get(), "记录活跃时间不校验 Token");
+
+        MockHttpServletRequest anonymous = new MockHttpServletRequest("GET", "/api/demo");
+        startRequest(anonymous);
+        assertEquals(1, tokenService.touches.get(), "没有 Token 不记录");
+        System.out.println("✅ 活跃时间与是否读取用户无关");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 每个请求分配的字节数（全部解析 vs 按需加载）")
+    void testAllocationPerRequest() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        MockHttpServletRequest request = newRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        int requests = 20_000;
+
+        // 预热
+        for (int i = 0; i < requests; i++) {
+            runRequest(request, response, true);
+            runRequest(request, response, false);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < requests; i++) {
+            runRequest(request, response, true);
+        }
+        long eagerBytes = (threadMXBean.getThreadAllocatedBytes(threadId) - before) / requests;
+
+        before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < requests; i++) {
+            runRequest(request, response, false);
+        }
+        long lazyBytes = (threadMXBean.getThreadAllocatedBytes(threadId) - before) / requests;
+
+        assertTrue(lazyBytes < eagerBytes, "按需加载分配更少");
+        System.out.printf("每个请求分配：全部解析 %d 字节，按需加载（只读 traceId）%d 字节%n", eagerBytes, lazyBytes);
+        System.out.println("✅ 上下文分配对比完成");
+    }
+
+    /**
+     * 模拟一个请求：TraceFilter 创建上下文，拦截器设置按需加载；eager 时读取全部字段（原来的行为）
+     */
+    private void runRequest(MockHttpServletRequest request, MockHttpServletResponse response, boolean eager) {
+        FmkContextInfo contextInfo = FmkContextInfo.createBasic(FmkTraceId.generate(), request.getRequestURI());
+        FmkContextUtil.setContextInfo(contextInfo);
+        interceptor.preHandle(request, response, null);
+        if (eager) {
+            contextInfo.resolveAll();
+        }
+        assertNotNull(FmkContextUtil.getTraceIdString(null));
+        interceptor.afterCompletion(request, response, null, null);
+        FmkContextUtil.clear();
+    }
+
+    private FmkContextInfo startRequest(MockHttpServletRequest request) {
+        FmkContextInfo contextInfo = FmkContextInfo.createBasic(FmkTraceId.generate(), request.getRequestURI());
+        FmkContextUtil.setContextInfo(contextInfo);
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+        return contextInfo;
+    }
+
+    private MockHttpServletRequest newRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/demo");
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("X-Forwarded-For", "203.0.113.7");
+        request.addHeader(HEADER_USER_TOKEN, token.getValue());
+        request.addHeader(HEADER_USER_AGENT, "Mozilla/5.0 test");
+        request.addHeader(HEADER_DEVICE_LANGUAGE, "ZH_CN");
+        request.addHeader(HEADER_REFERER, "https://example.com/");
+        for (int i = 0; i < 12; i++) {
+            request.addHeader("X-Custom-" + i, "value-" + i);
+        }
+        return request;
+    }
+
+    /**
+     * 记录 Token 校验次数
+     */
+    private static class CountingTokenService extends FmkTokenServiceMemoryImpl {
+
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        private final AtomicInteger touches = new AtomicInteger();
+
+        @Override
+        public void touchToken(FmkToken token) {
+            touches.incrementAndGet();
+            super.touchToken(token);
+        }
+
+        @Override
+        public Optional<FmkUserInfo> getUserInfoByToken(FmkToken token) {
+            lookups.incrementAndGet();
+            return super.getUserInfoByToken(token);
+        }
+    }
+}
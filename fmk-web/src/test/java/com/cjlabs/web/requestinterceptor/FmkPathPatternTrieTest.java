@@ -0,0 +1,178 @@
+package com.cjlabs.web.requestinterceptor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkPathPatternTrie 测试类
+ */
+@DisplayName("FmkPathPatternTrie 路径模式前缀树测试")
+class FmkPathPatternTrieTest {
+
+    private static final String[] PATTERN_SEGMENTS = {
+            "api", "admin", "user", "v1", "*", "**", "{id}", "a*", "*.ico", "u?er", "{id:[0-9]+}"
+    };
+
+    private static final String[] PATH_SEGMENTS = {
+            "api", "admin", "user", "v1", "v2", "a", "abc", "favicon.ico", ".ico", "uxer", "123", "x"
+    };
+
+    @Test
+    @DisplayName("测试基本匹配 - 文本、*、**、变量、通配符")
+    void testBasicMatch() {
+        FmkPathPatternTrie trie = new FmkPathPatternTrie();
+        trie.add("/api/common/**", 1);
+        trie.add("/api/admin/**", 2);
+        trie.add("/api/user/{id}", 4);
+        trie.add("/favicon.ico", 8);
+        trie.add("/static/*.js", 16);
+        trie.add("/api/order/{id:[0-9]+}/detail", 32);
+
+        assertEquals(1, trie.match("/api/common"), "** 匹配零个分段");
+        assertEquals(1, trie.match("/api/common/dict/list"));
+        assertEquals(2, trie.match("/api/admin/user/list"));
+        assertEquals(4, trie.match("/api/user/42"));
+        assertEquals(0, trie.match("/api/user/42/detail"));
+        assertEquals(8, trie.match("/favicon.ico"));
+        assertEquals(16, trie.match("/static/app.js"));
+        assertEquals(0, trie.match("/static/app.css"));
+        assertEquals(32, trie.match("/api/order/123/detail"));
+        assertEquals(0, trie.match("/api/order/abc/detail"));
+        assertEquals(0, trie.match("/api/Common/x"), "区分大小写");
+        assertEquals(0, trie.match("/other"));
+        assertEquals(0, trie.match(null));
+        assertEquals(6, trie.size());
+        System.out.println("✅ 基本匹配正确");
+    }
+
+    @Test
+    @DisplayName("测试标记合并 - 多个模式同时匹配时按位或")
+    void testFlagsCombined() {
+        FmkPathPatternTrie trie = new FmkPathPatternTrie();
+        trie.add("/api/admin/**", 2);
+        trie.add("/api/admin/login", 1);
+        trie.add("/api/**", 4);
+
+        assertEquals(7, trie.match("/api/admin/login"));
+        assertEquals(6, trie.match("/api/admin/user"));
+        assertEquals(4, trie.match("/api/front"));
+        System.out.println("✅ 标记合并正确");
+    }
+
+    @Test
+    @DisplayName("测试斜杠 - 连续的 / 和结尾的 / 忽略")
+    void testSlashes() {
+        FmkPathPatternTrie trie = new FmkPathPatternTrie();
+        trie.add("/api/user/list", 1);
+
+        assertEquals(1, trie.match("/api/user/list/"));
+        assertEquals(1, trie.match("//api//user/list"));
+        assertEquals(1, trie.match("api/user/list"));
+        assertThrows(RuntimeException.class, () -> trie.add(" ", 1));
+        assertThrows(RuntimeException.class, () -> trie.add("/a", 0));
+        System.out.println("✅ 斜杠处理正确");
+    }
+
+    @Test
+    @DisplayName("测试一致性 - 随机模式和路径与 AntPathMatcher 结果一致")
+    void testParityWithAntPathMatcher() {
+        AntPathMatcher antPathMatcher = new AntPathMatcher();
+        Random random = new Random(20240517L);
+        int compared = 0;
+        for (int round = 0; round < 300; round++) {
+            List<String> patterns = new ArrayList<>();
+            FmkPathPatternTrie trie = new FmkPathPatternTrie();
+            int patternCount = 1 + random.nextInt(30);
+            for (int i = 0; i < patternCount; i++) {
+                String pattern = randomPath(random, PATTERN_SEGMENTS, 4);
+                patterns.add(pattern);
+                trie.add(pattern, 1 << i);
+            }
+            for (int j = 0; j < 200; j++) {
+                String path = randomPath(random, PATH_SEGMENTS, 5);
+                int expected = 0;
+                for (int i = 0; i < patterns.size(); i++) {
+                    if (antPathMatcher.match(patterns.get(i), path)) {
+                        expected |= 1 << i;
+                    }
+                }
+                assertEquals(expected, trie.match(path), () -> "path=" + path + ", patterns=" + patterns);
+                compared++;
+            }
+        }
+        System.out.println("✅ 与 AntPathMatcher 一致，比较 " + compared + " 个路径");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 模式数量增加时前缀树耗时基本不变")
+    void testPerformance() {
+        AntPathMatcher antPathMatcher = new AntPathMatcher();
+        String[] paths = {"/api/module7/item/42", "/api/module3/list", "/api/unknown/x", "/favicon.ico"};
+        long trieFirst = 0;
+        for (int patternCount : new int[]{10, 100, 500, 1000}) {
+            List<String> patterns = routePatterns(patternCount);
+            FmkPathPatternTrie trie = new FmkPathPatternTrie();
+            patterns.forEach(pattern -> trie.add(pattern, 1));
+
+            int iterations = 200_000;
+            long sink = 0;
+            // 预热
+            for (int i = 0; i < iterations; i++) {
+                sink += trie.match(paths[i & 3]);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += trie.match(paths[i & 3]);
+            }
+            long trieNanos = (System.nanoTime() - start) / iterations;
+
+            int antIterations = Math.max(200, 200_000 / patternCount);
+            start = System.nanoTime();
+            for (int i = 0; i < antIterations; i++) {
+                String path = paths[i & 3];
+                sink += patterns.stream().anyMatch(pattern -> antPathMatcher.match(pattern, path)) ? 1 : 0;
+            }
+            long antNanos = (System.nanoTime() - start) / antIterations;
+
+            if (patternCount == 10) {
+                trieFirst = Math.max(1, trieNanos);
+            }
+            assertTrue(sink > 0);
+            System.out.printf("模式数量 %d：前缀树 %d ns/次，AntPathMatcher %d ns/次%n", patternCount, trieNanos, antNanos);
+            if (patternCount == 1000) {
+                assertTrue(trieNanos < antNanos, "1000 个模式时前缀树更快");
+                assertTrue(trieNanos < trieFirst * 20, "耗时与模式数量无关");
+            }
+        }
+        System.out.println("✅ 路径匹配性能对比完成");
+    }
+
+    private static List<String> routePatterns(int count) {
+        List<String> patterns = new ArrayList<>();
+        patterns.add("/favicon.ico");
+        for (int i = 0; patterns.size() < count; i++) {
+            switch (i % 3) {
+                case 0 -> patterns.add("/api/module" + i / 3 + "/**");
+                case 1 -> patterns.add("/api/module" + i / 3 + "/item/{id}");
+                default -> patterns.add("/api/module" + i / 3 + "/*.json");
+            }
+        }
+        return patterns;
+    }
+
+    private static String randomPath(Random random, String[] segments, int maxSegments) {
+        int count = 1 + random.nextInt(maxSegments);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append('/').append(segments[random.nextInt(segments.length)]);
+        }
+        return sb.toString();
+    }
+}
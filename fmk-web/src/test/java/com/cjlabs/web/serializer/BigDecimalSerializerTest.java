@@ -0,0 +1,182 @@
+package com.cjlabs.web.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import lombok.Getter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BigDecimalSerializer 测试类
+ * <p>
+ * 用固定种子的随机值做属性测试：任意 BigDecimal 的输出与原实现 setScale(18) + stripTrailingZeros + toPlainString 逐字节相同
+ */
+@DisplayName("BigDecimalSerializer 金额序列化测试")
+class BigDecimalSerializerTest {
+
+    /**
+     * 10 的 0 ~ 18 次方
+     */
+    private static final long[] POWERS = new long[19];
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) {
+            POWERS[i] = POWERS[i - 1] * 10;
+        }
+    }
+
+    private final ObjectMapper mapper = mapper(new BigDecimalSerializer());
+
+    private final ObjectMapper legacyMapper = mapper(new LegacyBigDecimalSerializer());
+
+    @Test
+    @DisplayName("测试边界值 - 0、小整数、18 位有效数字和 18 位小数附近、负小数位数、需要四舍五入的值")
+    void testEdgeCases() throws Exception {
+        String[] values = {
+                "0", "0.00", "0E-30", "0E+5", "-0.000", "1", "1.0", "1.000000000000000000", "-1", "-1.50",
+                "1023", "1024", "-1023", "100", "100.00", "1E+2", "1E+3", "-1.2E+5", "12345678901234567E+10",
+                "0.1", "0.01", "-0.05", "10.10", "123.4500", "999999999999999999", "-999999999999999999",
+                "0.999999999999999999", "9.99999999999999999", "1000000000000000000", "99999999999999999.9",
+                "0.0000000000000000005", "0.0000000000000000004", "-0.0000000000000000005", "0.9999999999999999995",
+                "1.23456789012345678901234567890", "-98765.4321098765432109876", "123456789012345678901234567890.12",
+                "9223372036854775807", "-9223372036854775808", "0.000000000000000001", "-0.000000000000000001",
+        };
+        for (String value : values) {
+            assertSame(new BigDecimal(value));
+        }
+        assertEquals("\"1.5\"", mapper.writeValueAsString(new BigDecimal("1.50")));
+        assertEquals("\"0\"", mapper.writeValueAsString(new BigDecimal("0.0000000000000000004")));
+        assertEquals("\"1000\"", mapper.writeValueAsString(new BigDecimal("1E+3")), "不使用科学计数法");
+        System.out.println("✅ 边界值与原实现相同");
+    }
+
+    @Test
+    @DisplayName("属性测试 - 随机 BigDecimal 的输出与原实现逐字节相同")
+    void testRandomValues() throws Exception {
+        Random random = new Random(20251018L);
+        int checked = 0;
+        for (int i = 0; i < 100_000; i++) {
+            // 常见金额：不超过 19 位有效数字，小数位数在 18 附近上下浮动
+            long unscaled = random.nextLong() / POWERS[random.nextInt(POWERS.length)];
+            if (random.nextInt(4) == 0) {
+                unscaled *= POWERS[random.nextInt(6)];
+            }
+            assertSame(BigDecimal.valueOf(unscaled, random.nextInt(26) - 3));
+            checked++;
+        }
+        for (int i = 0; i < 50_000; i++) {
+            // 任意大小：超过 long 的有效数字、负小数位数、大量小数位
+            BigInteger unscaled = new BigInteger(1 + random.nextInt(160), random);
+            if (random.nextBoolean()) {
+                unscaled = unscaled.negate();
+            }
+            assertSame(new BigDecimal(unscaled, random.nextInt(90) - 30));
+            checked++;
+        }
+        for (int i = 0; i < 20_000; i++) {
+            // 四舍五入的临界值：第 19 位小数是 5
+            long unscaled = random.nextLong() / POWERS[random.nextInt(POWERS.length)];
+            assertSame(BigDecimal.valueOf(unscaled).movePointLeft(18).add(new BigDecimal("5E-19").multiply(
+                    BigDecimal.valueOf(random.nextBoolean() ? 1 : -1))));
+            checked++;
+        }
+        System.out.println("✅ " + checked + " 个随机值与原实现相同");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 金额较多的响应体序列化")
+    void testAmountHeavyPayload() throws Exception {
+        Random random = new Random(42);
+        List<OrderLine> payload = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            payload.add(new OrderLine(random));
+        }
+        assertEquals(legacyMapper.writeValueAsString(payload), mapper.writeValueAsString(payload), "整个响应体逐字节相同");
+
+        // 预热后各跑 5 次取最好成绩
+        for (int i = 0; i < 20; i++) {
+            legacyMapper.writeValueAsBytes(payload);
+            mapper.writeValueAsBytes(payload);
+        }
+        long legacyNanos = Long.MAX_VALUE;
+        long fastNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            legacyNanos = Math.min(legacyNanos, measure(legacyMapper, payload));
+            fastNanos = Math.min(fastNanos, measure(mapper, payload));
+        }
+        System.out.printf("%d 行订单（每行 5 个金额）序列化 10 次：原实现 %.1fms，新实现 %.1fms%n",
+                payload.size(), legacyNanos / 1e6, fastNanos / 1e6);
+        assertTrue(fastNanos < legacyNanos, "不再每个金额做 setScale(18) 和 stripTrailingZeros");
+        System.out.println("✅ 金额序列化耗时降低");
+    }
+
+    private static long measure(ObjectMapper target, List<OrderLine> payload) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            target.writeValueAsBytes(payload);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void assertSame(BigDecimal value) throws Exception {
+        String expected = legacyMapper.writeValueAsString(value);
+        String actual = mapper.writeValueAsString(value);
+        assertEquals(expected, actual, () -> "value=" + value + ", unscaled=" + value.unscaledValue() + ", scale=" + value.scale());
+    }
+
+    private static ObjectMapper mapper(JsonSerializer<BigDecimal> serializer) {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(BigDecimal.class, serializer);
+        return new ObjectMapper().registerModule(module);
+    }
+
+    /**
+     * 原实现
+     */
+    static class LegacyBigDecimalSerializer extends JsonSerializer<BigDecimal> {
+        @Override
+        public void serialize(BigDecimal value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            if (value == null) {
+                gen.writeNull();
+            } else {
+                gen.writeString(value.setScale(18, RoundingMode.HALF_UP).stripTrailingZeros().toPlainString());
+            }
+        }
+    }
+
+    /**
+     * 典型的订单明细：单价、数量、折扣、税额、合计
+     */
+    @Getter
+    static class OrderLine {
+        private final long id;
+        private final BigDecimal price;
+        private final BigDecimal quantity;
+        private final BigDecimal discount;
+        private final BigDecimal tax;
+        private final BigDecimal total;
+
+        OrderLine(Random random) {
+            this.id = random.nextLong();
+            this.price = BigDecimal.valueOf(random.nextInt(1_000_000), 2);
+            this.quantity = BigDecimal.valueOf(1 + random.nextInt(20));
+            this.discount = random.nextInt(3) == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(random.nextInt(5000), 4);
+            this.tax = price.multiply(new BigDecimal("0.13")).setScale(6, RoundingMode.HALF_UP);
+            this.total = price.multiply(quantity).subtract(discount).add(tax).setScale(8, RoundingMode.HALF_UP);
+        }
+    }
+}
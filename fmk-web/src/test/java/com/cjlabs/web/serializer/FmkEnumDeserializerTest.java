@@ -0,0 +1,91 @@
+package com.cjlabs.web.serializer;
+
+import com.cjlabs.domain.enums.FmkLanguageEnum;
+import com.cjlabs.domain.enums.FmkTimezoneEnum;
+import com.cjlabs.domain.enums.IEnumInt;
+import com.cjlabs.web.json.FmkJacksonUtil;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkEnumDeserializer 测试类
+ */
+@DisplayName("FmkEnumDeserializer 枚举反序列化测试")
+class FmkEnumDeserializerTest {
+
+    private final ObjectMapper mapper = FmkJacksonUtil.createDefaultMapper();
+
+    @Getter
+    @AllArgsConstructor
+    enum StatusEnum implements IEnumInt {
+        ENABLED(1, "启用"),
+        DISABLED(2, "禁用"),
+        ;
+
+        private final int code;
+        private final String msg;
+    }
+
+    @Getter
+    @Setter
+    static class Holder {
+        private FmkLanguageEnum language;
+        private FmkTimezoneEnum timezone;
+        private StatusEnum status;
+    }
+
+    @Test
+    @DisplayName("测试字符串 - 同时接受 name 和 code")
+    void testStringValues() throws Exception {
+        Holder byName = mapper.readValue("{\"language\":\"ZH_CN\",\"timezone\":\"ASIA_SHANGHAI\",\"status\":\"DISABLED\"}", Holder.class);
+        assertEquals(FmkLanguageEnum.ZH_CN, byName.getLanguage());
+        assertEquals(FmkTimezoneEnum.ASIA_SHANGHAI, byName.getTimezone());
+        assertEquals(StatusEnum.DISABLED, byName.getStatus());
+
+        Holder byCode = mapper.readValue("{\"language\":\"zh_cn\",\"timezone\":\"Asia/Shanghai\",\"status\":\"1\"}", Holder.class);
+        assertEquals(FmkLanguageEnum.ZH_CN, byCode.getLanguage());
+        assertEquals(FmkTimezoneEnum.ASIA_SHANGHAI, byCode.getTimezone());
+        assertEquals(StatusEnum.ENABLED, byCode.getStatus());
+
+        Holder empty = mapper.readValue("{\"language\":\"\",\"timezone\":null}", Holder.class);
+        assertNull(empty.getLanguage());
+        assertNull(empty.getTimezone());
+        System.out.println("✅ name 和 code 都能反序列化");
+    }
+
+    @Test
+    @DisplayName("测试数字 - IEnumInt 按 code，未知值报错或转为 null")
+    void testNumbersAndUnknown() throws Exception {
+        assertEquals(StatusEnum.DISABLED, mapper.readValue("{\"status\":2}", Holder.class).getStatus());
+        assertEquals(List.of(StatusEnum.ENABLED, StatusEnum.DISABLED),
+                mapper.readValue("[1,\"DISABLED\"]", mapper.getTypeFactory().constructCollectionType(List.class, StatusEnum.class)));
+
+        // 默认配置未知值读取为 null
+        assertNull(mapper.readValue("{\"status\":3}", Holder.class).getStatus());
+        assertNull(mapper.readValue("{\"language\":\"xx_YY\"}", Holder.class).getLanguage());
+
+        ObjectMapper strict = FmkJacksonUtil.createDefaultMapper()
+                .disable(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL);
+        assertThrows(InvalidFormatException.class, () -> strict.readValue("{\"status\":3}", Holder.class));
+        assertThrows(InvalidFormatException.class, () -> strict.readValue("{\"language\":\"xx_YY\"}", Holder.class));
+        System.out.println("✅ 数字和未知值处理正确");
+    }
+
+    @Test
+    @DisplayName("测试序列化 - 仍然输出 name")
+    void testSerializeUnchanged() throws Exception {
+        assertEquals("\"ASIA_SHANGHAI\"", mapper.writeValueAsString(FmkTimezoneEnum.ASIA_SHANGHAI));
+        assertEquals("\"ENABLED\"", mapper.writeValueAsString(StatusEnum.ENABLED));
+        System.out.println("✅ 序列化不变");
+    }
+}
@@ -0,0 +1,143 @@
+package com.cjlabs.web.thread;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkPriorityTaskQueue 测试类
+ */
+@DisplayName("FmkPriorityTaskQueue 优先级队列测试")
+class FmkPriorityTaskQueueTest {
+
+    @Test
+    @DisplayName("测试优先级 - 先取高优先级，连续 starvationGuard 个后让低优先级取一次")
+    void testPriorityAndStarvationGuard() {
+        FmkPriorityTaskQueue queue = new FmkPriorityTaskQueue(100, 3, Map.of(), 1);
+        for (int i = 0; i < 3; i++) {
+            queue.offer(task("low" + i, FmkTaskPriority.LOW, "t"));
+        }
+        for (int i = 0; i < 7; i++) {
+            queue.offer(task("high" + i, FmkTaskPriority.HIGH, "t"));
+        }
+        queue.offer(() -> { });
+
+        assertEquals(7, queue.size(FmkTaskPriority.HIGH));
+        assertEquals(1, queue.size(FmkTaskPriority.NORMAL), "没有携带优先级的任务按 NORMAL 处理");
+        List<String> order = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            Runnable task = queue.poll();
+            order.add(task instanceof NamedTask named ? named.name : "plain");
+        }
+        assertEquals(List.of("high0", "high1", "high2", "plain", "high3", "high4", "high5", "low0", "high6",
+                "low1", "low2"), order);
+        System.out.println("✅ 优先级顺序正确，低优先级不会饿死: " + order);
+    }
+
+    @Test
+    @DisplayName("测试三条通道都积压 - 让出的机会在 NORMAL 和 LOW 之间轮流，LOW 不会饿死")
+    void testAllLanesSaturated() {
+        FmkPriorityTaskQueue queue = new FmkPriorityTaskQueue(1000, 3, Map.of(), 1);
+        for (int i = 0; i < 100; i++) {
+            queue.offer(task("high" + i, FmkTaskPriority.HIGH, "t"));
+            queue.offer(task("normal" + i, FmkTaskPriority.NORMAL, "t"));
+            queue.offer(task("low" + i, FmkTaskPriority.LOW, "t"));
+        }
+
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            // 生产者持续补充 HIGH 和 NORMAL，两条通道一直有任务
+            NamedTask task = (NamedTask) queue.poll();
+            order.add(task.name);
+            if (task.priority != FmkTaskPriority.LOW) {
+                queue.offer(task(task.name + "'", task.priority, "t"));
+            }
+        }
+
+        assertEquals(List.of("high0", "high1", "high2", "normal0", "high3", "high4", "high5", "low0"), order.subList(0, 8));
+        long low = order.stream().filter(name -> name.startsWith("low")).count();
+        long normal = order.stream().filter(name -> name.startsWith("normal")).count();
+        assertEquals(10, low, "每 8 个里 LOW 取到 1 个");
+        assertEquals(10, normal);
+        assertEquals(90, queue.size(FmkTaskPriority.LOW));
+        System.out.println("✅ 三条通道都积压时 LOW 也能取到: " + order.subList(0, 16));
+    }
+
+    @Test
+    @DisplayName("测试租户公平 - 同一优先级内按权重轮流取")
+    void testTenantFairShare() {
+        FmkPriorityTaskQueue queue = new FmkPriorityTaskQueue(100, 0, Map.of("b", 2), 1);
+        for (int i = 0; i < 6; i++) {
+            queue.offer(task("a" + i, FmkTaskPriority.NORMAL, "a"));
+        }
+        for (int i = 0; i < 4; i++) {
+            queue.offer(task("b" + i, FmkTaskPriority.NORMAL, "b"));
+        }
+        queue.offer(task("c0", FmkTaskPriority.NORMAL, "c"));
+
+        List<String> order = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            order.add(((NamedTask) queue.poll()).name);
+        }
+        assertEquals(List.of("a0", "b0", "b1", "c0", "a1", "b2", "b3", "a2", "a3", "a4", "a5"), order,
+                "先提交的大量任务不会挡住其他租户");
+        System.out.println("✅ 租户按权重轮流: " + order);
+    }
+
+    @Test
+    @DisplayName("测试准入上限 - 只限制 NORMAL 和 LOW，HIGH 可以排到容量上限")
+    void testAdmission() {
+        FmkPriorityTaskQueue queue = new FmkPriorityTaskQueue(4, 16, Map.of(), 1);
+        queue.setAdmissionLimit(2);
+        assertTrue(queue.offer(task("n0", FmkTaskPriority.NORMAL, "t")));
+        assertTrue(queue.offer(task("n1", FmkTaskPriority.LOW, "t")));
+        assertFalse(queue.offer(task("n2", FmkTaskPriority.NORMAL, "t")), "达到准入上限");
+        assertTrue(queue.offer(task("h0", FmkTaskPriority.HIGH, "t")));
+        assertTrue(queue.offer(task("h1", FmkTaskPriority.HIGH, "t")));
+        assertFalse(queue.offer(task("h2", FmkTaskPriority.HIGH, "t")), "达到容量");
+        assertEquals(0, queue.remainingCapacity());
+
+        queue.setAdmissionLimit(100);
+        assertEquals(4, queue.getAdmissionLimit(), "准入上限不超过容量");
+        System.out.println("✅ 准入上限正确");
+    }
+
+    @Test
+    @DisplayName("测试删除 - remove 和 drainTo 供线程池关闭和 purge 使用")
+    void testRemoveAndDrain() {
+        FmkPriorityTaskQueue queue = new FmkPriorityTaskQueue(10, 16, Map.of(), 1);
+        NamedTask removed = task("x", FmkTaskPriority.LOW, "t");
+        queue.offer(task("a", FmkTaskPriority.HIGH, "t"));
+        queue.offer(removed);
+        queue.offer(task("b", FmkTaskPriority.NORMAL, "t"));
+
+        assertTrue(queue.remove(removed));
+        assertFalse(queue.remove(removed));
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.toArray().length);
+
+        List<Runnable> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained));
+        assertEquals("a", ((NamedTask) drained.get(0)).name);
+        assertTrue(queue.isEmpty());
+        assertEquals(10, queue.remainingCapacity());
+        System.out.println("✅ 删除正确");
+    }
+
+    private static NamedTask task(String name, FmkTaskPriority priority, String tenant) {
+        return new NamedTask(name, priority, tenant);
+    }
+
+    private record NamedTask(String name, FmkTaskPriority priority, String tenant)
+            implements Runnable, FmkPriorityTaskQueue.PrioritizedTask {
+
+        @Override
+        public void run() {
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.cjlabs.web.thread;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.IntToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkThreadPoolAutoSizer 测试类
+ * <p>
+ * 用确定性的流体模型模拟线程池：每个周期按到达率和执行耗时计算处理量、队列积压和拒绝数，
+ * 累计成 {@link ThreadPoolMetrics} 交给控制器，再把决策应用回模型
+ */
+@DisplayName("FmkThreadPoolAutoSizer 自适应线程数测试")
+class FmkThreadPoolAutoSizerTest {
+
+    /**
+     * 执行耗时 100ms
+     */
+    private static final double SERVICE_SECONDS = 0.1;
+
+    /**
+     * 线程池配置的最大线程数足够大，不限制调整
+     */
+    private static final int UNLIMITED = 1000;
+
+    private FmkTtlThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("测试阶跃负载 - 100/s -> 400/s -> 100/s，每个阶段收敛到目标区间且不来回调整")
+    void testStepLoad() {
+        FmkThreadPoolProperties.Adaptive config = new FmkThreadPoolProperties.Adaptive();
+        SimulatedPool pool = new SimulatedPool(new FmkThreadPoolAutoSizer(config, UNLIMITED), 10, 50, 1000);
+        int phaseTicks = 60;
+        double[] rates = {100, 400, 100};
+
+        for (double rate : rates) {
+            List<Integer> cores = pool.run(phaseTicks, tick -> rate);
+            int core = cores.get(cores.size() - 1);
+            double load = rate * SERVICE_SECONDS;
+            System.out.printf("到达率 %.0f/s：核心线程数 %s%n", rate, cores);
+
+            assertTrue(core >= load / config.getTargetUtilization() && core <= load / config.getLowUtilization(),
+                    "核心线程数在 [λS/目标利用率, λS/低利用率] 内: " + core);
+            assertEquals(core, cores.get(cores.size() - 11), "最后 10 个周期不再调整");
+            assertEquals(0, reversals(cores), "同一阶段内只朝一个方向调整");
+            assertEquals(0, pool.queue, 0.001, "稳定后没有积压");
+        }
+        assertEquals(1, reversals(pool.history), "整个过程只在负载下降时反向一次");
+        System.out.println("✅ 阶跃负载收敛，没有振荡");
+    }
+
+    @Test
+    @DisplayName("测试负载抖动 - 到达率 ±10% 随机抖动，线程数单调收敛")
+    void testJitter() {
+        FmkThreadPoolProperties.Adaptive config = new FmkThreadPoolProperties.Adaptive();
+        SimulatedPool pool = new SimulatedPool(new FmkThreadPoolAutoSizer(config, UNLIMITED), 10, 50, 1000);
+        Random random = new Random(42);
+
+        List<Integer> cores = pool.run(200, tick -> 300 * (0.9 + 0.2 * random.nextDouble()));
+        System.out.printf("到达率 300/s ±10%%：核心线程数 %s%n", cores.subList(0, 20));
+
+        int core = cores.get(cores.size() - 1);
+        assertTrue(core >= 330 * SERVICE_SECONDS / config.getTargetUtilization() - 1, "覆盖抖动的峰值: " + core);
+        assertTrue(core <= 270 * SERVICE_SECONDS / config.getLowUtilization(), "没有过度扩大: " + core);
+        assertEquals(0, reversals(cores), "抖动不会导致来回调整");
+        System.out.println("✅ 负载抖动下没有振荡");
+    }
+
+    @Test
+    @DisplayName("测试突发 - 单个周期的突发被拒绝和有限扩大吸收，之后逐步回到原来的水平")
+    void testSpike() {
+        FmkThreadPoolProperties.Adaptive config = new FmkThreadPoolProperties.Adaptive();
+        SimulatedPool pool = new SimulatedPool(new FmkThreadPoolAutoSizer(config, UNLIMITED), 20, 30, 1000);
+
+        List<Integer> before = pool.run(30, tick -> 100);
+        List<Integer> spike = pool.run(1, tick -> 2000);
+        List<Integer> after = pool.run(40, tick -> 100);
+        System.out.printf("突发前 %s，突发 %s，突发后 %s%n", before, spike, after);
+
+        assertTrue(pool.rejected > 0, "超过准入上限的任务被拒绝，没有全部排队");
+        assertTrue(spike.get(0) <= before.get(before.size() - 1) * 2, "单个周期最多翻倍: " + spike.get(0));
+        int core = after.get(after.size() - 1);
+        // 原来的 20 和恢复后的值都在不调整的区间内
+        assertTrue(core >= 100 * SERVICE_SECONDS / config.getTargetUtilization() && core <= 100 * SERVICE_SECONDS / config.getLowUtilization(),
+                "突发后回到不调整的区间: " + core);
+        assertEquals(core, after.get(after.size() - 11), "最后 10 个周期不再调整");
+        assertEquals(1, reversals(pool.history), "只有一次扩大和之后的逐步缩小");
+        System.out.println("✅ 突发后恢复");
+    }
+
+    @Test
+    @DisplayName("测试上限 - 负载超过处理能力时停在 maxCorePoolSize，队列准入按处理能力收紧")
+    void testOverload() {
+        FmkThreadPoolProperties.Adaptive config = new FmkThreadPoolProperties.Adaptive();
+        SimulatedPool pool = new SimulatedPool(new FmkThreadPoolAutoSizer(config, UNLIMITED), 10, 50, 100_000);
+
+        List<Integer> cores = pool.run(30, tick -> 5000);
+        System.out.printf("到达率 5000/s：核心线程数 %s，队列准入 %d%n", cores, pool.admission);
+
+        assertEquals(config.getMaxCorePoolSize(), pool.core);
+        assertEquals(150, pool.max, "最大线程数 = 核心线程数 * burstRatio");
+        // 100 个线程每秒处理 1000 个，最多排队 500ms
+        assertEquals(500, pool.admission);
+        assertTrue(pool.queue <= pool.admission, "积压不超过准入上限");
+        assertEquals(0, reversals(cores));
+        System.out.println("✅ 过载时线程数和队列都有上限");
+    }
+
+    @Test
+    @DisplayName("测试配置上限 - 核心线程数和最大线程数都不超过线程池配置的最大线程数")
+    void testConfiguredMaxPoolSize() {
+        FmkThreadPoolProperties.Adaptive config = new FmkThreadPoolProperties.Adaptive();
+        SimulatedPool pool = new SimulatedPool(new FmkThreadPoolAutoSizer(config, 60), 10, 60, 100_000);
+
+        List<Integer> cores = pool.run(30, tick -> 5000);
+        System.out.printf("到达率 5000/s，max-pool-size=60：核心线程数 %s，最大线程数 %d%n", cores, pool.max);
+
+        assertEquals(60, pool.core, "核心线程数不超过配置的最大线程数");
+        assertEquals(60, pool.max, "core * burstRatio = 90 被限制到 60");
+        assertEquals(60, pool.maxSeen, "过程中也没有超过");
+
+        SimulatedPool small = new SimulatedPool(new FmkThreadPoolAutoSizer(config, 15), 10, 15, 1000);
+        small.run(10, tick -> 100);
+        assertEquals(15, small.max, "core * burstRatio 超过配置时取配置值");
+        assertThrows(RuntimeException.class, () -> new FmkThreadPoolAutoSizer(config, config.getMinCorePoolSize() - 1));
+        System.out.println("✅ 调整不超过配置的最大线程数");
+    }
+
+    @Test
+    @DisplayName("测试应用到线程池 - 扩大和缩小时顺序正确，队列达到准入上限后拒绝")
+    void testApply() throws Exception {
+        executor = new FmkTtlThreadPoolTaskExecutor(false, 10);
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.initialize();
+
+        FmkThreadPoolAutoSizer.apply(executor, decision(8, 12, 50));
+        assertEquals(8, executor.getCorePoolSize());
+        assertEquals(12, executor.getMaxPoolSize());
+        FmkThreadPoolAutoSizer.apply(executor, decision(1, 1, 3));
+        assertEquals(1, executor.getCorePoolSize());
+        assertEquals(1, executor.getMaxPoolSize());
+        assertEquals(3, executor.getQueueAdmissionLimit());
+
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> { });
+        }
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }), "队列达到准入上限");
+        release.countDown();
+
+        ThreadPoolMetrics metrics = executor.getMetrics();
+        assertEquals(100, metrics.getQueueCapacity(), "容量不变");
+        assertEquals(3, metrics.getQueueAdmissionLimit());
+        assertEquals(1, metrics.getRejectedTasks());
+
+        executor.setQueueAdmissionLimit(1000);
+        assertEquals(100, executor.getQueueAdmissionLimit(), "准入上限不超过容量");
+        System.out.println("✅ 调整顺序和队列准入正确");
+    }
+
+    private static FmkThreadPoolAutoSizer.Decision decision(int core, int max, int admission) {
+        return new FmkThreadPoolAutoSizer.Decision(FmkThreadPoolAutoSizer.Action.HOLD, true, core, max, admission, 0, 0, 0, 0);
+    }
+
+    /**
+     * 调整方向反转的次数
+     */
+    private static int reversals(List<Integer> cores) {
+        int reversals = 0;
+        int direction = 0;
+        for (int i = 1; i < cores.size(); i++) {
+            int delta = Integer.compare(cores.get(i), cores.get(i - 1));
+            if (delta != 0) {
+                if (direction != 0 && delta != direction) {
+                    reversals++;
+                }
+                direction = delta;
+            }
+        }
+        return reversals;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 流体模型的线程池，每个周期 1 秒
+     */
+    private static class SimulatedPool {
+
+        private final FmkThreadPoolAutoSizer autoSizer;
+
+        private final int queueCapacity;
+
+        private final List<Integer> history = new ArrayList<>();
+
+        private int core;
+
+        private int max;
+
+        /**
+         * 过程中出现过的最大线程数
+         */
+        private int maxSeen;
+
+        private int admission;
+
+        private double queue;
+
+        private double submitted;
+
+        private double completed;
+
+        private double rejected;
+
+        private double busySeconds;
+
+        private double waitSeconds;
+
+        private long tick;
+
+        private SimulatedPool(FmkThreadPoolAutoSizer autoSizer, int core, int max, int queueCapacity) {
+            this.autoSizer = autoSizer;
+            this.core = core;
+            this.max = max;
+            this.queueCapacity = queueCapacity;
+            this.admission = queueCapacity;
+            // 第一次采样只作为基准
+            autoSizer.decide(metrics(core), 0);
+        }
+
+        /**
+         * @param rate 每个周期的到达率（每秒）
+         * @return 每个周期结束后的核心线程数
+         */
+        private List<Integer> run(int ticks, IntToDoubleFunction rate) {
+            List<Integer> cores = new ArrayList<>();
+            for (int i = 0; i < ticks; i++) {
+                int threads = step(rate.applyAsDouble(i));
+                FmkThreadPoolAutoSizer.Decision decision =
+                        autoSizer.decide(metrics(threads), ++tick * 1_000_000_000L);
+                core = decision.getCorePoolSize();
+                max = decision.getMaxPoolSize();
+                maxSeen = Math.max(maxSeen, Math.max(core, max));
+                admission = decision.getQueueAdmissionLimit();
+                cores.add(core);
+                history.add(core);
+            }
+            return cores;
+        }
+
+        /**
+         * 与 ThreadPoolExecutor 相同：核心线程忙时先排队，队列达到准入上限后新建线程到最大线程数，再超出就拒绝
+         *
+         * @return 本周期使用的线程数
+         */
+        private int step(double arrivals) {
+            double backlog = queue + arrivals;
+            int threads = backlog - core / SERVICE_SECONDS > admission ? max : core;
+            double served = Math.min(backlog, threads / SERVICE_SECONDS);
+            double remain = backlog - served;
+            double overflow = Math.max(0, remain - admission);
+            // Little 定律：排队总耗时 = 平均队列长度 * 时间
+            waitSeconds += (queue + remain - overflow) / 2;
+            queue = remain - overflow;
+            submitted += arrivals;
+            completed += served;
+            rejected += overflow;
+            busySeconds += served * SERVICE_SECONDS;
+            return threads;
+        }
+
+        private ThreadPoolMetrics metrics(int threads) {
+            ThreadPoolMetrics metrics = new ThreadPoolMetrics();
+            metrics.setPoolSize(threads);
+            metrics.setCorePoolSize(core);
+            metrics.setMaxPoolSize(max);
+            metrics.setQueueSize((int) Math.ceil(queue));
+            metrics.setQueueCapacity(queueCapacity);
+            metrics.setQueueAdmissionLimit(admission);
+            metrics.setTotalTasks(Math.round(submitted));
+            metrics.setCompletedTasks(Math.round(completed));
+            metrics.setRejectedTasks(Math.round(rejected));
+            metrics.setExecutionNanosTotal(Math.round(busySeconds * 1e9));
+            metrics.setQueueWaitNanosTotal(Math.round(waitSeconds * 1e9));
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.cjlabs.web.thread;
+
+import com.alibaba.ttl.TransmittableThreadLocal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkTtlThreadPoolTaskExecutor 测试类
+ */
+@DisplayName("FmkTtlThreadPoolTaskExecutor 线程池监控测试")
+class FmkTtlThreadPoolTaskExecutorTest {
+
+    private static final TransmittableThreadLocal<String> CONTEXT = new TransmittableThreadLocal<>();
+
+    private final List<ThreadPoolTaskExecutor> executors = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+        CONTEXT.remove();
+    }
+
+    @Test
+    @DisplayName("测试计数 - 提交、完成、失败，所有提交方式只计一次")
+    void testCounts() throws Exception {
+        FmkTtlThreadPoolTaskExecutor executor = newExecutor(4, 4, 100);
+        CountDownLatch executed = new CountDownLatch(2);
+        executor.execute(executed::countDown);
+        executor.execute(() -> {
+            executed.countDown();
+            throw new IllegalStateException("execute failed");
+        });
+        executor.submit(() -> { }).get();
+        Future<String> failed = executor.submit(() -> {
+            throw new IllegalStateException("submit failed");
+        });
+        assertThrows(ExecutionException.class, failed::get);
+        assertEquals("ok", executor.submitCompletable(() -> "ok").get());
+        executor.submitCompletable(() -> { }).get();
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+        // execute 提交的任务在 countDown 之后才结束，等待计数完成
+        waitUntil(() -> executor.getMetrics().getCompletedTasks() == 6);
+
+        ThreadPoolMetrics metrics = executor.getMetrics();
+        assertEquals(6, metrics.getTotalTasks());
+        assertEquals(6, metrics.getCompletedTasks(), "完成数不再恒为 0");
+        assertEquals(2, metrics.getFailedTasks());
+        assertEquals(0, metrics.getRejectedTasks());
+        System.out.println("✅ 计数正确");
+    }
+
+    @Test
+    @DisplayName("测试耗时分布 - 排队耗时和执行耗时分开记录")
+    void testQueueWaitAndExecution() throws Exception {
+        FmkTtlThreadPoolTaskExecutor executor = newExecutor(1, 1, 10);
+        Future<?> first = executor.submit(() -> sleep(50));
+        Future<?> second = executor.submit(() -> { });
+        first.get();
+        second.get();
+
+        ThreadPoolMetrics metrics = executor.getMetrics();
+        assertTrue(metrics.getQueueWaitMaxMillis() >= 40, "第二个任务排队约 50ms: " + metrics.getQueueWaitMaxMillis());
+        assertTrue(metrics.getExecutionMaxMillis() >= 40, "第一个任务执行约 50ms: " + metrics.getExecutionMaxMillis());
+        assertTrue(metrics.getExecutionP50Millis() < 40, "第二个任务执行很快: " + metrics.getExecutionP50Millis());
+        System.out.printf("✅ 排队耗时 max=%.2fms，执行耗时 max=%.2fms%n",
+                metrics.getQueueWaitMaxMillis(), metrics.getExecutionMaxMillis());
+    }
+
+    @Test
+    @DisplayName("测试拒绝 - 默认拒绝策略也统计拒绝数，只计一次")
+    void testRejected() throws Exception {
+        FmkTtlThreadPoolTaskExecutor executor = newExecutor(1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        executor.execute(() -> { });
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        release.countDown();
+
+        assertEquals(1, executor.getMetrics().getRejectedTasks());
+        System.out.println("✅ 拒绝计数正确");
+    }
+
+    @Test
+    @DisplayName("测试超时 - 开始执行前已经超时的任务直接丢弃，调用方收到 TimeoutException")
+    void testDeadline() throws Exception {
+        FmkTtlThreadPoolTaskExecutor executor = newExecutor(1, 1, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+
+        AtomicBoolean executed = new AtomicBoolean();
+        FmkTaskOptions options = FmkTaskOptions.of(FmkTaskPriority.NORMAL, "t", Duration.ofMillis(20));
+        Future<String> future = executor.submit(() -> {
+            executed.set(true);
+            return "late";
+        }, options);
+        CompletableFuture<String> completable = executor.submitCompletable(() -> "late", options);
+        executor.execute(() -> executed.set(true), options);
+        Future<String> inTime = executor.submit(() -> "ok", FmkTaskOptions.of(FmkTaskPriority.NORMAL, "t", Duration.ofSeconds(10)));
+        Thread.sleep(50);
+        release.countDown();
+
+        ExecutionException expired = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(TimeoutException.class, expired.getCause());
+        CompletionException completableExpired = assertThrows(CompletionException.class, completable::join);
+        assertInstanceOf(TimeoutException.class, completableExpired.getCause());
+        assertEquals("ok", inTime.get());
+        waitUntil(() -> executor.getMetrics().getExpiredTasks() == 3);
+        assertFalse(executed.get(), "超时的任务没有执行");
+        System.out.println("✅ 超时任务被丢弃");
+    }
+
+    @Test
+    @DisplayName("测试调度选项 - 保留 TTL 传递和拒绝计数")
+    void testOptionsKeepTtlAndRejection() throws Exception {
+        FmkTtlThreadPoolTaskExecutor executor = newExecutor(1, 1, 1);
+        CONTEXT.set("user-1");
+        assertEquals("user-1", executor.submit(CONTEXT::get, FmkTaskOptions.HIGH).get());
+        assertEquals("user-1", executor.submitCompletable(CONTEXT::get, FmkTaskOptions.LOW).get());
+
+        // 等线程取走第一个任务再排队，队列容量 1
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        }, FmkTaskOptions.NORMAL);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> { }, FmkTaskOptions.NORMAL);
+        assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }, FmkTaskOptions.HIGH));
+        release.countDown();
+
+        assertEquals(1, executor.getMetrics().getRejectedTasks(), "经过 MonitoredRejectedExecutionHandler");
+        System.out.println("✅ TTL 和拒绝计数保留");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 批处理任务积压时，高优先级任务的排队耗时 p99 有上限")
+    void testMixedPriorityLoad() throws Exception {
+        FmkThreadPoolProperties.Scheduling scheduling = new FmkThreadPoolProperties.Scheduling();
+        scheduling.setEnabled(true);
+        FmkTtlThreadPoolTaskExecutor prioritized = newExecutor(2, 2, 10_000, scheduling);
+        FmkTtlThreadPoolTaskExecutor fifo = newExecutor(2, 2, 10_000);
+
+        double prioritizedP99 = highLaneP99(prioritized);
+        double fifoP99 = highLaneP99(fifo);
+        System.out.printf("400 个 5ms 批处理任务积压时，高优先级排队耗时 p99：先进先出 %.1fms，优先级调度 %.1fms%n",
+                fifoP99, prioritizedP99);
+
+        assertTrue(prioritizedP99 < 50, "高优先级最多等待正在执行的任务和少量让出: " + prioritizedP99);
+        assertTrue(prioritizedP99 * 5 < fifoP99, "先进先出时高优先级排在全部批处理任务之后");
+        System.out.println("✅ 高优先级排队耗时有上限");
+    }
+
+    /**
+     * 先提交 400 个 LOW，再每 10ms 提交一个 HIGH
+     *
+     * @return HIGH 任务排队耗时 p99（毫秒）
+     */
+    private double highLaneP99(FmkTtlThreadPoolTaskExecutor executor) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            futures.add(executor.submit(() -> sleep(5), FmkTaskOptions.of(FmkTaskPriority.LOW, "batch")));
+        }
+        List<Double> waits = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 50; i++) {
+            long submitNanos = System.nanoTime();
+            futures.add(executor.submit(() -> {
+                waits.add((System.nanoTime() - submitNanos) / 1e6);
+                sleep(1);
+            }, FmkTaskOptions.of(FmkTaskPriority.HIGH, "api")));
+            Thread.sleep(10);
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        List<Double> sorted = new ArrayList<>(waits);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+    }
+
+    @Test
+    @DisplayName("性能测试 - 多线程并发提交，吞吐量不受监控限制")
+    void testSubmitThroughput() throws Exception {
+        int producers = 8;
+        int perProducer = 100_000;
+
+        // 预热
+        measureSubmit(newExecutor(4, 4, Integer.MAX_VALUE), producers, perProducer);
+        measureSubmit(newLegacyExecutor(), producers, perProducer);
+
+        long fmkOpsPerSecond = measureSubmit(newExecutor(4, 4, Integer.MAX_VALUE), producers, perProducer);
+        long legacyOpsPerSecond = measureSubmit(newLegacyExecutor(), producers, perProducer);
+
+        // 只比较监控本身：原实现每次提交获取同一把锁，新实现是 LongAdder + 无锁直方图
+        long legacyMonitorOps = measureMonitor(producers, perProducer * 10, new LegacyExecutor()::incrementTotalTasks);
+        LongAdder submitted = new LongAdder();
+        FmkTaskTimer timer = new FmkTaskTimer();
+        long fmkMonitorOps = measureMonitor(producers, perProducer * 10, () -> {
+            submitted.increment();
+            timer.record(System.nanoTime() & 0xFFFF);
+        });
+
+        System.out.printf("%d 个线程并发提交：原实现 %d 次/秒，LongAdder + 直方图 %d 次/秒%n",
+                producers, legacyOpsPerSecond, fmkOpsPerSecond);
+        System.out.printf("只计监控：原实现 %d 次/秒，LongAdder + 直方图 %d 次/秒%n", legacyMonitorOps, fmkMonitorOps);
+        // 提交吞吐量由线程池队列的锁决定；新实现每个任务多记录两次耗时，单核机器上与执行线程争用 CPU
+        assertTrue(fmkOpsPerSecond > legacyOpsPerSecond / 3, "提交吞吐量与原实现同一量级");
+        if (Runtime.getRuntime().availableProcessors() >= 4) {
+            assertTrue(fmkMonitorOps > legacyMonitorOps, "多核下监控本身不再串行");
+        }
+        System.out.println("✅ 提交路径没有监控锁");
+    }
+
+    /**
+     * @return 每秒次数
+     */
+    private long measureMonitor(int threads, int perThread, Runnable monitor) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                await(start);
+                for (int i = 0; i < perThread; i++) {
+                    monitor.run();
+                }
+                done.countDown();
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return (long) threads * perThread * 1_000_000_000L / (System.nanoTime() - begin);
+    }
+
+    /**
+     * @return 每秒提交次数
+     */
+    private long measureSubmit(ThreadPoolTaskExecutor executor, int producers, int perProducer) throws Exception {
+        CountDownLatch ready = new CountDownLatch(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(producers);
+        Runnable task = () -> { };
+        for (int p = 0; p < producers; p++) {
+            new Thread(() -> {
+                ready.countDown();
+                await(start);
+                for (int i = 0; i < perProducer; i++) {
+                    executor.execute(task);
+                }
+                done.countDown();
+            }).start();
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        executor.getThreadPoolExecutor().awaitTermination(30, TimeUnit.SECONDS);
+        return (long) producers * perProducer * 1_000_000_000L / elapsed;
+    }
+
+    private FmkTtlThreadPoolTaskExecutor newExecutor(int core, int max, int queueCapacity) {
+        return newExecutor(core, max, queueCapacity, null);
+    }
+
+    private FmkTtlThreadPoolTaskExecutor newExecutor(int core, int max, int queueCapacity,
+                                                     FmkThreadPoolProperties.Scheduling scheduling) {
+        FmkTtlThreadPoolTaskExecutor executor = new FmkTtlThreadPoolTaskExecutor(true, 10);
+        executor.setScheduling(scheduling);
+        executor.setCorePoolSize(core);
+        executor.setMaxPoolSize(max);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("fmk-test-");
+        executor.initialize();
+        executors.add(executor);
+        return executor;
+    }
+
+    private ThreadPoolTaskExecutor newLegacyExecutor() {
+        LegacyExecutor executor = new LegacyExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        executor.initialize();
+        executors.add(executor);
+        return executor;
+    }
+
+    /**
+     * 原实现的提交路径：每次提交都获取锁并检查是否需要输出监控日志
+     */
+    static class LegacyExecutor extends ThreadPoolTaskExecutor {
+        private Instant lastMonitorTime = Instant.now();
+        private long totalTasks;
+
+        @Override
+        public void execute(Runnable task) {
+            incrementTotalTasks();
+            super.execute(com.alibaba.ttl.TtlRunnable.get(task));
+        }
+
+        private synchronized void incrementTotalTasks() {
+            totalTasks++;
+            Instant now = Instant.now();
+            if (Duration.between(lastMonitorTime, now).toMillis() >= 10_000) {
+                lastMonitorTime = now;
+            }
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.cjlabs.web.thread;
+
+import com.alibaba.ttl.TransmittableThreadLocal;
+import com.cjlabs.domain.common.FmkConstant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkVirtualThreadTaskExecutor 测试类
+ */
+@DisplayName("FmkVirtualThreadTaskExecutor 虚拟线程执行器测试")
+class FmkVirtualThreadTaskExecutorTest {
+
+    private static final TransmittableThreadLocal<String> CONTEXT = new TransmittableThreadLocal<>();
+
+    private final FmkVirtualThreadTaskExecutor executor =
+            new FmkVirtualThreadTaskExecutor("fmk-vt-test-", 1000, Map.of("redis", 3), 10);
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+        CONTEXT.remove();
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("测试上下文传递 - 提交时的 TTL 和 MDC 在虚拟线程中可见，提交后的修改不可见")
+    void testContextPropagation() throws Exception {
+        CONTEXT.set("user-1");
+        MDC.put(FmkConstant.MDC_TRACE_ID, "trace-1");
+
+        Future<String> future = executor.submit(() -> {
+            Thread.sleep(20);
+            return CONTEXT.get() + "|" + MDC.get(FmkConstant.MDC_TRACE_ID) + "|" + Thread.currentThread().isVirtual();
+        });
+        CompletableFuture<String> completable = executor.submitCompletable("redis",
+                () -> CONTEXT.get() + "|" + MDC.get(FmkConstant.MDC_TRACE_ID));
+        CONTEXT.set("user-2");
+        MDC.put(FmkConstant.MDC_TRACE_ID, "trace-2");
+
+        assertEquals("user-1|trace-1|true", future.get());
+        assertEquals("user-1|trace-1", completable.get());
+
+        CONTEXT.remove();
+        MDC.clear();
+        assertEquals("null|null", executor.submit(() -> CONTEXT.get() + "|" + MDC.get(FmkConstant.MDC_TRACE_ID)).get(),
+                "没有上下文时不会残留上一个任务的值");
+        System.out.println("✅ TTL 和 MDC 传递正确");
+    }
+
+    @Test
+    @DisplayName("测试并发限制 - 按 workload 用信号量限制并发，互不影响")
+    void testWorkloadLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit("redis", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(20);
+                running.decrementAndGet();
+            }));
+        }
+        // redis 的许可用完时，其他 workload 不受影响
+        assertEquals("ok", executor.submitCompletable("order-api", () -> "ok").get());
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertEquals(3, maxRunning.get(), "redis 最多 3 个并发");
+        assertEquals(3, executor.availablePermits("redis"), "许可全部归还");
+        assertEquals(1000, executor.availablePermits("order-api"), "没有单独配置的 workload 使用默认上限");
+        System.out.println("✅ 并发限制正确");
+    }
+
+    @Test
+    @DisplayName("测试异常 - 与线程池的 submit / submitCompletable 语义一致")
+    void testExceptions() throws Exception {
+        Future<String> checked = executor.submit(() -> {
+            throw new IOException("io");
+        });
+        ExecutionException executionException = assertThrows(ExecutionException.class, checked::get);
+        assertInstanceOf(IOException.class, executionException.getCause());
+
+        CompletableFuture<String> completable = executor.submitCompletable(() -> {
+            throw new IOException("io");
+        });
+        CompletionException completionException = assertThrows(CompletionException.class, completable::join);
+        assertInstanceOf(IOException.class, completionException.getCause());
+
+        executor.submit(() -> { }).get();
+        assertEquals(3, executor.getSubmittedTasks());
+        assertEquals(3, executor.getCompletedTasks());
+        // submitCompletable 的异常由 CompletableFuture 持有，不计入失败数（与线程池相同）
+        assertEquals(1, executor.getFailedTasks());
+        System.out.println("✅ 异常语义正确");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 阻塞 I/O 并发调用，虚拟线程与平台线程池对比")
+    void testBlockingFanOut() throws Exception {
+        int tasks = 2000;
+        long ioMillis = 10;
+
+        // 与 fmk.thread-pool 默认配置相同：核心 10，最大 50，队列 1000，调用者执行
+        FmkThreadPoolProperties properties = new FmkThreadPoolProperties();
+        FmkTtlThreadPoolTaskExecutor pool = new FmkTtlThreadPoolTaskExecutor(false, 10);
+        pool.setCorePoolSize(properties.getCorePoolSize());
+        pool.setMaxPoolSize(properties.getMaxPoolSize());
+        pool.setQueueCapacity(properties.getQueueCapacity());
+        pool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.initialize();
+        try {
+            // 预热后各跑 3 次取最好成绩
+            long poolMillis = Long.MAX_VALUE;
+            long virtualMillis = Long.MAX_VALUE;
+            fanOut(pool, tasks, ioMillis);
+            fanOut(executor, tasks, ioMillis);
+            for (int round = 0; round < 3; round++) {
+                poolMillis = Math.min(poolMillis, fanOut(pool, tasks, ioMillis));
+                virtualMillis = Math.min(virtualMillis, fanOut(executor, tasks, ioMillis));
+            }
+            System.out.printf("%d 个 %dms 阻塞调用：平台线程池 %dms，虚拟线程 %dms%n", tasks, ioMillis, poolMillis, virtualMillis);
+            assertTrue(virtualMillis * 3 < poolMillis, "虚拟线程不受线程数限制");
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println("✅ 阻塞 I/O 并发调用吞吐量提升");
+    }
+
+    /**
+     * @return 全部完成的耗时（毫秒）
+     */
+    private static long fanOut(AsyncTaskExecutor target, int tasks, long ioMillis) throws Exception {
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            futures.add(target.submit(() -> sleep(ioMillis)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
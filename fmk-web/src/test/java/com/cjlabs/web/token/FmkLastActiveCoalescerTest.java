@@ -0,0 +1,229 @@
+package com.cjlabs.web.token;
+
+import com.cjlabs.core.types.longs.FmkUserId;
+import com.cjlabs.core.types.strings.FmkToken;
+import com.cjlabs.web.threadlocal.FmkClientInfo;
+import com.cjlabs.web.threadlocal.FmkUserInfo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkLastActiveCoalescer 测试类
+ */
+@DisplayName("FmkLastActiveCoalescer 活跃时间合并写入测试")
+class FmkLastActiveCoalescerTest {
+
+    @Test
+    @DisplayName("测试合并写入 - 多次访问只写入最新的活跃时间")
+    void testCoalesce() {
+        List<Map<String, Long>> batches = new ArrayList<>();
+        FmkLastActiveCoalescer coalescer = new FmkLastActiveCoalescer("test", 0, 500, recordTo(batches));
+
+        for (long time = 1; time <= 100; time++) {
+            coalescer.touch("a", time);
+        }
+        coalescer.touch("b", 50);
+        coalescer.touch("b", 10);
+
+        assertEquals(2, coalescer.getQueueDepth());
+        assertEquals(2, coalescer.flush());
+        assertEquals(1, batches.size());
+        assertEquals(Map.of("a", 100L, "b", 50L), batches.get(0), "时间回退不覆盖更新的活跃时间");
+        assertEquals(0, coalescer.getQueueDepth());
+        assertEquals(0, coalescer.flush(), "没有新的访问不再写入");
+        assertEquals(102, coalescer.getTouchCount());
+        System.out.println("✅ 102 次访问合并为 2 次写入");
+    }
+
+    @Test
+    @DisplayName("测试写入间隔 - 同一个 Token 在 granularity 内最多写入一次")
+    void testGranularity() throws InterruptedException {
+        List<Map<String, Long>> batches = new ArrayList<>();
+        FmkLastActiveCoalescer coalescer = new FmkLastActiveCoalescer("test", 200, 500, recordTo(batches));
+
+        coalescer.touch("a", 1);
+        assertEquals(1, coalescer.flush());
+        coalescer.touch("a", 2);
+        assertEquals(0, coalescer.flush(), "200ms 内不再写入");
+        assertEquals(1, coalescer.getQueueDepth());
+        assertEquals(2L, coalescer.getLatest("a"), "读取时可以拿到尚未写入的活跃时间");
+
+        Thread.sleep(250);
+        assertEquals(1, coalescer.flush());
+        assertEquals(Map.of("a", 2L), batches.get(1));
+        System.out.println("✅ granularity 内最多写入一次");
+    }
+
+    @Test
+    @DisplayName("测试本地记录有界 - 不再访问的 Token 在 granularity 后移除")
+    void testTrackedBounded() throws InterruptedException {
+        FmkLastActiveCoalescer coalescer = new FmkLastActiveCoalescer("test", 100, 500, Map::size);
+        for (int i = 0; i < 1000; i++) {
+            coalescer.touch("token" + i, 1);
+        }
+        coalescer.flush();
+        assertEquals(1000, coalescer.getTrackedCount());
+
+        Thread.sleep(150);
+        coalescer.touch("token0", 2);
+        coalescer.flush();
+        assertEquals(1, coalescer.getTrackedCount(), "只保留仍然活跃的 Token");
+
+        coalescer.remove("token0");
+        assertEquals(0, coalescer.getTrackedCount());
+        System.out.println("✅ 本地记录有界");
+    }
+
+    @Test
+    @DisplayName("测试分批和失败重试 - 每批不超过 batchSize，写入失败下次重试")
+    void testBatchAndRetry() {
+        List<Integer> batchSizes = new ArrayList<>();
+        boolean[] fail = {true};
+        FmkLastActiveCoalescer coalescer = new FmkLastActiveCoalescer("test", 60_000, 100, batch -> {
+            if (fail[0]) {
+                throw new IllegalStateException("存储不可用");
+            }
+            batchSizes.add(batch.size());
+            return batch.size();
+        });
+        for (int i = 0; i < 250; i++) {
+            coalescer.touch("token" + i, 1);
+        }
+
+        assertThrows(IllegalStateException.class, coalescer::flush);
+        assertEquals(250, coalescer.getQueueDepth(), "失败的批次恢复为待写入");
+
+        fail[0] = false;
+        assertEquals(250, coalescer.flush(), "失败后不受 granularity 限制");
+        assertEquals(List.of(100, 100, 50), batchSizes);
+        assertEquals(250, coalescer.getWrittenCount());
+        System.out.println("✅ 分批写入，失败重试");
+    }
+
+    @Test
+    @DisplayName("测试记录上限 - 达到 maxTracked 后新的 Token 被丢弃，已记录的照常更新")
+    void testMaxTracked() {
+        List<Map<String, Long>> batches = new ArrayList<>();
+        FmkLastActiveCoalescer coalescer = new FmkLastActiveCoalescer("test", 0, 500, 100, recordTo(batches));
+
+        for (int i = 0; i < 10_000; i++) {
+            coalescer.touch("forged" + i, 1);
+        }
+        assertEquals(100, coalescer.getTrackedCount(), "伪造的 Token 不会无限占用内存");
+        assertEquals(9_900, coalescer.getDroppedCount());
+
+        coalescer.touch("forged0", 2);
+        assertEquals(100, coalescer.flush());
+        assertEquals(2L, batches.get(0).get("forged0"), "已记录的 Token 照常更新");
+        System.out.println("✅ 记录数有上限");
+    }
+
+    @Test
+    @DisplayName("测试定时写入 - start 后自动写入，stop 时写入剩余的活跃时间")
+    void testStartStop() throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        List<Map<String, Long>> batches = new ArrayList<>();
+        FmkLastActiveCoalescer coalescer = new FmkLastActiveCoalescer("test-flush", 60_000, 500, batch -> {
+            synchronized (batches) {
+                batches.add(new LinkedHashMap<>(batch));
+            }
+            flushed.countDown();
+            return batch.size();
+        });
+
+        coalescer.touch("a", 1);
+        coalescer.start(50);
+        assertTrue(flushed.await(2, TimeUnit.SECONDS));
+
+        coalescer.touch("a", 2);
+        coalescer.stop();
+        synchronized (batches) {
+            assertEquals(Map.of("a", 2L), batches.get(batches.size() - 1), "stop 时忽略 granularity");
+        }
+        assertTrue(coalescer.getFlushCount() >= 2);
+        System.out.println("✅ 定时写入和关闭写入");
+    }
+
+    @Test
+    @DisplayName("测试内存 Token 服务 - 校验只记本地，flush 后写入设备信息")
+    void testMemoryService() {
+        FmkTokenServiceMemoryImpl service = new FmkTokenServiceMemoryImpl();
+        service.setTokenProperties(new FmkTokenProperties());
+        FmkClientInfo clientInfo = new FmkClientInfo();
+        FmkToken token = service.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), clientInfo);
+        Instant created = clientInfo.getLastActiveTime();
+        clientInfo.setLastActiveTime(created.minusSeconds(60));
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(service.validateToken(token));
+        }
+        assertEquals(1, service.getLastActiveCoalescer().getQueueDepth());
+        assertEquals(created.minusSeconds(60), clientInfo.getLastActiveTime(), "校验时不写设备信息");
+
+        assertEquals(1, service.getLastActiveCoalescer().flush());
+        assertFalse(clientInfo.getLastActiveTime().isBefore(created));
+
+        service.revokeToken(token);
+        assertEquals(0, service.getLastActiveCoalescer().getTrackedCount());
+
+        for (int i = 0; i < 1000; i++) {
+            service.touchToken(FmkToken.generate());
+        }
+        assertEquals(0, service.getLastActiveCoalescer().getTrackedCount(), "不存在的 Token 不记录活跃时间");
+        System.out.println("✅ 内存 Token 服务合并写入活跃时间");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 多线程高频访问的写入次数")
+    void testConcurrentTouch() throws InterruptedException {
+        int threads = 8;
+        int touchesPerThread = 250_000;
+        int tokens = 1000;
+        FmkLastActiveCoalescer coalescer = new FmkLastActiveCoalescer("test", 60_000, 500, Map::size);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < touchesPerThread; i++) {
+                    coalescer.touch("token" + (i % tokens), now);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        long touchNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        int written = coalescer.flush();
+        long touches = (long) threads * touchesPerThread;
+        assertEquals(tokens, written);
+        assertEquals(touches, coalescer.getTouchCount());
+        System.out.printf("%d 次访问（%d 个 Token）耗时 %dms，写入 %d 次，flush 耗时 %.2fms%n",
+                touches, tokens, TimeUnit.NANOSECONDS.toMillis(touchNanos), written,
+                coalescer.getLastFlushLatencyMillis());
+        System.out.println("✅ 高频访问合并写入");
+    }
+
+    private static FmkLastActiveCoalescer.Writer recordTo(List<Map<String, Long>> batches) {
+        return batch -> {
+            batches.add(new LinkedHashMap<>(batch));
+            return batch.size();
+        };
+    }
+}
@@ -0,0 +1,203 @@
+package com.cjlabs.web.token;
+
+import com.cjlabs.core.types.longs.FmkUserId;
+import com.cjlabs.core.types.strings.FmkToken;
+import com.cjlabs.web.threadlocal.FmkUserInfo;
+import com.cjlabs.web.token.bo.FmkTokenInfo;
+import com.cjlabs.web.token.enums.TokenSessionLimitPolicyEnum;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkMemoryTokenStore 测试类
+ */
+@DisplayName("FmkMemoryTokenStore 内存 Token 存储测试")
+class FmkMemoryTokenStoreTest {
+
+    @Test
+    @DisplayName("测试服务 - 创建、查询、刷新、撤销")
+    void testMemoryService() {
+        FmkTokenProperties properties = new FmkTokenProperties();
+        FmkTokenServiceMemoryImpl service = new FmkTokenServiceMemoryImpl();
+        service.setTokenProperties(properties);
+
+        FmkUserId userId = FmkUserId.of(1);
+        FmkToken first = service.createAndSaveToken(new FmkUserInfo(userId, "张三"), null);
+        FmkToken second = service.createAndSaveToken(new FmkUserInfo(userId, "张三"), null);
+
+        assertTrue(service.validateToken(first));
+        assertEquals(userId, service.getUserIdByToken(first).orElseThrow());
+        assertEquals("张三", service.getUserInfoByToken(second).orElseThrow().getUserName());
+        assertEquals(second, service.getTokenByUserId(userId).orElseThrow(), "返回最近登录的 Token");
+        assertTrue(service.refreshToken(first));
+        assertFalse(service.refreshToken(FmkToken.generate()));
+
+        assertTrue(service.revokeToken(second));
+        assertFalse(service.revokeToken(second));
+        assertEquals(first, service.getTokenByUserId(userId).orElseThrow());
+
+        service.revokeAllUserTokens(userId);
+        assertFalse(service.validateToken(first));
+        assertTrue(service.getTokenByUserId(userId).isEmpty());
+        assertTrue(service.getUserInfoByUserId(userId).isEmpty());
+        System.out.println("✅ 内存 Token 服务基本功能");
+    }
+
+    @Test
+    @DisplayName("测试绝对过期 - 刷新后重新计算，过期后同时移出用户索引")
+    void testAbsoluteExpire() throws InterruptedException {
+        FmkMemoryTokenStore store = newStore(1000, Duration.ofMillis(300), null, 0);
+        FmkTokenInfo tokenInfo = save(store, 1);
+        String token = tokenInfo.getToken().getValue();
+
+        Thread.sleep(200);
+        assertTrue(store.refresh(token));
+        Thread.sleep(200);
+        assertNotNull(store.get(token), "刷新后按新的过期时间计算");
+
+        Thread.sleep(200);
+        assertNull(store.get(token));
+        assertNull(store.getUserInfo(FmkUserId.of(1)));
+        awaitUserCount(store, 0);
+        System.out.println("✅ 绝对过期");
+    }
+
+    @Test
+    @DisplayName("测试空闲过期 - 持续访问不过期，空闲超时后失效")
+    void testIdleExpire() throws InterruptedException {
+        FmkMemoryTokenStore store = newStore(1000, Duration.ofHours(1), Duration.ofMillis(300), 0);
+        String active = save(store, 1).getToken().getValue();
+        String idle = save(store, 2).getToken().getValue();
+
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(100);
+            assertNotNull(store.get(active));
+        }
+
+        assertNull(store.get(idle), "空闲超过 300ms 应该失效");
+        assertNotNull(store.get(active));
+        awaitUserCount(store, 1, active);
+        System.out.println("✅ 空闲过期");
+    }
+
+    @Test
+    @DisplayName("测试会话上限 - EVICT_OLDEST 踢掉最早的会话")
+    void testEvictOldest() {
+        FmkMemoryTokenStore store = newStore(1000, Duration.ofHours(1), null, 2);
+        String first = save(store, 1).getToken().getValue();
+        String second = save(store, 1).getToken().getValue();
+        String third = save(store, 1).getToken().getValue();
+
+        assertNull(store.get(first));
+        assertEquals(List.of(second, third), store.getTokens(FmkUserId.of(1)));
+        assertEquals(2, store.size());
+        System.out.println("✅ 超过上限踢掉最早的会话");
+    }
+
+    @Test
+    @DisplayName("测试会话上限 - REJECT_NEW 拒绝新的登录，旧会话失效后可以再登录")
+    void testRejectNew() {
+        FmkMemoryTokenStore store = new FmkMemoryTokenStore(1000, Duration.ofHours(1), null, 1,
+                TokenSessionLimitPolicyEnum.REJECT_NEW);
+        FmkTokenInfo first = save(store, 1);
+
+        assertFalse(store.save(tokenInfo(1), new FmkUserInfo(FmkUserId.of(1), "user1")));
+        assertEquals(List.of(first.getToken().getValue()), store.getTokens(FmkUserId.of(1)));
+
+        store.remove(first.getToken().getValue());
+        assertTrue(store.save(tokenInfo(1), new FmkUserInfo(FmkUserId.of(1), "user1")));
+        System.out.println("✅ 超过上限拒绝新的登录");
+    }
+
+    @Test
+    @DisplayName("测试容量上限 - 超过 maxSize 淘汰，用户索引同步清理")
+    void testMaxSize() {
+        FmkMemoryTokenStore store = newStore(100, Duration.ofHours(1), null, 0);
+        for (int i = 0; i < 1000; i++) {
+            save(store, i);
+        }
+        store.cleanUp();
+
+        assertEquals(100, store.size());
+        assertEquals(100, store.userCount());
+        System.out.println("✅ 容量上限生效");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 数百万次登录后堆内存保持有界")
+    void testHeapBoundedUnderLoad() {
+        int maxSize = 50_000;
+        int logins = 2_000_000;
+        FmkMemoryTokenStore store = newStore(maxSize, Duration.ofHours(12), null, 3);
+
+        long baseline = usedHeap();
+        long start = System.nanoTime();
+        long peakSize = 0;
+        for (int i = 0; i < logins; i++) {
+            // 50 万个用户轮流登录，每个用户最多 3 个会话
+            save(store, i % 500_000);
+            if (i % 200_000 == 0) {
+                store.cleanUp();
+                peakSize = Math.max(peakSize, store.size());
+            }
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        store.cleanUp();
+        long retained = usedHeap() - baseline;
+
+        assertTrue(store.size() <= maxSize, "Token 数量不能超过 maxSize");
+        assertTrue(peakSize <= maxSize);
+        assertTrue(store.userCount() <= maxSize, "用户索引不能超过 Token 数量");
+        assertTrue(retained < 256L * 1024 * 1024, "保留的堆内存应该只与 maxSize 相关");
+        System.out.printf("登录 %d 次耗时 %dms（%.0f 次/秒），Token 数 %d，用户数 %d，保留堆内存 %dMB%n",
+                logins, elapsedMs, logins * 1000.0 / Math.max(1, elapsedMs),
+                store.size(), store.userCount(), retained / 1024 / 1024);
+        System.out.println("✅ 堆内存有界");
+    }
+
+    /**
+     * 等待时间轮移除过期 Token，过期 Token 应该同时移出用户索引
+     *
+     * @param keepAlive 等待期间持续访问的 Token，避免空闲过期
+     */
+    private static void awaitUserCount(FmkMemoryTokenStore store, int expected, String... keepAlive) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (store.userCount() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            for (String token : keepAlive) {
+                assertNotNull(store.get(token));
+            }
+            store.cleanUp();
+        }
+        assertEquals(expected, store.userCount(), "过期 Token 应该移出用户索引");
+    }
+
+    private static FmkMemoryTokenStore newStore(long maxSize, Duration absolute, Duration idle, int maxSessions) {
+        return new FmkMemoryTokenStore(maxSize, absolute, idle, maxSessions, TokenSessionLimitPolicyEnum.EVICT_OLDEST);
+    }
+
+    private static FmkTokenInfo save(FmkMemoryTokenStore store, int userId) {
+        FmkTokenInfo tokenInfo = tokenInfo(userId);
+        assertTrue(store.save(tokenInfo, new FmkUserInfo(FmkUserId.of(userId), "user" + userId)));
+        return tokenInfo;
+    }
+
+    private static FmkTokenInfo tokenInfo(int userId) {
+        FmkTokenInfo tokenInfo = new FmkTokenInfo();
+        tokenInfo.setToken(FmkToken.generate());
+        tokenInfo.setUserId(FmkUserId.of(userId));
+        return tokenInfo;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
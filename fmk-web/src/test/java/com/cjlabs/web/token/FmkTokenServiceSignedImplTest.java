@@ -0,0 +1,253 @@
+package com.cjlabs.web.token;
+
+import com.cjlabs.core.types.longs.FmkUserId;
+import com.cjlabs.core.types.strings.FmkToken;
+import com.cjlabs.web.threadlocal.FmkClientInfo;
+import com.cjlabs.web.threadlocal.FmkUserInfo;
+import com.cjlabs.web.token.bo.FmkTokenInfo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkTokenServiceSignedImpl 测试类
+ */
+@DisplayName("FmkTokenServiceSignedImpl 签名 Token 测试")
+class FmkTokenServiceSignedImplTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final String NEW_SECRET = "fedcba9876543210fedcba9876543210";
+
+    private FmkTokenProperties properties;
+    private FmkTokenServiceSignedImpl service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new FmkTokenProperties();
+        properties.setType("signed");
+        properties.getSigned().setSecret(SECRET);
+        service = newService(properties);
+    }
+
+    @Test
+    @DisplayName("测试创建和校验 - Token 携带 userId 和过期时间")
+    void testCreateAndValidate() {
+        FmkToken token = service.createAndSaveToken(new FmkUserInfo(FmkUserId.of(123456789L), "张三"), null);
+
+        assertEquals(56, token.getValue().length());
+        assertTrue(service.validateToken(token));
+        assertEquals(FmkUserId.of(123456789L), service.getUserIdByToken(token).orElseThrow());
+        assertEquals("张三", service.getUserInfoByToken(token).orElseThrow().getUserName());
+
+        FmkTokenInfo tokenInfo = service.getTokenInfoByToken(token).orElseThrow();
+        long expectedExpire = Instant.now().getEpochSecond() + TimeUnit.HOURS.toSeconds(12);
+        assertEquals(expectedExpire, tokenInfo.getExpireTime().getEpochSecond(), 2);
+        assertNotEquals(token, service.createAndSaveToken(new FmkUserInfo(FmkUserId.of(123456789L), "张三"), null));
+        System.out.println("✅ 签名 Token: " + token.getValue());
+    }
+
+    @Test
+    @DisplayName("测试其他实例校验 - 相同密钥不需要共享存储，只缺少用户名")
+    void testStatelessAcrossInstances() {
+        FmkToken token = service.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), null);
+        FmkTokenServiceSignedImpl other = newService(properties);
+
+        assertTrue(other.validateToken(token));
+        FmkUserInfo userInfo = other.getUserInfoByToken(token).orElseThrow();
+        assertEquals(FmkUserId.of(1), userInfo.getUserId());
+        assertNull(userInfo.getUserName());
+        System.out.println("✅ 其他实例可以直接校验");
+    }
+
+    @Test
+    @DisplayName("测试篡改 - 修改任意字节或使用其他密钥都校验失败")
+    void testTampered() {
+        FmkToken token = service.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), null);
+        byte[] bytes = Base64.getUrlDecoder().decode(token.getValue().substring(6));
+
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] tampered = bytes.clone();
+            tampered[i] ^= 0x01;
+            FmkToken forged = FmkToken.of("TOKEN_" + Base64.getUrlEncoder().withoutPadding().encodeToString(tampered));
+            assertFalse(service.validateToken(forged), "第 " + i + " 个字节被修改");
+        }
+
+        FmkTokenProperties otherProperties = new FmkTokenProperties();
+        otherProperties.getSigned().setSecret(NEW_SECRET);
+        assertFalse(newService(otherProperties).validateToken(token));
+        assertFalse(service.validateToken(FmkToken.generate()), "非签名格式的 Token 无效");
+        assertFalse(service.validateToken(null));
+        System.out.println("✅ 篡改的 Token 校验失败");
+    }
+
+    @Test
+    @DisplayName("测试过期 - 过期时间已到的 Token 无效")
+    void testExpired() {
+        properties.getSigned().setExpireHours(0);
+        FmkTokenServiceSignedImpl expiredService = newService(properties);
+        FmkToken token = expiredService.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), null);
+
+        assertFalse(expiredService.validateToken(token));
+        assertTrue(expiredService.getUserInfoByToken(token).isEmpty());
+        System.out.println("✅ 过期 Token 无效");
+    }
+
+    @Test
+    @DisplayName("测试撤销 - 单个 Token 撤销和用户所有 Token 撤销")
+    void testRevoke() {
+        FmkUserId userId = FmkUserId.of(7);
+        FmkToken first = service.createAndSaveToken(new FmkUserInfo(userId, "李四"), null);
+        FmkToken second = service.createAndSaveToken(new FmkUserInfo(userId, "李四"), null);
+        FmkToken other = service.createAndSaveToken(new FmkUserInfo(FmkUserId.of(8), "王五"), null);
+
+        assertTrue(service.revokeToken(first));
+        assertFalse(service.revokeToken(first), "重复撤销返回 false");
+        assertFalse(service.validateToken(first));
+        assertTrue(service.validateToken(second));
+
+        service.revokeAllUserTokens(userId);
+        assertFalse(service.validateToken(second));
+        assertTrue(service.validateToken(other), "其他用户不受影响");
+
+        FmkToken afterRevoke = service.createAndSaveToken(new FmkUserInfo(userId, "李四"), null);
+        assertTrue(service.validateToken(afterRevoke), "注销后重新登录的 Token 有效");
+        service.revokeAllUserTokens(userId);
+        assertFalse(service.validateToken(afterRevoke), "再次注销仍然生效");
+        System.out.println("✅ 撤销 Token");
+    }
+
+    @Test
+    @DisplayName("测试换发 - 新 Token 有效，旧 Token 撤销")
+    void testReissue() {
+        FmkToken token = service.createAndSaveToken(new FmkUserInfo(FmkUserId.of(9), "周八"), null);
+
+        assertTrue(service.refreshToken(token));
+        FmkToken newToken = service.reissueToken(token).orElseThrow();
+
+        assertTrue(service.validateToken(newToken));
+        assertFalse(service.validateToken(token));
+        assertEquals("周八", service.getUserInfoByToken(newToken).orElseThrow().getUserName());
+        System.out.println("✅ 换发 Token");
+    }
+
+    @Test
+    @DisplayName("测试密钥轮换 - 上一个版本的 Token 在轮换期间仍然有效")
+    void testKeyRotation() {
+        FmkToken oldToken = service.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), null);
+
+        FmkTokenProperties rotated = new FmkTokenProperties();
+        rotated.getSigned().setSecret(NEW_SECRET);
+        rotated.getSigned().setKeyVersion(2);
+        rotated.getSigned().setPreviousSecret(SECRET);
+        FmkTokenServiceSignedImpl rotatedService = newService(rotated);
+        FmkToken newToken = rotatedService.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), null);
+
+        assertTrue(rotatedService.validateToken(oldToken));
+        assertTrue(rotatedService.validateToken(newToken));
+        assertFalse(service.validateToken(newToken), "旧实例不认识新版本");
+
+        rotated.getSigned().setPreviousSecret(null);
+        assertFalse(newService(rotated).validateToken(oldToken), "轮换结束后旧版本失效");
+        System.out.println("✅ 密钥轮换");
+    }
+
+    @Test
+    @DisplayName("测试密钥版本回绕 - 版本 0 的上一个版本是 255")
+    void testKeyVersionWrap() {
+        properties.getSigned().setKeyVersion(255);
+        FmkToken oldToken = newService(properties).createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), null);
+
+        FmkTokenProperties rotated = new FmkTokenProperties();
+        rotated.getSigned().setSecret(NEW_SECRET);
+        rotated.getSigned().setKeyVersion(0);
+        rotated.getSigned().setPreviousSecret(SECRET);
+        FmkTokenServiceSignedImpl rotatedService = newService(rotated);
+
+        assertTrue(rotatedService.validateToken(oldToken), "版本 255 的 Token 用上一个密钥校验");
+        assertTrue(rotatedService.validateToken(rotatedService.createAndSaveToken(new FmkUserInfo(FmkUserId.of(1), "张三"), null)));
+        System.out.println("✅ 密钥版本回绕");
+    }
+
+    @Test
+    @DisplayName("测试本实例查询 - 用户最近签发的 Token 和客户端信息，撤销后查不到")
+    void testLocalLookup() {
+        FmkUserId userId = FmkUserId.of(1);
+        FmkClientInfo clientInfo = new FmkClientInfo();
+        clientInfo.setIpAddress("10.0.0.1");
+        FmkToken token = service.createAndSaveToken(new FmkUserInfo(userId, "张三"), clientInfo);
+
+        assertEquals(token, service.getTokenByUserId(userId).orElseThrow());
+        assertEquals("10.0.0.1", service.getClientInfoByToken(token).orElseThrow().getIpAddress());
+        assertTrue(newService(properties).getTokenByUserId(userId).isEmpty(), "其他实例查不到");
+
+        FmkToken newToken = service.reissueToken(token).orElseThrow();
+        assertEquals(newToken, service.getTokenByUserId(userId).orElseThrow());
+        assertEquals("10.0.0.1", service.getClientInfoByToken(newToken).orElseThrow().getIpAddress(), "重新签发保留客户端信息");
+        assertTrue(service.getClientInfoByToken(token).isEmpty());
+
+        service.revokeAllUserTokens(userId);
+        assertTrue(service.getTokenByUserId(userId).isEmpty());
+        assertTrue(service.getClientInfoByToken(newToken).isEmpty());
+        System.out.println("✅ 本实例查询");
+    }
+
+    @Test
+    @DisplayName("测试配置校验 - 密钥过短启动失败")
+    void testShortSecret() {
+        FmkTokenProperties invalid = new FmkTokenProperties();
+        invalid.getSigned().setSecret("short");
+        assertThrows(RuntimeException.class, () -> newService(invalid));
+        System.out.println("✅ 密钥过短启动失败");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 签名 Token 与内存存储的校验耗时")
+    void testPerformance() {
+        FmkTokenServiceMemoryImpl memoryService = new FmkTokenServiceMemoryImpl();
+        memoryService.setTokenProperties(new FmkTokenProperties());
+
+        int users = 1000;
+        int iterations = 1_000_000;
+        FmkToken[] signedTokens = new FmkToken[users];
+        FmkToken[] memoryTokens = new FmkToken[users];
+        for (int i = 0; i < users; i++) {
+            signedTokens[i] = service.createAndSaveToken(new FmkUserInfo(FmkUserId.of(i + 1), "user" + i), null);
+            memoryTokens[i] = memoryService.createAndSaveToken(new FmkUserInfo(FmkUserId.of(i + 1), "user" + i), null);
+        }
+
+        // 预热
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(service.getUserInfoByToken(signedTokens[i % users]).isPresent());
+            assertTrue(memoryService.getUserInfoByToken(memoryTokens[i % users]).isPresent());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            service.getUserInfoByToken(signedTokens[i % users]);
+        }
+        long signedNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            memoryService.getUserInfoByToken(memoryTokens[i % users]);
+        }
+        long memoryNanos = System.nanoTime() - start;
+
+        System.out.printf("校验 %d 次：签名 Token %.0fns/次，内存存储 %.0fns/次%n",
+                iterations, (double) signedNanos / iterations, (double) memoryNanos / iterations);
+        System.out.println("✅ 签名 Token 每次校验只有一次本地 HMAC，没有存储访问");
+    }
+
+    private static FmkTokenServiceSignedImpl newService(FmkTokenProperties properties) {
+        FmkTokenServiceSignedImpl service = new FmkTokenServiceSignedImpl();
+        service.setTokenProperties(properties);
+        return service;
+    }
+}
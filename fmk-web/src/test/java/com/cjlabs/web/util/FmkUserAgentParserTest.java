@@ -0,0 +1,259 @@
+package com.cjlabs.web.util;
+
+import com.cjlabs.web.threadlocal.FmkClientInfo;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkUserAgentParser 测试类
+ * 以原来的正则实现为基准，用 UA 语料和随机变异的 UA 校验解析结果完全一致
+ */
+@DisplayName("FmkUserAgentParser User-Agent 解析测试")
+class FmkUserAgentParserTest {
+
+    private static List<String> corpus;
+
+    @BeforeAll
+    static void loadCorpus() throws IOException {
+        corpus = new ArrayList<>();
+        try (InputStream in = FmkUserAgentParserTest.class.getResourceAsStream("/useragent/user-agents.txt")) {
+            assertNotNull(in, "缺少 UA 语料文件");
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    corpus.add(line);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试常见 UA - 操作系统、浏览器和版本")
+    void testCommonUserAgents() {
+        assertParsed("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36 Edg/120.0.2210.91",
+                "Windows 10/11", "Edge", "120.0.2210.91");
+        assertParsed("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Safari/605.1.15",
+                "macOS 10.15.7", "Safari", "17.2");
+        assertParsed("Mozilla/5.0 (iPhone; CPU iPhone OS 17_2 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Mobile/15E148 Safari/604.1",
+                "iOS 17.2", "Safari", "17.2");
+        assertParsed("Mozilla/5.0 (Linux; Android 14; Pixel 8) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.6099.144 Mobile Safari/537.36",
+                "Android 14", "Chrome", "120.0.6099.144");
+        assertParsed("Mozilla/5.0 (X11; Ubuntu; Linux x86_64; rv:121.0) Gecko/20100101 Firefox/121.0",
+                "Linux", "Firefox", "121.0");
+        assertParsed("curl/8.4.0", "Unknown", "Unknown", "Unknown");
+        System.out.println("✅ 常见 UA 解析正确");
+    }
+
+    @Test
+    @DisplayName("测试语料 - 与原正则实现结果完全一致")
+    void testCorpusMatchesLegacy() {
+        for (String userAgent : corpus) {
+            assertSameAsLegacy(userAgent);
+        }
+        System.out.println("✅ " + corpus.size() + " 条语料与正则实现一致");
+    }
+
+    @Test
+    @DisplayName("测试随机变异 - 大小写、截断、拼接后仍与原正则实现一致")
+    void testMutationsMatchLegacy() {
+        Random random = new Random(20240101);
+        String[] fragments = {"Android ", "OS ", "Windows NT ", "Mac OS X ", "Linux", "Unix", "Chrome/", "Firefox/",
+                "Version/", "Safari", "Edg/", "Edge/", "Ed/", "Ede/", "1", "2.0", "_3", ".", "_", " ", "/", "x"};
+        int cases = 100_000;
+        for (int n = 0; n < cases; n++) {
+            StringBuilder sb = new StringBuilder();
+            if (random.nextBoolean()) {
+                String base = corpus.get(random.nextInt(corpus.size()));
+                int from = random.nextInt(base.length());
+                sb.append(base, from, from + random.nextInt(base.length() - from + 1));
+            }
+            int pieces = random.nextInt(8);
+            for (int i = 0; i < pieces; i++) {
+                sb.insert(random.nextInt(sb.length() + 1), fragments[random.nextInt(fragments.length)]);
+            }
+            for (int i = 0; i < sb.length(); i++) {
+                if (random.nextInt(10) == 0) {
+                    char c = sb.charAt(i);
+                    sb.setCharAt(i, Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+                }
+            }
+            assertSameAsLegacy(sb.toString());
+        }
+        System.out.println("✅ " + cases + " 条随机 UA 与正则实现一致");
+    }
+
+    @Test
+    @DisplayName("测试缓存 - 相同 UA 共享解析结果，缓存有上限，超长 UA 不缓存")
+    void testCache() {
+        FmkUserAgentParser parser = new FmkUserAgentParser(100);
+        String userAgent = corpus.get(0);
+
+        FmkUserAgentParser.UserAgentInfo first = parser.parse(userAgent);
+        assertSame(first, parser.parse(new String(userAgent.toCharArray())), "相同 UA 返回同一个结果");
+
+        for (int i = 0; i < 10_000; i++) {
+            parser.parse(userAgent + " build/" + i);
+        }
+        FmkUserAgentParser.UserAgentInfo ignored = parser.parse("x".repeat(600) + " Chrome/1.0");
+        assertEquals("Chrome", ignored.getBrowser());
+        assertTrue(parser.cacheSize() <= 100, "缓存数量有上限: " + parser.cacheSize());
+
+        FmkClientInfo clientInfo = new FmkClientInfo();
+        ClientInfoUtil.parseUserAgent(userAgent, clientInfo);
+        assertEquals(userAgent, clientInfo.getUserAgent());
+        assertEquals(first.getOperatingSystem(), clientInfo.getOperatingSystem());
+        assertEquals(first.getBrowserVersion(), clientInfo.getBrowserVersion());
+        System.out.println("✅ 缓存有界");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 正则实现、单次扫描、单次扫描 + 缓存")
+    void testPerformance() {
+        int iterations = 200_000;
+        FmkUserAgentParser cached = new FmkUserAgentParser(4096);
+        long blackhole = 0;
+
+        // 预热
+        for (int i = 0; i < 50_000; i++) {
+            String userAgent = corpus.get(i % corpus.size());
+            blackhole += legacy(userAgent).length();
+            blackhole += FmkUserAgentParser.doParse(userAgent).getBrowser().length();
+            blackhole += cached.parse(userAgent).getBrowser().length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += legacy(corpus.get(i % corpus.size())).length();
+        }
+        long legacyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += FmkUserAgentParser.doParse(corpus.get(i % corpus.size())).getBrowser().length();
+        }
+        long scanNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += cached.parse(corpus.get(i % corpus.size())).getBrowser().length();
+        }
+        long cachedNanos = System.nanoTime() - start;
+
+        assertTrue(blackhole > 0);
+        assertTrue(cachedNanos < legacyNanos);
+        System.out.printf("解析 %d 次：正则 %dms，单次扫描 %dms，单次扫描+缓存 %dms%n", iterations,
+                TimeUnit.NANOSECONDS.toMillis(legacyNanos),
+                TimeUnit.NANOSECONDS.toMillis(scanNanos),
+                TimeUnit.NANOSECONDS.toMillis(cachedNanos));
+        System.out.println("✅ User-Agent 解析性能测试完成");
+    }
+
+    private static void assertParsed(String userAgent, String os, String browser, String version) {
+        FmkUserAgentParser.UserAgentInfo info = FmkUserAgentParser.doParse(userAgent);
+        assertEquals(os, info.getOperatingSystem());
+        assertEquals(browser, info.getBrowser());
+        assertEquals(version, info.getBrowserVersion());
+    }
+
+    private static void assertSameAsLegacy(String userAgent) {
+        assertEquals(legacy(userAgent), FmkUserAgentParser.doParse(userAgent).toString(), () -> "UA: " + userAgent);
+    }
+
+    // ==================== 原正则实现（基准） ====================
+
+    private static final Pattern CHROME_PATTERN = Pattern.compile("Chrome/([\\d.]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FIREFOX_PATTERN = Pattern.compile("Firefox/([\\d.]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SAFARI_PATTERN = Pattern.compile("Version/([\\d.]+).*Safari", Pattern.CASE_INSENSITIVE);
+    private static final Pattern EDGE_PATTERN = Pattern.compile("Edg?(?:e)?/([\\d.]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ANDROID_PATTERN = Pattern.compile("Android ([\\d.]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern IOS_PATTERN = Pattern.compile("OS ([\\d_]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WINDOWS_PATTERN = Pattern.compile("Windows NT ([\\d.]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MAC_PATTERN = Pattern.compile("Mac OS X ([\\d_]+)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 原实现的解析结果，格式与 UserAgentInfo.toString 一致
+     */
+    private static String legacy(String userAgent) {
+        return legacyOperatingSystem(userAgent) + "|" + legacyBrowser(userAgent);
+    }
+
+    private static String legacyOperatingSystem(String userAgent) {
+        Matcher matcher = ANDROID_PATTERN.matcher(userAgent);
+        if (matcher.find()) {
+            return "Android " + matcher.group(1);
+        }
+        matcher = IOS_PATTERN.matcher(userAgent);
+        if (matcher.find()) {
+            return "iOS " + matcher.group(1).replace("_", ".");
+        }
+        matcher = WINDOWS_PATTERN.matcher(userAgent);
+        if (matcher.find()) {
+            return "Windows " + legacyWindowsVersion(matcher.group(1));
+        }
+        matcher = MAC_PATTERN.matcher(userAgent);
+        if (matcher.find()) {
+            return "macOS " + matcher.group(1).replace("_", ".");
+        }
+        if (userAgent.toLowerCase().contains("linux")) {
+            return "Linux";
+        }
+        if (userAgent.toLowerCase().contains("unix")) {
+            return "Unix";
+        }
+        return "Unknown";
+    }
+
+    private static String legacyBrowser(String userAgent) {
+        Matcher matcher = EDGE_PATTERN.matcher(userAgent);
+        if (matcher.find()) {
+            return "Edge|" + matcher.group(1);
+        }
+        matcher = CHROME_PATTERN.matcher(userAgent);
+        if (matcher.find()) {
+            return "Chrome|" + matcher.group(1);
+        }
+        matcher = FIREFOX_PATTERN.matcher(userAgent);
+        if (matcher.find()) {
+            return "Firefox|" + matcher.group(1);
+        }
+        matcher = SAFARI_PATTERN.matcher(userAgent);
+        if (matcher.find()) {
+            return "Safari|" + matcher.group(1);
+        }
+        return "Unknown|Unknown";
+    }
+
+    private static String legacyWindowsVersion(String ntVersion) {
+        switch (ntVersion) {
+            case "10.0":
+                return "10/11";
+            case "6.3":
+                return "8.1";
+            case "6.2":
+                return "8";
+            case "6.1":
+                return "7";
+            case "6.0":
+                return "Vista";
+            case "5.1":
+                return "XP";
+            case "5.0":
+                return "2000";
+            default:
+                return ntVersion;
+        }
+    }
+}
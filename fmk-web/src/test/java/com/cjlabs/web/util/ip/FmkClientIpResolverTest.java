@@ -0,0 +1,188 @@
+package com.cjlabs.web.util.ip;
+
+import com.cjlabs.web.util.ClientInfoUtil;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkClientIpResolver 和 FmkCidrTrie 测试类
+ */
+@DisplayName("FmkClientIpResolver 客户端 IP 解析测试")
+class FmkClientIpResolverTest {
+
+    private final FmkClientIpResolver resolver = new FmkClientIpResolver(new FmkClientIpProperties());
+
+    @Test
+    @DisplayName("测试前缀树 - IPv4、IPv6 网段和单个地址")
+    void testCidrTrie() {
+        FmkCidrTrie trie = FmkCidrTrie.of(List.of("10.0.0.0/8", "192.168.1.0/24", "203.0.113.7", "2001:db8::/32", "::1/128"));
+
+        assertTrue(trie.contains(FmkIpAddress.parse("10.255.0.1")));
+        assertTrue(trie.contains(FmkIpAddress.parse("192.168.1.200")));
+        assertFalse(trie.contains(FmkIpAddress.parse("192.168.2.1")));
+        assertTrue(trie.contains(FmkIpAddress.parse("203.0.113.7")));
+        assertFalse(trie.contains(FmkIpAddress.parse("203.0.113.8")));
+        assertTrue(trie.contains(FmkIpAddress.parse("2001:db8:1::1")));
+        assertFalse(trie.contains(FmkIpAddress.parse("2001:db9::1")));
+        assertTrue(trie.contains(FmkIpAddress.parse("::1")));
+        assertTrue(trie.contains(FmkIpAddress.parse("::ffff:10.1.1.1")), "IPv4-mapped 按 IPv4 匹配");
+        assertFalse(trie.contains(null));
+
+        FmkCidrTrie all = FmkCidrTrie.of(List.of("0.0.0.0/0"));
+        assertTrue(all.contains(FmkIpAddress.parse("1.2.3.4")));
+        assertFalse(all.contains(FmkIpAddress.parse("2001:db8::1")), "IPv4 网段不包含 IPv6");
+
+        trie.add("10.1.0.0/16");
+        assertEquals(5, trie.size(), "被更短网段覆盖的不计");
+
+        for (String invalid : new String[]{"10.0.0.0/33", "::/129", "10.0.0.0/", "10.0.0.0/a", "abc", " "}) {
+            assertThrows(RuntimeException.class, () -> FmkCidrTrie.of(List.of(invalid)), invalid);
+        }
+        System.out.println("✅ 前缀树匹配正确");
+    }
+
+    @Test
+    @DisplayName("测试前缀树 - 随机网段与逐位比较结果一致")
+    void testCidrTrieRandom() {
+        Random random = new Random(7);
+        int cidrCount = 200;
+        long[] networks = new long[cidrCount];
+        int[] prefixes = new int[cidrCount];
+        FmkCidrTrie trie = new FmkCidrTrie();
+        for (int i = 0; i < cidrCount; i++) {
+            networks[i] = random.nextInt() & 0xffffffffL;
+            prefixes[i] = 8 + random.nextInt(25);
+            trie.add(FmkIpAddress.ofIpv4((int) networks[i]), prefixes[i] + 96);
+        }
+        for (int n = 0; n < 100_000; n++) {
+            // 一半取自已有网段附近，一半完全随机
+            long ip = random.nextBoolean()
+                    ? (networks[random.nextInt(cidrCount)] ^ (random.nextInt(1 << 12))) & 0xffffffffL
+                    : random.nextInt() & 0xffffffffL;
+            boolean expected = false;
+            for (int i = 0; i < cidrCount && !expected; i++) {
+                long mask = (0xffffffffL << (32 - prefixes[i])) & 0xffffffffL;
+                expected = (ip & mask) == (networks[i] & mask);
+            }
+            assertEquals(expected, trie.contains(FmkIpAddress.ofIpv4((int) ip)));
+        }
+        System.out.println("✅ 随机网段匹配正确");
+    }
+
+    @Test
+    @DisplayName("测试直接连接 - 不可信的地址不读取代理头")
+    void testUntrustedRemote() {
+        assertEquals("203.0.113.7", resolve("203.0.113.7", Map.of("X-Forwarded-For", "1.1.1.1")), "伪造的代理头被忽略");
+        assertEquals("203.0.113.7", resolve("203.0.113.7", Map.of()));
+        System.out.println("✅ 直接连接不读取代理头");
+    }
+
+    @Test
+    @DisplayName("测试可信代理 - 从右往左取第一个不可信的地址")
+    void testTrustedProxyChain() {
+        assertEquals("203.0.113.7", resolve("10.0.0.1", Map.of("X-Forwarded-For", "203.0.113.7")));
+        assertEquals("198.51.100.2", resolve("10.0.0.1", Map.of("X-Forwarded-For", "1.1.1.1, 198.51.100.2, 10.0.0.2")),
+                "客户端伪造的最左边地址被忽略");
+        assertEquals("192.168.1.5", resolve("10.0.0.1", Map.of("X-Forwarded-For", "192.168.1.5,10.0.0.2")),
+                "全部可信时取最左边的地址");
+        assertEquals("10.0.0.2", resolve("10.0.0.1", Map.of("X-Forwarded-For", "unknown, 10.0.0.2")),
+                "遇到非法地址停止");
+        assertEquals("2001:db8::1", resolve("::1", Map.of("X-Forwarded-For", "[2001:db8::1]:443")));
+        assertEquals("203.0.113.7", resolve("127.0.0.1", Map.of("X-Forwarded-For", " 203.0.113.7:51234 ")));
+        assertEquals("203.0.113.9", resolve("10.0.0.1", Map.of("X-Real-IP", "203.0.113.9")));
+        assertEquals("203.0.113.9", resolve("10.0.0.1", Map.of("X-Forwarded-For", "garbage", "X-Real-IP", "203.0.113.9")),
+                "第一个代理头没有有效地址时读取下一个");
+        assertEquals("10.0.0.1", resolve("10.0.0.1", Map.of("X-Forwarded-For", ",,")));
+        System.out.println("✅ 可信代理链解析正确");
+    }
+
+    @Test
+    @DisplayName("测试 ClientInfoUtil - 使用配置的解析器")
+    void testClientInfoUtil() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("X-Forwarded-For", "203.0.113.7");
+        assertEquals("203.0.113.7", ClientInfoUtil.getClientIp(request));
+
+        request.setRemoteAddr("unix:/tmp/app.sock");
+        request.removeHeader("X-Forwarded-For");
+        assertEquals("unix:/tmp/app.sock", ClientInfoUtil.getClientIp(request), "非 IP 的 remoteAddr 原样返回");
+        assertEquals("unknown", ClientInfoUtil.getClientIp(null));
+
+        ClientInfoUtil.setClientIpResolver(new FmkClientIpResolver(List.of(), List.of("X-Forwarded-For")));
+        try {
+            request.setRemoteAddr("10.0.0.1");
+            request.addHeader("X-Forwarded-For", "203.0.113.7");
+            assertEquals("10.0.0.1", ClientInfoUtil.getClientIp(request), "没有可信代理时不读取代理头");
+        } finally {
+            ClientInfoUtil.setClientIpResolver(new FmkClientIpResolver(new FmkClientIpProperties()));
+        }
+        System.out.println("✅ ClientInfoUtil 使用配置的解析器");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 前缀树解析与原正则实现")
+    void testPerformance() {
+        String chain = "198.51.100.2, 172.16.5.4, 10.0.0.2";
+        Map<String, String> headers = Map.of("X-Forwarded-For", chain);
+        int iterations = 1_000_000;
+        long blackhole = 0;
+
+        for (int i = 0; i < 200_000; i++) {
+            blackhole += legacyResolve("10.0.0.1", headers).length();
+            blackhole += resolver.resolve("10.0.0.1", headers::get).getLow();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += legacyResolve("10.0.0.1", headers).length();
+        }
+        long legacyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += resolver.resolve("10.0.0.1", headers::get).getLow();
+        }
+        long resolverNanos = System.nanoTime() - start;
+
+        assertTrue(blackhole != 0);
+        System.out.printf("%d 次：原实现（11 个代理头 + 正则）%dms，可信代理前缀树 %dms%n", iterations,
+                TimeUnit.NANOSECONDS.toMillis(legacyNanos), TimeUnit.NANOSECONDS.toMillis(resolverNanos));
+        System.out.println("✅ 客户端 IP 解析性能测试完成");
+    }
+
+    private String resolve(String remoteAddr, Map<String, String> headers) {
+        FmkIpAddress address = resolver.resolve(remoteAddr, headers::get);
+        return address == null ? null : address.toString();
+    }
+
+    /**
+     * 原实现：按顺序读取 11 个代理头，取第一个逗号之前的地址，用正则校验
+     */
+    private static String legacyResolve(String remoteAddr, Map<String, String> headers) {
+        String[] proxyHeaders = {"X-Forwarded-For", "X-Real-IP", "X-Original-Forwarded-For", "Proxy-Client-IP",
+                "WL-Proxy-Client-IP", "HTTP_X_FORWARDED_FOR", "HTTP_X_FORWARDED", "HTTP_X_CLUSTER_CLIENT_IP",
+                "HTTP_CLIENT_IP", "HTTP_FORWARDED_FOR", "HTTP_FORWARDED"};
+        for (String header : proxyHeaders) {
+            String value = headers.get(header);
+            if (value == null || value.isBlank() || "unknown".equalsIgnoreCase(value)) {
+                continue;
+            }
+            int index = value.indexOf(",");
+            String ip = index != -1 ? value.substring(0, index).trim() : value.trim();
+            if (ip.matches("^[\\d.:a-fA-F]+$") && !ip.equals("0.0.0.0") && !ip.equals("127.0.0.1")) {
+                return ip;
+            }
+        }
+        return remoteAddr;
+    }
+}
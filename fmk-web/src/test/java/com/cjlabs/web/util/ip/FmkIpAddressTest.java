@@ -0,0 +1,181 @@
+package com.cjlabs.web.util.ip;
+
+import com.google.common.net.InetAddresses;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FmkIpAddress 测试类
+ * 以 Guava InetAddresses 为基准校验解析结果和输出格式
+ */
+@DisplayName("FmkIpAddress IP 地址解析测试")
+class FmkIpAddressTest {
+
+    @Test
+    @DisplayName("测试 IPv4 - 合法和非法格式")
+    void testIpv4() {
+        assertEquals("192.168.1.1", FmkIpAddress.parse("192.168.1.1").toString());
+        assertEquals("0.0.0.0", FmkIpAddress.parse("0.0.0.0").toString());
+        assertEquals("255.255.255.255", FmkIpAddress.parse("255.255.255.255").toString());
+        assertTrue(FmkIpAddress.parse("8.8.8.8").isIpv4());
+        assertTrue(FmkIpAddress.parse("127.1.2.3").isLoopback());
+        assertTrue(FmkIpAddress.parse("0.0.0.0").isUnspecified());
+
+        for (String invalid : new String[]{"", "1.2.3", "1.2.3.4.5", "256.1.1.1", "01.2.3.4", "1..2.3", "1.2.3.4.",
+                ".1.2.3.4", "1.2.3.a", "1234.1.1.1", " 1.2.3.4", "unknown"}) {
+            assertNull(FmkIpAddress.parse(invalid), invalid);
+        }
+        System.out.println("✅ IPv4 解析正确");
+    }
+
+    @Test
+    @DisplayName("测试 IPv6 - 压缩、内嵌 IPv4、zone 和 RFC 5952 输出")
+    void testIpv6() {
+        assertEquals("2001:db8::1", FmkIpAddress.parse("2001:0DB8:0000:0000:0000:0000:0000:0001").toString());
+        assertEquals("::", FmkIpAddress.parse("::").toString());
+        assertEquals("::1", FmkIpAddress.parse("::1").toString());
+        assertEquals("1::", FmkIpAddress.parse("1::").toString());
+        assertEquals("1:0:0:2::3", FmkIpAddress.parse("1:0:0:2:0:0:0:3").toString(), "压缩最长的连续 0 段");
+        assertEquals("1:0:2:3:4:5:6:7", FmkIpAddress.parse("1:0:2:3:4:5:6:7").toString(), "单个 0 段不压缩");
+        assertEquals("fe80::1", FmkIpAddress.parse("fe80::1%eth0").toString());
+        assertTrue(FmkIpAddress.parse("::1").isLoopback());
+
+        FmkIpAddress mapped = FmkIpAddress.parse("::ffff:10.1.2.3");
+        assertTrue(mapped.isIpv4(), "IPv4-mapped 视为 IPv4");
+        assertEquals(FmkIpAddress.parse("10.1.2.3"), mapped);
+        assertEquals("::102:304", FmkIpAddress.parse("::1.2.3.4").toString());
+
+        for (String invalid : new String[]{":", ":1", "1:", ":::", "1:::2", "1::2::3", "1:2:3:4:5:6:7:8:9",
+                "1:2:3:4:5:6:7", "12345::", "g::1", "1.2.3.4::", "::1.2.3", "1:2:3:4:5:6:7::1.2.3.4", "fe80::1%"}) {
+            assertNull(FmkIpAddress.parse(invalid), invalid);
+        }
+        System.out.println("✅ IPv6 解析正确");
+    }
+
+    @Test
+    @DisplayName("测试范围解析 - 只解析 [from, to) 不需要 substring")
+    void testParseRange() {
+        String chain = "203.0.113.7, 2001:db8::5 ,10.0.0.1";
+        assertEquals("203.0.113.7", FmkIpAddress.parse(chain, 0, 11).toString());
+        assertEquals("2001:db8::5", FmkIpAddress.parse(chain, 13, 24).toString());
+        assertEquals("10.0.0.1", FmkIpAddress.parse(chain, 26, chain.length()).toString());
+        assertNull(FmkIpAddress.parse(chain, 0, 12));
+        assertNull(FmkIpAddress.parse(chain, 5, 5));
+        System.out.println("✅ 范围解析正确");
+    }
+
+    @Test
+    @DisplayName("测试随机输入 - 与 Guava InetAddresses 结果一致")
+    void testFuzzAgainstGuava() {
+        Random random = new Random(20240615);
+        char[] alphabet = "0123456789abcdefABCDEFgx.:::...".toCharArray();
+        int cases = 300_000;
+        int valid = 0;
+        for (int n = 0; n < cases; n++) {
+            String text;
+            switch (random.nextInt(3)) {
+                case 0 -> text = randomString(random, alphabet, 1 + random.nextInt(40));
+                case 1 -> text = mutate(random, randomIpv4(random), alphabet);
+                default -> text = mutate(random, randomIpv6(random), alphabet);
+            }
+
+            FmkIpAddress address = FmkIpAddress.parse(text);
+            boolean expected = InetAddresses.isInetAddress(text);
+            assertEquals(expected, address != null, () -> "输入: " + text);
+            if (address != null) {
+                valid++;
+                assertEquals(InetAddresses.toAddrString(InetAddresses.forString(text)), address.toString(), () -> "输入: " + text);
+                assertEquals(address, FmkIpAddress.parse(address.toString()), "输出可以重新解析");
+            }
+        }
+        System.out.println("✅ " + cases + " 条随机输入与 Guava 一致，其中合法地址 " + valid + " 条");
+    }
+
+    @Test
+    @DisplayName("性能测试 - 手写解析与正则校验、Guava 解析")
+    void testPerformance() {
+        String[] inputs = {"192.168.1.100", "203.0.113.7", "2001:db8:85a3::8a2e:370:7334", "::ffff:10.0.0.1", "unknown", "8.8.8.8"};
+        int iterations = 1_000_000;
+        long blackhole = 0;
+
+        for (int i = 0; i < 200_000; i++) {
+            String input = inputs[i % inputs.length];
+            blackhole += input.matches("^[\\d.:a-fA-F]+$") ? 1 : 0;
+            blackhole += FmkIpAddress.parse(input) != null ? 1 : 0;
+            blackhole += InetAddresses.isInetAddress(input) ? 1 : 0;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += inputs[i % inputs.length].matches("^[\\d.:a-fA-F]+$") ? 1 : 0;
+        }
+        long regexNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += InetAddresses.isInetAddress(inputs[i % inputs.length]) ? 1 : 0;
+        }
+        long guavaNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += FmkIpAddress.parse(inputs[i % inputs.length]) != null ? 1 : 0;
+        }
+        long parseNanos = System.nanoTime() - start;
+
+        assertTrue(blackhole > 0);
+        System.out.printf("%d 次：正则校验 %dms，Guava 解析 %dms，FmkIpAddress 解析 %dms%n", iterations,
+                TimeUnit.NANOSECONDS.toMillis(regexNanos),
+                TimeUnit.NANOSECONDS.toMillis(guavaNanos),
+                TimeUnit.NANOSECONDS.toMillis(parseNanos));
+        System.out.println("✅ IP 解析性能测试完成");
+    }
+
+    private static String randomString(Random random, char[] alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String randomIpv4(Random random) {
+        return random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+    }
+
+    private static String randomIpv6(Random random) {
+        FmkIpAddress address = FmkIpAddress.ofIpv6(random.nextInt(4) == 0 ? 0 : random.nextLong(),
+                random.nextInt(4) == 0 ? random.nextInt(3) : random.nextLong());
+        String text = address.toString();
+        if (random.nextInt(4) == 0 && !address.isIpv4()) {
+            // 展开为完整形式或者使用内嵌 IPv4
+            text = random.nextBoolean()
+                    ? InetAddresses.forString(text).getHostAddress().replace("%0", "")
+                    : text.substring(0, text.lastIndexOf(':') + 1) + randomIpv4(random);
+        }
+        return text;
+    }
+
+    /**
+     * 随机删除、替换或插入一个字符
+     */
+    private static String mutate(Random random, String text, char[] alphabet) {
+        if (random.nextBoolean() || text.isEmpty()) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text);
+        int index = random.nextInt(sb.length());
+        switch (random.nextInt(3)) {
+            case 0 -> sb.deleteCharAt(index);
+            case 1 -> sb.setCharAt(index, alphabet[random.nextInt(alphabet.length)]);
+            default -> sb.insert(index, alphabet[random.nextInt(alphabet.length)]);
+        }
+        return sb.toString();
+    }
+}